@@ -0,0 +1,75 @@
+package com.mandrel.file_storage_service.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mandrel.file_storage_service.FileStorageServiceApplication;
+import com.mandrel.file_storage_service.service.FileStorageService;
+import com.mandrel.file_storage_service.service.FileUploadService;
+
+/**
+ * The application without its web layer, started once per fork: services,
+ * repositories, caches, metrics aspect and a private in-memory H2 database,
+ * configured as in production apart from SQL logging. The local backend,
+ * cold tier and upload sessions write to a private temporary directory, which
+ * is removed again when the fork ends; the working directory is not touched.
+ */
+@State(Scope.Benchmark)
+public class ApplicationState {
+
+    private Path directory;
+    private ConfigurableApplicationContext context;
+
+    @Setup(Level.Trial)
+    public void start() throws IOException {
+        directory = Files.createTempDirectory("file-storage-bench-");
+        context = new SpringApplicationBuilder(FileStorageServiceApplication.class)
+                .web(WebApplicationType.NONE)
+                // Arguments rather than default properties, which application.properties would override.
+                .run("--spring.datasource.url=jdbc:h2:mem:bench-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN",
+                        "--file-storage.local.directory=" + directory.resolve("uploaded-files"),
+                        "--file-storage.upload-sessions.directory=" + directory.resolve("upload-sessions"));
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() throws IOException {
+        context.close();
+        deleteDirectory(directory);
+    }
+
+    public FileStorageService memory() {
+        return context.getBean(FileStorageService.class);
+    }
+
+    public FileUploadService local() {
+        return context.getBean(FileUploadService.class);
+    }
+
+    public ObjectMapper objectMapper() {
+        return context.getBean(ObjectMapper.class);
+    }
+
+    private static void deleteDirectory(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.mandrel.file_storage_service.benchmark;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.mandrel.file_storage_service.model.BatchUploadResult;
+import com.mandrel.file_storage_service.model.StoredFileDto;
+import com.mandrel.file_storage_service.model.StoredFileMetadataDto;
+
+/**
+ * Construction of the DTOs built once per listed or returned file. The inputs
+ * are fields, not constants, so the JIT cannot fold the builders away.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DtoBenchmark {
+
+    private Long id = 42L;
+    private String filename = "report-2024.pdf";
+    private String contentType = "application/pdf";
+    private Long size = 123_456L;
+    private LocalDateTime uploadDate = LocalDateTime.of(2024, 5, 1, 12, 0);
+    private String checksum = "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08";
+    private byte[] content = new byte[1024];
+
+    @Benchmark
+    public StoredFileMetadataDto metadataDto() {
+        return StoredFileMetadataDto.builder()
+                .id(id)
+                .filename(filename)
+                .contentType(contentType)
+                .size(size)
+                .uploadDate(uploadDate)
+                .checksum(checksum)
+                .build();
+    }
+
+    @Benchmark
+    public StoredFileDto fileDto() {
+        return StoredFileDto.builder()
+                .id(id)
+                .filename(filename)
+                .contentType(contentType)
+                .size(size)
+                .uploadDate(uploadDate)
+                .content(content)
+                .build();
+    }
+
+    @Benchmark
+    public BatchUploadResult batchUploadResult() {
+        return BatchUploadResult.stored(metadataDto());
+    }
+}
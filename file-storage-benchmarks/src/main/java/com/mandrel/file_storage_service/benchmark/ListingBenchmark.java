@@ -0,0 +1,91 @@
+package com.mandrel.file_storage_service.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.ByteArrayResource;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mandrel.file_storage_service.model.StoredFileDto;
+import com.mandrel.file_storage_service.model.StoredFileMetadataDto;
+import com.mandrel.file_storage_service.model.StoredFileUpload;
+import com.mandrel.file_storage_service.service.FileStorageService;
+import com.mandrel.file_storage_service.service.FileUploadService;
+
+/**
+ * Full listings of both backends, and their JSON serialization with the
+ * application's own {@link ObjectMapper} on its own, so the query and the
+ * encoding can be told apart.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ListingBenchmark {
+
+    private static final int BATCH = 500;
+
+    @Param({"100", "1000", "10000"})
+    private int files;
+
+    private FileStorageService memory;
+    private FileUploadService local;
+    private ObjectMapper objectMapper;
+    private List<StoredFileMetadataDto> memoryListing;
+    private List<StoredFileDto> localListing;
+
+    @Setup(Level.Trial)
+    public void setUp(ApplicationState application) {
+        memory = application.memory();
+        local = application.local();
+        objectMapper = application.objectMapper();
+        List<StoredFileUpload> batch = new ArrayList<>(BATCH);
+        for (int i = 0; i < files; i++) {
+            batch.add(new StoredFileUpload("file-" + i + ".txt", "text/plain",
+                    new ByteArrayResource(("content of file " + i).getBytes())));
+            if (batch.size() == BATCH || i == files - 1) {
+                memory.storeAll(batch);
+                local.storeAll(batch);
+                batch.clear();
+            }
+        }
+        memoryListing = memory.listAll();
+        localListing = local.listAll();
+    }
+
+    @Benchmark
+    public List<StoredFileMetadataDto> memoryListAll() {
+        return memory.listAll();
+    }
+
+    @Benchmark
+    public List<StoredFileDto> localListAll() {
+        return local.listAll();
+    }
+
+    @Benchmark
+    public byte[] memoryListingToJson() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(memoryListing);
+    }
+
+    @Benchmark
+    public byte[] localListingToJson() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(localListing);
+    }
+}
@@ -0,0 +1,64 @@
+package com.mandrel.file_storage_service.benchmark;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.ByteArrayResource;
+
+import com.mandrel.file_storage_service.model.StoredFileDto;
+import com.mandrel.file_storage_service.model.StoredFileMetadataDto;
+import com.mandrel.file_storage_service.model.StoredFileUpload;
+import com.mandrel.file_storage_service.service.FileUploadService;
+
+/**
+ * The filesystem backend: the streaming upload path (temp file, checksum,
+ * content sniffing, rename, index journal) and a whole-file read. Each store
+ * replaces the same file, so disk use stays at one copy per size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class LocalStorageBenchmark {
+
+    @Param({"1024", "65536", "1048576", "16777216", "104857600"})
+    private int size;
+
+    private FileUploadService service;
+    private StoredFileUpload upload;
+    private String readName;
+
+    @Setup(Level.Trial)
+    public void setUp(ApplicationState application) {
+        service = application.local();
+        byte[] payload = Payloads.of(size);
+        upload = new StoredFileUpload("write-" + size + ".bin", "application/octet-stream",
+                new ByteArrayResource(payload));
+        readName = "read-" + size + ".bin";
+        service.store(new StoredFileUpload(readName, "application/octet-stream", new ByteArrayResource(payload)));
+    }
+
+    @Benchmark
+    public StoredFileMetadataDto store() {
+        return service.store(upload);
+    }
+
+    @Benchmark
+    public Optional<StoredFileDto> getFileByFilename() {
+        return service.getFileByFilename(readName);
+    }
+}
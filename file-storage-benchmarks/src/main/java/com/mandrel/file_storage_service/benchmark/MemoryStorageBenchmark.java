@@ -0,0 +1,77 @@
+package com.mandrel.file_storage_service.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.mandrel.file_storage_service.model.StoredFileDto;
+import com.mandrel.file_storage_service.model.StoredFileMetadataDto;
+import com.mandrel.file_storage_service.service.FileStorageService;
+
+/**
+ * The H2 backend: streaming a file into the blob table and reading it back
+ * whole. Every stored payload differs in its first bytes, so blob
+ * de-duplication never short-cuts the write, and is deleted again after the
+ * call so the database does not grow. Files up to the read cache's size limit
+ * are served from the cache after the first read, as in production.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class MemoryStorageBenchmark {
+
+    @Param({"1024", "65536", "1048576", "16777216", "104857600"})
+    private int size;
+
+    private FileStorageService service;
+    private byte[] payload;
+    private Long readId;
+    private Long storedId;
+    private long generation;
+
+    @Setup(Level.Trial)
+    public void setUp(ApplicationState application) {
+        service = application.memory();
+        payload = Payloads.of(size);
+        readId = service.store("read.bin", "application/octet-stream", new ByteArrayInputStream(payload)).getId();
+    }
+
+    @TearDown(Level.Invocation)
+    public void deleteStored() {
+        if (storedId != null) {
+            service.deleteById(storedId);
+            storedId = null;
+        }
+    }
+
+    @Benchmark
+    public StoredFileMetadataDto store() {
+        Payloads.stamp(payload, ++generation);
+        StoredFileMetadataDto stored = service.store("write.bin", "application/octet-stream",
+                new ByteArrayInputStream(payload));
+        storedId = stored.getId();
+        return stored;
+    }
+
+    @Benchmark
+    public Optional<StoredFileDto> getFileById() {
+        return service.getFileById(readId);
+    }
+}
@@ -0,0 +1,32 @@
+package com.mandrel.file_storage_service.benchmark;
+
+import java.util.SplittableRandom;
+
+/**
+ * Benchmark file contents: pseudo-random, so neither compression nor
+ * de-duplication flatters the numbers, and the same for every run.
+ */
+final class Payloads {
+
+    private Payloads() {
+    }
+
+    static byte[] of(int size) {
+        byte[] payload = new byte[size];
+        SplittableRandom random = new SplittableRandom(size);
+        for (int i = 0; i < size; i++) {
+            payload[i] = (byte) random.nextInt(256);
+        }
+        return payload;
+    }
+
+    /**
+     * Makes {@code payload} distinct from earlier generations by overwriting its
+     * first eight bytes.
+     */
+    static void stamp(byte[] payload, long generation) {
+        for (int i = 0; i < Math.min(Long.BYTES, payload.length); i++) {
+            payload[i] = (byte) (generation >>> (8 * i));
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.mandrel.file_storage_service.loadtest;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Keys of the files currently stored on one backend (ids for memory,
+ * filenames for local), so downloads and deletes target files that exist.
+ */
+class FilePool {
+
+    private final List<String> keys = new ArrayList<>();
+    // Downloads in flight per key; take() leaves these keys alone.
+    private final Map<String, Integer> reading = new HashMap<>();
+
+    synchronized void add(String key) {
+        keys.add(key);
+    }
+
+    /**
+     * Returns a random key for a download, which must {@link #release} it once
+     * the response is in so the key can be deleted again.
+     */
+    synchronized Optional<String> pick() {
+        if (keys.isEmpty()) {
+            return Optional.empty();
+        }
+        String key = keys.get(ThreadLocalRandom.current().nextInt(keys.size()));
+        reading.merge(key, 1, Integer::sum);
+        return Optional.of(key);
+    }
+
+    synchronized void release(String key) {
+        reading.computeIfPresent(key, (k, n) -> n == 1 ? null : n - 1);
+    }
+
+    /**
+     * Removes and returns a random key that no download is reading, so no other
+     * thread downloads or deletes it afterwards. Empty when every key is being
+     * read.
+     */
+    synchronized Optional<String> take() {
+        int size = keys.size();
+        int start = size == 0 ? 0 : ThreadLocalRandom.current().nextInt(size);
+        for (int n = 0; n < size; n++) {
+            int i = (start + n) % size;
+            String key = keys.get(i);
+            if (!reading.containsKey(key)) {
+                keys.set(i, keys.get(size - 1));
+                keys.remove(size - 1);
+                return Optional.of(key);
+            }
+        }
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,163 @@
+package com.mandrel.file_storage_service.loadtest;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Latencies of the measured part of a run, in microseconds, one histogram per
+ * operation (all backends together) plus one across every request. Failed
+ * requests are timed too and counted separately.
+ */
+public class LoadReport {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(10);
+
+    private final LoadTestConfig config;
+    private final Map<Operation, Histogram> latencies = new EnumMap<>(Operation.class);
+    private final Map<Operation, AtomicLong> errors = new EnumMap<>(Operation.class);
+    private final Histogram total = histogram();
+    private Duration elapsed = Duration.ZERO;
+
+    LoadReport(LoadTestConfig config) {
+        this.config = config;
+        for (Operation operation : Operation.values()) {
+            latencies.put(operation, histogram());
+            errors.put(operation, new AtomicLong());
+        }
+    }
+
+    void record(Operation operation, long latencyNanos, boolean failed) {
+        long micros = Math.min(HIGHEST_TRACKABLE_MICROS, Math.max(1, TimeUnit.NANOSECONDS.toMicros(latencyNanos)));
+        latencies.get(operation).recordValue(micros);
+        total.recordValue(micros);
+        if (failed) {
+            errors.get(operation).incrementAndGet();
+        }
+    }
+
+    void setElapsed(Duration elapsed) {
+        this.elapsed = elapsed;
+    }
+
+    public long getCount(Operation operation) {
+        return latencies.get(operation).getTotalCount();
+    }
+
+    public long getErrors(Operation operation) {
+        return errors.get(operation).get();
+    }
+
+    public long getTotalCount() {
+        return total.getTotalCount();
+    }
+
+    public double getThroughput() {
+        double seconds = elapsed.toNanos() / 1e9;
+        return seconds > 0 ? total.getTotalCount() / seconds : 0;
+    }
+
+    public double getErrorRate() {
+        long count = total.getTotalCount();
+        return count == 0 ? 0 : errors.values().stream().mapToLong(AtomicLong::get).sum() / (double) count;
+    }
+
+    /** Every threshold the run missed; empty if it passed. */
+    public List<String> getFailures() {
+        List<String> failures = new ArrayList<>();
+        if (total.getTotalCount() == 0) {
+            failures.add("no requests completed");
+            return failures;
+        }
+        if (getThroughput() < config.getMinThroughput()) {
+            failures.add(String.format(Locale.ROOT, "throughput %.1f req/s < %.1f", getThroughput(),
+                    config.getMinThroughput()));
+        }
+        if (getErrorRate() > config.getMaxErrorRate()) {
+            failures.add(String.format(Locale.ROOT, "error rate %.4f > %.4f", getErrorRate(), config.getMaxErrorRate()));
+        }
+        for (Operation operation : Operation.values()) {
+            Histogram histogram = latencies.get(operation);
+            if (histogram.getTotalCount() == 0) {
+                continue;
+            }
+            checkPercentile(failures, operation, histogram, 99.0, config.getMaxP99());
+            checkPercentile(failures, operation, histogram, 99.9, config.getMaxP999());
+        }
+        return failures;
+    }
+
+    public boolean passed() {
+        return getFailures().isEmpty();
+    }
+
+    void print(PrintStream out) {
+        out.printf(Locale.ROOT, "%n%d requests in %.1f s: %.1f req/s, error rate %.4f%n", getTotalCount(),
+                elapsed.toNanos() / 1e9, getThroughput(), getErrorRate());
+        out.printf(Locale.ROOT, "%-10s %9s %7s %10s %10s %10s %10s%n", "operation", "count", "errors",
+                "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (Operation operation : Operation.values()) {
+            printRow(out, operation.label(), latencies.get(operation), getErrors(operation));
+        }
+        printRow(out, "all", total, errors.values().stream().mapToLong(AtomicLong::get).sum());
+        List<String> failures = getFailures();
+        if (failures.isEmpty()) {
+            out.println("PASS");
+        } else {
+            failures.forEach(failure -> out.println("FAIL: " + failure));
+        }
+    }
+
+    /**
+     * Writes each histogram's full percentile distribution, in milliseconds,
+     * as {@code <operation>.hgrm} (plotable with HdrHistogram's plotter).
+     */
+    void writeHistograms(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        for (Operation operation : Operation.values()) {
+            write(directory.resolve(operation.label() + ".hgrm"), latencies.get(operation));
+        }
+        write(directory.resolve("all.hgrm"), total);
+    }
+
+    private static void write(Path file, Histogram histogram) throws IOException {
+        try (PrintStream out = new PrintStream(Files.newOutputStream(file), false, "UTF-8")) {
+            histogram.outputPercentileDistribution(out, 1000.0);
+        }
+    }
+
+    private static void printRow(PrintStream out, String label, Histogram histogram, long errors) {
+        out.printf(Locale.ROOT, "%-10s %9d %7d %10.2f %10.2f %10.2f %10.2f%n", label, histogram.getTotalCount(),
+                errors, millis(histogram, 50.0), millis(histogram, 99.0), millis(histogram, 99.9),
+                histogram.getMaxValue() / 1000.0);
+    }
+
+    private static void checkPercentile(List<String> failures, Operation operation, Histogram histogram,
+            double percentile, Duration limit) {
+        long micros = histogram.getValueAtPercentile(percentile);
+        if (micros > TimeUnit.NANOSECONDS.toMicros(limit.toNanos())) {
+            failures.add(String.format(Locale.ROOT, "%s p%s %.2f ms > %d ms", operation.label(),
+                    percentile == 99.0 ? "99" : "99.9", micros / 1000.0, limit.toMillis()));
+        }
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    private static Histogram histogram() {
+        return new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+    }
+}
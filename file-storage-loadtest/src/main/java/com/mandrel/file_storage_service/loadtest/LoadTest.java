@@ -0,0 +1,174 @@
+package com.mandrel.file_storage_service.loadtest;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.mandrel.file_storage_service.FileStorageServiceApplication;
+
+/**
+ * HTTP load test of the storage endpoints: starts the application on a random
+ * port, storing files in a temporary directory removed afterwards (unless
+ * {@code baseUrl} is given), seeds each backend with files, then
+ * runs {@code concurrency} client threads issuing a weighted mix of uploads,
+ * downloads, listings and deletes for {@code warmup + duration}. Only requests
+ * started after the warmup are measured. Prints throughput and p50/p99/p99.9
+ * latency per operation, writes the HdrHistogram distributions under
+ * {@code output}, and exits with status 1 if a threshold is missed. See
+ * {@link LoadTestConfig} for the options.
+ * <p>
+ * With {@code rate} set, each thread sends on a fixed schedule and latency is
+ * measured from when a request should have started, so a stalled server is
+ * charged for the requests it held up (coordinated omission).
+ */
+public final class LoadTest {
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadReport report = run(LoadTestConfig.fromArgs(args));
+        System.exit(report.passed() ? 0 : 1);
+    }
+
+    public static LoadReport run(LoadTestConfig config) throws Exception {
+        if (config.getBaseUrl() != null) {
+            return run(config, config.getBaseUrl());
+        }
+        Path directory = Files.createTempDirectory("file-storage-loadtest-");
+        try (ConfigurableApplicationContext context = start(config, directory)) {
+            return run(config, "http://localhost:" + context.getEnvironment().getProperty("local.server.port"));
+        } finally {
+            deleteDirectory(directory);
+        }
+    }
+
+    private static LoadReport run(LoadTestConfig config, String baseUrl) throws Exception {
+        StorageClient client = new StorageClient(baseUrl, (int) config.getFileSize().toBytes(), config.getBackends());
+        for (String backend : config.getBackends()) {
+            for (int i = 0; i < config.getSeedFiles(); i++) {
+                client.upload(backend);
+            }
+        }
+        System.out.printf("Load test against %s: %d threads, %s warmup, %s measured%n", baseUrl,
+                config.getConcurrency(), config.getWarmup(), config.getDuration());
+
+        LoadReport report = new LoadReport(config);
+        Operation[] schedule = schedule(config.getMix());
+        long start = System.nanoTime();
+        long measureFrom = start + config.getWarmup().toNanos();
+        long end = measureFrom + config.getDuration().toNanos();
+        long interval = config.getRate() > 0 ? (long) (config.getConcurrency() * 1e9 / config.getRate()) : 0;
+
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < config.getConcurrency(); t++) {
+            // Stagger paced threads so their requests are spread over the interval.
+            long firstStart = start + (interval * t) / config.getConcurrency();
+            Thread worker = new Thread(() -> work(client, config.getBackends(), schedule, report, firstStart,
+                    interval, measureFrom, end), "loadtest-" + t);
+            workers.add(worker);
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        report.setElapsed(Duration.ofNanos(Math.min(System.nanoTime(), end) - measureFrom));
+
+        report.print(System.out);
+        report.writeHistograms(config.getOutput());
+        System.out.println("Percentile distributions written to " + config.getOutput().toAbsolutePath());
+        return report;
+    }
+
+    private static void work(StorageClient client, List<String> backends, Operation[] schedule, LoadReport report,
+            long firstStart, long interval, long measureFrom, long end) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long intended = firstStart;
+        while (true) {
+            long now = System.nanoTime();
+            if (interval > 0) {
+                if (intended - now > 0) {
+                    LockSupport.parkNanos(intended - now);
+                }
+            } else {
+                intended = now;
+            }
+            if (intended - end >= 0) {
+                return;
+            }
+            Operation operation = schedule[random.nextInt(schedule.length)];
+            String backend = backends.get(random.nextInt(backends.size()));
+            Operation performed = operation;
+            boolean failed;
+            try {
+                StorageClient.Result result = client.execute(operation, backend);
+                performed = result.operation();
+                failed = result.failed();
+            } catch (IOException e) {
+                failed = true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (intended - measureFrom >= 0) {
+                report.record(performed, System.nanoTime() - intended, failed);
+            }
+            intended += interval;
+        }
+    }
+
+    /** One slot per unit of weight, so a uniform pick follows the mix. */
+    private static Operation[] schedule(Map<Operation, Integer> mix) {
+        List<Operation> slots = new ArrayList<>();
+        mix.forEach((operation, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                slots.add(operation);
+            }
+        });
+        return slots.toArray(Operation[]::new);
+    }
+
+    /**
+     * Starts the application with the given {@code --} arguments, adding a
+     * random port, a private H2 database, local and upload-session directories
+     * under {@code directory} and quiet logging unless they are given. These are
+     * passed as arguments because default properties would lose to
+     * {@code application.properties}.
+     */
+    private static ConfigurableApplicationContext start(LoadTestConfig config, Path directory) {
+        List<String> args = new ArrayList<>(config.getApplicationArgs());
+        addUnlessGiven(args, "server.port", "0");
+        addUnlessGiven(args, "spring.datasource.url", "jdbc:h2:mem:loadtest-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        addUnlessGiven(args, "file-storage.local.directory", directory.resolve("uploaded-files").toString());
+        addUnlessGiven(args, "file-storage.upload-sessions.directory", directory.resolve("upload-sessions").toString());
+        addUnlessGiven(args, "spring.jpa.show-sql", "false");
+        addUnlessGiven(args, "logging.level.root", "WARN");
+        return new SpringApplicationBuilder(FileStorageServiceApplication.class).run(args.toArray(String[]::new));
+    }
+
+    private static void addUnlessGiven(List<String> args, String key, String value) {
+        if (args.stream().noneMatch(arg -> arg.startsWith("--" + key + "="))) {
+            args.add("--" + key + "=" + value);
+        }
+    }
+
+    private static void deleteDirectory(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+}
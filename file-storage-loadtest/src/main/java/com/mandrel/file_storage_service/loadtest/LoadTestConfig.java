@@ -0,0 +1,168 @@
+package com.mandrel.file_storage_service.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Load-test settings, given as {@code key=value} arguments; anything starting
+ * with {@code --} is passed to the embedded application instead, e.g.
+ * {@code --spring.threads.virtual.enabled=true}.
+ * <table>
+ * <caption>Keys</caption>
+ * <tr><td>{@code baseUrl}</td><td>server to test; by default the application is started on a random port</td></tr>
+ * <tr><td>{@code duration}, {@code warmup}</td><td>measured run and unmeasured lead-in ({@code 30s}, {@code 5s})</td></tr>
+ * <tr><td>{@code concurrency}</td><td>client threads, one connection each ({@code 32})</td></tr>
+ * <tr><td>{@code rate}</td><td>target requests per second across all threads; {@code 0} runs closed-loop,
+ * otherwise latency is measured from each request's scheduled start ({@code 0})</td></tr>
+ * <tr><td>{@code mix}</td><td>operation weights ({@code upload:20,download:60,list:15,delete:5})</td></tr>
+ * <tr><td>{@code backends}</td><td>{@code memory}, {@code local} or both ({@code memory,local})</td></tr>
+ * <tr><td>{@code fileSize}, {@code seedFiles}</td><td>upload size and files uploaded per backend before
+ * the run ({@code 64KB}, {@code 50})</td></tr>
+ * <tr><td>{@code minThroughput}</td><td>requests per second the run must reach ({@code 0})</td></tr>
+ * <tr><td>{@code maxP99}, {@code maxP999}</td><td>latency ceilings for every operation ({@code 500ms}, {@code 2s})</td></tr>
+ * <tr><td>{@code maxErrorRate}</td><td>share of failed requests allowed ({@code 0.01})</td></tr>
+ * <tr><td>{@code output}</td><td>directory for the {@code .hgrm} percentile files ({@code target/loadtest})</td></tr>
+ * </table>
+ */
+public class LoadTestConfig {
+
+    private String baseUrl;
+    private Duration duration = Duration.ofSeconds(30);
+    private Duration warmup = Duration.ofSeconds(5);
+    private int concurrency = 32;
+    private double rate;
+    private Map<Operation, Integer> mix = parseMix("upload:20,download:60,list:15,delete:5");
+    private List<String> backends = List.of("memory", "local");
+    private DataSize fileSize = DataSize.ofKilobytes(64);
+    private int seedFiles = 50;
+    private double minThroughput;
+    private Duration maxP99 = Duration.ofMillis(500);
+    private Duration maxP999 = Duration.ofSeconds(2);
+    private double maxErrorRate = 0.01;
+    private Path output = Path.of("target", "loadtest");
+    private final List<String> applicationArgs = new ArrayList<>();
+
+    public static LoadTestConfig fromArgs(String... args) {
+        LoadTestConfig config = new LoadTestConfig();
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (arg.isBlank()) {
+                continue;
+            }
+            if (arg.startsWith("--")) {
+                config.applicationArgs.add(arg);
+                continue;
+            }
+            int eq = arg.indexOf('=');
+            if (eq <= 0) {
+                throw new IllegalArgumentException("Expected key=value, got: " + arg);
+            }
+            options.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+        options.forEach(config::set);
+        return config;
+    }
+
+    private void set(String key, String value) {
+        switch (key) {
+            case "baseUrl" -> baseUrl = value.endsWith("/") ? value.substring(0, value.length() - 1) : value;
+            case "duration" -> duration = DurationStyle.detectAndParse(value);
+            case "warmup" -> warmup = DurationStyle.detectAndParse(value);
+            case "concurrency" -> concurrency = Integer.parseInt(value);
+            case "rate" -> rate = Double.parseDouble(value);
+            case "mix" -> mix = parseMix(value);
+            case "backends" -> backends = List.of(value.split(","));
+            case "fileSize" -> fileSize = DataSize.parse(value);
+            case "seedFiles" -> seedFiles = Integer.parseInt(value);
+            case "minThroughput" -> minThroughput = Double.parseDouble(value);
+            case "maxP99" -> maxP99 = DurationStyle.detectAndParse(value);
+            case "maxP999" -> maxP999 = DurationStyle.detectAndParse(value);
+            case "maxErrorRate" -> maxErrorRate = Double.parseDouble(value);
+            case "output" -> output = Path.of(value);
+            default -> throw new IllegalArgumentException("Unknown option: " + key);
+        }
+    }
+
+    private static Map<Operation, Integer> parseMix(String value) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String entry : value.split(",")) {
+            String[] parts = entry.split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Expected operation:weight, got: " + entry);
+            }
+            weights.put(Operation.fromLabel(parts[0]), Integer.parseInt(parts[1].trim()));
+        }
+        if (weights.values().stream().mapToInt(Integer::intValue).sum() <= 0) {
+            throw new IllegalArgumentException("The mix needs at least one positive weight: " + value);
+        }
+        return weights;
+    }
+
+    public String getBaseUrl() {
+        return baseUrl;
+    }
+
+    public Duration getDuration() {
+        return duration;
+    }
+
+    public Duration getWarmup() {
+        return warmup;
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    public double getRate() {
+        return rate;
+    }
+
+    public Map<Operation, Integer> getMix() {
+        return mix;
+    }
+
+    public List<String> getBackends() {
+        return backends;
+    }
+
+    public DataSize getFileSize() {
+        return fileSize;
+    }
+
+    public int getSeedFiles() {
+        return seedFiles;
+    }
+
+    public double getMinThroughput() {
+        return minThroughput;
+    }
+
+    public Duration getMaxP99() {
+        return maxP99;
+    }
+
+    public Duration getMaxP999() {
+        return maxP999;
+    }
+
+    public double getMaxErrorRate() {
+        return maxErrorRate;
+    }
+
+    public Path getOutput() {
+        return output;
+    }
+
+    public List<String> getApplicationArgs() {
+        return applicationArgs;
+    }
+}
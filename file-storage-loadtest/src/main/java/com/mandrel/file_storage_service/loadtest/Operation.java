@@ -0,0 +1,25 @@
+package com.mandrel.file_storage_service.loadtest;
+
+import java.util.Locale;
+
+/**
+ * What a load-test request does; each one is timed in its own histogram.
+ */
+public enum Operation {
+    /** Multipart {@code POST /files/{backend}/save}. */
+    UPLOAD,
+    /** {@code GET /files/{backend}/{id or filename}} of a previously uploaded file. */
+    DOWNLOAD,
+    /** {@code GET /files/{backend}?limit=100}, the first page of the listing. */
+    LIST,
+    /** {@code DELETE /files/{backend}/{id or filename}} of a previously uploaded file. */
+    DELETE;
+
+    public String label() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    public static Operation fromLabel(String label) {
+        return valueOf(label.trim().toUpperCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,118 @@
+package com.mandrel.file_storage_service.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Issues the load-test requests against one server over a shared
+ * {@link HttpClient}, which keeps a keep-alive connection per concurrent
+ * request. Uploads are real multipart bodies of {@code fileSize} bytes, each
+ * starting with a unique 8-byte stamp so no two files have the same content.
+ */
+class StorageClient {
+
+    private static final String BOUNDARY = "----file-storage-loadtest";
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    private final HttpClient client;
+    private final String baseUrl;
+    private final byte[] payload;
+    private final Map<String, FilePool> pools;
+    private final AtomicLong uploads = new AtomicLong();
+    private final String runId = Long.toString(System.currentTimeMillis(), 36);
+
+    StorageClient(String baseUrl, int fileSize, List<String> backends) {
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(TIMEOUT)
+                .build();
+        this.baseUrl = baseUrl;
+        this.payload = new byte[Math.max(0, fileSize - Long.BYTES)];
+        new Random(42).nextBytes(payload);
+        this.pools = backends.stream().collect(Collectors.toMap(b -> b, b -> new FilePool()));
+    }
+
+    /**
+     * Performs {@code operation} on {@code backend}. Downloads and deletes
+     * upload instead while the backend has no files they may touch, so the
+     * result names the operation actually performed.
+     */
+    Result execute(Operation operation, String backend) throws IOException, InterruptedException {
+        FilePool pool = pools.get(backend);
+        return switch (operation) {
+            case UPLOAD -> upload(backend);
+            case LIST -> new Result(Operation.LIST, send(HttpRequest.newBuilder(uri("/files/" + backend + "?limit=100"))));
+            case DOWNLOAD -> {
+                Optional<String> key = pool.pick();
+                if (key.isEmpty()) {
+                    yield upload(backend);
+                }
+                try {
+                    yield new Result(Operation.DOWNLOAD, send(HttpRequest.newBuilder(uri(path(backend, key.get())))));
+                } finally {
+                    pool.release(key.get());
+                }
+            }
+            case DELETE -> {
+                Optional<String> key = pool.take();
+                yield key.isEmpty() ? upload(backend)
+                        : new Result(Operation.DELETE, send(HttpRequest.newBuilder(uri(path(backend, key.get()))).DELETE()));
+            }
+        };
+    }
+
+    Result upload(String backend) throws IOException, InterruptedException {
+        long n = uploads.incrementAndGet();
+        String filename = "lt-" + runId + "-" + n + ".bin";
+        byte[] head = ("--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"" + filename + "\"\r\n"
+                + "Content-Type: application/octet-stream\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+        byte[] stamp = ByteBuffer.allocate(Long.BYTES).putLong(n).array();
+        byte[] tail = ("\r\n--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+        HttpRequest request = HttpRequest.newBuilder(uri("/files/" + backend + "/save"))
+                .timeout(TIMEOUT)
+                .header("Content-Type", "multipart/form-data; boundary=" + BOUNDARY)
+                .POST(HttpRequest.BodyPublishers.ofByteArrays(List.of(head, stamp, payload, tail)))
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() == 200) {
+            // Memory uploads answer "Stored file with ID: <id>"; local files are addressed by name.
+            String body = response.body();
+            pools.get(backend).add("memory".equals(backend) ? body.substring(body.lastIndexOf(' ') + 1) : filename);
+        }
+        return new Result(Operation.UPLOAD, response.statusCode());
+    }
+
+    private int send(HttpRequest.Builder request) throws IOException, InterruptedException {
+        return client.send(request.timeout(TIMEOUT).build(), HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private static String path(String backend, String key) {
+        return "/files/" + backend + "/" + URLEncoder.encode(key, StandardCharsets.UTF_8);
+    }
+
+    private URI uri(String path) {
+        return URI.create(baseUrl + path);
+    }
+
+    /** The operation performed and its HTTP status. */
+    record Result(Operation operation, int status) {
+
+        boolean failed() {
+            return status < 200 || status >= 300;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.mandrel.file_storage_service.loadtest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * A few seconds of load on an embedded server, enough to exercise every
+ * operation on both backends and the report.
+ */
+class LoadTestSmokeTest {
+
+    @TempDir
+    Path output;
+
+    @Test
+    void short_run_exercises_every_operation_and_meets_default_thresholds() throws Exception {
+        LoadReport report = LoadTest.run(LoadTestConfig.fromArgs("duration=3s", "warmup=1s", "concurrency=4",
+                "fileSize=4KB", "seedFiles=5", "maxP99=2s", "maxP999=5s", "output=" + output));
+
+        assertThat(report.getFailures()).isEmpty();
+        for (Operation operation : Operation.values()) {
+            assertThat(report.getCount(operation)).as(operation.label()).isPositive();
+            assertThat(report.getErrors(operation)).as(operation.label()).isZero();
+        }
+        assertThat(report.getThroughput()).isPositive();
+        assertThat(output.resolve("all.hgrm")).isNotEmptyFile();
+        assertThat(Files.readString(output.resolve("download.hgrm"))).contains("Percentile");
+    }
+}
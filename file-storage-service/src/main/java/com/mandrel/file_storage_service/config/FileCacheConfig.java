@@ -0,0 +1,32 @@
+package com.mandrel.file_storage_service.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mandrel.file_storage_service.model.CachedStoredFile;
+import com.mandrel.file_storage_service.service.FileStorageService;
+
+/**
+ * Read cache for the in-memory store. Caffeine bounds it by total bytes rather
+ * than entry count and evicts with W-TinyLFU, so a burst of one-off downloads
+ * cannot push out files that are fetched all the time.
+ */
+@Configuration
+public class FileCacheConfig {
+
+    @Bean
+    public CacheManager cacheManager(@Value("${file-storage.memory.cache.max-bytes:64MB}") DataSize maxBytes) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager(FileStorageService.CONTENT_CACHE);
+        cacheManager.setAllowNullValues(false);
+        cacheManager.setCaffeine(Caffeine.newBuilder()
+                .maximumWeight(maxBytes.toBytes())
+                .weigher((Object key, Object value) -> value instanceof CachedStoredFile file ? file.weight() : 1)
+                .recordStats());
+        return cacheManager;
+    }
+}
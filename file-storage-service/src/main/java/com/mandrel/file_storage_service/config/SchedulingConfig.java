@@ -0,0 +1,12 @@
+package com.mandrel.file_storage_service.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables {@code @Scheduled} housekeeping, such as dropping expired upload sessions.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,74 @@
+package com.mandrel.file_storage_service.controller;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.mandrel.file_storage_service.model.ArchiveRequest;
+import com.mandrel.file_storage_service.model.StorageBackend;
+import com.mandrel.file_storage_service.model.StoredFileMetadataDto;
+import com.mandrel.file_storage_service.service.FileArchiveService;
+
+/**
+ * {@code POST /files/{memory,local}/archive} downloads many files as one ZIP,
+ * selected like a bulk delete: ids (memory) or filenames (local) and/or a
+ * listing filter ({@code contentType}, {@code minSize}, {@code maxSize},
+ * {@code uploadedFrom}, {@code uploadedTo}). The archive is streamed as it is
+ * built, so its size has no bearing on memory use; {@code X-Archive-Entries}
+ * gives the number of files selected.
+ */
+@RestController
+@RequestMapping("/files/{backend}/archive")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class FileArchiveController {
+
+    private static final MediaType APPLICATION_ZIP = MediaType.parseMediaType("application/zip");
+
+    private final FileArchiveService fileArchiveService;
+
+    @Autowired
+    public FileArchiveController(FileArchiveService fileArchiveService) {
+        this.fileArchiveService = fileArchiveService;
+    }
+
+    @PostMapping
+    public ResponseEntity<StreamingResponseBody> downloadArchive(@PathVariable String backend,
+            @RequestBody ArchiveRequest request) {
+        Optional<StorageBackend> target = StorageBackend.fromPath(backend);
+        if (target.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        if (target.get() == StorageBackend.LOCAL && request.getFilenames() != null) {
+            for (String filename : request.getFilenames()) {
+                if (filename == null || filename.contains("..") || filename.contains("/") || filename.contains("\\")) {
+                    return ResponseEntity.badRequest().build();
+                }
+            }
+        }
+        List<StoredFileMetadataDto> files;
+        try {
+            files = fileArchiveService.select(target.get(), request);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        StreamingResponseBody body = out -> fileArchiveService.write(target.get(), files, out);
+        return ResponseEntity.ok()
+                .contentType(APPLICATION_ZIP)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(backend + "-files.zip").build().toString())
+                .header("X-Archive-Entries", String.valueOf(files.size()))
+                .body(body);
+    }
+}
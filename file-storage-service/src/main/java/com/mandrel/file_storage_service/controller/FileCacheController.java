@@ -0,0 +1,49 @@
+package com.mandrel.file_storage_service.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.github.benmanes.caffeine.cache.Policy;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.mandrel.file_storage_service.model.CacheStatsDto;
+import com.mandrel.file_storage_service.service.FileStorageService;
+
+@RestController
+@RequestMapping("/files/memory/cache")
+public class FileCacheController {
+
+    private final CacheManager cacheManager;
+
+    @Autowired
+    public FileCacheController(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<CacheStatsDto> stats() {
+        Cache cache = cacheManager.getCache(FileStorageService.CONTENT_CACHE);
+        if (!(cache instanceof CaffeineCache caffeineCache)) {
+            return ResponseEntity.notFound().build();
+        }
+        com.github.benmanes.caffeine.cache.Cache<Object, Object> nativeCache = caffeineCache.getNativeCache();
+        // Run pending maintenance so the size and eviction figures include recent writes.
+        nativeCache.cleanUp();
+        CacheStats stats = nativeCache.stats();
+        Policy.Eviction<Object, Object> eviction = nativeCache.policy().eviction().orElse(null);
+        return ResponseEntity.ok(new CacheStatsDto(
+                stats.hitCount(),
+                stats.missCount(),
+                stats.hitRate(),
+                stats.evictionCount(),
+                stats.evictionWeight(),
+                nativeCache.estimatedSize(),
+                eviction != null ? eviction.weightedSize().orElse(0L) : 0L,
+                eviction != null ? eviction.getMaximum() : 0L));
+    }
+}
@@ -1,32 +1,48 @@
 package com.mandrel.file_storage_service.controller;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.ByteArrayResource;
 import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.util.unit.DataSize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
-import com.mandrel.file_storage_service.model.StoredFileDto;
+import com.mandrel.file_storage_service.model.BatchUploadResult;
+import com.mandrel.file_storage_service.model.BulkDeleteRequest;
+import com.mandrel.file_storage_service.model.BulkDeleteResult;
+import com.mandrel.file_storage_service.model.FileListQuery;
+import com.mandrel.file_storage_service.model.FilePage;
+import com.mandrel.file_storage_service.model.FileSortField;
+import com.mandrel.file_storage_service.model.StoredFileDownload;
+import com.mandrel.file_storage_service.model.StoredFileMetadataDto;
+import com.mandrel.file_storage_service.model.StoredFileUpload;
 import com.mandrel.file_storage_service.service.FileStorageService;
 
 @RestController
 @RequestMapping("/files/memory")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class FileStorageController {
 
     private final FileStorageService fileStorageService;
@@ -39,22 +55,46 @@ public class FileStorageController {
     }
 
     @GetMapping
-    public List<StoredFileDto> listAllFilesFromMemory() {
-        return fileStorageService.listAll();
+    public ResponseEntity<List<StoredFileMetadataDto>> listAllFilesFromMemory(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String order,
+            @RequestParam(required = false) String contentType,
+            @RequestParam(required = false) Long minSize,
+            @RequestParam(required = false) Long maxSize,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime uploadedFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime uploadedTo) {
+        FilePage<StoredFileMetadataDto> page;
+        try {
+            page = fileStorageService.list(FileListQuery.fromParams(sort, order, cursor, limit, contentType,
+                    minSize, maxSize, uploadedFrom, uploadedTo, FileSortField.ID));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.hasNext()) {
+            String next = ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("cursor", page.getNextCursor())
+                    .build()
+                    .toUriString();
+            response.header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"")
+                    .header("X-Next-Cursor", page.getNextCursor());
+        }
+        return response.body(page.getItems());
     }
 
     @GetMapping("/{id}")
     public ResponseEntity<Resource> downloadFileById(@PathVariable Long id) {
-        Optional<StoredFileDto> response = fileStorageService.getFileById(id);
+        Optional<StoredFileDownload> response = fileStorageService.openDownload(id);
         if (response.isEmpty()) {
             return ResponseEntity.notFound().build();
         }
-        StoredFileDto dto = response.get();
+        StoredFileMetadataDto metadata = response.get().getMetadata();
         return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + dto.getFilename() + "\"")
-                .contentType(MediaType.parseMediaType(dto.getContentType()))
-                .contentLength(dto.getSize())
-                .body(new ByteArrayResource(dto.getContent()));
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + metadata.getFilename() + "\"")
+                .contentType(MediaType.parseMediaType(metadata.getContentType()))
+                .body(response.get().getContent());
     }
 
     @PostMapping("/save")
@@ -66,21 +106,76 @@ public class FileStorageController {
         if (content == null || content.isBlank()) {
             return ResponseEntity.badRequest().body("Content-Type must be provided");
         }
-        DataSize max = (maxFileSizeProperty == null || maxFileSizeProperty.isBlank())
-                ? null
-                : DataSize.parse(maxFileSizeProperty);
+        DataSize max = maxFileSize();
         if (max != null && file.getSize() > max.toBytes()) {
             return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body("File too large");
         }
-        StoredFileDto dto = StoredFileDto.builder()
-                .filename(file.getOriginalFilename())
-                .contentType(file.getContentType())
-                .content(file.getBytes())
-                .build();
-        StoredFileDto saved = fileStorageService.store(dto);
+        StoredFileMetadataDto saved;
+        try (InputStream in = file.getInputStream()) {
+            saved = fileStorageService.store(file.getOriginalFilename(), file.getContentType(), in);
+        }
         return ResponseEntity.ok("Stored file with ID: " + saved.getId());
     }
 
+    /**
+     * Stores several files in one request and one transaction. Files that fail
+     * validation are reported and skipped; if storing fails, nothing is kept and
+     * every accepted file is reported as failed.
+     */
+    @PostMapping("/save/batch")
+    public ResponseEntity<List<BatchUploadResult>> storeFilesInMemory(@RequestParam("files") List<MultipartFile> files) {
+        if (files == null || files.isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        BatchUploadResult[] results = new BatchUploadResult[files.size()];
+        List<StoredFileUpload> accepted = new ArrayList<>(files.size());
+        List<Integer> positions = new ArrayList<>(files.size());
+        DataSize max = maxFileSize();
+        for (int i = 0; i < files.size(); i++) {
+            MultipartFile file = files.get(i);
+            String error = null;
+            if (file.isEmpty()) {
+                error = "File must be provided";
+            } else if (file.getContentType() == null || file.getContentType().isBlank()) {
+                error = "Content-Type must be provided";
+            } else if (max != null && file.getSize() > max.toBytes()) {
+                error = "File too large";
+            }
+            if (error != null) {
+                results[i] = BatchUploadResult.failed(file.getOriginalFilename(), error);
+            } else {
+                accepted.add(new StoredFileUpload(file.getOriginalFilename(), file.getContentType(), file));
+                positions.add(i);
+            }
+        }
+        try {
+            List<StoredFileMetadataDto> saved = fileStorageService.storeAll(accepted);
+            for (int j = 0; j < saved.size(); j++) {
+                results[positions.get(j)] = BatchUploadResult.stored(saved.get(j));
+            }
+        } catch (RuntimeException e) {
+            for (int j = 0; j < accepted.size(); j++) {
+                results[positions.get(j)] = BatchUploadResult.failed(accepted.get(j).getFilename(),
+                        "Batch rolled back: " + e.getMessage());
+            }
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Arrays.asList(results));
+        }
+        return ResponseEntity.ok(Arrays.asList(results));
+    }
+
+    /**
+     * Deletes many files at once, selected by ids and/or a filter
+     * ({@code olderThan}, {@code contentType}).
+     */
+    @PostMapping("/delete")
+    public ResponseEntity<BulkDeleteResult> deleteFiles(@RequestBody BulkDeleteRequest request) {
+        try {
+            return ResponseEntity.ok(new BulkDeleteResult(fileStorageService.deleteMatching(request)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<String> deleteFile(@PathVariable Long id) {
         boolean removed = fileStorageService.deleteById(id);
@@ -90,4 +185,10 @@ public class FileStorageController {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("File not found: " + id);
         }
     }
+
+    private DataSize maxFileSize() {
+        return (maxFileSizeProperty == null || maxFileSizeProperty.isBlank())
+                ? null
+                : DataSize.parse(maxFileSizeProperty);
+    }
 }
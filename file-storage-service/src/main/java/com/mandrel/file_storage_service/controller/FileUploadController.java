@@ -1,42 +1,63 @@
 package com.mandrel.file_storage_service.controller;
 
 import java.io.IOException;
-import java.net.MalformedURLException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.core.io.Resource;
-import org.springframework.core.io.ByteArrayResource;
-import org.springframework.core.io.UrlResource;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.util.unit.DataSize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
-import com.mandrel.file_storage_service.model.StoredFileDto;
+import com.mandrel.file_storage_service.model.BatchUploadResult;
+import com.mandrel.file_storage_service.model.BulkDeleteRequest;
+import com.mandrel.file_storage_service.model.BulkDeleteResult;
+import com.mandrel.file_storage_service.model.CacheStatsDto;
+import com.mandrel.file_storage_service.model.FileListQuery;
+import com.mandrel.file_storage_service.model.FilePage;
+import com.mandrel.file_storage_service.model.FileSortField;
+import com.mandrel.file_storage_service.model.StoredFileDownload;
+import com.mandrel.file_storage_service.model.StoredFileMetadataDto;
+import com.mandrel.file_storage_service.model.StoredFileUpload;
 import com.mandrel.file_storage_service.service.FileUploadService;
 
+import jakarta.servlet.http.HttpServletRequest;
+
 @RestController
 @RequestMapping("/files/local")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class FileUploadController {
 
+    private static final String SENDFILE_SUPPORTED_ATTR = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME_ATTR = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_FILE_START_ATTR = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_FILE_END_ATTR = "org.apache.tomcat.sendfile.end";
+
     private final FileUploadService fileUploadService;
     @Value("${spring.servlet.multipart.max-file-size:}")
     private String maxFileSizeProperty;
+    @Value("${file-storage.local.sendfile:false}")
+    private boolean sendfileEnabled;
 
     @Autowired
     public FileUploadController(FileUploadService fileUploadService) {
@@ -44,60 +65,96 @@ public class FileUploadController {
     }
 
     @GetMapping
-    public List<StoredFileDto> listAllFilesFromLocal() {
-        return fileUploadService.listAll();
+    public ResponseEntity<List<StoredFileMetadataDto>> listAllFilesFromLocal(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String order,
+            @RequestParam(required = false) String contentType,
+            @RequestParam(required = false) Long minSize,
+            @RequestParam(required = false) Long maxSize,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime uploadedFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime uploadedTo) {
+        FilePage<StoredFileMetadataDto> page;
+        try {
+            page = fileUploadService.list(FileListQuery.fromParams(sort, order, cursor, limit, contentType,
+                    minSize, maxSize, uploadedFrom, uploadedTo, FileSortField.FILENAME));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.hasNext()) {
+            String next = ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("cursor", page.getNextCursor())
+                    .build()
+                    .toUriString();
+            response.header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"")
+                    .header("X-Next-Cursor", page.getNextCursor());
+        }
+        return response.body(page.getItems());
+    }
+
+    /**
+     * Counters of the memory-mapped read cache; 404 when it is disabled.
+     */
+    @GetMapping("/cache/stats")
+    public ResponseEntity<CacheStatsDto> mappedCacheStats() {
+        return ResponseEntity.of(fileUploadService.getMappedCacheStats());
     }
 
     @GetMapping("/{filename:.+}")
-    public ResponseEntity<Resource> downloadFileByFilename(@PathVariable String filename) {
+    public ResponseEntity<Resource> downloadFileByFilename(@PathVariable String filename, HttpServletRequest request) {
         // Basic validation to avoid path traversal and invalid names
         if (filename == null || filename.isBlank() || filename.contains("..") || filename.contains("/") || filename.contains("\\")) {
             return ResponseEntity.badRequest().build();
         }
 
-        // First try to load via service (works with tests mocking the service)
-        Optional<StoredFileDto> dtoOpt = fileUploadService.getFileByFilename(filename);
-        if (dtoOpt.isPresent()) {
-            StoredFileDto dto = dtoOpt.get();
-            String contentType = dto.getContentType();
-            if (contentType == null || contentType.isBlank()) {
-                contentType = MediaType.APPLICATION_OCTET_STREAM_VALUE;
-            }
-            long size = dto.getSize() != null ? dto.getSize() : (dto.getContent() != null ? dto.getContent().length : 0);
-            return ResponseEntity.ok()
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
-                    .contentType(MediaType.parseMediaType(contentType))
-                    .contentLength(size)
-                    .body(new ByteArrayResource(dto.getContent()));
+        Optional<StoredFileDownload> download = fileUploadService.openFile(filename);
+        if (download.isEmpty()) {
+            return ResponseEntity.notFound().build();
         }
-
-        // Fallback to filesystem streaming if service did not provide the file
-        Path root = Paths.get("uploaded-files");
-        Path filePath = root.resolve(filename).normalize();
-        if (!filePath.startsWith(root)) {
-            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        StoredFileMetadataDto metadata = download.get().getMetadata();
+        Resource resource = download.get().getContent();
+        String contentType = metadata.getContentType();
+        if (contentType == null || contentType.isBlank()) {
+            contentType = MediaType.APPLICATION_OCTET_STREAM_VALUE;
         }
-        if (!Files.exists(filePath) || !Files.isRegularFile(filePath)) {
-            return ResponseEntity.notFound().build();
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .contentType(MediaType.parseMediaType(contentType));
+
+        if (trySendfile(request, resource, metadata.getSize())) {
+            return response.contentLength(metadata.getSize()).build();
         }
+        return response.body(resource);
+    }
 
+    /**
+     * Hands the file to Tomcat's sendfile support when enabled and the connector
+     * offers it, so the kernel copies it straight to the socket. Only plain
+     * full-body GETs qualify; everything else is streamed from the resource.
+     * <p>
+     * Tomcat opens the file by name after this handler has returned, outside the
+     * name's read lock and past the resource's version check, so an overwrite in
+     * between would be sent under the old metadata. Hence off by default; enable
+     * {@code file-storage.local.sendfile} only where files are never overwritten.
+     */
+    private boolean trySendfile(HttpServletRequest request, Resource resource, long size) {
+        if (!sendfileEnabled
+                || !Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED_ATTR))
+                || !HttpMethod.GET.matches(request.getMethod())
+                || request.getHeader(HttpHeaders.RANGE) != null
+                || !resource.isFile()) {
+            return false;
+        }
         try {
-            Resource resource = new UrlResource(filePath.toUri());
-            String contentType = Files.probeContentType(filePath);
-            if (contentType == null || contentType.isBlank()) {
-                contentType = MediaType.APPLICATION_OCTET_STREAM_VALUE;
-            }
-            long size = Files.size(filePath);
-            return ResponseEntity.ok()
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
-                    .contentType(MediaType.parseMediaType(contentType))
-                    .contentLength(size)
-                    .body(resource);
-        } catch (MalformedURLException e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+            request.setAttribute(SENDFILE_FILENAME_ATTR, resource.getFile().getAbsolutePath());
         } catch (IOException e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+            return false;
         }
+        request.setAttribute(SENDFILE_FILE_START_ATTR, 0L);
+        request.setAttribute(SENDFILE_FILE_END_ATTR, size);
+        return true;
     }
 
     @PostMapping("/save")
@@ -111,7 +168,7 @@ public class FileUploadController {
                 return ResponseEntity.badRequest().body("Filename must be provided");
             }
             // Basic path traversal and separator checks
-            if (originalName.contains("..") || originalName.contains("/") || originalName.contains("\\")) {
+            if (originalName.startsWith(".") || originalName.contains("..") || originalName.contains("/") || originalName.contains("\\")) {
                 return ResponseEntity.badRequest().body("Invalid filename");
             }
             DataSize max = (maxFileSizeProperty == null || maxFileSizeProperty.isBlank())
@@ -120,16 +177,75 @@ public class FileUploadController {
             if (max != null && file.getSize() > max.toBytes()) {
                 return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body("File too large");
             }
-            fileUploadService.store(StoredFileDto.builder()
-                    .filename(originalName)
-                    .content(file.getBytes())
-                    .build());
+            fileUploadService.store(new StoredFileUpload(originalName, file.getContentType(), file));
             return ResponseEntity.ok("File uploaded successfully: " + file.getOriginalFilename());
         } catch (Exception e) {
             return ResponseEntity.status(500).body("Failed to upload file: " + e.getMessage());
         }
     }
 
+    /**
+     * Writes several files in one request. Each file succeeds or fails on its
+     * own and gets its own entry in the response.
+     */
+    @PostMapping("/save/batch")
+    public ResponseEntity<List<BatchUploadResult>> uploadFilesInLocal(@RequestParam("files") List<MultipartFile> files) {
+        if (files == null || files.isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        BatchUploadResult[] results = new BatchUploadResult[files.size()];
+        List<StoredFileUpload> accepted = new ArrayList<>(files.size());
+        List<Integer> positions = new ArrayList<>(files.size());
+        DataSize max = (maxFileSizeProperty == null || maxFileSizeProperty.isBlank())
+                ? null
+                : DataSize.parse(maxFileSizeProperty);
+        for (int i = 0; i < files.size(); i++) {
+            MultipartFile file = files.get(i);
+            String originalName = file.getOriginalFilename();
+            String error = null;
+            if (file.isEmpty()) {
+                error = "File must be provided";
+            } else if (originalName == null || originalName.isBlank()) {
+                error = "Filename must be provided";
+            } else if (originalName.startsWith(".") || originalName.contains("..") || originalName.contains("/") || originalName.contains("\\")) {
+                error = "Invalid filename";
+            } else if (max != null && file.getSize() > max.toBytes()) {
+                error = "File too large";
+            }
+            if (error != null) {
+                results[i] = BatchUploadResult.failed(originalName, error);
+            } else {
+                accepted.add(new StoredFileUpload(originalName, file.getContentType(), file));
+                positions.add(i);
+            }
+        }
+        List<BatchUploadResult> stored = fileUploadService.storeAll(accepted);
+        for (int j = 0; j < stored.size(); j++) {
+            results[positions.get(j)] = stored.get(j);
+        }
+        return ResponseEntity.ok(Arrays.asList(results));
+    }
+
+    /**
+     * Deletes many files at once, selected by filenames and/or a filter
+     * ({@code olderThan}, {@code contentType}).
+     */
+    @PostMapping("/delete")
+    public ResponseEntity<BulkDeleteResult> deleteFiles(@RequestBody BulkDeleteRequest request) {
+        if (request.getFilenames() != null) {
+            for (String filename : request.getFilenames()) {
+                if (filename == null || filename.contains("..") || filename.contains("/") || filename.contains("\\")) {
+                    return ResponseEntity.badRequest().build();
+                }
+            }
+        }
+        try {
+            return ResponseEntity.ok(new BulkDeleteResult(fileUploadService.deleteMatching(request)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @DeleteMapping("/{filename:.+}")
     public ResponseEntity<String> deleteFile(@PathVariable String filename) {
         boolean removed = fileUploadService.deleteByFilename(filename);
@@ -0,0 +1,223 @@
+package com.mandrel.file_storage_service.controller;
+
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.multipart.PartEvent;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import com.mandrel.file_storage_service.model.BulkDeleteRequest;
+import com.mandrel.file_storage_service.model.BulkDeleteResult;
+import com.mandrel.file_storage_service.model.FileListQuery;
+import com.mandrel.file_storage_service.model.FilePage;
+import com.mandrel.file_storage_service.model.FileSortField;
+import com.mandrel.file_storage_service.model.StoredFileMetadataDto;
+import com.mandrel.file_storage_service.service.FileStorageService;
+import com.mandrel.file_storage_service.util.PartEvents;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Reactive variant of {@link FileStorageController}, served instead of it when
+ * the application runs with {@code spring.main.web-application-type=reactive}.
+ * Transfers never block an event-loop thread: an upload is pulled from the
+ * request a few buffers at a time by the JDBC insert that consumes it, and a
+ * download is pushed to the response as fast as the client reads it. The JDBC
+ * work itself runs on the bounded elastic scheduler, so concurrency on this
+ * backend is still capped by the connection pool.
+ * <p>
+ * A download with a single {@code Range} gets that slice as a 206, read from
+ * the blob stream after skipping to its start; several ranges are answered
+ * with the whole file. Batch uploads stay on the servlet API.
+ */
+@RestController
+@RequestMapping("/files/memory")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveFileStorageController {
+
+    // Buffers requested from the request body ahead of the JDBC reader.
+    private static final int UPLOAD_PREFETCH = 4;
+
+    private final FileStorageService fileStorageService;
+    @Value("${spring.servlet.multipart.max-file-size:}")
+    private String maxFileSizeProperty;
+    @Value("${file-storage.memory.download-buffer-size:64KB}")
+    private DataSize downloadBufferSize;
+
+    @Autowired
+    public ReactiveFileStorageController(FileStorageService fileStorageService) {
+        this.fileStorageService = fileStorageService;
+    }
+
+    @GetMapping
+    public Mono<ResponseEntity<List<StoredFileMetadataDto>>> listAllFilesFromMemory(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String order,
+            @RequestParam(required = false) String contentType,
+            @RequestParam(required = false) Long minSize,
+            @RequestParam(required = false) Long maxSize,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime uploadedFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime uploadedTo,
+            ServerHttpRequest request) {
+        return Mono.fromCallable(() -> fileStorageService.list(FileListQuery.fromParams(sort, order, cursor, limit,
+                        contentType, minSize, maxSize, uploadedFrom, uploadedTo, FileSortField.ID)))
+                .subscribeOn(Schedulers.boundedElastic())
+                .map(page -> pageResponse(page, request))
+                .onErrorResume(IllegalArgumentException.class, e -> Mono.just(ResponseEntity.badRequest().build()));
+    }
+
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<Flux<DataBuffer>>> downloadFileById(@PathVariable Long id, ServerHttpRequest request) {
+        List<HttpRange> ranges;
+        try {
+            ranges = request.getHeaders().getRange();
+        } catch (IllegalArgumentException e) {
+            return Mono.just(ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE).build());
+        }
+        return Mono.fromCallable(() -> fileStorageService.openDownload(id))
+                .subscribeOn(Schedulers.boundedElastic())
+                .map(download -> download.map(file -> {
+                    StoredFileMetadataDto metadata = file.getMetadata();
+                    long size = metadata.getSize();
+                    if (ranges.size() != 1) {
+                        return headers(ResponseEntity.ok(), metadata)
+                                .contentLength(size)
+                                .body(read(file.getContent(), 0, size));
+                    }
+                    long start;
+                    long end;
+                    try {
+                        start = ranges.get(0).getRangeStart(size);
+                        end = ranges.get(0).getRangeEnd(size);
+                    } catch (IllegalArgumentException e) {
+                        start = size;
+                        end = size;
+                    }
+                    if (start >= size || end < start) {
+                        return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                                .header(HttpHeaders.CONTENT_RANGE, "bytes */" + size)
+                                .<Flux<DataBuffer>>build();
+                    }
+                    return headers(ResponseEntity.status(HttpStatus.PARTIAL_CONTENT), metadata)
+                            .header(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size)
+                            .contentLength(end - start + 1)
+                            .body(read(file.getContent(), start, end - start + 1));
+                }).orElseGet(() -> ResponseEntity.notFound().build()));
+    }
+
+    /**
+     * Streams the part named {@code file} into the blob table. The insert reads
+     * it through a bounded-demand stream, so at most a few buffers of the upload
+     * are held at any time, whatever its size or the speed of either side.
+     */
+    @PostMapping(value = "/save", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public Mono<ResponseEntity<String>> storeFileInMemory(@RequestBody Flux<PartEvent> parts) {
+        return PartEvents.firstFile(parts, "file", (file, content) -> {
+            MediaType type = file.headers().getContentType();
+            if (type == null) {
+                return PartEvents.discard(content, ResponseEntity.badRequest().body("Content-Type must be provided"));
+            }
+            Flux<DataBuffer> limited = PartEvents.limit(content, maxFileSize());
+            return Mono.fromCallable(() -> {
+                        try (InputStream in = DataBufferUtils.subscriberInputStream(limited, UPLOAD_PREFETCH)) {
+                            return fileStorageService.store(file.filename(), type.toString(), in);
+                        }
+                    })
+                    .subscribeOn(Schedulers.boundedElastic())
+                    .map(saved -> ResponseEntity.ok("Stored file with ID: " + saved.getId()))
+                    .onErrorResume(PartEvents::isLimitExceeded,
+                            e -> Mono.just(ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body("File too large")));
+        }).defaultIfEmpty(ResponseEntity.badRequest().body("File must be provided"));
+    }
+
+    /**
+     * Deletes many files at once, selected by ids and/or a filter
+     * ({@code olderThan}, {@code contentType}).
+     */
+    @PostMapping("/delete")
+    public Mono<ResponseEntity<BulkDeleteResult>> deleteFiles(@RequestBody BulkDeleteRequest request) {
+        return Mono.fromCallable(() -> ResponseEntity.ok(new BulkDeleteResult(fileStorageService.deleteMatching(request))))
+                .subscribeOn(Schedulers.boundedElastic())
+                .onErrorResume(IllegalArgumentException.class, e -> Mono.just(ResponseEntity.badRequest().build()));
+    }
+
+    @DeleteMapping("/{id}")
+    public Mono<ResponseEntity<String>> deleteFile(@PathVariable Long id) {
+        return Mono.fromCallable(() -> fileStorageService.deleteById(id))
+                .subscribeOn(Schedulers.boundedElastic())
+                .map(removed -> removed
+                        ? ResponseEntity.ok("Deleted file: " + id)
+                        : ResponseEntity.status(HttpStatus.NOT_FOUND).body("File not found: " + id));
+    }
+
+    private static ResponseEntity.BodyBuilder headers(ResponseEntity.BodyBuilder response,
+            StoredFileMetadataDto metadata) {
+        return response
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + metadata.getFilename() + "\"")
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .contentType(MediaType.parseMediaType(metadata.getContentType()));
+    }
+
+    /**
+     * Reads {@code length} bytes of the content from {@code start}, one buffer
+     * per downstream request. The blob stream blocks, so reads run on the
+     * bounded elastic scheduler.
+     */
+    private Flux<DataBuffer> read(Resource content, long start, long length) {
+        Flux<DataBuffer> buffers = DataBufferUtils.readInputStream(() -> {
+                    InputStream in = content.getInputStream();
+                    in.skipNBytes(start);
+                    return in;
+                }, DefaultDataBufferFactory.sharedInstance, (int) downloadBufferSize.toBytes())
+                .subscribeOn(Schedulers.boundedElastic());
+        return DataBufferUtils.takeUntilByteCount(buffers, length);
+    }
+
+    static ResponseEntity<List<StoredFileMetadataDto>> pageResponse(FilePage<StoredFileMetadataDto> page,
+            ServerHttpRequest request) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.hasNext()) {
+            String next = UriComponentsBuilder.fromUri(request.getURI())
+                    .replaceQueryParam("cursor", page.getNextCursor())
+                    .build()
+                    .toUriString();
+            response.header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"")
+                    .header("X-Next-Cursor", page.getNextCursor());
+        }
+        return response.body(page.getItems());
+    }
+
+    private long maxFileSize() {
+        return (maxFileSizeProperty == null || maxFileSizeProperty.isBlank())
+                ? -1
+                : DataSize.parse(maxFileSizeProperty).toBytes();
+    }
+}
@@ -0,0 +1,224 @@
+package com.mandrel.file_storage_service.controller;
+
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.multipart.PartEvent;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.mandrel.file_storage_service.model.BulkDeleteRequest;
+import com.mandrel.file_storage_service.model.BulkDeleteResult;
+import com.mandrel.file_storage_service.model.CacheStatsDto;
+import com.mandrel.file_storage_service.model.FileListQuery;
+import com.mandrel.file_storage_service.model.FileSortField;
+import com.mandrel.file_storage_service.model.StoredFileMetadataDto;
+import com.mandrel.file_storage_service.service.FileUploadService;
+import com.mandrel.file_storage_service.util.PartEvents;
+import com.mandrel.file_storage_service.util.StreamedResource;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Reactive variant of {@link FileUploadController}, served instead of it when
+ * the application runs with {@code spring.main.web-application-type=reactive}.
+ * Uploads are written to their temporary file with an
+ * {@link java.nio.channels.AsynchronousFileChannel} as the parts arrive, and
+ * the next buffer is only requested once the previous one is on disk, so a
+ * slow disk slows the client down instead of filling memory. Downloads are
+ * written from the file as the client reads them, with {@code Range} requests
+ * honoured; zero-copy only with {@code file-storage.local.sendfile}, as on the
+ * servlet stack. Only the short index/rename steps run on the bounded elastic
+ * scheduler.
+ * <p>
+ * Batch uploads stay on the servlet API.
+ */
+@RestController
+@RequestMapping("/files/local")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveFileUploadController {
+
+    private final FileUploadService fileUploadService;
+    @Value("${spring.servlet.multipart.max-file-size:}")
+    private String maxFileSizeProperty;
+    @Value("${file-storage.local.sendfile:false}")
+    private boolean sendfileEnabled;
+
+    @Autowired
+    public ReactiveFileUploadController(FileUploadService fileUploadService) {
+        this.fileUploadService = fileUploadService;
+    }
+
+    @GetMapping
+    public Mono<ResponseEntity<List<StoredFileMetadataDto>>> listAllFilesFromLocal(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String order,
+            @RequestParam(required = false) String contentType,
+            @RequestParam(required = false) Long minSize,
+            @RequestParam(required = false) Long maxSize,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime uploadedFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime uploadedTo,
+            ServerHttpRequest request) {
+        return Mono.fromCallable(() -> fileUploadService.list(FileListQuery.fromParams(sort, order, cursor, limit,
+                        contentType, minSize, maxSize, uploadedFrom, uploadedTo, FileSortField.FILENAME)))
+                .subscribeOn(Schedulers.boundedElastic())
+                .map(page -> ReactiveFileStorageController.pageResponse(page, request))
+                .onErrorResume(IllegalArgumentException.class, e -> Mono.just(ResponseEntity.badRequest().build()));
+    }
+
+    /**
+     * Counters of the memory-mapped read cache; 404 when it is disabled.
+     */
+    @GetMapping("/cache/stats")
+    public ResponseEntity<CacheStatsDto> mappedCacheStats() {
+        return ResponseEntity.of(fileUploadService.getMappedCacheStats());
+    }
+
+    /**
+     * The file as it was when opened. Netty's zero-copy path reopens the file
+     * by name once this handler has returned, outside the name's read lock and
+     * past the resource's version check, so an overwrite in between would be
+     * sent under the old metadata; unless {@code file-storage.local.sendfile}
+     * is on, the resource is handed over as a stream only.
+     */
+    @GetMapping("/{filename:.+}")
+    public Mono<ResponseEntity<Resource>> downloadFileByFilename(@PathVariable String filename) {
+        if (!isValidName(filename)) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+        return Mono.fromCallable(() -> fileUploadService.openFile(filename))
+                .subscribeOn(Schedulers.boundedElastic())
+                .map(download -> download.map(file -> {
+                    String contentType = file.getMetadata().getContentType();
+                    if (contentType == null || contentType.isBlank()) {
+                        contentType = MediaType.APPLICATION_OCTET_STREAM_VALUE;
+                    }
+                    return ResponseEntity.ok()
+                            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                            .contentType(MediaType.parseMediaType(contentType))
+                            .body(sendfileEnabled ? file.getContent() : new StreamedResource(file.getContent()));
+                }).orElseGet(() -> ResponseEntity.notFound().build()));
+    }
+
+    /**
+     * Streams the part named {@code file} to disk, hashing it on the way, then
+     * publishes it under its name. Nothing is visible under the name until the
+     * whole part has been written.
+     */
+    @PostMapping(value = "/save", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public Mono<ResponseEntity<String>> uploadFileInLocal(@RequestBody Flux<PartEvent> parts) {
+        return PartEvents.firstFile(parts, "file", (file, content) -> {
+            String filename = file.filename();
+            if (filename == null || filename.isBlank()) {
+                return PartEvents.discard(content, ResponseEntity.badRequest().body("Filename must be provided"));
+            }
+            if (filename.startsWith(".") || !isValidName(filename)) {
+                return PartEvents.discard(content, ResponseEntity.badRequest().body("Invalid filename"));
+            }
+            MediaType type = file.headers().getContentType();
+            MessageDigest digest = sha256();
+            Flux<DataBuffer> hashed = PartEvents.limit(content, maxFileSize()).doOnNext(buffer -> {
+                try (DataBuffer.ByteBufferIterator chunks = buffer.readableByteBuffers()) {
+                    chunks.forEachRemaining(digest::update);
+                }
+            });
+            return Mono.fromCallable(() -> fileUploadService.beginUpload(filename))
+                    .subscribeOn(Schedulers.boundedElastic())
+                    .flatMap(temp -> DataBufferUtils.write(hashed, temp, StandardOpenOption.WRITE)
+                            .then(Mono.fromCallable(() -> fileUploadService.completeUpload(filename,
+                                            type == null ? null : type.toString(), temp,
+                                            HexFormat.of().formatHex(digest.digest())))
+                                    .subscribeOn(Schedulers.boundedElastic()))
+                            .doFinally(signal -> abort(temp)))
+                    .map(saved -> ResponseEntity.ok("File uploaded successfully: " + filename))
+                    .onErrorResume(e -> Mono.just(PartEvents.isLimitExceeded(e)
+                            ? ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body("File too large")
+                            : ResponseEntity.status(500).body("Failed to upload file: " + e.getMessage())));
+        }).defaultIfEmpty(ResponseEntity.badRequest().body("File must be provided"));
+    }
+
+    /**
+     * Deletes many files at once, selected by filenames and/or a filter
+     * ({@code olderThan}, {@code contentType}).
+     */
+    @PostMapping("/delete")
+    public Mono<ResponseEntity<BulkDeleteResult>> deleteFiles(@RequestBody BulkDeleteRequest request) {
+        if (request.getFilenames() != null) {
+            for (String filename : request.getFilenames()) {
+                if (filename == null || filename.contains("..") || filename.contains("/") || filename.contains("\\")) {
+                    return Mono.just(ResponseEntity.badRequest().build());
+                }
+            }
+        }
+        return Mono.fromCallable(() -> ResponseEntity.ok(new BulkDeleteResult(fileUploadService.deleteMatching(request))))
+                .subscribeOn(Schedulers.boundedElastic())
+                .onErrorResume(IllegalArgumentException.class, e -> Mono.just(ResponseEntity.badRequest().build()));
+    }
+
+    @DeleteMapping("/{filename:.+}")
+    public Mono<ResponseEntity<String>> deleteFile(@PathVariable String filename) {
+        if (!isValidName(filename)) {
+            return Mono.just(ResponseEntity.badRequest().body("Invalid filename"));
+        }
+        return Mono.fromCallable(() -> fileUploadService.deleteByFilename(filename))
+                .subscribeOn(Schedulers.boundedElastic())
+                .map(removed -> removed
+                        ? ResponseEntity.ok("Deleted file: " + filename)
+                        : ResponseEntity.status(HttpStatus.NOT_FOUND).body("File not found: " + filename));
+    }
+
+    /**
+     * Drops the temporary file of an upload that failed or was cancelled, off
+     * the event loop; a no-op after a successful one.
+     */
+    private void abort(Path temp) {
+        Schedulers.boundedElastic().schedule(() -> fileUploadService.abortUpload(temp));
+    }
+
+    private static boolean isValidName(String filename) {
+        return filename != null && !filename.isBlank() && !filename.contains("..") && !filename.contains("/")
+                && !filename.contains("\\");
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private long maxFileSize() {
+        return (maxFileSizeProperty == null || maxFileSizeProperty.isBlank())
+                ? -1
+                : DataSize.parse(maxFileSizeProperty).toBytes();
+    }
+}
@@ -0,0 +1,125 @@
+package com.mandrel.file_storage_service.controller;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.mandrel.file_storage_service.model.StorageBackend;
+import com.mandrel.file_storage_service.model.StoredFileMetadataDto;
+import com.mandrel.file_storage_service.model.UploadLimitExceededException;
+import com.mandrel.file_storage_service.model.UploadPartDto;
+import com.mandrel.file_storage_service.model.UploadSessionDto;
+import com.mandrel.file_storage_service.service.UploadSessionService;
+
+/**
+ * Resumable uploads for {@code /files/memory} and {@code /files/local}:
+ * <ol>
+ * <li>{@code POST /files/{backend}/uploads?filename=..&size=..&contentType=..} creates a session
+ * for a file of {@code size} bytes (413 if a memory upload is over
+ * {@code file-storage.upload-sessions.memory.max-size}),</li>
+ * <li>{@code PUT /files/{backend}/uploads/{id}/parts/{n}} sends part {@code n} as the raw
+ * request body; parts may be sent in parallel and re-sent,</li>
+ * <li>{@code GET /files/{backend}/uploads/{id}} lists the parts received so far,</li>
+ * <li>{@code POST /files/{backend}/uploads/{id}/complete} stores the file
+ * (409 naming the missing parts if there is a gap, or if the parts
+ * do not add up to {@code size}),</li>
+ * <li>{@code DELETE /files/{backend}/uploads/{id}} abandons the session.</li>
+ * </ol>
+ * Parts are not multipart bodies, so {@code spring.servlet.multipart.max-file-size}
+ * does not apply; each part is capped by {@code file-storage.upload-sessions.max-part-size}.
+ */
+@RestController
+@RequestMapping("/files/{backend}/uploads")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class UploadSessionController {
+
+    private final UploadSessionService uploadSessionService;
+
+    @Autowired
+    public UploadSessionController(UploadSessionService uploadSessionService) {
+        this.uploadSessionService = uploadSessionService;
+    }
+
+    @PostMapping
+    public ResponseEntity<?> createSession(@PathVariable String backend, @RequestParam String filename,
+            @RequestParam long size, @RequestParam(required = false) String contentType) {
+        Optional<StorageBackend> target = StorageBackend.fromPath(backend);
+        if (target.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        if (filename.isBlank() || filename.contains("..") || filename.contains("/") || filename.contains("\\")
+                || (target.get() == StorageBackend.LOCAL && filename.startsWith("."))) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (target.get() == StorageBackend.MEMORY && (contentType == null || contentType.isBlank())) {
+            return ResponseEntity.badRequest().build();
+        }
+        UploadSessionDto session;
+        try {
+            session = uploadSessionService.create(target.get(), filename, contentType, size);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (UploadLimitExceededException e) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body("Upload too large");
+        }
+        return ResponseEntity.created(URI.create("/files/" + backend + "/uploads/" + session.getId())).body(session);
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<UploadSessionDto> getSession(@PathVariable String backend, @PathVariable String id) {
+        return ResponseEntity.of(StorageBackend.fromPath(backend)
+                .flatMap(target -> uploadSessionService.find(target, id)));
+    }
+
+    @PutMapping("/{id}/parts/{partNumber}")
+    public ResponseEntity<?> putPart(@PathVariable String backend, @PathVariable String id,
+            @PathVariable int partNumber, InputStream body) {
+        Optional<StorageBackend> target = StorageBackend.fromPath(backend);
+        if (target.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        try {
+            Optional<UploadPartDto> part = uploadSessionService.putPart(target.get(), id, partNumber, body);
+            return part.isPresent() ? ResponseEntity.ok(part.get()) : ResponseEntity.notFound().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (UploadLimitExceededException e) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body("Part too large");
+        }
+    }
+
+    @PostMapping("/{id}/complete")
+    public ResponseEntity<?> completeSession(@PathVariable String backend, @PathVariable String id) {
+        Optional<StorageBackend> target = StorageBackend.fromPath(backend);
+        if (target.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        try {
+            Optional<StoredFileMetadataDto> stored = uploadSessionService.complete(target.get(), id);
+            return stored.isPresent() ? ResponseEntity.ok(stored.get()) : ResponseEntity.notFound().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> abortSession(@PathVariable String backend, @PathVariable String id) {
+        boolean removed = StorageBackend.fromPath(backend)
+                .map(target -> uploadSessionService.abort(target, id))
+                .orElse(false);
+        return removed ? ResponseEntity.noContent().build() : ResponseEntity.notFound().build();
+    }
+}
@@ -0,0 +1,251 @@
+package com.mandrel.file_storage_service.metrics;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Pointcut;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.mandrel.file_storage_service.model.BatchUploadResult;
+import com.mandrel.file_storage_service.model.StoredFileDownload;
+import com.mandrel.file_storage_service.model.StoredFileDto;
+import com.mandrel.file_storage_service.model.StoredFileMetadataDto;
+import com.mandrel.file_storage_service.model.TieringResult;
+import com.mandrel.file_storage_service.service.FileStorageService;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Micrometer instrumentation of both backends, kept out of the services
+ * themselves. Upload, download and operation meters are tagged
+ * {@code backend=memory|local}:
+ * <ul>
+ * <li>{@code file_storage.upload}: time to write an upload (single, batch or
+ * completed stream), with {@code file_storage.upload.active} writes in flight
+ * and the stored sizes as {@code file_storage.upload.size} and
+ * {@code file_storage.upload.bytes};</li>
+ * <li>{@code file_storage.download.open}: time to resolve a download and open
+ * its content, with the sizes served as {@code file_storage.download.size} and
+ * {@code file_storage.download.bytes};</li>
+ * <li>{@code file_storage.operation}: every other service call, tagged with the
+ * method name;</li>
+ * <li>{@code file_storage.repository}: H2 queries and filesystem I/O of the
+ * hand-written repositories, tagged with repository and method;</li>
+ * <li>{@code file_storage.tiering}: each hot/cold tiering pass, with the blobs
+ * and bytes it moved as {@code file_storage.tiering.blobs} and
+ * {@code file_storage.tiering.bytes}, tagged {@code direction=demote|promote}.</li>
+ * </ul>
+ * End-to-end request latency, including the time to send a download, and
+ * requests in flight come from Spring's {@code http.server.requests} and
+ * {@code http.server.requests.active}; Spring Data repositories such as
+ * {@code StoredFileRepository} are timed as {@code spring.data.repository.invocations}.
+ */
+@Aspect
+@Component
+public class StorageMetricsAspect {
+
+    private static final String MEMORY = "memory";
+    private static final String LOCAL = "local";
+
+    private final MeterRegistry registry;
+    private final Map<String, AtomicInteger> activeUploads = new ConcurrentHashMap<>();
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<String, DistributionSummary> sizes = new ConcurrentHashMap<>();
+    private final Map<String, Counter> bytes = new ConcurrentHashMap<>();
+
+    @Autowired
+    public StorageMetricsAspect(MeterRegistry registry) {
+        this.registry = registry;
+        for (String backend : new String[] {MEMORY, LOCAL}) {
+            activeUploads.put(backend, registry.gauge("file_storage.upload.active",
+                    Tags.of("backend", backend), new AtomicInteger()));
+        }
+    }
+
+    @Pointcut("execution(public * com.mandrel.file_storage_service.service.FileStorageService.store*(..))"
+            + " || execution(public * com.mandrel.file_storage_service.service.FileUploadService.store*(..))"
+            + " || execution(public * com.mandrel.file_storage_service.service.FileUploadService.completeUpload(..))")
+    void upload() {
+    }
+
+    @Pointcut("execution(public * com.mandrel.file_storage_service.service.FileStorageService.openDownload(..))"
+            + " || execution(public * com.mandrel.file_storage_service.service.FileStorageService.getFileById(..))"
+            + " || execution(public * com.mandrel.file_storage_service.service.FileUploadService.openFile(..))"
+            + " || execution(public * com.mandrel.file_storage_service.service.FileUploadService.getFileByFilename(..))")
+    void download() {
+    }
+
+    @Pointcut("execution(public * com.mandrel.file_storage_service.service.FileStorageService.*(..))"
+            + " || execution(public * com.mandrel.file_storage_service.service.FileUploadService.*(..))")
+    void backendOperation() {
+    }
+
+    @Pointcut("execution(public * com.mandrel.file_storage_service.repository.StoredFileListingRepository.*(..))"
+            + " || execution(public * com.mandrel.file_storage_service.repository.StoredFileDeletionRepository.*(..))"
+            + " || execution(public * com.mandrel.file_storage_service.repository.StoredFileBlobContentRepository.*(..))")
+    void h2Repository() {
+    }
+
+    @Pointcut("execution(public * com.mandrel.file_storage_service.repository.LocalFileContentRepository.*(..))"
+            + " || execution(public * com.mandrel.file_storage_service.repository.LocalFileIndexJournalRepository.*(..))"
+            + " || execution(public * com.mandrel.file_storage_service.repository.UploadSessionRepository.*(..))"
+            + " || execution(public * com.mandrel.file_storage_service.repository.ColdBlobRepository.*(..))")
+    void filesystemRepository() {
+    }
+
+    @Pointcut("execution(public * com.mandrel.file_storage_service.service.FileTieringService.rebalance(..))")
+    void tieringPass() {
+    }
+
+    @Around("upload()")
+    public Object timeUpload(ProceedingJoinPoint call) throws Throwable {
+        String backend = backendOf(call);
+        AtomicInteger active = activeUploads.get(backend);
+        active.incrementAndGet();
+        Timer.Sample sample = Timer.start(registry);
+        String outcome = "error";
+        try {
+            Object result = call.proceed();
+            outcome = "success";
+            recordUploaded(backend, result, call.getArgs());
+            return result;
+        } finally {
+            active.decrementAndGet();
+            sample.stop(timer("file_storage.upload", "backend", backend, "outcome", outcome));
+        }
+    }
+
+    @Around("download()")
+    public Object timeDownload(ProceedingJoinPoint call) throws Throwable {
+        String backend = backendOf(call);
+        Timer.Sample sample = Timer.start(registry);
+        String outcome = "error";
+        try {
+            Object result = call.proceed();
+            outcome = result instanceof Optional<?> found && found.isEmpty() ? "not_found" : "success";
+            if (result instanceof Optional<?> found && found.isPresent()) {
+                recordSize("file_storage.download", backend, sizeOf(found.get()));
+            }
+            return result;
+        } finally {
+            sample.stop(timer("file_storage.download.open", "backend", backend, "outcome", outcome));
+        }
+    }
+
+    @Around("backendOperation() && !upload() && !download()")
+    public Object timeOperation(ProceedingJoinPoint call) throws Throwable {
+        return time(call, "file_storage.operation", "backend", backendOf(call),
+                "operation", call.getSignature().getName());
+    }
+
+    @Around("h2Repository()")
+    public Object timeH2Repository(ProceedingJoinPoint call) throws Throwable {
+        return time(call, "file_storage.repository", "store", "h2",
+                "repository", call.getSignature().getDeclaringType().getSimpleName(),
+                "method", call.getSignature().getName());
+    }
+
+    @Around("filesystemRepository()")
+    public Object timeFilesystemRepository(ProceedingJoinPoint call) throws Throwable {
+        return time(call, "file_storage.repository", "store", "filesystem",
+                "repository", call.getSignature().getDeclaringType().getSimpleName(),
+                "method", call.getSignature().getName());
+    }
+
+    @Around("tieringPass()")
+    public Object timeTieringPass(ProceedingJoinPoint call) throws Throwable {
+        Object result = time(call, "file_storage.tiering");
+        if (result instanceof TieringResult moved) {
+            registry.counter("file_storage.tiering.blobs", "direction", "demote").increment(moved.getDemoted());
+            registry.counter("file_storage.tiering.blobs", "direction", "promote").increment(moved.getPromoted());
+            registry.counter("file_storage.tiering.bytes", "direction", "demote").increment(moved.getDemotedBytes());
+            registry.counter("file_storage.tiering.bytes", "direction", "promote").increment(moved.getPromotedBytes());
+        }
+        return result;
+    }
+
+    private Object time(ProceedingJoinPoint call, String name, String... tags) throws Throwable {
+        Timer.Sample sample = Timer.start(registry);
+        String outcome = "error";
+        try {
+            Object result = call.proceed();
+            outcome = "success";
+            return result;
+        } finally {
+            String[] withOutcome = new String[tags.length + 2];
+            System.arraycopy(tags, 0, withOutcome, 0, tags.length);
+            withOutcome[tags.length] = "outcome";
+            withOutcome[tags.length + 1] = outcome;
+            sample.stop(timer(name, withOutcome));
+        }
+    }
+
+    private void recordUploaded(String backend, Object result, Object[] args) {
+        if (result instanceof Collection<?> batch) {
+            for (Object item : batch) {
+                recordSize("file_storage.upload", backend, sizeOf(item));
+            }
+        } else if (result != null) {
+            recordSize("file_storage.upload", backend, sizeOf(result));
+        } else if (args.length == 1) {
+            // The local byte-array store returns nothing; its argument holds the content.
+            recordSize("file_storage.upload", backend, sizeOf(args[0]));
+        }
+    }
+
+    private void recordSize(String prefix, String backend, Long size) {
+        if (size == null) {
+            return;
+        }
+        String key = prefix + ':' + backend;
+        sizes.computeIfAbsent(key, k -> DistributionSummary.builder(prefix + ".size")
+                .description("Size of each file")
+                .baseUnit("bytes")
+                .tag("backend", backend)
+                .register(registry))
+                .record(size);
+        bytes.computeIfAbsent(key, k -> Counter.builder(prefix + ".bytes")
+                .description("Total bytes of the files")
+                .baseUnit("bytes")
+                .tag("backend", backend)
+                .register(registry))
+                .increment(size);
+    }
+
+    private Timer timer(String name, String... tags) {
+        return timers.computeIfAbsent(name + '|' + String.join(":", tags),
+                k -> Timer.builder(name).tags(tags).register(registry));
+    }
+
+    private static Long sizeOf(Object value) {
+        if (value instanceof StoredFileMetadataDto metadata) {
+            return metadata.getSize();
+        }
+        if (value instanceof StoredFileDownload download) {
+            return download.getMetadata().getSize();
+        }
+        if (value instanceof BatchUploadResult result) {
+            return result.isStored() ? result.getSize() : null;
+        }
+        if (value instanceof StoredFileDto file) {
+            return file.getSize() != null ? file.getSize()
+                    : file.getContent() != null ? Long.valueOf(file.getContent().length) : null;
+        }
+        return null;
+    }
+
+    private static String backendOf(ProceedingJoinPoint call) {
+        return FileStorageService.class.isAssignableFrom(call.getSignature().getDeclaringType()) ? MEMORY : LOCAL;
+    }
+}
@@ -0,0 +1,99 @@
+package com.mandrel.file_storage_service.model;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Selects files for a ZIP archive download: explicit ids (memory) or filenames
+ * (local), a listing filter, or both. All given criteria must match; at least
+ * one is required.
+ */
+public class ArchiveRequest {
+    private List<Long> ids;
+    private List<String> filenames;
+    // Exact type, or "type/*" for a whole family.
+    private String contentType;
+    private Long minSize;
+    private Long maxSize;
+    // Inclusive lower and exclusive upper bound on the upload time.
+    private LocalDateTime uploadedFrom;
+    private LocalDateTime uploadedTo;
+
+    public ArchiveRequest() {
+    }
+
+    public List<Long> getIds() {
+        return ids;
+    }
+
+    public void setIds(List<Long> ids) {
+        this.ids = ids;
+    }
+
+    public List<String> getFilenames() {
+        return filenames;
+    }
+
+    public void setFilenames(List<String> filenames) {
+        this.filenames = filenames;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public void setContentType(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public Long getMinSize() {
+        return minSize;
+    }
+
+    public void setMinSize(Long minSize) {
+        this.minSize = minSize;
+    }
+
+    public Long getMaxSize() {
+        return maxSize;
+    }
+
+    public void setMaxSize(Long maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public LocalDateTime getUploadedFrom() {
+        return uploadedFrom;
+    }
+
+    public void setUploadedFrom(LocalDateTime uploadedFrom) {
+        this.uploadedFrom = uploadedFrom;
+    }
+
+    public LocalDateTime getUploadedTo() {
+        return uploadedTo;
+    }
+
+    public void setUploadedTo(LocalDateTime uploadedTo) {
+        this.uploadedTo = uploadedTo;
+    }
+
+    public boolean hasFilter() {
+        return (contentType != null && !contentType.isBlank()) || minSize != null || maxSize != null
+                || uploadedFrom != null || uploadedTo != null;
+    }
+
+    /**
+     * The filter part as a listing query, so both backends match files exactly
+     * the way their listings do.
+     */
+    public FileListQuery toFilter() {
+        return FileListQuery.builder()
+                .contentType(contentType == null || contentType.isBlank() ? null : contentType)
+                .minSize(minSize)
+                .maxSize(maxSize)
+                .uploadedFrom(uploadedFrom)
+                .uploadedTo(uploadedTo)
+                .build();
+    }
+}
@@ -0,0 +1,58 @@
+package com.mandrel.file_storage_service.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Per-file outcome of a batch upload.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchUploadResult {
+    private final String filename;
+    private final boolean stored;
+    private final Long id;
+    private final Long size;
+    private final String checksum;
+    private final String error;
+
+    private BatchUploadResult(String filename, boolean stored, Long id, Long size, String checksum, String error) {
+        this.filename = filename;
+        this.stored = stored;
+        this.id = id;
+        this.size = size;
+        this.checksum = checksum;
+        this.error = error;
+    }
+
+    public static BatchUploadResult stored(StoredFileMetadataDto metadata) {
+        return new BatchUploadResult(metadata.getFilename(), true, metadata.getId(), metadata.getSize(),
+                metadata.getChecksum(), null);
+    }
+
+    public static BatchUploadResult failed(String filename, String error) {
+        return new BatchUploadResult(filename, false, null, null, null, error);
+    }
+
+    public String getFilename() {
+        return filename;
+    }
+
+    public boolean isStored() {
+        return stored;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getSize() {
+        return size;
+    }
+
+    public String getChecksum() {
+        return checksum;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
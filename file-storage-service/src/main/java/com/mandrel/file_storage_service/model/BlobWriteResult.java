@@ -0,0 +1,40 @@
+package com.mandrel.file_storage_service.model;
+
+/**
+ * Outcome of streaming a payload into {@code stored_file_blob}: the id of the
+ * row now holding the bytes plus the length and SHA-256 measured while they
+ * went past. {@code deduplicated} is set when an existing row was reused.
+ */
+public class BlobWriteResult {
+    private final Long id;
+    private final long size;
+    private final String checksum;
+    private final boolean deduplicated;
+
+    public BlobWriteResult(Long id, long size, String checksum) {
+        this(id, size, checksum, false);
+    }
+
+    public BlobWriteResult(Long id, long size, String checksum, boolean deduplicated) {
+        this.id = id;
+        this.size = size;
+        this.checksum = checksum;
+        this.deduplicated = deduplicated;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public String getChecksum() {
+        return checksum;
+    }
+
+    public boolean isDeduplicated() {
+        return deduplicated;
+    }
+}
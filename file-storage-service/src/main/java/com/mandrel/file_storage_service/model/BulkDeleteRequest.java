@@ -0,0 +1,67 @@
+package com.mandrel.file_storage_service.model;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Selects files for a bulk delete: explicit ids (memory) or filenames (local),
+ * a filter, or both. All given criteria must match; at least one is required.
+ */
+public class BulkDeleteRequest {
+    private List<Long> ids;
+    private List<String> filenames;
+    // Exclusive: files uploaded strictly before this instant.
+    private LocalDateTime olderThan;
+    // Exact type, or "type/*" for a whole family.
+    private String contentType;
+
+    public BulkDeleteRequest() {
+    }
+
+    public List<Long> getIds() {
+        return ids;
+    }
+
+    public void setIds(List<Long> ids) {
+        this.ids = ids;
+    }
+
+    public List<String> getFilenames() {
+        return filenames;
+    }
+
+    public void setFilenames(List<String> filenames) {
+        this.filenames = filenames;
+    }
+
+    public LocalDateTime getOlderThan() {
+        return olderThan;
+    }
+
+    public void setOlderThan(LocalDateTime olderThan) {
+        this.olderThan = olderThan;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public void setContentType(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public boolean hasFilter() {
+        return olderThan != null || (contentType != null && !contentType.isBlank());
+    }
+
+    /**
+     * The filter part as a listing query, so both backends match files exactly
+     * the way their listings do.
+     */
+    public FileListQuery toFilter() {
+        return FileListQuery.builder()
+                .contentType(contentType == null || contentType.isBlank() ? null : contentType)
+                .uploadedTo(olderThan)
+                .build();
+    }
+}
@@ -0,0 +1,16 @@
+package com.mandrel.file_storage_service.model;
+
+/**
+ * Number of files removed by a bulk delete.
+ */
+public class BulkDeleteResult {
+    private final long deleted;
+
+    public BulkDeleteResult(long deleted) {
+        this.deleted = deleted;
+    }
+
+    public long getDeleted() {
+        return deleted;
+    }
+}
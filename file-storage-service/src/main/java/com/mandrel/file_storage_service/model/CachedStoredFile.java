@@ -0,0 +1,34 @@
+package com.mandrel.file_storage_service.model;
+
+/**
+ * A small stored file held in the read cache: everything needed to answer a
+ * download without going back to the database.
+ */
+public class CachedStoredFile {
+
+    // Rough per-entry bookkeeping cost on top of the payload itself.
+    private static final int ENTRY_OVERHEAD_BYTES = 256;
+
+    private final StoredFileMetadataDto metadata;
+    private final byte[] content;
+
+    public CachedStoredFile(StoredFileMetadataDto metadata, byte[] content) {
+        this.metadata = metadata;
+        this.content = content;
+    }
+
+    public StoredFileMetadataDto getMetadata() {
+        return metadata;
+    }
+
+    public byte[] getContent() {
+        return content;
+    }
+
+    /**
+     * Bytes this entry counts against the cache budget.
+     */
+    public int weight() {
+        return content.length + ENTRY_OVERHEAD_BYTES;
+    }
+}
@@ -0,0 +1,35 @@
+package com.mandrel.file_storage_service.model;
+
+/**
+ * How recently and how often one stored file has been read: the time of its
+ * last read plus a read count that halves with every half-life that passes,
+ * so a burst of reads long ago counts for little today.
+ */
+public class FileAccess {
+    private final long lastAccessMillis;
+    private final double reads;
+
+    public FileAccess(long lastAccessMillis, double reads) {
+        this.lastAccessMillis = lastAccessMillis;
+        this.reads = reads;
+    }
+
+    public long getLastAccessMillis() {
+        return lastAccessMillis;
+    }
+
+    /**
+     * The decayed read count as of {@code nowMillis}.
+     */
+    public double readsAt(long nowMillis, long halfLifeMillis) {
+        long idle = Math.max(0, nowMillis - lastAccessMillis);
+        return reads * Math.pow(0.5, (double) idle / halfLifeMillis);
+    }
+
+    /**
+     * This access with one more read at {@code nowMillis}.
+     */
+    public FileAccess withReadAt(long nowMillis, long halfLifeMillis) {
+        return new FileAccess(Math.max(nowMillis, lastAccessMillis), readsAt(nowMillis, halfLifeMillis) + 1);
+    }
+}
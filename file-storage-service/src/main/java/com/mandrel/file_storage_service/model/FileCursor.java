@@ -0,0 +1,49 @@
+package com.mandrel.file_storage_service.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Keyset position in a listing: the sort value of the last returned file plus a
+ * unique tie-breaker (the id for the memory backend, the filename for local).
+ * Travels to clients as an opaque URL-safe token.
+ */
+public final class FileCursor {
+
+    private static final char SEPARATOR = '\n';
+
+    private final String value;
+    private final String key;
+
+    public FileCursor(String value, String key) {
+        this.value = value;
+        this.key = key;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public String encode() {
+        String raw = value + SEPARATOR + key;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static FileCursor decode(String token) {
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Malformed cursor", e);
+        }
+        int separator = raw.indexOf(SEPARATOR);
+        if (separator < 0) {
+            throw new IllegalArgumentException("Malformed cursor");
+        }
+        return new FileCursor(raw.substring(0, separator), raw.substring(separator + 1));
+    }
+}
@@ -0,0 +1,192 @@
+package com.mandrel.file_storage_service.model;
+
+import java.time.LocalDateTime;
+import java.util.Locale;
+
+/**
+ * Keyset listing request shared by both storage backends: sort key and
+ * direction, an optional cursor to resume after, a page size and filters.
+ */
+public class FileListQuery {
+
+    public static final int DEFAULT_LIMIT = 100;
+    public static final int MAX_LIMIT = 1000;
+
+    private FileSortField sort = FileSortField.ID;
+    private boolean descending;
+    private FileCursor after;
+    private int limit = DEFAULT_LIMIT;
+    private String contentType;
+    private Long minSize;
+    private Long maxSize;
+    private LocalDateTime uploadedFrom;
+    private LocalDateTime uploadedTo;
+
+    public FileSortField getSort() {
+        return sort;
+    }
+
+    public boolean isDescending() {
+        return descending;
+    }
+
+    public FileCursor getAfter() {
+        return after;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public Long getMinSize() {
+        return minSize;
+    }
+
+    public Long getMaxSize() {
+        return maxSize;
+    }
+
+    public LocalDateTime getUploadedFrom() {
+        return uploadedFrom;
+    }
+
+    public LocalDateTime getUploadedTo() {
+        return uploadedTo;
+    }
+
+    /**
+     * True when the content type filter is a wildcard such as {@code image/*}.
+     */
+    public boolean isContentTypePrefix() {
+        return contentType != null && contentType.endsWith("/*");
+    }
+
+    /**
+     * Applies the non-keyset filters to a single file; used by backends that
+     * cannot push filters down into a query.
+     */
+    public boolean matches(StoredFileMetadataDto file) {
+        if (contentType != null) {
+            String type = file.getContentType();
+            if (type == null) {
+                return false;
+            }
+            // Media types are case-insensitive, as in the JPA listing.
+            if (isContentTypePrefix()
+                    ? !type.toLowerCase(Locale.ROOT).startsWith(
+                            contentType.substring(0, contentType.length() - 1).toLowerCase(Locale.ROOT))
+                    : !type.equalsIgnoreCase(contentType)) {
+                return false;
+            }
+        }
+        long size = file.getSize() == null ? 0L : file.getSize();
+        if (minSize != null && size < minSize) {
+            return false;
+        }
+        if (maxSize != null && size > maxSize) {
+            return false;
+        }
+        LocalDateTime uploaded = file.getUploadDate();
+        if (uploadedFrom != null && (uploaded == null || uploaded.isBefore(uploadedFrom))) {
+            return false;
+        }
+        if (uploadedTo != null && (uploaded == null || !uploaded.isBefore(uploadedTo))) {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Builds a query from raw request parameters, falling back to
+     * {@code defaultSort} and ascending order. Throws
+     * {@link IllegalArgumentException} for unknown sort keys, bad cursors or
+     * out-of-range limits.
+     */
+    public static FileListQuery fromParams(String sort, String order, String cursor, Integer limit,
+            String contentType, Long minSize, Long maxSize, LocalDateTime uploadedFrom, LocalDateTime uploadedTo,
+            FileSortField defaultSort) {
+        boolean descending;
+        if (order == null || order.isBlank() || order.equalsIgnoreCase("asc")) {
+            descending = false;
+        } else if (order.equalsIgnoreCase("desc")) {
+            descending = true;
+        } else {
+            throw new IllegalArgumentException("order must be asc or desc");
+        }
+        return builder()
+                .sort(sort == null || sort.isBlank() ? defaultSort : FileSortField.fromParam(sort))
+                .descending(descending)
+                .after(cursor == null || cursor.isBlank() ? null : FileCursor.decode(cursor))
+                .limit(limit == null ? DEFAULT_LIMIT : limit)
+                .contentType(contentType)
+                .minSize(minSize)
+                .maxSize(maxSize)
+                .uploadedFrom(uploadedFrom)
+                .uploadedTo(uploadedTo)
+                .build();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static class Builder {
+        private final FileListQuery query = new FileListQuery();
+
+        public Builder sort(FileSortField sort) {
+            query.sort = sort;
+            return this;
+        }
+
+        public Builder descending(boolean descending) {
+            query.descending = descending;
+            return this;
+        }
+
+        public Builder after(FileCursor after) {
+            query.after = after;
+            return this;
+        }
+
+        public Builder limit(int limit) {
+            if (limit < 1 || limit > MAX_LIMIT) {
+                throw new IllegalArgumentException("limit must be between 1 and " + MAX_LIMIT);
+            }
+            query.limit = limit;
+            return this;
+        }
+
+        public Builder contentType(String contentType) {
+            query.contentType = (contentType == null || contentType.isBlank()) ? null : contentType;
+            return this;
+        }
+
+        public Builder minSize(Long minSize) {
+            query.minSize = minSize;
+            return this;
+        }
+
+        public Builder maxSize(Long maxSize) {
+            query.maxSize = maxSize;
+            return this;
+        }
+
+        public Builder uploadedFrom(LocalDateTime uploadedFrom) {
+            query.uploadedFrom = uploadedFrom;
+            return this;
+        }
+
+        public Builder uploadedTo(LocalDateTime uploadedTo) {
+            query.uploadedTo = uploadedTo;
+            return this;
+        }
+
+        public FileListQuery build() {
+            return query;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.mandrel.file_storage_service.model;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Magic-byte signatures of common binary formats, checked against the first
+ * bytes of an upload. Only formats that can be told apart from their header
+ * alone are listed, and each magic is long enough, or checked together with
+ * fixed header fields, that ordinary text does not match it by accident.
+ * Container formats such as ZIP and ISO media ({@code ftyp}) are marked as
+ * such: the header names the container, not what is packed in it.
+ */
+public enum FileSignature {
+    PNG("image/png", 0, new byte[] { (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n' }),
+    JPEG("image/jpeg", 0, new byte[] { (byte) 0xFF, (byte) 0xD8, (byte) 0xFF }),
+    GIF87A("image/gif", 0, ascii("GIF87a")),
+    GIF89A("image/gif", 0, ascii("GIF89a")),
+    WEBP("image/webp", 8, ascii("WEBP")),
+    BMP("image/bmp", 0, ascii("BM")),
+    TIFF_LE("image/tiff", 0, new byte[] { 'I', 'I', 42, 0 }),
+    TIFF_BE("image/tiff", 0, new byte[] { 'M', 'M', 0, 42 }),
+    ICO("image/x-icon", 0, new byte[] { 0, 0, 1, 0 }),
+    PDF("application/pdf", 0, ascii("%PDF-")),
+    ZIP("application/zip", 0, new byte[] { 'P', 'K', 3, 4 }, true),
+    GZIP("application/gzip", 0, new byte[] { 0x1F, (byte) 0x8B, 8 }),
+    BZIP2("application/x-bzip2", 0, ascii("BZh")),
+    XZ("application/x-xz", 0, new byte[] { (byte) 0xFD, '7', 'z', 'X', 'Z', 0 }),
+    SEVEN_ZIP("application/x-7z-compressed", 0, new byte[] { '7', 'z', (byte) 0xBC, (byte) 0xAF, 0x27, 0x1C }),
+    QUICKTIME("video/quicktime", 4, ascii("ftypqt  "), true),
+    HEIC("image/heic", 4, ascii("ftypheic"), true),
+    AVIF("image/avif", 4, ascii("ftypavif"), true),
+    MP4("video/mp4", 4, ascii("ftyp"), true),
+    OGG("application/ogg", 0, new byte[] { 'O', 'g', 'g', 'S', 0 }),
+    MP3("audio/mpeg", 0, ascii("ID3")),
+    WASM("application/wasm", 0, new byte[] { 0, 'a', 's', 'm', 1, 0, 0, 0 });
+
+    private final String mediaType;
+    private final int offset;
+    private final byte[] magic;
+    private final boolean container;
+
+    FileSignature(String mediaType, int offset, byte[] magic) {
+        this(mediaType, offset, magic, false);
+    }
+
+    FileSignature(String mediaType, int offset, byte[] magic, boolean container) {
+        this.mediaType = mediaType;
+        this.offset = offset;
+        this.magic = magic;
+        this.container = container;
+    }
+
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    /**
+     * Whether the signature only names a container (ZIP, ISO media), so a
+     * more specific declared type, e.g. a JAR or an OOXML document, is kept.
+     */
+    public boolean isContainer() {
+        return container;
+    }
+
+    public boolean matches(byte[] head, int length) {
+        if (length < offset + magic.length) {
+            return false;
+        }
+        for (int i = 0; i < magic.length; i++) {
+            if (head[offset + i] != magic[i]) {
+                return false;
+            }
+        }
+        return headerFieldsMatch(head, length);
+    }
+
+    /**
+     * The first signature matching {@code head}, or {@code null}.
+     */
+    public static FileSignature detect(byte[] head, int length) {
+        for (FileSignature signature : values()) {
+            if (signature.matches(head, length)) {
+                return signature;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Fixed fields behind the short magics, which alone would also match text
+     * such as a CSV file starting with "BM".
+     */
+    private boolean headerFieldsMatch(byte[] head, int length) {
+        return switch (this) {
+            // RIFF container: the WEBP tag at offset 8 only counts behind a RIFF header.
+            case WEBP -> head[0] == 'R' && head[1] == 'I' && head[2] == 'F' && head[3] == 'F';
+            // Reserved words are zero; the DIB header size is one of the known versions.
+            case BMP -> length >= 18 && head[6] == 0 && head[7] == 0 && head[8] == 0 && head[9] == 0
+                    && isOneOf(head[14] & 0xFF, 12, 40, 52, 56, 64, 108, 124)
+                    && head[15] == 0 && head[16] == 0 && head[17] == 0;
+            // At least one image; the first directory entry's reserved byte is zero, its planes 0 or 1.
+            case ICO -> length >= 12 && (head[4] != 0 || head[5] != 0) && head[9] == 0
+                    && (head[10] == 0 || head[10] == 1) && head[11] == 0;
+            // Block size digit, then the magic of the first block.
+            case BZIP2 -> length >= 10 && head[3] >= '1' && head[3] <= '9' && head[4] == 0x31 && head[5] == 0x41
+                    && head[6] == 0x59 && head[7] == 0x26 && head[8] == 0x53 && head[9] == 0x59;
+            // ID3v2 major version 2 to 4, revision 0.
+            case MP3 -> length >= 5 && head[3] >= 2 && head[3] <= 4 && head[4] == 0;
+            default -> true;
+        };
+    }
+
+    private static boolean isOneOf(int value, int... candidates) {
+        for (int candidate : candidates) {
+            if (value == candidate) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static byte[] ascii(String magic) {
+        return magic.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,55 @@
+package com.mandrel.file_storage_service.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Sort keys supported by the paginated listings. Each key knows how to render
+ * and parse its value inside a {@link FileCursor}.
+ */
+public enum FileSortField {
+    ID("id"),
+    FILENAME("filename"),
+    UPLOAD_DATE("uploadDate"),
+    SIZE("size");
+
+    private final String attribute;
+
+    FileSortField(String attribute) {
+        this.attribute = attribute;
+    }
+
+    public String getAttribute() {
+        return attribute;
+    }
+
+    public String valueOf(StoredFileMetadataDto file) {
+        Object value = switch (this) {
+            case ID -> file.getId();
+            case FILENAME -> file.getFilename();
+            case UPLOAD_DATE -> file.getUploadDate();
+            case SIZE -> file.getSize();
+        };
+        return value == null ? null : value.toString();
+    }
+
+    public Comparable<?> parse(String value) {
+        try {
+            return switch (this) {
+                case ID, SIZE -> Long.valueOf(value);
+                case FILENAME -> value;
+                case UPLOAD_DATE -> LocalDateTime.parse(value);
+            };
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor value for " + attribute + ": " + value, e);
+        }
+    }
+
+    public static FileSortField fromParam(String param) {
+        for (FileSortField field : values()) {
+            if (field.attribute.equalsIgnoreCase(param)) {
+                return field;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported sort field: " + param);
+    }
+}
@@ -0,0 +1,20 @@
+package com.mandrel.file_storage_service.model;
+
+/**
+ * How far a local write is flushed before the upload is acknowledged. Every
+ * mode writes to a temporary file and renames it into place, so readers never
+ * see a partial file; the modes differ only in what survives a power loss.
+ */
+public enum LocalFileDurability {
+    /** Leave flushing to the OS; a crash may lose recent uploads. */
+    NONE,
+    /** fsync each file before its rename and its directory after. */
+    FSYNC,
+    /**
+     * Park each write until a group flush, which fsyncs every pending file in
+     * one pass, and its rename until the next one, which fsyncs the directories
+     * renamed into; trades up to two intervals of latency for fewer syncs under
+     * load.
+     */
+    GROUP
+}
@@ -0,0 +1,26 @@
+package com.mandrel.file_storage_service.model;
+
+import java.util.Map;
+
+/**
+ * Result of replaying the local index journal: the live files by name, and the
+ * highest version the journal has ever recorded, including versions of files
+ * deleted since, so a restarted service never hands one out again.
+ */
+public class LocalFileJournalReplay {
+    private final Map<String, StoredFileMetadataDto> files;
+    private final long highestVersion;
+
+    public LocalFileJournalReplay(Map<String, StoredFileMetadataDto> files, long highestVersion) {
+        this.files = files;
+        this.highestVersion = highestVersion;
+    }
+
+    public Map<String, StoredFileMetadataDto> getFiles() {
+        return files;
+    }
+
+    public long getHighestVersion() {
+        return highestVersion;
+    }
+}
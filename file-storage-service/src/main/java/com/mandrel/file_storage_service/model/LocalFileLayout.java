@@ -0,0 +1,53 @@
+package com.mandrel.file_storage_service.model;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Where the local backend keeps a file under its root directory. {@code FLAT}
+ * puts every file directly in the root; {@code SHARDED} nests it two levels
+ * deep under the first two bytes of the SHA-256 of its name
+ * ({@code 3f/a2/report.pdf}), which keeps each directory to a few thousand
+ * entries at millions of files. Either way a name maps to exactly one path, so
+ * lookups never search.
+ */
+public enum LocalFileLayout {
+    FLAT(0),
+    SHARDED(2);
+
+    private final int depth;
+
+    LocalFileLayout(int depth) {
+        this.depth = depth;
+    }
+
+    /**
+     * Number of directory levels between the root and a file.
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    public Path resolve(Path root, String filename) {
+        if (depth == 0) {
+            return root.resolve(filename);
+        }
+        String hash = HexFormat.of().formatHex(sha256(filename), 0, depth);
+        Path dir = root;
+        for (int i = 0; i < depth; i++) {
+            dir = dir.resolve(hash.substring(i * 2, i * 2 + 2));
+        }
+        return dir.resolve(filename);
+    }
+
+    private static byte[] sha256(String filename) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(filename.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.mandrel.file_storage_service.model;
+
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * The two places a file can be stored, named as in the URL paths
+ * ({@code /files/memory}, {@code /files/local}).
+ */
+public enum StorageBackend {
+    /** H2 BLOB storage behind {@code FileStorageService}. */
+    MEMORY,
+    /** The upload directory behind {@code FileUploadService}. */
+    LOCAL;
+
+    public static Optional<StorageBackend> fromPath(String segment) {
+        for (StorageBackend backend : values()) {
+            if (backend.name().toLowerCase(Locale.ROOT).equals(segment)) {
+                return Optional.of(backend);
+            }
+        }
+        return Optional.empty();
+    }
+}
@@ -4,18 +4,30 @@ import java.time.LocalDateTime;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
-import jakarta.persistence.Lob;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 
 @Entity
-@Table(name = "stored_file")
+@Table(name = "stored_file", indexes = {
+        @Index(name = "idx_stored_file_filename", columnList = "filename, id"),
+        @Index(name = "idx_stored_file_upload_date", columnList = "uploadDate, id"),
+        @Index(name = "idx_stored_file_size", columnList = "size, id"),
+        @Index(name = "idx_stored_file_content_type", columnList = "contentType, id")
+})
 public class StoredFile {
 
+    // Pooled sequence rather than IDENTITY: ids are known before the insert, so
+    // Hibernate can group rows into JDBC batches.
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "stored_file_seq")
+    @SequenceGenerator(name = "stored_file_seq", sequenceName = "stored_file_seq", allocationSize = 50)
     private Long id;
 
     private String filename;
@@ -23,18 +35,21 @@ public class StoredFile {
     private Long size;
     private LocalDateTime uploadDate;
 
-    @Lob
-    @Column(nullable = false)
-    private byte[] content;
+    @Column(length = 64)
+    private String checksum;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "blob_id", nullable = false)
+    private StoredFileBlob blob;
 
     public StoredFile(Long id, String filename, String contentType, Long size, LocalDateTime uploadDate,
-            byte[] content) {
+            StoredFileBlob blob) {
         this.id = id;
         this.filename = filename;
         this.contentType = contentType;
         this.size = size;
         this.uploadDate = uploadDate;
-        this.content = content;
+        this.blob = blob;
     }
 
     public StoredFile() {
@@ -80,11 +95,19 @@ public class StoredFile {
         this.uploadDate = uploadDate;
     }
 
-    public byte[] getContent() {
-        return content;
+    public String getChecksum() {
+        return checksum;
+    }
+
+    public void setChecksum(String checksum) {
+        this.checksum = checksum;
+    }
+
+    public StoredFileBlob getBlob() {
+        return blob;
     }
 
-    public void setContent(byte[] content) {
-        this.content = content;
+    public void setBlob(StoredFileBlob blob) {
+        this.blob = blob;
     }
 }
@@ -0,0 +1,102 @@
+package com.mandrel.file_storage_service.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Lob;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+
+/**
+ * File payload, kept apart from the {@link StoredFile} metadata row so that
+ * metadata reads, existence checks and deletes never pull the bytes into heap.
+ * Payloads are content-addressed: one row per distinct SHA-256, shared by every
+ * {@link StoredFile} with those bytes and counted in {@code refCount}.
+ * <p>
+ * A {@code cold} payload has been moved out to the cold tier on disk; its
+ * {@code data} is then empty.
+ */
+@Entity
+@Table(name = "stored_file_blob",
+        uniqueConstraints = @UniqueConstraint(name = "uk_stored_file_blob_checksum", columnNames = "checksum"))
+public class StoredFileBlob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Lob
+    @Column(nullable = false)
+    private byte[] data;
+
+    // Null only while an upload is still deciding whether it is a duplicate.
+    @Column(length = 64)
+    private String checksum;
+
+    @Column(nullable = false)
+    private long size;
+
+    @Column(nullable = false)
+    private int refCount = 1;
+
+    @Column(nullable = false)
+    private boolean cold;
+
+    public StoredFileBlob(byte[] data) {
+        this.data = data;
+        this.size = data.length;
+    }
+
+    public StoredFileBlob() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public byte[] getData() {
+        return data;
+    }
+
+    public void setData(byte[] data) {
+        this.data = data;
+    }
+
+    public String getChecksum() {
+        return checksum;
+    }
+
+    public void setChecksum(String checksum) {
+        this.checksum = checksum;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public void setSize(long size) {
+        this.size = size;
+    }
+
+    public int getRefCount() {
+        return refCount;
+    }
+
+    public void setRefCount(int refCount) {
+        this.refCount = refCount;
+    }
+
+    public boolean isCold() {
+        return cold;
+    }
+
+    public void setCold(boolean cold) {
+        this.cold = cold;
+    }
+}
@@ -0,0 +1,23 @@
+package com.mandrel.file_storage_service.model;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Published when stored file rows are deleted, one event per delete call.
+ */
+public class StoredFileDeletedEvent {
+    private final Collection<Long> ids;
+
+    public StoredFileDeletedEvent(Long id) {
+        this(List.of(id));
+    }
+
+    public StoredFileDeletedEvent(Collection<Long> ids) {
+        this.ids = ids;
+    }
+
+    public Collection<Long> getIds() {
+        return ids;
+    }
+}
@@ -0,0 +1,25 @@
+package com.mandrel.file_storage_service.model;
+
+import org.springframework.core.io.Resource;
+
+/**
+ * A file ready to be written to a response: its metadata plus a {@link Resource}
+ * that streams the content when opened.
+ */
+public class StoredFileDownload {
+    private final StoredFileMetadataDto metadata;
+    private final Resource content;
+
+    public StoredFileDownload(StoredFileMetadataDto metadata, Resource content) {
+        this.metadata = metadata;
+        this.content = content;
+    }
+
+    public StoredFileMetadataDto getMetadata() {
+        return metadata;
+    }
+
+    public Resource getContent() {
+        return content;
+    }
+}
@@ -0,0 +1,142 @@
+package com.mandrel.file_storage_service.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Listing view of a stored file. Carries metadata only, never the file content,
+ * so listing cost depends on the number of files and not on the bytes stored.
+ */
+public class StoredFileMetadataDto {
+    private Long id;
+    private String filename;
+    private String contentType;
+    private Long size;
+    private LocalDateTime uploadDate;
+    private String checksum;
+    // Local files only: generation of the current content, increasing with every write.
+    private Long version;
+
+    public StoredFileMetadataDto(Long id, String filename, String contentType, Long size, LocalDateTime uploadDate,
+            String checksum) {
+        this.id = id;
+        this.filename = filename;
+        this.contentType = contentType;
+        this.size = size;
+        this.uploadDate = uploadDate;
+        this.checksum = checksum;
+    }
+
+    public StoredFileMetadataDto() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getFilename() {
+        return filename;
+    }
+
+    public void setFilename(String filename) {
+        this.filename = filename;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public void setContentType(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public Long getSize() {
+        return size;
+    }
+
+    public void setSize(Long size) {
+        this.size = size;
+    }
+
+    public LocalDateTime getUploadDate() {
+        return uploadDate;
+    }
+
+    public void setUploadDate(LocalDateTime uploadDate) {
+        this.uploadDate = uploadDate;
+    }
+
+    public String getChecksum() {
+        return checksum;
+    }
+
+    public void setChecksum(String checksum) {
+        this.checksum = checksum;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static class Builder {
+        private Long id;
+        private String filename;
+        private String contentType;
+        private Long size;
+        private LocalDateTime uploadDate;
+        private String checksum;
+        private Long version;
+
+        public Builder id(Long id) {
+            this.id = id;
+            return this;
+        }
+
+        public Builder filename(String filename) {
+            this.filename = filename;
+            return this;
+        }
+
+        public Builder contentType(String contentType) {
+            this.contentType = contentType;
+            return this;
+        }
+
+        public Builder size(Long size) {
+            this.size = size;
+            return this;
+        }
+
+        public Builder uploadDate(LocalDateTime uploadDate) {
+            this.uploadDate = uploadDate;
+            return this;
+        }
+
+        public Builder checksum(String checksum) {
+            this.checksum = checksum;
+            return this;
+        }
+
+        public Builder version(Long version) {
+            this.version = version;
+            return this;
+        }
+
+        public StoredFileMetadataDto build() {
+            StoredFileMetadataDto dto = new StoredFileMetadataDto(id, filename, contentType, size, uploadDate, checksum);
+            dto.setVersion(version);
+            return dto;
+        }
+    }
+}
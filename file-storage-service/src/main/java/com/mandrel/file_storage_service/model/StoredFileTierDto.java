@@ -0,0 +1,44 @@
+package com.mandrel.file_storage_service.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * One memory-backend file as the tiering pass sees it: the file, the blob
+ * holding its bytes (possibly shared with other files) and the tier that
+ * blob is in.
+ */
+public class StoredFileTierDto {
+    private final Long fileId;
+    private final LocalDateTime uploadDate;
+    private final Long blobId;
+    private final long size;
+    private final boolean cold;
+
+    public StoredFileTierDto(Long fileId, LocalDateTime uploadDate, Long blobId, long size, boolean cold) {
+        this.fileId = fileId;
+        this.uploadDate = uploadDate;
+        this.blobId = blobId;
+        this.size = size;
+        this.cold = cold;
+    }
+
+    public Long getFileId() {
+        return fileId;
+    }
+
+    public LocalDateTime getUploadDate() {
+        return uploadDate;
+    }
+
+    public Long getBlobId() {
+        return blobId;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public boolean isCold() {
+        return cold;
+    }
+}
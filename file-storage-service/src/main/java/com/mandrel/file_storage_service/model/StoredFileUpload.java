@@ -0,0 +1,31 @@
+package com.mandrel.file_storage_service.model;
+
+import org.springframework.core.io.InputStreamSource;
+
+/**
+ * One file of a batch upload. The content is opened only when that file is
+ * written, so a large batch never holds more than one stream open.
+ */
+public class StoredFileUpload {
+    private final String filename;
+    private final String contentType;
+    private final InputStreamSource content;
+
+    public StoredFileUpload(String filename, String contentType, InputStreamSource content) {
+        this.filename = filename;
+        this.contentType = contentType;
+        this.content = content;
+    }
+
+    public String getFilename() {
+        return filename;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public InputStreamSource getContent() {
+        return content;
+    }
+}
@@ -0,0 +1,42 @@
+package com.mandrel.file_storage_service.model;
+
+/**
+ * What one tiering pass moved: blobs demoted to the cold tier on disk and
+ * promoted back into the database, with their bytes, plus blobs whose move
+ * failed and will be retried by the next pass.
+ */
+public class TieringResult {
+    private final int demoted;
+    private final long demotedBytes;
+    private final int promoted;
+    private final long promotedBytes;
+    private final int failed;
+
+    public TieringResult(int demoted, long demotedBytes, int promoted, long promotedBytes, int failed) {
+        this.demoted = demoted;
+        this.demotedBytes = demotedBytes;
+        this.promoted = promoted;
+        this.promotedBytes = promotedBytes;
+        this.failed = failed;
+    }
+
+    public int getDemoted() {
+        return demoted;
+    }
+
+    public long getDemotedBytes() {
+        return demotedBytes;
+    }
+
+    public int getPromoted() {
+        return promoted;
+    }
+
+    public long getPromotedBytes() {
+        return promotedBytes;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+}
@@ -0,0 +1,13 @@
+package com.mandrel.file_storage_service.model;
+
+/**
+ * A streamed upload went past its configured size limit; nothing of it was kept.
+ */
+public class UploadLimitExceededException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public UploadLimitExceededException(String message) {
+        super(message);
+    }
+}
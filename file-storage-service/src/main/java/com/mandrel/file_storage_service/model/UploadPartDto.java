@@ -0,0 +1,22 @@
+package com.mandrel.file_storage_service.model;
+
+/**
+ * One part received by a resumable upload session.
+ */
+public class UploadPartDto {
+    private final int partNumber;
+    private final long size;
+
+    public UploadPartDto(int partNumber, long size) {
+        this.partNumber = partNumber;
+        this.size = size;
+    }
+
+    public int getPartNumber() {
+        return partNumber;
+    }
+
+    public long getSize() {
+        return size;
+    }
+}
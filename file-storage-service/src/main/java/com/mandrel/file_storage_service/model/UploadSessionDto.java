@@ -0,0 +1,74 @@
+package com.mandrel.file_storage_service.model;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * State of a resumable upload session: the file it will create and the parts
+ * received so far, in part-number order, against the size it was declared with. A client resuming after a failure
+ * re-sends only the parts missing here.
+ */
+public class UploadSessionDto {
+    private final String id;
+    private final StorageBackend backend;
+    private final String filename;
+    private final String contentType;
+    private final long size;
+    private final LocalDateTime createdAt;
+    private final LocalDateTime expiresAt;
+    private final List<UploadPartDto> parts;
+
+    public UploadSessionDto(String id, StorageBackend backend, String filename, String contentType, long size,
+            LocalDateTime createdAt, LocalDateTime expiresAt, List<UploadPartDto> parts) {
+        this.id = id;
+        this.backend = backend;
+        this.filename = filename;
+        this.contentType = contentType;
+        this.size = size;
+        this.createdAt = createdAt;
+        this.expiresAt = expiresAt;
+        this.parts = parts;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public StorageBackend getBackend() {
+        return backend;
+    }
+
+    public String getFilename() {
+        return filename;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * Total bytes the parts must add up to before the session can complete.
+     */
+    public long getSize() {
+        return size;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    /**
+     * When the session is dropped unless another part arrives first.
+     */
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    public List<UploadPartDto> getParts() {
+        return parts;
+    }
+
+    public long getReceivedBytes() {
+        return parts.stream().mapToLong(UploadPartDto::getSize).sum();
+    }
+}
@@ -0,0 +1,101 @@
+package com.mandrel.file_storage_service.repository;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Repository;
+
+/**
+ * The cold tier: payloads moved out of {@code stored_file_blob}, one file per
+ * blob id, in a directory of its own ({@code cold-blobs} by default). The
+ * files are hidden ({@code .blob-<id>}), so even a directory configured inside
+ * the local upload directory is never listed, indexed or migrated by the local
+ * backend. Writes go through {@link LocalFileContentRepository},
+ * so they are atomic and as durable as local uploads.
+ */
+@Repository
+public class ColdBlobRepository {
+
+    private static final String PREFIX = ".blob-";
+
+    private final Path directory;
+    private final LocalFileContentRepository contentRepository;
+
+    @Autowired
+    public ColdBlobRepository(
+            @Value("${file-storage.tiering.directory:cold-blobs}") Path directory,
+            LocalFileContentRepository contentRepository) {
+        this.directory = directory;
+        this.contentRepository = contentRepository;
+    }
+
+    /**
+     * Streams {@code content} into the file for {@code blobId}, replacing any
+     * earlier copy.
+     *
+     * @return the number of bytes written
+     */
+    public long write(Long blobId, InputStream content) throws IOException {
+        Files.createDirectories(directory);
+        return contentRepository.write(pathFor(blobId), content);
+    }
+
+    public InputStream open(Long blobId) throws IOException {
+        return Files.newInputStream(pathFor(blobId));
+    }
+
+    /**
+     * A resource over the file for {@code blobId}; nothing is opened until it is
+     * read, and reading fails with {@link java.nio.file.NoSuchFileException} if
+     * the file is not there.
+     */
+    public Resource openResource(Long blobId) {
+        return contentRepository.openResource(pathFor(blobId));
+    }
+
+    public boolean delete(Long blobId) throws IOException {
+        return Files.deleteIfExists(pathFor(blobId));
+    }
+
+    /**
+     * Ids of every blob with a file in the cold tier.
+     */
+    public Set<Long> findBlobIds() throws IOException {
+        Set<Long> ids = new HashSet<>();
+        if (Files.notExists(directory)) {
+            return ids;
+        }
+        try (Stream<Path> paths = Files.list(directory)) {
+            paths.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(PREFIX))
+                    .forEach(name -> {
+                        try {
+                            ids.add(Long.parseLong(name.substring(PREFIX.length())));
+                        } catch (NumberFormatException e) {
+                            // Not one of ours.
+                        }
+                    });
+        }
+        return ids;
+    }
+
+    /**
+     * Removes temporary files of writes that never completed. Only safe while
+     * no write to the cold tier is in flight.
+     */
+    public int deleteAbandonedWrites() throws IOException {
+        return Files.isDirectory(directory) ? contentRepository.deleteAbandonedWrites(directory, 1) : 0;
+    }
+
+    private Path pathFor(Long blobId) {
+        return directory.resolve(PREFIX + blobId);
+    }
+}
@@ -0,0 +1,63 @@
+package com.mandrel.file_storage_service.repository;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+
+import com.mandrel.file_storage_service.model.FileAccess;
+
+/**
+ * In-memory read statistics of memory-backend files, keyed by file id:
+ * recency (time of the last read) and frequency (a read count decaying with
+ * {@code file-storage.tiering.access-half-life}). Files never read since
+ * startup have no entry. Recording a read is one map update and never
+ * touches the database.
+ */
+@Repository
+public class FileAccessRepository {
+
+    private final ConcurrentHashMap<Long, FileAccess> accesses = new ConcurrentHashMap<>();
+    private final long halfLifeMillis;
+
+    @Autowired
+    public FileAccessRepository(@Value("${file-storage.tiering.access-half-life:1h}") Duration halfLife) {
+        this.halfLifeMillis = Math.max(1, halfLife.toMillis());
+    }
+
+    public void recordAccess(Long fileId) {
+        long now = System.currentTimeMillis();
+        accesses.compute(fileId, (id, access) -> access == null
+                ? new FileAccess(now, 1)
+                : access.withReadAt(now, halfLifeMillis));
+    }
+
+    /**
+     * Time of the last read of {@code fileId}, or {@code fallbackMillis} if it
+     * has not been read.
+     */
+    public long lastAccessMillis(Long fileId, long fallbackMillis) {
+        FileAccess access = accesses.get(fileId);
+        return access == null ? fallbackMillis : Math.max(access.getLastAccessMillis(), fallbackMillis);
+    }
+
+    /**
+     * Decayed read count of {@code fileId} as of {@code nowMillis}.
+     */
+    public double recentReads(Long fileId, long nowMillis) {
+        FileAccess access = accesses.get(fileId);
+        return access == null ? 0 : access.readsAt(nowMillis, halfLifeMillis);
+    }
+
+    /**
+     * Forgets files not read since {@code cutoffMillis}, including deleted
+     * ones. Callers pass a cutoff old enough that the decayed count no longer
+     * matters and the upload date, which is older still, gives the same answer
+     * about recency.
+     */
+    public void removeIdleSince(long cutoffMillis) {
+        accesses.values().removeIf(access -> access.getLastAccessMillis() < cutoffMillis);
+    }
+}
@@ -0,0 +1,312 @@
+package com.mandrel.file_storage_service.repository;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Repository;
+
+import com.mandrel.file_storage_service.model.LocalFileDurability;
+import com.mandrel.file_storage_service.util.FileChannelResource;
+import com.mandrel.file_storage_service.util.FileVersion;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Read and write access to file payloads in the local upload directory.
+ * Writes go to a hidden temporary file next to the destination and are renamed
+ * over it atomically, flushed according to the configured
+ * {@link LocalFileDurability}.
+ */
+@Repository
+public class LocalFileContentRepository {
+
+    private static final String TEMP_PREFIX = ".upload-";
+
+    private final LocalFileDurability durability;
+    private final ScheduledExecutorService groupFlusher;
+    // A lock rather than a monitor, so virtual threads never pin a carrier on it.
+    private final ReentrantLock pendingLock = new ReentrantLock();
+    // Files and directories parked for the next group flush, each with the future its writers wait on.
+    private Map<FileChannel, CompletableFuture<Void>> pending = new IdentityHashMap<>();
+    private Map<Path, CompletableFuture<Void>> pendingDirectories = new LinkedHashMap<>();
+    // Set under pendingLock before the last flush; nothing is parked after it.
+    private boolean closed;
+
+    @Autowired
+    public LocalFileContentRepository(
+            @Value("${file-storage.local.durability:NONE}") LocalFileDurability durability,
+            @Value("${file-storage.local.group-sync-interval:10ms}") Duration groupSyncInterval) {
+        this.durability = durability;
+        if (durability == LocalFileDurability.GROUP) {
+            groupFlusher = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "local-file-group-sync");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long interval = Math.max(1, groupSyncInterval.toMillis());
+            groupFlusher.scheduleWithFixedDelay(this::flushGroup, interval, interval, TimeUnit.MILLISECONDS);
+        } else {
+            groupFlusher = null;
+        }
+    }
+
+    /**
+     * Stops the group flusher after one last flush. Writers arriving after it
+     * sync their own file or directory instead of parking.
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (groupFlusher != null) {
+            pendingLock.lock();
+            try {
+                closed = true;
+            } finally {
+                pendingLock.unlock();
+            }
+            groupFlusher.shutdown();
+            flushGroup();
+        }
+    }
+
+    /**
+     * Returns a file-backed resource; nothing is opened until it is read. Its
+     * stream seeks rather than reads on {@code skip}, so range requests only
+     * touch the bytes they ask for.
+     */
+    public Resource openResource(Path path) {
+        return new FileChannelResource(path);
+    }
+
+    /**
+     * Like {@link #openResource(Path)}, but bound to the file version described
+     * by {@code attrs}: if the path has been replaced by the time the resource
+     * is read, reading fails instead of returning the newer content.
+     */
+    public Resource openResource(Path path, BasicFileAttributes attrs) {
+        return new FileChannelResource(path, FileVersion.of(attrs));
+    }
+
+    /**
+     * Streams {@code content} into {@code destination}, replacing any existing
+     * file in one rename. Memory use does not depend on the content length.
+     *
+     * @return the number of bytes written
+     */
+    public long write(Path destination, InputStream content) throws IOException {
+        Path temp = writeTemporary(destination, content);
+        try {
+            long size = Files.size(temp);
+            commit(temp, destination);
+            return size;
+        } finally {
+            discard(temp);
+        }
+    }
+
+    /**
+     * First half of {@link #write}: streams {@code content} into a new hidden
+     * file next to {@code destination} and flushes it per the durability mode.
+     * The caller must {@link #commit} or {@link #discard} the returned path.
+     */
+    public Path writeTemporary(Path destination, InputStream content) throws IOException {
+        Path temp = temporaryFor(destination);
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            content.transferTo(Channels.newOutputStream(channel));
+            force(channel);
+        } catch (IOException | RuntimeException e) {
+            discard(temp);
+            throw e;
+        }
+        return temp;
+    }
+
+    /**
+     * Creates an empty hidden file next to {@code destination} for a caller
+     * that fills it itself, e.g. with asynchronous channel writes. Once filled
+     * it goes through {@link #flushTemporary} and then {@link #commit}, or is
+     * {@link #discard}ed.
+     */
+    public Path createTemporary(Path destination) throws IOException {
+        Path temp = temporaryFor(destination);
+        Files.createFile(temp);
+        return temp;
+    }
+
+    /**
+     * Flushes a file filled after {@link #createTemporary} per the durability
+     * mode, as {@link #writeTemporary} does for the files it writes.
+     */
+    public void flushTemporary(Path temp) throws IOException {
+        if (durability == LocalFileDurability.NONE) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            force(channel);
+        }
+    }
+
+    /**
+     * Second half of {@link #write}: renames {@code temp} over
+     * {@code destination} in one atomic step. Unless the durability mode is
+     * NONE, it returns only once the rename itself is on disk: after its own
+     * directory fsync in FSYNC mode, after the next group flush in GROUP mode.
+     */
+    public void commit(Path temp, Path destination) throws IOException {
+        Files.move(temp, destination, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        if (durability == LocalFileDurability.FSYNC) {
+            syncDirectory(destination.getParent());
+        } else if (durability == LocalFileDurability.GROUP) {
+            awaitGroupSync(destination.getParent());
+        }
+    }
+
+    /**
+     * Removes a temporary file that was not committed; a no-op after {@link #commit}.
+     */
+    public void discard(Path temp) throws IOException {
+        Files.deleteIfExists(temp);
+    }
+
+    /**
+     * Deletes temporary files left behind by writes that never reached their
+     * rename, up to {@code maxDepth} levels below {@code root}. Only safe while
+     * no write is in flight, i.e. at startup.
+     *
+     * @return the number of files deleted
+     */
+    public int deleteAbandonedWrites(Path root, int maxDepth) throws IOException {
+        List<Path> abandoned;
+        try (Stream<Path> paths = Files.find(root, maxDepth,
+                (path, attrs) -> attrs.isRegularFile() && path.getFileName().toString().startsWith(TEMP_PREFIX))) {
+            abandoned = paths.toList();
+        }
+        for (Path path : abandoned) {
+            Files.deleteIfExists(path);
+        }
+        return abandoned.size();
+    }
+
+    private static Path temporaryFor(Path destination) {
+        return destination.resolveSibling(TEMP_PREFIX + UUID.randomUUID() + ".tmp");
+    }
+
+    private void force(FileChannel channel) throws IOException {
+        if (durability == LocalFileDurability.FSYNC) {
+            channel.force(true);
+        } else if (durability == LocalFileDurability.GROUP) {
+            awaitGroupSync(channel);
+        }
+    }
+
+    private void awaitGroupSync(FileChannel channel) throws IOException {
+        CompletableFuture<Void> synced = null;
+        pendingLock.lock();
+        try {
+            if (!closed) {
+                synced = new CompletableFuture<>();
+                pending.put(channel, synced);
+            }
+        } finally {
+            pendingLock.unlock();
+        }
+        if (synced == null) {
+            channel.force(true);
+            return;
+        }
+        await(synced);
+    }
+
+    /**
+     * Parks a directory for the next group flush and waits for it; commits
+     * into the same directory share one fsync.
+     */
+    private void awaitGroupSync(Path directory) throws IOException {
+        CompletableFuture<Void> synced = null;
+        pendingLock.lock();
+        try {
+            if (!closed) {
+                synced = pendingDirectories.computeIfAbsent(directory, d -> new CompletableFuture<>());
+            }
+        } finally {
+            pendingLock.unlock();
+        }
+        if (synced == null) {
+            syncDirectory(directory);
+            return;
+        }
+        await(synced);
+    }
+
+    private static void await(CompletableFuture<Void> synced) throws IOException {
+        try {
+            synced.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted waiting for group sync", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Group sync failed", e.getCause());
+        }
+    }
+
+    /**
+     * One group commit: fsyncs every parked file and releases its writer, then
+     * fsyncs the directories renamed into since the last flush and releases
+     * the committers waiting on them.
+     */
+    private void flushGroup() {
+        Map<FileChannel, CompletableFuture<Void>> files;
+        Map<Path, CompletableFuture<Void>> directories;
+        pendingLock.lock();
+        try {
+            files = pending;
+            directories = pendingDirectories;
+            pending = new IdentityHashMap<>();
+            pendingDirectories = new LinkedHashMap<>();
+        } finally {
+            pendingLock.unlock();
+        }
+        for (Map.Entry<FileChannel, CompletableFuture<Void>> sync : files.entrySet()) {
+            try {
+                sync.getKey().force(true);
+                sync.getValue().complete(null);
+            } catch (IOException | RuntimeException e) {
+                sync.getValue().completeExceptionally(e);
+            }
+        }
+        directories.forEach((directory, synced) -> {
+            syncDirectory(directory);
+            synced.complete(null);
+        });
+    }
+
+    private static void syncDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Some platforms cannot open or sync a directory; the rename itself is still atomic.
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.mandrel.file_storage_service.repository;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Repository;
+
+import com.mandrel.file_storage_service.model.LocalFileJournalReplay;
+import com.mandrel.file_storage_service.model.StoredFileMetadataDto;
+
+/**
+ * Append-only metadata journal for the local upload directory, kept in the
+ * directory itself as {@value #INDEX_FILE_NAME}. Every write appends a
+ * {@code P} record with the file's metadata and every delete a {@code D}
+ * tombstone; replaying the journal rebuilds the index without opening a single
+ * payload. {@link #rewrite} compacts it to one record per live file, headed
+ * by a {@code V} record carrying the highest version issued so far, which the
+ * dropped records of deleted files would otherwise take with them;
+ * {@link #compact} does the same while appends go on.
+ * <p>
+ * Records are tab-separated, URL-encoded fields on one line, so a record torn
+ * by a crash is just an unparsable last line and is skipped on replay.
+ */
+@Repository
+public class LocalFileIndexJournalRepository {
+
+    public static final String INDEX_FILE_NAME = ".index";
+
+    private static final String PUT = "P";
+    private static final String DELETE = "D";
+    private static final String VERSION = "V";
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    /**
+     * Replays the journal under {@code root}; returns live entries by filename,
+     * or an empty map when there is no journal yet.
+     */
+    public Map<String, StoredFileMetadataDto> load(Path root) {
+        return replay(root).getFiles();
+    }
+
+    /**
+     * Replays the journal under {@code root}, also finding the highest version
+     * any record carries.
+     */
+    public LocalFileJournalReplay replay(Path root) {
+        Map<String, StoredFileMetadataDto> files = new LinkedHashMap<>();
+        long highestVersion = 0;
+        try (BufferedReader reader = Files.newBufferedReader(root.resolve(INDEX_FILE_NAME), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                highestVersion = Math.max(highestVersion, apply(line, files));
+            }
+        } catch (NoSuchFileException e) {
+            return new LocalFileJournalReplay(files, 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read index journal in " + root, e);
+        }
+        return new LocalFileJournalReplay(files, highestVersion);
+    }
+
+    public void appendPut(Path root, StoredFileMetadataDto file) {
+        append(root, putRecord(file));
+    }
+
+    public void appendRemove(Path root, String filename) {
+        append(root, DELETE + "\t" + encode(filename));
+    }
+
+    /**
+     * Replaces the journal with one record per file in {@code files}, after a
+     * record of {@code highestVersion}. The new journal is written next to the
+     * old one and moved over it atomically.
+     */
+    public void rewrite(Path root, Collection<StoredFileMetadataDto> files, long highestVersion) {
+        writeLock.lock();
+        try {
+            Path journal = root.resolve(INDEX_FILE_NAME);
+            Path temp = root.resolve(INDEX_FILE_NAME + ".tmp");
+            try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                writer.write(VERSION + "\t" + highestVersion);
+                writer.newLine();
+                for (StoredFileMetadataDto file : files) {
+                    writer.write(putRecord(file));
+                    writer.newLine();
+                }
+            }
+            Files.move(temp, journal, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to rewrite index journal in " + root, e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Compacts the journal of a live index. {@code files} and
+     * {@code highestVersion} are read only once appends are held off, so every
+     * record already appended is reflected in them, as long as callers update
+     * the index before appending to the journal.
+     *
+     * @return the number of file records written
+     */
+    public int compact(Path root, Supplier<Collection<StoredFileMetadataDto>> files, LongSupplier highestVersion) {
+        writeLock.lock();
+        try {
+            Collection<StoredFileMetadataDto> live = files.get();
+            rewrite(root, live, highestVersion.getAsLong());
+            return live.size();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void append(Path root, String record) {
+        writeLock.lock();
+        try {
+            Files.writeString(root.resolve(INDEX_FILE_NAME), record + "\n", StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append to index journal in " + root, e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private static String putRecord(StoredFileMetadataDto file) {
+        return String.join("\t", PUT,
+                encode(file.getFilename()),
+                file.getSize() == null ? "" : file.getSize().toString(),
+                encode(file.getContentType()),
+                encode(file.getChecksum()),
+                file.getUploadDate() == null ? "" : file.getUploadDate().toString(),
+                file.getVersion() == null ? "" : file.getVersion().toString());
+    }
+
+    /**
+     * Applies one record to {@code files}.
+     *
+     * @return the version the record carries, or 0
+     */
+    private static long apply(String line, Map<String, StoredFileMetadataDto> files) {
+        String[] fields = line.split("\t", -1);
+        try {
+            if (fields.length == 2 && DELETE.equals(fields[0])) {
+                files.remove(decode(fields[1]));
+            } else if (fields.length == 2 && VERSION.equals(fields[0])) {
+                return Long.parseLong(fields[1]);
+            } else if ((fields.length == 6 || fields.length == 7) && PUT.equals(fields[0])) {
+                String filename = decode(fields[1]);
+                Long version = fields.length < 7 || fields[6].isEmpty() ? null : Long.valueOf(fields[6]);
+                files.put(filename, StoredFileMetadataDto.builder()
+                        .filename(filename)
+                        .size(fields[2].isEmpty() ? null : Long.valueOf(fields[2]))
+                        .contentType(decode(fields[3]))
+                        .checksum(decode(fields[4]))
+                        .uploadDate(fields[5].isEmpty() ? null : LocalDateTime.parse(fields[5]))
+                        .version(version)
+                        .build());
+                return version == null ? 0 : version;
+            }
+        } catch (RuntimeException e) {
+            // Torn or foreign line; the directory reconcile covers whatever it described.
+        }
+        return 0;
+    }
+
+    private static String encode(String value) {
+        return value == null ? "" : URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    private static String decode(String value) {
+        return value.isEmpty() ? null : URLDecoder.decode(value, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,158 @@
+package com.mandrel.file_storage_service.repository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.stereotype.Repository;
+
+import com.mandrel.file_storage_service.model.FileCursor;
+import com.mandrel.file_storage_service.model.FileListQuery;
+import com.mandrel.file_storage_service.model.FilePage;
+import com.mandrel.file_storage_service.model.FileSortField;
+import com.mandrel.file_storage_service.model.StoredFileMetadataDto;
+
+/**
+ * Sorted in-memory index over the local upload directory. Keeps one ordered
+ * view per sort key (filename, size, upload date; ties broken by filename) so a
+ * keyset page is a tail-set walk instead of a directory scan.
+ */
+@Repository
+public class LocalFileIndexRepository {
+
+    private static final Comparator<StoredFileMetadataDto> BY_NAME =
+            Comparator.comparing(StoredFileMetadataDto::getFilename);
+    private static final Comparator<StoredFileMetadataDto> BY_SIZE =
+            Comparator.comparing(StoredFileMetadataDto::getSize, Comparator.nullsFirst(Comparator.naturalOrder()))
+                    .thenComparing(BY_NAME);
+    private static final Comparator<StoredFileMetadataDto> BY_UPLOAD_DATE =
+            Comparator.comparing(StoredFileMetadataDto::getUploadDate, Comparator.nullsFirst(Comparator.naturalOrder()))
+                    .thenComparing(BY_NAME);
+
+    private final ConcurrentSkipListMap<String, StoredFileMetadataDto> byName = new ConcurrentSkipListMap<>();
+    private final ConcurrentSkipListSet<StoredFileMetadataDto> bySize = new ConcurrentSkipListSet<>(BY_SIZE);
+    private final ConcurrentSkipListSet<StoredFileMetadataDto> byUploadDate = new ConcurrentSkipListSet<>(BY_UPLOAD_DATE);
+
+    // Writers keep the three views in step; readers walk them lock-free.
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    public void put(StoredFileMetadataDto file) {
+        writeLock.lock();
+        try {
+            StoredFileMetadataDto previous = byName.put(file.getFilename(), file);
+            if (previous != null) {
+                bySize.remove(previous);
+                byUploadDate.remove(previous);
+            }
+            bySize.add(file);
+            byUploadDate.add(file);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public boolean remove(String filename) {
+        writeLock.lock();
+        try {
+            StoredFileMetadataDto previous = byName.remove(filename);
+            if (previous == null) {
+                return false;
+            }
+            bySize.remove(previous);
+            byUploadDate.remove(previous);
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public void replaceAll(Collection<StoredFileMetadataDto> files) {
+        writeLock.lock();
+        try {
+            clear();
+            files.forEach(this::put);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public void clear() {
+        writeLock.lock();
+        try {
+            byName.clear();
+            bySize.clear();
+            byUploadDate.clear();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public Optional<StoredFileMetadataDto> find(String filename) {
+        return Optional.ofNullable(byName.get(filename));
+    }
+
+    public List<StoredFileMetadataDto> findAll() {
+        return new ArrayList<>(byName.values());
+    }
+
+    public int size() {
+        return byName.size();
+    }
+
+    public FilePage<StoredFileMetadataDto> findPage(FileListQuery query) {
+        Iterator<StoredFileMetadataDto> it = tail(query).iterator();
+        List<StoredFileMetadataDto> items = new ArrayList<>(Math.min(query.getLimit(), 64));
+        while (it.hasNext()) {
+            StoredFileMetadataDto file = it.next();
+            if (!query.matches(file)) {
+                continue;
+            }
+            if (items.size() == query.getLimit()) {
+                StoredFileMetadataDto last = items.get(items.size() - 1);
+                String next = new FileCursor(query.getSort().valueOf(last), last.getFilename()).encode();
+                return new FilePage<>(items, next);
+            }
+            items.add(file);
+        }
+        return new FilePage<>(items, null);
+    }
+
+    private Collection<StoredFileMetadataDto> tail(FileListQuery query) {
+        FileSortField sort = query.getSort();
+        FileCursor cursor = query.getAfter();
+        if (sort == FileSortField.FILENAME) {
+            if (cursor == null) {
+                return query.isDescending() ? byName.descendingMap().values() : byName.values();
+            }
+            return query.isDescending()
+                    ? byName.headMap(cursor.getKey(), false).descendingMap().values()
+                    : byName.tailMap(cursor.getKey(), false).values();
+        }
+        NavigableSet<StoredFileMetadataDto> view;
+        if (sort == FileSortField.SIZE) {
+            view = bySize;
+        } else if (sort == FileSortField.UPLOAD_DATE) {
+            view = byUploadDate;
+        } else {
+            throw new IllegalArgumentException("Unsupported sort field for local files: " + sort.getAttribute());
+        }
+        if (cursor == null) {
+            return query.isDescending() ? view.descendingSet() : view;
+        }
+        StoredFileMetadataDto probe = StoredFileMetadataDto.builder().filename(cursor.getKey()).build();
+        if (sort == FileSortField.SIZE) {
+            probe.setSize((Long) sort.parse(cursor.getValue()));
+        } else {
+            probe.setUploadDate((LocalDateTime) sort.parse(cursor.getValue()));
+        }
+        return query.isDescending() ? view.headSet(probe, false).descendingSet() : view.tailSet(probe, false);
+    }
+}
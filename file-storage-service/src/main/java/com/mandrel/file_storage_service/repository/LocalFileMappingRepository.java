@@ -0,0 +1,124 @@
+package com.mandrel.file_storage_service.repository;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Repository;
+import org.springframework.util.unit.DataSize;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Policy;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.mandrel.file_storage_service.model.CacheStatsDto;
+import com.mandrel.file_storage_service.util.FileVersion;
+import com.mandrel.file_storage_service.util.MappedFile;
+import com.mandrel.file_storage_service.util.MappedFileResource;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Optional cache of memory mappings for small, hot local files, bounded by the
+ * total number of mapped bytes. Eviction and invalidation unmap a file as soon
+ * as its last reader is done with it. Disabled unless
+ * {@code file-storage.local.mmap-cache.enabled} is set.
+ */
+@Repository
+public class LocalFileMappingRepository {
+
+    private final boolean enabled;
+    private final long maxFileSize;
+    private final long maxBytes;
+    private final Cache<String, MappedFile> mappings;
+
+    @Autowired
+    public LocalFileMappingRepository(
+            @Value("${file-storage.local.mmap-cache.enabled:false}") boolean enabled,
+            @Value("${file-storage.local.mmap-cache.max-bytes:64MB}") DataSize maxBytes,
+            @Value("${file-storage.local.mmap-cache.max-file-size:1MB}") DataSize maxFileSize) {
+        this.enabled = enabled;
+        this.maxBytes = maxBytes.toBytes();
+        this.maxFileSize = Math.min(maxFileSize.toBytes(), Integer.MAX_VALUE);
+        this.mappings = Caffeine.newBuilder()
+                .maximumWeight(this.maxBytes)
+                .weigher((String filename, MappedFile mapping) -> mapping.size())
+                .removalListener((String filename, MappedFile mapping, RemovalCause cause) -> {
+                    if (mapping != null) {
+                        mapping.release();
+                    }
+                })
+                .executor(Runnable::run)
+                .recordStats()
+                .build();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns a resource served from the mapping of {@code path}, mapping it on
+     * a miss. Empty when the cache is disabled, the file is empty or too large,
+     * or it cannot be mapped; the caller then reads it from disk.
+     *
+     * @param attrs attributes of the file version the caller has resolved; a
+     *            cached mapping of any other version is replaced
+     */
+    public Optional<Resource> open(String filename, Path path, BasicFileAttributes attrs) {
+        if (!enabled || attrs.size() <= 0 || attrs.size() > maxFileSize) {
+            return Optional.empty();
+        }
+        FileVersion version = FileVersion.of(attrs);
+        MappedFile mapping = mappings.getIfPresent(filename);
+        if (mapping == null || !version.equals(mapping.getVersion())) {
+            try {
+                mapping = MappedFile.map(path, version);
+            } catch (IOException e) {
+                return Optional.empty();
+            }
+            mappings.put(filename, mapping);
+        }
+        return Optional.of(new MappedFileResource(mapping, path));
+    }
+
+    /**
+     * Drops the mapping of {@code filename}; called whenever the file is
+     * replaced or deleted.
+     */
+    public void invalidate(String filename) {
+        if (enabled) {
+            mappings.invalidate(filename);
+        }
+    }
+
+    public void invalidateAll() {
+        mappings.invalidateAll();
+    }
+
+    public CacheStatsDto stats() {
+        mappings.cleanUp();
+        CacheStats stats = mappings.stats();
+        Policy.Eviction<String, MappedFile> eviction = mappings.policy().eviction().orElse(null);
+        long mappedBytes = eviction != null ? eviction.weightedSize().orElse(0L) : 0L;
+        return new CacheStatsDto(
+                stats.hitCount(),
+                stats.missCount(),
+                stats.hitRate(),
+                stats.evictionCount(),
+                stats.evictionWeight(),
+                mappings.estimatedSize(),
+                mappedBytes,
+                maxBytes);
+    }
+
+    @PreDestroy
+    public void unmapAll() {
+        invalidateAll();
+    }
+}
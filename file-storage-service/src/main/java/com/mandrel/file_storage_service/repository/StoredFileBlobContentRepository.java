@@ -0,0 +1,166 @@
+package com.mandrel.file_storage_service.repository;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.PreparedStatement;
+import java.util.HexFormat;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+import org.springframework.util.unit.DataSize;
+
+import com.mandrel.file_storage_service.model.BlobWriteResult;
+import com.mandrel.file_storage_service.util.CountingInputStream;
+import com.mandrel.file_storage_service.util.FallbackResource;
+import com.mandrel.file_storage_service.util.JdbcBlobResource;
+
+/**
+ * JDBC access to the {@code stored_file_blob} payload column. Payloads are
+ * piped through {@link PreparedStatement#setBinaryStream} so they never have to
+ * exist as a {@code byte[]}; length and SHA-256 are computed in the same pass.
+ * Reads go the other way through {@link JdbcBlobResource}, which streams
+ * {@code Blob.getBinaryStream()} with a fixed-size copy buffer. Writes run
+ * inside the caller's JPA transaction.
+ * <p>
+ * Rows are content-addressed. The hash is only known once the payload has
+ * streamed in, so every upload is inserted first and then either folded into an
+ * existing row with the same checksum (whose reference count goes up) or
+ * claims the checksum itself. The unique constraint on {@code checksum} settles
+ * concurrent uploads of the same bytes.
+ * <p>
+ * A payload may also sit in the cold tier ({@link ColdBlobRepository}), with
+ * its row marked {@code cold} and its column emptied. Reads look in the
+ * database first and fall back to the cold file, so a download works whichever
+ * tier the payload is in when it is actually read.
+ */
+@Repository
+public class StoredFileBlobContentRepository {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO stored_file_blob (data, size, ref_count, cold) VALUES (?, 0, 1, FALSE)";
+    private static final String ADD_REFERENCE_SQL =
+            "UPDATE stored_file_blob SET ref_count = ref_count + 1 WHERE checksum = ? AND size = ? AND ref_count > 0";
+    private static final String SELECT_ID_SQL = "SELECT id FROM stored_file_blob WHERE checksum = ?";
+    private static final String CLAIM_SQL = "UPDATE stored_file_blob SET checksum = ?, size = ? WHERE id = ?";
+    private static final String DELETE_SQL = "DELETE FROM stored_file_blob WHERE id = ?";
+    private static final String SELECT_SQL = "SELECT data FROM stored_file_blob WHERE id = ? AND cold = FALSE";
+    private static final String MARK_COLD_SQL =
+            "UPDATE stored_file_blob SET data = ?, cold = TRUE WHERE id = ? AND cold = FALSE AND ref_count > 0";
+    private static final String RESTORE_SQL = "UPDATE stored_file_blob SET data = ?, cold = FALSE WHERE id = ? AND cold = TRUE";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ColdBlobRepository coldBlobs;
+    private final int downloadBufferSize;
+
+    public StoredFileBlobContentRepository(JdbcTemplate jdbcTemplate, ColdBlobRepository coldBlobs,
+            @Value("${file-storage.memory.download-buffer-size:64KB}") DataSize downloadBufferSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.coldBlobs = coldBlobs;
+        this.downloadBufferSize = (int) downloadBufferSize.toBytes();
+    }
+
+    public BlobWriteResult insert(InputStream content) {
+        MessageDigest digest = sha256();
+        CountingInputStream counting = new CountingInputStream(new DigestInputStream(content, digest));
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(con -> {
+            PreparedStatement ps = con.prepareStatement(INSERT_SQL, new String[] { "ID" });
+            ps.setBinaryStream(1, counting);
+            return ps;
+        }, keyHolder);
+        drain(counting);
+        long id = keyHolder.getKey().longValue();
+        long size = counting.getCount();
+        String checksum = HexFormat.of().formatHex(digest.digest());
+
+        Long existing = addReference(checksum, size);
+        if (existing == null) {
+            try {
+                jdbcTemplate.update(CLAIM_SQL, checksum, size, id);
+                return new BlobWriteResult(id, size, checksum, false);
+            } catch (DuplicateKeyException e) {
+                // Another upload of the same bytes committed first; share its row.
+                existing = addReference(checksum, size);
+                if (existing == null) {
+                    throw e;
+                }
+            }
+        }
+        jdbcTemplate.update(DELETE_SQL, id);
+        return new BlobWriteResult(existing, size, checksum, true);
+    }
+
+    private Long addReference(String checksum, long size) {
+        if (jdbcTemplate.update(ADD_REFERENCE_SQL, checksum, size) == 0) {
+            return null;
+        }
+        return jdbcTemplate.queryForObject(SELECT_ID_SQL, Long.class, checksum);
+    }
+
+    /**
+     * Returns a resource that opens its own connection when read, so it can be
+     * written to the response after the service transaction has completed. If
+     * the payload is in the cold tier by then, the cold file is read instead.
+     */
+    public Resource openResource(Long blobId, long size) {
+        return new FallbackResource(
+                new JdbcBlobResource(jdbcTemplate.getDataSource(), SELECT_SQL, blobId, size, downloadBufferSize),
+                coldBlobs.openResource(blobId), size);
+    }
+
+    /**
+     * Marks a payload as moved to the cold tier and frees its column. The cold
+     * copy must already be complete.
+     *
+     * @return false if the blob is gone, unreferenced or already cold
+     */
+    public boolean markCold(Long blobId) {
+        return jdbcTemplate.update(MARK_COLD_SQL, new byte[0], blobId) > 0;
+    }
+
+    /**
+     * Streams a cold payload of {@code size} bytes back into its row and marks
+     * it hot again. The cold copy is left for the caller to remove.
+     *
+     * @return false if the blob is gone or not cold
+     */
+    public boolean restore(Long blobId, InputStream content, long size) {
+        return jdbcTemplate.update(con -> {
+            PreparedStatement ps = con.prepareStatement(RESTORE_SQL);
+            ps.setBinaryStream(1, content, size);
+            ps.setLong(2, blobId);
+            return ps;
+        }) > 0;
+    }
+
+    /**
+     * The driver should consume the whole stream; make sure size and digest
+     * cover every byte even if it stopped early.
+     */
+    private static void drain(InputStream in) {
+        try {
+            if (in.read() >= 0) {
+                throw new IllegalStateException("JDBC driver did not consume the full payload stream");
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.mandrel.file_storage_service.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.mandrel.file_storage_service.model.StoredFileBlob;
+
+public interface StoredFileBlobRepository extends JpaRepository<StoredFileBlob, Long> {
+
+    /**
+     * Deletes a payload row without loading it first (unlike {@code deleteById}).
+     */
+    @Modifying
+    @Query("DELETE FROM StoredFileBlob b WHERE b.id = :id")
+    int deleteBlobById(@Param("id") Long id);
+
+    /**
+     * Drops one reference to a shared payload row.
+     */
+    @Modifying
+    @Query("UPDATE StoredFileBlob b SET b.refCount = b.refCount - 1 WHERE b.id = :id")
+    int releaseReference(@Param("id") Long id);
+
+    /**
+     * Deletes the payload row once nothing references it any more.
+     */
+    @Modifying
+    @Query("DELETE FROM StoredFileBlob b WHERE b.id = :id AND b.refCount <= 0")
+    int deleteIfUnreferenced(@Param("id") Long id);
+}
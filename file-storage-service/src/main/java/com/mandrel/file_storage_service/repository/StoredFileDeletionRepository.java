@@ -0,0 +1,88 @@
+package com.mandrel.file_storage_service.repository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.stereotype.Repository;
+
+import com.mandrel.file_storage_service.model.FileListQuery;
+import com.mandrel.file_storage_service.model.StoredFile;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+/**
+ * Set-based bulk delete for {@code stored_file}. Matching rows are locked and
+ * read as {@code (id, blob_id)} pairs only, then removed in chunks with one
+ * {@code DELETE ... IN} per chunk plus one reference-count update per distinct
+ * decrement, so purging many files costs a handful of statements per thousand
+ * rather than several per file. Must run inside a transaction.
+ */
+@Repository
+public class StoredFileDeletionRepository {
+
+    static final int CHUNK_SIZE = 1000;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Deletes files that are in {@code ids} (when given) and match
+     * {@code filter}, releasing their blob references and dropping blobs that
+     * are no longer referenced.
+     *
+     * @return ids of the deleted files
+     */
+    public List<Long> deleteMatching(List<Long> ids, FileListQuery filter) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Object[]> cq = cb.createQuery(Object[].class);
+        Root<StoredFile> f = cq.from(StoredFile.class);
+        cq.multiselect(f.get("id"), f.get("blob").get("id"));
+        List<Predicate> predicates = StoredFileListingRepository.filters(cb, f, filter);
+        if (ids != null) {
+            predicates.add(f.get("id").in(ids));
+        }
+        cq.where(predicates.toArray(Predicate[]::new));
+        // Locked so a concurrent single delete cannot release the same blob reference twice.
+        List<Object[]> rows = entityManager.createQuery(cq)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .getResultList();
+
+        List<Long> deleted = new ArrayList<>(rows.size());
+        for (int from = 0; from < rows.size(); from += CHUNK_SIZE) {
+            deleteChunk(rows.subList(from, Math.min(rows.size(), from + CHUNK_SIZE)), deleted);
+        }
+        return deleted;
+    }
+
+    private void deleteChunk(List<Object[]> rows, List<Long> deleted) {
+        List<Long> fileIds = new ArrayList<>(rows.size());
+        Map<Long, Integer> referencesByBlob = new HashMap<>();
+        for (Object[] row : rows) {
+            fileIds.add((Long) row[0]);
+            referencesByBlob.merge((Long) row[1], 1, Integer::sum);
+        }
+        entityManager.createQuery("DELETE FROM StoredFile f WHERE f.id IN :ids")
+                .setParameter("ids", fileIds)
+                .executeUpdate();
+
+        Map<Integer, List<Long>> blobsByDecrement = new HashMap<>();
+        referencesByBlob.forEach((blobId, n) -> blobsByDecrement.computeIfAbsent(n, k -> new ArrayList<>()).add(blobId));
+        blobsByDecrement.forEach((n, blobIds) -> entityManager
+                .createQuery("UPDATE StoredFileBlob b SET b.refCount = b.refCount - :n WHERE b.id IN :ids")
+                .setParameter("n", n)
+                .setParameter("ids", blobIds)
+                .executeUpdate());
+        entityManager.createQuery("DELETE FROM StoredFileBlob b WHERE b.id IN :ids AND b.refCount <= 0")
+                .setParameter("ids", new ArrayList<>(referencesByBlob.keySet()))
+                .executeUpdate();
+        deleted.addAll(fileIds);
+    }
+}
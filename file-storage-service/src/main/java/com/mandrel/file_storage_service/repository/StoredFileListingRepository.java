@@ -0,0 +1,157 @@
+package com.mandrel.file_storage_service.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import org.springframework.stereotype.Repository;
+
+import com.mandrel.file_storage_service.model.FileCursor;
+import com.mandrel.file_storage_service.model.FileListQuery;
+import com.mandrel.file_storage_service.model.FilePage;
+import com.mandrel.file_storage_service.model.FileSortField;
+import com.mandrel.file_storage_service.model.StoredFile;
+import com.mandrel.file_storage_service.model.StoredFileMetadataDto;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+/**
+ * Keyset-paginated metadata listing for {@code stored_file}. Every page is a
+ * range scan on one of the {@code (sort column, id)} indexes declared on
+ * {@link StoredFile}, so its cost does not grow with the table.
+ */
+@Repository
+public class StoredFileListingRepository {
+
+    private static final char LIKE_ESCAPE = '\\';
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public FilePage<StoredFileMetadataDto> findPage(FileListQuery query) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<StoredFileMetadataDto> cq = cb.createQuery(StoredFileMetadataDto.class);
+        Root<StoredFile> f = cq.from(StoredFile.class);
+        cq.select(cb.construct(StoredFileMetadataDto.class,
+                f.get("id"), f.get("filename"), f.get("contentType"), f.get("size"), f.get("uploadDate"),
+                f.get("checksum")));
+
+        List<Predicate> predicates = filters(cb, f, query);
+        if (query.getAfter() != null) {
+            predicates.add(after(cb, f, query));
+        }
+        cq.where(predicates.toArray(Predicate[]::new));
+
+        Path<?> sortPath = f.get(query.getSort().getAttribute());
+        if (query.isDescending()) {
+            cq.orderBy(cb.desc(sortPath), cb.desc(f.get("id")));
+        } else {
+            cq.orderBy(cb.asc(sortPath), cb.asc(f.get("id")));
+        }
+
+        List<StoredFileMetadataDto> rows = entityManager.createQuery(cq)
+                .setMaxResults(query.getLimit() + 1)
+                .getResultList();
+        if (rows.size() <= query.getLimit()) {
+            return new FilePage<>(rows, null);
+        }
+        List<StoredFileMetadataDto> items = new ArrayList<>(rows.subList(0, query.getLimit()));
+        StoredFileMetadataDto last = items.get(items.size() - 1);
+        String next = new FileCursor(query.getSort().valueOf(last), String.valueOf(last.getId())).encode();
+        return new FilePage<>(items, next);
+    }
+
+    /**
+     * Metadata of files that are in {@code ids} (when given) and match
+     * {@code filter}, in id order, at most {@code limit} of them. One query,
+     * whatever the number of ids.
+     */
+    public List<StoredFileMetadataDto> findMatching(List<Long> ids, FileListQuery filter, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<StoredFileMetadataDto> cq = cb.createQuery(StoredFileMetadataDto.class);
+        Root<StoredFile> f = cq.from(StoredFile.class);
+        cq.select(cb.construct(StoredFileMetadataDto.class,
+                f.get("id"), f.get("filename"), f.get("contentType"), f.get("size"), f.get("uploadDate"),
+                f.get("checksum")));
+        List<Predicate> predicates = filters(cb, f, filter);
+        if (ids != null) {
+            predicates.add(f.get("id").in(ids));
+        }
+        cq.where(predicates.toArray(Predicate[]::new));
+        cq.orderBy(cb.asc(f.get("id")));
+        return entityManager.createQuery(cq)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    static List<Predicate> filters(CriteriaBuilder cb, Root<StoredFile> f, FileListQuery query) {
+        List<Predicate> predicates = new ArrayList<>();
+        if (query.getContentType() != null) {
+            // Media types are case-insensitive; FileListQuery.matches agrees.
+            Expression<String> type = cb.lower(f.get("contentType"));
+            String wanted = query.getContentType().toLowerCase(Locale.ROOT);
+            if (query.isContentTypePrefix()) {
+                String prefix = wanted.substring(0, wanted.length() - 1);
+                predicates.add(cb.like(type, escapeLike(prefix) + "%", LIKE_ESCAPE));
+            } else {
+                predicates.add(cb.equal(type, wanted));
+            }
+        }
+        if (query.getMinSize() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(f.get("size"), query.getMinSize()));
+        }
+        if (query.getMaxSize() != null) {
+            predicates.add(cb.lessThanOrEqualTo(f.get("size"), query.getMaxSize()));
+        }
+        if (query.getUploadedFrom() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(f.get("uploadDate"), query.getUploadedFrom()));
+        }
+        if (query.getUploadedTo() != null) {
+            predicates.add(cb.lessThan(f.get("uploadDate"), query.getUploadedTo()));
+        }
+        return predicates;
+    }
+
+    /**
+     * {@code value} as a literal LIKE pattern: its wildcards and the escape
+     * character itself are escaped with {@link #LIKE_ESCAPE}.
+     */
+    static String escapeLike(String value) {
+        StringBuilder escaped = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == LIKE_ESCAPE || c == '%' || c == '_') {
+                escaped.append(LIKE_ESCAPE);
+            }
+            escaped.append(c);
+        }
+        return escaped.toString();
+    }
+
+    /**
+     * {@code (sort, id) > (value, key)} for ascending pages, {@code <} for descending.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static Predicate after(CriteriaBuilder cb, Root<StoredFile> f, FileListQuery query) {
+        FileCursor cursor = query.getAfter();
+        FileSortField sort = query.getSort();
+        Comparable value = sort.parse(cursor.getValue());
+        Long key = (Long) FileSortField.ID.parse(cursor.getKey());
+        Expression sortPath = f.get(sort.getAttribute());
+        Expression<Long> idPath = f.get("id");
+        if (sort == FileSortField.ID) {
+            return query.isDescending() ? cb.lessThan(idPath, key) : cb.greaterThan(idPath, key);
+        }
+        Predicate beyond = query.isDescending() ? cb.lessThan(sortPath, value) : cb.greaterThan(sortPath, value);
+        Predicate tie = cb.and(cb.equal(sortPath, value),
+                query.isDescending() ? cb.lessThan(idPath, key) : cb.greaterThan(idPath, key));
+        return cb.or(beyond, tie);
+    }
+}
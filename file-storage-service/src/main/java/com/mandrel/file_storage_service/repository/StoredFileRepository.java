@@ -1,19 +1,54 @@
 package com.mandrel.file_storage_service.repository;
 
 import java.util.List;
+import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.mandrel.file_storage_service.model.StoredFile;
-import com.mandrel.file_storage_service.model.StoredFileDto;
+import com.mandrel.file_storage_service.model.StoredFileMetadataDto;
+import com.mandrel.file_storage_service.model.StoredFileTierDto;
 
 public interface StoredFileRepository extends JpaRepository<StoredFile, Long> {
 
     @Query("""
-        SELECT new com.mandrel.file_storage_service.model.StoredFileDto(
-            f.id, f.filename, f.contentType, f.size, f.uploadDate, f.content)
+        SELECT new com.mandrel.file_storage_service.model.StoredFileMetadataDto(
+            f.id, f.filename, f.contentType, f.size, f.uploadDate, f.checksum)
         FROM StoredFile f
     """)
-    List<StoredFileDto> findAllMetadata();
+    List<StoredFileMetadataDto> findAllMetadata();
+
+    @Query("""
+        SELECT new com.mandrel.file_storage_service.model.StoredFileMetadataDto(
+            f.id, f.filename, f.contentType, f.size, f.uploadDate, f.checksum)
+        FROM StoredFile f
+        WHERE f.id = :id
+    """)
+    Optional<StoredFileMetadataDto> findMetadataById(@Param("id") Long id);
+
+    /**
+     * Every file with its blob's id, size and tier, without loading any payload.
+     */
+    @Query("""
+        SELECT new com.mandrel.file_storage_service.model.StoredFileTierDto(
+            f.id, f.uploadDate, b.id, b.size, b.cold)
+        FROM StoredFile f JOIN f.blob b
+    """)
+    List<StoredFileTierDto> findAllTiers();
+
+    /**
+     * Reads the payload reference without loading the file or its blob.
+     */
+    @Query("SELECT f.blob.id FROM StoredFile f WHERE f.id = :id")
+    Optional<Long> findBlobIdById(@Param("id") Long id);
+
+    /**
+     * Deletes the metadata row in one statement; returns the number of rows removed.
+     */
+    @Modifying
+    @Query("DELETE FROM StoredFile f WHERE f.id = :id")
+    int deleteFileById(@Param("id") Long id);
 }
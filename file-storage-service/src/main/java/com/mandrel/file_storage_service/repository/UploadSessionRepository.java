@@ -0,0 +1,279 @@
+package com.mandrel.file_storage_service.repository;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+
+import com.mandrel.file_storage_service.model.UploadLimitExceededException;
+import com.mandrel.file_storage_service.model.UploadPartDto;
+import com.mandrel.file_storage_service.util.ConcatenatedFileInputStream;
+
+/**
+ * On-disk staging area for resumable uploads: one directory per session,
+ * holding a {@code session.properties} manifest and one file per received
+ * part. A part is written to a hidden temporary file and renamed into place,
+ * so it is either complete or absent and a re-sent part simply replaces it.
+ * Parts of one session can be written concurrently; a running total of the
+ * bytes staged per session, counting a replaced part once, rejects a part as
+ * soon as the session would hold more than its declared size.
+ */
+@Repository
+public class UploadSessionRepository {
+
+    private static final String MANIFEST = "session.properties";
+    private static final String PART_PREFIX = "part-";
+    private static final String COMPLETING_PREFIX = ".completing-";
+    private static final int COPY_BUFFER = 64 * 1024;
+
+    private final Path root;
+    // Bytes staged per session: stored parts plus parts still arriving. Rebuilt from disk when missing.
+    private final ConcurrentHashMap<String, AtomicLong> staged = new ConcurrentHashMap<>();
+    // Serializes replacing a part with adjusting the total, so a replaced part is subtracted once.
+    private final ReentrantLock replaceLock = new ReentrantLock();
+
+    @Autowired
+    public UploadSessionRepository(@Value("${file-storage.upload-sessions.directory:upload-sessions}") Path root) {
+        this.root = root;
+    }
+
+    public void create(String id, Properties manifest) throws IOException {
+        Path dir = root.resolve(id);
+        Files.createDirectories(dir);
+        try (OutputStream out = Files.newOutputStream(dir.resolve(MANIFEST), StandardOpenOption.CREATE_NEW)) {
+            manifest.store(out, null);
+        }
+    }
+
+    public Optional<Properties> findManifest(String id) throws IOException {
+        Path manifest = root.resolve(id).resolve(MANIFEST);
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(manifest)) {
+            properties.load(in);
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        }
+        return Optional.of(properties);
+    }
+
+    /**
+     * When the session last changed: its creation or its latest part.
+     */
+    public Instant lastActivity(String id) throws IOException {
+        return Files.getLastModifiedTime(root.resolve(id)).toInstant();
+    }
+
+    /**
+     * Streams one part into the session, replacing any earlier copy of it.
+     *
+     * @return the part as stored, or empty if the session no longer exists
+     * @throws UploadLimitExceededException if the part is longer than
+     *         {@code maxBytes}, or the session would then hold more than
+     *         {@code maxTotalBytes} with the part it replaces left out
+     */
+    public Optional<UploadPartDto> writePart(String id, int partNumber, InputStream content, long maxBytes,
+            long maxTotalBytes) throws IOException {
+        Path dir = root.resolve(id);
+        Path target = dir.resolve(partName(partNumber));
+        Path temp = dir.resolve(".part-" + UUID.randomUUID() + ".tmp");
+        AtomicLong total;
+        try {
+            total = stagedTotal(id, dir);
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        }
+        long replacing = sizeIfExists(target);
+        long size = 0;
+        long counted = 0;
+        boolean stored = false;
+        try {
+            try (OutputStream out = Files.newOutputStream(temp, StandardOpenOption.CREATE_NEW)) {
+                byte[] buffer = new byte[COPY_BUFFER];
+                int n;
+                while ((n = content.read(buffer)) >= 0) {
+                    size += n;
+                    if (size > maxBytes) {
+                        throw new UploadLimitExceededException("Part exceeds " + maxBytes + " bytes");
+                    }
+                    counted += n;
+                    if (total.addAndGet(n) - replacing > maxTotalBytes) {
+                        throw new UploadLimitExceededException("Upload exceeds its declared " + maxTotalBytes
+                                + " bytes");
+                    }
+                    out.write(buffer, 0, n);
+                }
+            }
+            replaceLock.lock();
+            try {
+                long replaced = sizeIfExists(target);
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                total.addAndGet(-replaced);
+                stored = true;
+            } finally {
+                replaceLock.unlock();
+            }
+            return Optional.of(new UploadPartDto(partNumber, size));
+        } catch (NoSuchFileException e) {
+            // The session was completed, aborted or expired while the part was arriving.
+            return Optional.empty();
+        } finally {
+            if (!stored) {
+                total.addAndGet(-counted);
+            }
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * The parts of a session in part-number order.
+     */
+    public List<UploadPartDto> findParts(String id) throws IOException {
+        return findParts(root.resolve(id));
+    }
+
+    /**
+     * The parts of a session directory, e.g. a claimed one, in part-number order.
+     */
+    public List<UploadPartDto> findParts(Path dir) throws IOException {
+        List<UploadPartDto> parts = new ArrayList<>();
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : files.toList()) {
+                String name = file.getFileName().toString();
+                if (name.startsWith(PART_PREFIX)) {
+                    parts.add(new UploadPartDto(Integer.parseInt(name.substring(PART_PREFIX.length())),
+                            Files.size(file)));
+                }
+            }
+        } catch (NoSuchFileException e) {
+            return List.of();
+        }
+        parts.sort(Comparator.comparingInt(UploadPartDto::getPartNumber));
+        return parts;
+    }
+
+    /**
+     * Takes a session out of reach of further parts so it can be assembled.
+     * Only one caller can claim a session.
+     *
+     * @return the claimed directory, or empty if the session is gone or
+     *         already claimed
+     */
+    public Optional<Path> claim(String id) throws IOException {
+        Path claimed = root.resolve(COMPLETING_PREFIX + id);
+        try {
+            Files.move(root.resolve(id), claimed, StandardCopyOption.ATOMIC_MOVE);
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        }
+        staged.remove(id);
+        // Counts as activity, so the sweep leaves a long assembly alone.
+        Files.setLastModifiedTime(claimed, FileTime.from(Instant.now()));
+        return Optional.of(claimed);
+    }
+
+    /**
+     * Puts a claimed session back, e.g. after assembling it failed.
+     */
+    public void release(String id, Path claimed) throws IOException {
+        Files.move(claimed, root.resolve(id), StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * The given parts of a claimed session as one stream, opening each part
+     * file only when the previous one is exhausted.
+     */
+    public InputStream openAssembled(Path claimed, List<UploadPartDto> parts) {
+        return new ConcatenatedFileInputStream(parts.stream()
+                .map(part -> claimed.resolve(partName(part.getPartNumber())))
+                .toList());
+    }
+
+    /**
+     * Deletes a session, claimed or not, with everything staged in it.
+     *
+     * @return whether it existed
+     */
+    public boolean delete(Path dir) throws IOException {
+        if (Files.notExists(dir)) {
+            return false;
+        }
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+        return true;
+    }
+
+    public boolean delete(String id) throws IOException {
+        staged.remove(id);
+        return delete(root.resolve(id));
+    }
+
+    /**
+     * Session directories, claimed or not, with no activity since {@code cutoff}.
+     */
+    public List<Path> findInactiveSince(Instant cutoff) throws IOException {
+        if (Files.notExists(root)) {
+            return List.of();
+        }
+        List<Path> inactive = new ArrayList<>();
+        try (Stream<Path> dirs = Files.list(root)) {
+            for (Path dir : dirs.filter(Files::isDirectory).toList()) {
+                if (Files.getLastModifiedTime(dir).toInstant().isBefore(cutoff)) {
+                    inactive.add(dir);
+                }
+            }
+        }
+        return inactive;
+    }
+
+    private static String partName(int partNumber) {
+        return PART_PREFIX + String.format("%05d", partNumber);
+    }
+
+    /**
+     * The running total of session {@code id}, summed from its stored parts
+     * the first time it is needed, e.g. after a restart.
+     */
+    private AtomicLong stagedTotal(String id, Path dir) throws IOException {
+        AtomicLong total = staged.get(id);
+        if (total != null) {
+            return total;
+        }
+        if (Files.notExists(dir)) {
+            throw new NoSuchFileException(dir.toString());
+        }
+        long sum = findParts(dir).stream().mapToLong(UploadPartDto::getSize).sum();
+        AtomicLong existing = staged.putIfAbsent(id, new AtomicLong(sum));
+        return existing != null ? existing : staged.get(id);
+    }
+
+    private static long sizeIfExists(Path path) throws IOException {
+        try {
+            return Files.size(path);
+        } catch (NoSuchFileException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.mandrel.file_storage_service.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Optional;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Service;
+
+import com.mandrel.file_storage_service.model.FileSignature;
+
+/**
+ * Decides a file's content type once, when it is written, from its first bytes,
+ * the client's declared type and its name, so reads never have to probe the
+ * filesystem. A format signature wins over a declared type that contradicts
+ * it, except that a container signature (ZIP, ISO media) only names the
+ * container: a more specific binary type, declared or else implied by the
+ * extension, is kept, so a JAR or an OOXML document is not relabelled as ZIP.
+ * Otherwise a specific declared type wins over a guess from the extension;
+ * text that matches nothing is {@code text/plain}.
+ */
+@Service
+public class ContentTypeDetectionService {
+
+    /** How much of the file is inspected. */
+    public static final int SNIFF_LENGTH = 512;
+
+    public String detect(String filename, String declaredType, byte[] head, int length) {
+        FileSignature signature = FileSignature.detect(head, length);
+        Optional<MediaType> byName = MediaTypeFactory.getMediaType(filename);
+        if (signature != null && signature.isContainer()) {
+            if (isSpecific(declaredType) && !isTextual(MediaType.parseMediaType(declaredType))) {
+                return declaredType;
+            }
+            if (byName.isPresent() && isSpecific(byName.get().toString()) && !isTextual(byName.get())) {
+                return byName.get().toString();
+            }
+        }
+        if (signature != null) {
+            return signature.getMediaType();
+        }
+        if (isSpecific(declaredType)) {
+            return declaredType;
+        }
+        boolean text = isText(head, length);
+        if (byName.isPresent() && (!text || isTextual(byName.get()))) {
+            return byName.get().toString();
+        }
+        if (text) {
+            return looksLikeSvg(head, length) ? "image/svg+xml" : MediaType.TEXT_PLAIN_VALUE;
+        }
+        return MediaType.APPLICATION_OCTET_STREAM_VALUE;
+    }
+
+    /**
+     * Detects the type of a file already on disk, reading only its first block.
+     *
+     * @param filename the name to match extensions against, which may differ
+     *            from the name of {@code path} while the file is still temporary
+     */
+    public String detect(Path path, String filename, String declaredType) throws IOException {
+        byte[] head = new byte[SNIFF_LENGTH];
+        int length;
+        try (InputStream in = Files.newInputStream(path)) {
+            length = in.readNBytes(head, 0, head.length);
+        }
+        return detect(filename, declaredType, head, length);
+    }
+
+    private static boolean isSpecific(String declaredType) {
+        if (declaredType == null || declaredType.isBlank()) {
+            return false;
+        }
+        try {
+            MediaType type = MediaType.parseMediaType(declaredType);
+            return !type.isWildcardType() && !type.isWildcardSubtype()
+                    && !MediaType.APPLICATION_OCTET_STREAM.equalsTypeAndSubtype(type);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Text types and structured text such as {@code application/ld+json}.
+     * Subtypes are matched by token, so {@code vnd.openxmlformats-...}, a ZIP
+     * container, is not taken for XML.
+     */
+    private static boolean isTextual(MediaType type) {
+        if ("text".equals(type.getType())) {
+            return true;
+        }
+        for (String token : type.getSubtype().toLowerCase(Locale.ROOT).split("[+.-]")) {
+            if (token.equals("json") || token.equals("xml") || token.equals("javascript") || token.equals("yaml")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * No binary control bytes (as defined by the WHATWG MIME sniffing rules)
+     * and valid UTF-8, allowing a multi-byte sequence cut off at the end of the
+     * sample.
+     */
+    private static boolean isText(byte[] head, int length) {
+        if (length == 0) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            int b = head[i] & 0xFF;
+            if (b <= 0x08 || b == 0x0B || (b >= 0x0E && b <= 0x1A) || (b >= 0x1C && b <= 0x1F)) {
+                return false;
+            }
+        }
+        int end = length;
+        for (int i = 0; i < 3 && end > 0 && (head[end - 1] & 0xC0) == 0x80; i++) {
+            end--;
+        }
+        if (end > 0 && (head[end - 1] & 0xC0) == 0xC0) {
+            end--;
+        }
+        try {
+            StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPORT)
+                    .onUnmappableCharacter(CodingErrorAction.REPORT)
+                    .decode(ByteBuffer.wrap(head, 0, end));
+            return true;
+        } catch (CharacterCodingException e) {
+            return false;
+        }
+    }
+
+    private static boolean looksLikeSvg(byte[] head, int length) {
+        String start = new String(head, 0, length, StandardCharsets.UTF_8).stripLeading();
+        return start.startsWith("<svg") || (start.startsWith("<?xml") && start.contains("<svg"));
+    }
+}
@@ -0,0 +1,173 @@
+package com.mandrel.file_storage_service.service;
+
+import java.io.BufferedOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.NoSuchFileException;
+import java.time.ZoneId;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.mandrel.file_storage_service.model.ArchiveRequest;
+import com.mandrel.file_storage_service.model.StorageBackend;
+import com.mandrel.file_storage_service.model.StoredFileDownload;
+import com.mandrel.file_storage_service.model.StoredFileMetadataDto;
+
+/**
+ * ZIP archives of many files from either backend, built while they are sent.
+ * The selection is resolved up front from metadata alone, so a bad request
+ * fails before any byte is written; each entry is then copied from its file
+ * channel or BLOB stream straight into the {@link ZipOutputStream}, and nothing
+ * is staged in memory or on disk. Memory entries bypass the read cache and
+ * are not counted as accesses for tiering.
+ * <p>
+ * Types that are already compressed are deflated at level 0, which stores their
+ * bytes in raw blocks: the CPU cost of a copy plus the CRC, for a few bytes of
+ * framing per 64 KB. True {@code STORED} entries would need the CRC before the
+ * data, i.e. a second pass over every file.
+ */
+@Service
+public class FileArchiveService {
+
+    private static final int OUTPUT_BUFFER = 64 * 1024;
+    private static final Set<String> COMPRESSED_TYPES = Set.of(
+            "image/png", "image/jpeg", "image/gif", "image/webp", "image/avif", "image/heic",
+            "application/zip", "application/gzip", "application/x-gzip", "application/x-7z-compressed",
+            "application/x-bzip2", "application/x-xz", "application/zstd", "application/x-rar-compressed",
+            "application/vnd.rar", "application/java-archive", "application/pdf",
+            "application/vnd.openxmlformats-officedocument.wordprocessingml.document",
+            "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet",
+            "application/vnd.openxmlformats-officedocument.presentationml.presentation");
+
+    private final FileStorageService fileStorageService;
+    private final FileUploadService fileUploadService;
+    private final int maxEntries;
+
+    @Autowired
+    public FileArchiveService(FileStorageService fileStorageService, FileUploadService fileUploadService,
+            @Value("${file-storage.archive.max-entries:10000}") int maxEntries) {
+        this.fileStorageService = fileStorageService;
+        this.fileUploadService = fileUploadService;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * The files {@code request} selects, in id (memory) or filename (local) order.
+     *
+     * @throws IllegalArgumentException if the request selects nothing explicitly,
+     *         or more than {@code max-entries} files
+     */
+    public List<StoredFileMetadataDto> select(StorageBackend backend, ArchiveRequest request) {
+        List<StoredFileMetadataDto> selected;
+        if (backend == StorageBackend.MEMORY) {
+            boolean byId = request.getIds() != null && !request.getIds().isEmpty();
+            if (!byId && !request.hasFilter()) {
+                throw new IllegalArgumentException("Archive needs ids or a filter");
+            }
+            selected = fileStorageService.findMatching(byId ? request.getIds() : null, request.toFilter(),
+                    maxEntries + 1);
+        } else {
+            boolean byName = request.getFilenames() != null && !request.getFilenames().isEmpty();
+            if (!byName && !request.hasFilter()) {
+                throw new IllegalArgumentException("Archive needs filenames or a filter");
+            }
+            selected = fileUploadService.findMatching(byName ? request.getFilenames() : null, request.toFilter(),
+                    maxEntries + 1);
+        }
+        if (selected.size() > maxEntries) {
+            throw new IllegalArgumentException("Archive selects more than " + maxEntries + " files");
+        }
+        return selected;
+    }
+
+    /**
+     * Writes {@code files} to {@code out} as one ZIP archive. Files deleted since
+     * they were selected are left out; duplicate names get a {@code " (n)"}
+     * suffix. {@code out} is finished but not closed.
+     */
+    public void write(StorageBackend backend, List<StoredFileMetadataDto> files, OutputStream out)
+            throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(out, OUTPUT_BUFFER));
+        Set<String> names = new HashSet<>();
+        for (StoredFileMetadataDto file : files) {
+            Optional<StoredFileDownload> download = backend == StorageBackend.MEMORY
+                    ? fileStorageService.openStream(file.getId())
+                    : fileUploadService.openFile(file.getFilename());
+            if (download.isEmpty()) {
+                continue;
+            }
+            StoredFileMetadataDto metadata = download.get().getMetadata();
+            ZipEntry entry = new ZipEntry(uniqueName(entryName(metadata.getFilename()), names));
+            if (metadata.getUploadDate() != null) {
+                entry.setTime(metadata.getUploadDate().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+            }
+            zip.setLevel(isCompressed(metadata.getContentType())
+                    ? Deflater.NO_COMPRESSION : Deflater.DEFAULT_COMPRESSION);
+            InputStream content;
+            try {
+                content = download.get().getContent().getInputStream();
+            } catch (FileNotFoundException | NoSuchFileException e) {
+                // Deleted between the lookup and the open.
+                continue;
+            }
+            try (InputStream in = content) {
+                zip.putNextEntry(entry);
+                in.transferTo(zip);
+            }
+            zip.closeEntry();
+        }
+        zip.finish();
+        zip.flush();
+    }
+
+    private static boolean isCompressed(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        String type = contentType.toLowerCase(Locale.ROOT);
+        int params = type.indexOf(';');
+        if (params >= 0) {
+            type = type.substring(0, params).trim();
+        }
+        return COMPRESSED_TYPES.contains(type) || type.startsWith("video/") || type.startsWith("audio/");
+    }
+
+    /**
+     * A flat entry name: memory filenames are client-supplied, so separators
+     * are replaced rather than allowed to create paths when extracted.
+     */
+    private static String entryName(String filename) {
+        if (filename == null || filename.isBlank()) {
+            return "file";
+        }
+        String name = filename.replace('/', '_').replace('\\', '_');
+        return name.equals(".") || name.equals("..") ? "file" : name;
+    }
+
+    private static String uniqueName(String name, Set<String> used) {
+        if (used.add(name)) {
+            return name;
+        }
+        int dot = name.lastIndexOf('.');
+        String base = dot > 0 ? name.substring(0, dot) : name;
+        String extension = dot > 0 ? name.substring(dot) : "";
+        for (int n = 2;; n++) {
+            String candidate = base + " (" + n + ")" + extension;
+            if (used.add(candidate)) {
+                return candidate;
+            }
+        }
+    }
+}
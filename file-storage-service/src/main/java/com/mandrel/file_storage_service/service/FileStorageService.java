@@ -1,67 +1,357 @@
 package com.mandrel.file_storage_service.service;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.unit.DataSize;
 
+import com.mandrel.file_storage_service.model.BlobWriteResult;
+import com.mandrel.file_storage_service.model.BulkDeleteRequest;
+import com.mandrel.file_storage_service.model.CachedStoredFile;
+import com.mandrel.file_storage_service.model.FileListQuery;
+import com.mandrel.file_storage_service.model.FilePage;
 import com.mandrel.file_storage_service.model.StoredFile;
+import com.mandrel.file_storage_service.model.StoredFileBlob;
+import com.mandrel.file_storage_service.model.StoredFileDeletedEvent;
+import com.mandrel.file_storage_service.model.StoredFileDownload;
 import com.mandrel.file_storage_service.model.StoredFileDto;
+import com.mandrel.file_storage_service.model.StoredFileMetadataDto;
+import com.mandrel.file_storage_service.model.StoredFileUpload;
+import com.mandrel.file_storage_service.repository.FileAccessRepository;
+import com.mandrel.file_storage_service.repository.StoredFileBlobContentRepository;
+import com.mandrel.file_storage_service.repository.StoredFileBlobRepository;
+import com.mandrel.file_storage_service.repository.StoredFileDeletionRepository;
+import com.mandrel.file_storage_service.repository.StoredFileListingRepository;
 import com.mandrel.file_storage_service.repository.StoredFileRepository;
 
 @Service
 public class FileStorageService {
 
+    public static final String CONTENT_CACHE = "storedFileContent";
+
+    // Matches hibernate.jdbc.batch_size so each flush sends full batches.
+    private static final int FLUSH_INTERVAL = 50;
+
     private final StoredFileRepository storedFileRepository;
+    private final StoredFileBlobRepository storedFileBlobRepository;
+    private final StoredFileBlobContentRepository storedFileBlobContentRepository;
+    private final StoredFileListingRepository storedFileListingRepository;
+    private final StoredFileDeletionRepository storedFileDeletionRepository;
+    private final FileAccessRepository fileAccessRepository;
+    private final Cache contentCache;
+    private final long maxCachedFileSize;
+    private final ApplicationEventPublisher eventPublisher;
+    // Bumped by every committed delete; a fill that saw it move drops what it cached.
+    private final AtomicLong deletions = new AtomicLong();
 
     @Autowired
-    public FileStorageService(StoredFileRepository storedFileRepository) {
+    public FileStorageService(StoredFileRepository storedFileRepository,
+            StoredFileBlobRepository storedFileBlobRepository,
+            StoredFileBlobContentRepository storedFileBlobContentRepository,
+            StoredFileListingRepository storedFileListingRepository,
+            StoredFileDeletionRepository storedFileDeletionRepository,
+            FileAccessRepository fileAccessRepository,
+            CacheManager cacheManager,
+            @Value("${file-storage.memory.cache.max-file-size:1MB}") DataSize maxCachedFileSize,
+            ApplicationEventPublisher eventPublisher) {
         this.storedFileRepository = storedFileRepository;
+        this.storedFileBlobRepository = storedFileBlobRepository;
+        this.storedFileBlobContentRepository = storedFileBlobContentRepository;
+        this.storedFileListingRepository = storedFileListingRepository;
+        this.storedFileDeletionRepository = storedFileDeletionRepository;
+        this.fileAccessRepository = fileAccessRepository;
+        this.contentCache = cacheManager.getCache(CONTENT_CACHE);
+        this.maxCachedFileSize = maxCachedFileSize.toBytes();
+        this.eventPublisher = eventPublisher;
     }
 
     @Transactional
     public StoredFileDto store(StoredFileDto dto) {
-        StoredFile entity = new StoredFile(
-                null,
-                dto.getFilename(),
-                dto.getContentType(),
-                (long) dto.getContent().length,
-                LocalDateTime.now(),
-                dto.getContent());
-        StoredFile saved = storedFileRepository.save(entity);
+        StoredFileMetadataDto saved = store(dto.getFilename(), dto.getContentType(),
+                new ByteArrayInputStream(dto.getContent()));
         return StoredFileDto.builder().id(saved.getId())
                 .filename(saved.getFilename())
                 .contentType(saved.getContentType())
                 .size(saved.getSize())
-                .content(saved.getContent())
+                .uploadDate(saved.getUploadDate())
+                .content(dto.getContent())
                 .build();
     }
 
+    /**
+     * Streams {@code content} straight into the blob table. Size and checksum are
+     * measured on the way through, so heap use is one copy buffer whatever the
+     * file size. Bytes already stored under the same checksum are shared rather
+     * than kept twice. The caller keeps ownership of the stream.
+     */
+    @Transactional
+    public StoredFileMetadataDto store(String filename, String contentType, InputStream content) {
+        BlobWriteResult blob = storedFileBlobContentRepository.insert(content);
+        StoredFile entity = new StoredFile(
+                null,
+                filename,
+                contentType,
+                blob.getSize(),
+                LocalDateTime.now(),
+                storedFileBlobRepository.getReferenceById(blob.getId()));
+        entity.setChecksum(blob.getChecksum());
+        StoredFile saved = storedFileRepository.save(entity);
+        return toMetadata(saved);
+    }
+
+    /**
+     * Stores a batch in one transaction. Each payload still streams into the blob
+     * table on its own, but the metadata rows are inserted in JDBC batches. If any
+     * file fails, the whole batch is rolled back.
+     */
+    @Transactional
+    public List<StoredFileMetadataDto> storeAll(List<StoredFileUpload> uploads) {
+        List<StoredFileMetadataDto> saved = new ArrayList<>(uploads.size());
+        List<StoredFile> pending = new ArrayList<>(FLUSH_INTERVAL);
+        for (StoredFileUpload upload : uploads) {
+            BlobWriteResult blob;
+            try (InputStream in = upload.getContent().getInputStream()) {
+                blob = storedFileBlobContentRepository.insert(in);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read " + upload.getFilename(), e);
+            }
+            StoredFile entity = new StoredFile(
+                    null,
+                    upload.getFilename(),
+                    upload.getContentType(),
+                    blob.getSize(),
+                    LocalDateTime.now(),
+                    storedFileBlobRepository.getReferenceById(blob.getId()));
+            entity.setChecksum(blob.getChecksum());
+            pending.add(entity);
+            if (pending.size() == FLUSH_INTERVAL) {
+                saveAll(pending, saved);
+            }
+        }
+        saveAll(pending, saved);
+        return saved;
+    }
+
+    private void saveAll(List<StoredFile> pending, List<StoredFileMetadataDto> saved) {
+        if (pending.isEmpty()) {
+            return;
+        }
+        for (StoredFile file : storedFileRepository.saveAll(pending)) {
+            saved.add(toMetadata(file));
+        }
+        storedFileRepository.flush();
+        pending.clear();
+    }
+
     @Transactional(readOnly = true)
-    public List<StoredFileDto> listAll() {
+    public List<StoredFileMetadataDto> listAll() {
         return storedFileRepository.findAllMetadata();
     }
 
+    @Transactional(readOnly = true)
+    public FilePage<StoredFileMetadataDto> list(FileListQuery query) {
+        return storedFileListingRepository.findPage(query);
+    }
+
+    /**
+     * Files in {@code ids} (when given) matching {@code filter}, in id order,
+     * at most {@code limit} of them.
+     */
+    @Transactional(readOnly = true)
+    public List<StoredFileMetadataDto> findMatching(List<Long> ids, FileListQuery filter, int limit) {
+        return storedFileListingRepository.findMatching(ids, filter, limit);
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<StoredFileMetadataDto> getMetadataById(Long id) {
+        return storedFileRepository.findMetadataById(id);
+    }
+
+    @Transactional(readOnly = true)
+    public boolean existsById(Long id) {
+        return storedFileRepository.existsById(id);
+    }
+
+    /**
+     * Serves files up to {@code file-storage.memory.cache.max-file-size} from the
+     * read cache, filling it on a miss; a hit does not touch the database at all.
+     * Larger files are resolved from the metadata row only and stream the blob on
+     * demand, outside any transaction, from whichever tier holds it. Every
+     * download counts as a read for tiering.
+     */
+    public Optional<StoredFileDownload> openDownload(Long id) {
+        CachedStoredFile cached = contentCache.get(id, CachedStoredFile.class);
+        if (cached != null) {
+            fileAccessRepository.recordAccess(id);
+            return Optional.of(new StoredFileDownload(cached.getMetadata(), new ByteArrayResource(cached.getContent())));
+        }
+        long generation = deletions.get();
+        Optional<StoredFile> file = storedFileRepository.findById(id);
+        if (file.isEmpty()) {
+            return Optional.empty();
+        }
+        fileAccessRepository.recordAccess(id);
+        StoredFileMetadataDto metadata = toMetadata(file.get());
+        // The blob is an uninitialized proxy; its id is available without loading it.
+        Resource content = storedFileBlobContentRepository.openResource(file.get().getBlob().getId(), metadata.getSize());
+        if (metadata.getSize() > maxCachedFileSize) {
+            return Optional.of(new StoredFileDownload(metadata, content));
+        }
+        byte[] bytes = readFully(content);
+        cache(id, new CachedStoredFile(metadata, bytes), generation);
+        return Optional.of(new StoredFileDownload(metadata, new ByteArrayResource(bytes)));
+    }
+
+    /**
+     * Resolves a file for a bulk read such as an archive: the blob is always
+     * streamed from its tier, and the read neither goes through nor fills the
+     * read cache nor counts as an access for tiering, so one large archive
+     * does not displace the hot set or promote what it packed.
+     */
+    public Optional<StoredFileDownload> openStream(Long id) {
+        return storedFileRepository.findById(id).map(file -> {
+            StoredFileMetadataDto metadata = toMetadata(file);
+            return new StoredFileDownload(metadata,
+                    storedFileBlobContentRepository.openResource(file.getBlob().getId(), metadata.getSize()));
+        });
+    }
+
+    /**
+     * Like {@link #openDownload}, but with the content in memory. Files small
+     * enough for the read cache are served from it and fill it on a miss.
+     */
     @Transactional(readOnly = true)
     public Optional<StoredFileDto> getFileById(Long id) {
-        return storedFileRepository.findById(id).map(file -> StoredFileDto.builder().id(file.getId())
-                .filename(file.getFilename())
-                .contentType(file.getContentType())
-                .size(file.getSize())
-                .content(file.getContent())
-                .build());
+        CachedStoredFile cached = contentCache.get(id, CachedStoredFile.class);
+        if (cached != null) {
+            fileAccessRepository.recordAccess(id);
+            StoredFileMetadataDto metadata = cached.getMetadata();
+            return Optional.of(StoredFileDto.builder().id(metadata.getId())
+                    .filename(metadata.getFilename())
+                    .contentType(metadata.getContentType())
+                    .size(metadata.getSize())
+                    .uploadDate(metadata.getUploadDate())
+                    .content(cached.getContent())
+                    .build());
+        }
+        long generation = deletions.get();
+        return storedFileRepository.findById(id).map(file -> {
+            fileAccessRepository.recordAccess(id);
+            StoredFileBlob blob = file.getBlob();
+            // A cold blob's column is empty; its bytes are in the cold tier.
+            byte[] content = blob.isCold()
+                    ? readFully(storedFileBlobContentRepository.openResource(blob.getId(), file.getSize()))
+                    : blob.getData();
+            if (file.getSize() <= maxCachedFileSize) {
+                cache(id, new CachedStoredFile(toMetadata(file), content), generation);
+            }
+            return StoredFileDto.builder().id(file.getId())
+                    .filename(file.getFilename())
+                    .contentType(file.getContentType())
+                    .size(file.getSize())
+                    .uploadDate(file.getUploadDate())
+                    .content(content)
+                    .build();
+        });
     }
 
+    /**
+     * Deletes by primary key without loading the entity: one projection for the
+     * blob reference, then a direct {@code DELETE}. The reference is released
+     * only if this call actually removed the row.
+     */
     @Transactional
     public boolean deleteById(Long id) {
-        Optional<StoredFile> file = storedFileRepository.findById(id);
-        if (file.isEmpty()) {
+        Optional<Long> blobId = storedFileRepository.findBlobIdById(id);
+        if (blobId.isEmpty() || storedFileRepository.deleteFileById(id) == 0) {
             return false;
         }
-        storedFileRepository.delete(file.get());
+        storedFileBlobRepository.releaseReference(blobId.get());
+        storedFileBlobRepository.deleteIfUnreferenced(blobId.get());
+        contentCache.evict(id);
+        eventPublisher.publishEvent(new StoredFileDeletedEvent(id));
         return true;
     }
-}
\ No newline at end of file
+
+    /**
+     * Deletes every file selected by {@code request} in one transaction.
+     *
+     * @throws IllegalArgumentException if the request selects nothing explicitly
+     */
+    @Transactional
+    public long deleteMatching(BulkDeleteRequest request) {
+        boolean byId = request.getIds() != null && !request.getIds().isEmpty();
+        if (!byId && !request.hasFilter()) {
+            throw new IllegalArgumentException("Bulk delete needs ids or a filter");
+        }
+        List<Long> deleted = storedFileDeletionRepository.deleteMatching(byId ? request.getIds() : null,
+                request.toFilter());
+        if (!deleted.isEmpty()) {
+            deleted.forEach(contentCache::evict);
+            eventPublisher.publishEvent(new StoredFileDeletedEvent(deleted));
+        }
+        return deleted.size();
+    }
+
+    /**
+     * Evicts again once the delete has committed. A concurrent miss may still
+     * have read the row before the commit and put it after this eviction; the
+     * bumped counter tells it to evict its own entry (see {@link #cache}).
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onDeleted(StoredFileDeletedEvent event) {
+        deletions.incrementAndGet();
+        event.getIds().forEach(contentCache::evict);
+    }
+
+    /**
+     * Caches a file read while {@link #deletions} was at {@code generation}.
+     * Checked after the put: a delete that committed since the read either
+     * evicts after the put itself or has already bumped the counter, so the
+     * entry never outlives the row. Any delete counts, which only costs the
+     * racing fill its entry.
+     */
+    private void cache(Long id, CachedStoredFile file, long generation) {
+        contentCache.put(id, file);
+        if (deletions.get() != generation) {
+            contentCache.evict(id);
+        }
+    }
+
+    private static byte[] readFully(Resource content) {
+        try {
+            return content.getContentAsByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read " + content.getDescription(), e);
+        }
+    }
+
+    private static StoredFileMetadataDto toMetadata(StoredFile file) {
+        return StoredFileMetadataDto.builder()
+                .id(file.getId())
+                .filename(file.getFilename())
+                .contentType(file.getContentType())
+                .size(file.getSize())
+                .uploadDate(file.getUploadDate())
+                .checksum(file.getChecksum())
+                .build();
+    }
+}
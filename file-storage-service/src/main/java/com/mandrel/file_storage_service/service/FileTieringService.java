@@ -0,0 +1,191 @@
+package com.mandrel.file_storage_service.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import com.mandrel.file_storage_service.model.StoredFileTierDto;
+import com.mandrel.file_storage_service.model.TieringResult;
+import com.mandrel.file_storage_service.repository.ColdBlobRepository;
+import com.mandrel.file_storage_service.repository.FileAccessRepository;
+import com.mandrel.file_storage_service.repository.StoredFileBlobContentRepository;
+import com.mandrel.file_storage_service.repository.StoredFileRepository;
+
+/**
+ * Hot/cold tiering of memory-backend payloads, so the database holds the
+ * working set rather than everything ever stored. Every {@code interval} a
+ * pass walks all files and moves payloads between {@code stored_file_blob} and
+ * the cold tier on disk ({@link ColdBlobRepository}):
+ * <ul>
+ * <li>a blob of at least {@code min-size} is demoted once none of the files
+ * sharing it has been read (or uploaded) for {@code cold-after};</li>
+ * <li>a cold blob is promoted back once any of its files has had
+ * {@code promote-reads} reads close together: each read adds one to a count
+ * that halves every {@code access-half-life}, and the count must exceed
+ * {@code promote-reads - 1}.</li>
+ * </ul>
+ * Only the payload moves: file ids, metadata and download URLs stay as they
+ * are, and a download reads whichever tier holds the bytes when it starts.
+ * A demoted payload is written out in full before its column is cleared; a
+ * promoted one is written back before its cold copy is removed, which happens
+ * in the next pass so downloads already headed for it can finish. Moves
+ * happen only in the pass, never on the request path.
+ */
+@Service
+public class FileTieringService {
+
+    private final StoredFileRepository storedFileRepository;
+    private final StoredFileBlobContentRepository storedFileBlobContentRepository;
+    private final ColdBlobRepository coldBlobRepository;
+    private final FileAccessRepository fileAccessRepository;
+    private final boolean enabled;
+    private final long coldAfterMillis;
+    private final long minSize;
+    private final int promoteReads;
+    // One pass at a time: a pass assumes it is the only writer of the cold tier.
+    private final ReentrantLock passLock = new ReentrantLock();
+
+    @Autowired
+    public FileTieringService(StoredFileRepository storedFileRepository,
+            StoredFileBlobContentRepository storedFileBlobContentRepository,
+            ColdBlobRepository coldBlobRepository,
+            FileAccessRepository fileAccessRepository,
+            @Value("${file-storage.tiering.enabled:false}") boolean enabled,
+            @Value("${file-storage.tiering.cold-after:24h}") Duration coldAfter,
+            @Value("${file-storage.tiering.min-size:64KB}") DataSize minSize,
+            @Value("${file-storage.tiering.promote-reads:3}") int promoteReads) {
+        this.storedFileRepository = storedFileRepository;
+        this.storedFileBlobContentRepository = storedFileBlobContentRepository;
+        this.coldBlobRepository = coldBlobRepository;
+        this.fileAccessRepository = fileAccessRepository;
+        this.enabled = enabled;
+        this.coldAfterMillis = coldAfter.toMillis();
+        this.minSize = minSize.toBytes();
+        this.promoteReads = promoteReads;
+    }
+
+    /**
+     * One tiering pass. Cold files left behind by promotions, deletes or an
+     * earlier run are removed first. A blob whose move fails stays where it
+     * was and is tried again next pass.
+     *
+     * @return what was moved; nothing if tiering is disabled or a pass is
+     *         already running
+     */
+    @Scheduled(fixedDelayString = "${file-storage.tiering.interval:5m}",
+            initialDelayString = "${file-storage.tiering.interval:5m}")
+    public TieringResult rebalance() {
+        if (!enabled || !passLock.tryLock()) {
+            return new TieringResult(0, 0, 0, 0, 0);
+        }
+        try {
+            long now = System.currentTimeMillis();
+            Map<Long, List<StoredFileTierDto>> filesByBlob = new LinkedHashMap<>();
+            for (StoredFileTierDto file : storedFileRepository.findAllTiers()) {
+                filesByBlob.computeIfAbsent(file.getBlobId(), id -> new ArrayList<>()).add(file);
+            }
+            deleteOrphans(filesByBlob);
+
+            int demoted = 0;
+            int promoted = 0;
+            int failed = 0;
+            long demotedBytes = 0;
+            long promotedBytes = 0;
+            for (List<StoredFileTierDto> files : filesByBlob.values()) {
+                StoredFileTierDto blob = files.get(0);
+                try {
+                    if (blob.isCold() && isHot(files, now)) {
+                        if (promote(blob)) {
+                            promoted++;
+                            promotedBytes += blob.getSize();
+                        }
+                    } else if (!blob.isCold() && blob.getSize() >= minSize && isCold(files, now)) {
+                        if (demote(blob)) {
+                            demoted++;
+                            demotedBytes += blob.getSize();
+                        }
+                    }
+                } catch (IOException | RuntimeException e) {
+                    failed++;
+                }
+            }
+            fileAccessRepository.removeIdleSince(now - coldAfterMillis);
+            return new TieringResult(demoted, demotedBytes, promoted, promotedBytes, failed);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to clean up the cold tier", e);
+        } finally {
+            passLock.unlock();
+        }
+    }
+
+    /**
+     * Writes the payload to the cold tier, then clears it from the database. If
+     * the blob was deleted meanwhile, the copy is dropped again.
+     */
+    private boolean demote(StoredFileTierDto blob) throws IOException {
+        long written;
+        try (InputStream in = storedFileBlobContentRepository.openResource(blob.getBlobId(), blob.getSize())
+                .getInputStream()) {
+            written = coldBlobRepository.write(blob.getBlobId(), in);
+        }
+        if (written == blob.getSize() && storedFileBlobContentRepository.markCold(blob.getBlobId())) {
+            return true;
+        }
+        coldBlobRepository.delete(blob.getBlobId());
+        return false;
+    }
+
+    private boolean promote(StoredFileTierDto blob) throws IOException {
+        try (InputStream in = coldBlobRepository.open(blob.getBlobId())) {
+            return storedFileBlobContentRepository.restore(blob.getBlobId(), in, blob.getSize());
+        }
+    }
+
+    private boolean isCold(List<StoredFileTierDto> files, long now) {
+        for (StoredFileTierDto file : files) {
+            long uploaded = file.getUploadDate() == null ? 0
+                    : file.getUploadDate().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            if (now - fileAccessRepository.lastAccessMillis(file.getFileId(), uploaded) < coldAfterMillis) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isHot(List<StoredFileTierDto> files, long now) {
+        for (StoredFileTierDto file : files) {
+            if (fileAccessRepository.recentReads(file.getFileId(), now) > promoteReads - 1) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Removes cold files whose blob is no longer cold or no longer exists, and
+     * temporary files of interrupted demotions.
+     */
+    private void deleteOrphans(Map<Long, List<StoredFileTierDto>> filesByBlob) throws IOException {
+        coldBlobRepository.deleteAbandonedWrites();
+        Set<Long> onDisk = coldBlobRepository.findBlobIds();
+        for (Long blobId : onDisk) {
+            List<StoredFileTierDto> files = filesByBlob.get(blobId);
+            if (files == null || !files.get(0).isCold()) {
+                coldBlobRepository.delete(blobId);
+            }
+        }
+    }
+}
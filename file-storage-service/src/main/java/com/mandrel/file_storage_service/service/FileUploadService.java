@@ -1,91 +1,723 @@
 package com.mandrel.file_storage_service.service;
 
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.nio.file.DirectoryStream;
+import java.io.InputStream;
+import java.nio.file.DirectoryNotEmptyException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
 
+import com.mandrel.file_storage_service.model.BatchUploadResult;
+import com.mandrel.file_storage_service.model.BulkDeleteRequest;
+import com.mandrel.file_storage_service.model.CacheStatsDto;
+import com.mandrel.file_storage_service.model.FileListQuery;
+import com.mandrel.file_storage_service.model.FilePage;
+import com.mandrel.file_storage_service.model.LocalFileJournalReplay;
+import com.mandrel.file_storage_service.model.LocalFileLayout;
+import com.mandrel.file_storage_service.model.StoredFileDownload;
 import com.mandrel.file_storage_service.model.StoredFileDto;
+import com.mandrel.file_storage_service.model.StoredFileMetadataDto;
+import com.mandrel.file_storage_service.model.StoredFileUpload;
+import com.mandrel.file_storage_service.repository.LocalFileContentRepository;
+import com.mandrel.file_storage_service.repository.LocalFileIndexJournalRepository;
+import com.mandrel.file_storage_service.repository.LocalFileIndexRepository;
+import com.mandrel.file_storage_service.repository.LocalFileMappingRepository;
 
+/**
+ * Local filesystem backend. File metadata lives in an in-memory index backed by
+ * an append-only journal in the upload directory; listings and lookups are
+ * answered from the index and never scan the directory or read file contents.
+ * Names starting with a dot are reserved for the service's own files and are
+ * never listed or served. Files are placed according to the configured
+ * {@link LocalFileLayout}; {@link #migrateLayout()} moves an existing tree
+ * into it.
+ * <p>
+ * Per-file consistency comes from a fixed array of read/write locks striped by
+ * filename. Uploads stream into a temporary file without any lock; only the
+ * rename and the index update run under the name's write lock, and lookups
+ * read the file and its metadata under the read lock. Every write gets a new
+ * {@code version} from a service-wide generation counter, so a version never
+ * repeats even across delete and re-upload. The journal keeps the counter's
+ * high-water mark, so it does not repeat across restarts either.
+ * <p>
+ * Overwrites and deletes leave dead records in the journal. It is compacted
+ * at startup, and at runtime once dead records outnumber both
+ * {@code compact-min-dead-records} and {@code compact-ratio} times the live
+ * entries, so replay time stays proportional to the files that exist.
+ */
 @Service
 public class FileUploadService {
 
-    private static final Path ROOT_DIR = Paths.get("uploaded-files");
+    private static final Path DEFAULT_ROOT_DIR = Paths.get("uploaded-files");
+    private static final int LOCK_STRIPES = 256;
 
-    public void store(StoredFileDto file) {
+    private final Path rootDir;
+    private final LocalFileIndexRepository index;
+    private final LocalFileContentRepository contentRepository;
+    private final LocalFileIndexJournalRepository journal;
+    private final LocalFileMappingRepository mappings;
+    private final ContentTypeDetectionService contentTypes;
+    private final LocalFileLayout layout;
+    private final boolean migrateOnStartup;
+    private final long compactMinDeadRecords;
+    private final double compactRatio;
+    private final ReentrantLock indexLoadLock = new ReentrantLock();
+    private final ReentrantReadWriteLock[] fileLocks = new ReentrantReadWriteLock[LOCK_STRIPES];
+    private final AtomicLong generation = new AtomicLong();
+    // Records in the journal since it was last compacted, live or dead.
+    private final AtomicLong journalRecords = new AtomicLong();
+    // Identity of the directory the index was built from; a recreated directory forces a rebuild.
+    private volatile Object indexedRoot;
+
+    public FileUploadService(LocalFileIndexRepository index, LocalFileContentRepository contentRepository,
+            LocalFileIndexJournalRepository journal, LocalFileMappingRepository mappings,
+            ContentTypeDetectionService contentTypes, LocalFileLayout layout, boolean migrateOnStartup) {
+        this(DEFAULT_ROOT_DIR, index, contentRepository, journal, mappings, contentTypes, layout, migrateOnStartup,
+                1000, 0.5);
+    }
+
+    @Autowired
+    public FileUploadService(@Value("${file-storage.local.directory:uploaded-files}") Path rootDir,
+            LocalFileIndexRepository index, LocalFileContentRepository contentRepository,
+            LocalFileIndexJournalRepository journal, LocalFileMappingRepository mappings,
+            ContentTypeDetectionService contentTypes,
+            @Value("${file-storage.local.layout:FLAT}") LocalFileLayout layout,
+            @Value("${file-storage.local.migrate-layout-on-startup:false}") boolean migrateOnStartup,
+            @Value("${file-storage.local.journal.compact-min-dead-records:1000}") long compactMinDeadRecords,
+            @Value("${file-storage.local.journal.compact-ratio:0.5}") double compactRatio) {
+        this.rootDir = rootDir;
+        this.index = index;
+        this.contentRepository = contentRepository;
+        this.journal = journal;
+        this.mappings = mappings;
+        this.contentTypes = contentTypes;
+        this.layout = layout;
+        this.migrateOnStartup = migrateOnStartup;
+        this.compactMinDeadRecords = compactMinDeadRecords;
+        this.compactRatio = compactRatio;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            fileLocks[i] = new ReentrantReadWriteLock();
+        }
+    }
+
+    /**
+     * Reconciles the journal with the directory once at startup, so the first
+     * request does not pay for it. Temporary files of writes interrupted by a
+     * crash are removed first, and the tree is migrated to the configured layout
+     * when asked to.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcileOnStartup() {
+        if (Files.isDirectory(rootDir)) {
+            try {
+                contentRepository.deleteAbandonedWrites(rootDir, LocalFileLayout.SHARDED.getDepth() + 1);
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to clean up " + rootDir, e);
+            }
+        }
+        if (migrateOnStartup) {
+            migrateLayout();
+        }
+        ensureIndexed();
+    }
+
+    /**
+     * Moves every file that is not where the configured layout puts it (flat
+     * files when sharded, sharded files when flat) to its place, then removes
+     * shard directories left empty. Each move is an atomic rename within the
+     * upload directory, so an interrupted migration can simply be run again.
+     *
+     * @return the number of files moved
+     */
+    public int migrateLayout() {
+        if (Files.notExists(rootDir)) {
+            return 0;
+        }
+        indexLoadLock.lock();
         try {
-            if (Files.notExists(ROOT_DIR)) {
-                Files.createDirectories(ROOT_DIR);
+            int moved = 0;
+            for (Path path : listTree(LocalFileLayout.SHARDED.getDepth() + 1)) {
+                Path target = layout.resolve(rootDir, path.getFileName().toString());
+                if (!path.equals(target)) {
+                    Files.createDirectories(target.getParent());
+                    Files.move(path, target, StandardCopyOption.ATOMIC_MOVE);
+                    moved++;
+                }
             }
-            Path destination = ROOT_DIR.resolve(file.getFilename());
-            Files.write(destination, file.getContent());
+            removeEmptyShardDirectories();
+            mappings.invalidateAll();
+            indexedRoot = null;
+            return moved;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to migrate " + rootDir + " to the " + layout + " layout", e);
+        } finally {
+            indexLoadLock.unlock();
+        }
+    }
+
+    public void store(StoredFileDto file) {
+        try {
+            createRootIfMissing();
+            ensureIndexed();
+            write(file.getFilename(), file.getContentType(), new ByteArrayInputStream(file.getContent()));
         } catch (Exception e) {
             throw new RuntimeException("Failed to store file " + file.getFilename(), e);
         }
     }
 
+    /**
+     * Streams one upload to disk; memory use does not depend on its size.
+     */
+    public StoredFileMetadataDto store(StoredFileUpload upload) {
+        try (InputStream in = upload.getContent().getInputStream()) {
+            createRootIfMissing();
+            ensureIndexed();
+            return write(upload.getFilename(), upload.getContentType(), in);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to store file " + upload.getFilename(), e);
+        }
+    }
+
+    /**
+     * Writes each file of a batch independently, streaming it to disk. A file that
+     * cannot be written is reported in its result and does not stop the others.
+     */
+    public List<BatchUploadResult> storeAll(List<StoredFileUpload> uploads) {
+        try {
+            createRootIfMissing();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to create " + rootDir, e);
+        }
+        ensureIndexed();
+        List<BatchUploadResult> results = new ArrayList<>(uploads.size());
+        for (StoredFileUpload upload : uploads) {
+            try (InputStream in = upload.getContent().getInputStream()) {
+                results.add(BatchUploadResult.stored(write(upload.getFilename(), upload.getContentType(), in)));
+            } catch (IOException | RuntimeException e) {
+                results.add(BatchUploadResult.failed(upload.getFilename(), "Failed to store file: " + e.getMessage()));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Starts an upload whose bytes the caller writes itself, typically with
+     * non-blocking channel writes: returns an empty hidden file next to where
+     * {@code filename} will live. Finish with {@link #completeUpload} or
+     * {@link #abortUpload}; until then nothing is visible under the name.
+     */
+    public Path beginUpload(String filename) {
+        if (isReserved(filename)) {
+            throw new IllegalArgumentException("Reserved filename: " + filename);
+        }
+        try {
+            createRootIfMissing();
+            ensureIndexed();
+            Path destination = resolve(filename);
+            if (layout != LocalFileLayout.FLAT) {
+                Files.createDirectories(destination.getParent());
+            }
+            return contentRepository.createTemporary(destination);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to start upload of " + filename, e);
+        }
+    }
+
+    /**
+     * Publishes a file filled after {@link #beginUpload}: sniffs its content
+     * type from the first block, flushes it per the durability mode and renames
+     * it into place like any other upload. {@code checksum} is the SHA-256 the
+     * caller computed while writing, so the bytes are not read back for it.
+     * The temporary file is gone afterwards, whether or not this succeeds.
+     */
+    public StoredFileMetadataDto completeUpload(String filename, String contentType, Path temp, String checksum) {
+        try {
+            if (isReserved(filename)) {
+                throw new IllegalArgumentException("Reserved filename: " + filename);
+            }
+            String type = contentTypes.detect(temp, filename, contentType);
+            contentRepository.flushTemporary(temp);
+            return publish(filename, type, temp, resolve(filename), checksum);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to store file " + filename, e);
+        } finally {
+            abortUpload(temp);
+        }
+    }
+
+    /**
+     * Drops the temporary file of an upload that will not be completed; a
+     * no-op once it has been.
+     */
+    public void abortUpload(Path temp) {
+        try {
+            contentRepository.discard(temp);
+        } catch (IOException e) {
+            // Left for the startup clean-up of abandoned writes.
+        }
+    }
+
+    /**
+     * Lists from the index; the returned DTOs carry metadata only.
+     */
     public List<StoredFileDto> listAll() {
-        if (Files.notExists(ROOT_DIR)) {
-            return List.of();
-        }
-        try (DirectoryStream<Path> ds = Files.newDirectoryStream(ROOT_DIR)) {
-            List<StoredFileDto> list = new ArrayList<>();
-            for (Path path : ds) {
-                if (Files.isRegularFile(path)) {
-                    BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class);
-
-                    list.add(StoredFileDto.builder()
-                            .id(null)
-                            .filename(path.getFileName().toString())
-                            .contentType(Files.probeContentType(path))
-                            .size(attrs.size())
-                            .content(Files.readAllBytes(path))
-                            .uploadDate(
-                                    LocalDateTime.ofInstant(
-                                            attrs.creationTime().toInstant(), ZoneId.systemDefault()))
-                            .build());
+        ensureIndexed();
+        List<StoredFileDto> list = new ArrayList<>();
+        for (StoredFileMetadataDto file : index.findAll()) {
+            list.add(StoredFileDto.builder()
+                    .filename(file.getFilename())
+                    .contentType(file.getContentType())
+                    .size(file.getSize())
+                    .uploadDate(file.getUploadDate())
+                    .build());
+        }
+        return list;
+    }
+
+    public FilePage<StoredFileMetadataDto> list(FileListQuery query) {
+        ensureIndexed();
+        return index.findPage(query);
+    }
+
+    /**
+     * Indexed files in {@code filenames} (when given) matching {@code filter},
+     * in filename order, at most {@code limit} of them. Evaluated on the index
+     * alone, without touching the disk.
+     */
+    public List<StoredFileMetadataDto> findMatching(List<String> filenames, FileListQuery filter, int limit) {
+        ensureIndexed();
+        List<StoredFileMetadataDto> matches = new ArrayList<>();
+        if (filenames != null) {
+            for (String filename : new TreeSet<>(filenames)) {
+                if (matches.size() == limit) {
+                    break;
                 }
+                index.find(filename).filter(filter::matches).ifPresent(matches::add);
             }
-            return list;
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to list all files", e);
+            return matches;
         }
+        for (StoredFileMetadataDto file : index.findAll()) {
+            if (matches.size() == limit) {
+                break;
+            }
+            if (filter.matches(file)) {
+                matches.add(file);
+            }
+        }
+        return matches;
     }
 
-    public Optional<StoredFileDto> getFileByFilename(String filename) {
-        Path filePath = ROOT_DIR.resolve(filename);
-        if (!Files.exists(filePath) || !Files.isRegularFile(filePath)) {
+    /**
+     * Resolves a file for download from one stat call; the content is never read
+     * here. The returned resource is file-backed so the web layer can hand it to
+     * the container for zero-copy transfer, and seekable for range requests.
+     */
+    public Optional<StoredFileDownload> openFile(String filename) {
+        if (isReserved(filename)) {
             return Optional.empty();
         }
+        Path filePath = resolve(filename);
+        ensureIndexed();
+        Lock lock = lockFor(filename).readLock();
+        lock.lock();
+        try {
+            BasicFileAttributes attrs;
+            try {
+                attrs = Files.readAttributes(filePath, BasicFileAttributes.class);
+            } catch (IOException e) {
+                return Optional.empty();
+            }
+            if (!attrs.isRegularFile()) {
+                return Optional.empty();
+            }
+            Optional<StoredFileMetadataDto> indexed = index.find(filename);
+            StoredFileMetadataDto metadata = StoredFileMetadataDto.builder()
+                    .filename(filename)
+                    .contentType(indexed.map(StoredFileMetadataDto::getContentType)
+                            .orElseGet(() -> detectContentType(filePath, filename)))
+                    .size(attrs.size())
+                    .uploadDate(indexed.map(StoredFileMetadataDto::getUploadDate)
+                            .orElseGet(() -> LocalDateTime.ofInstant(attrs.creationTime().toInstant(), ZoneId.systemDefault())))
+                    .checksum(indexed.map(StoredFileMetadataDto::getChecksum).orElse(null))
+                    .version(indexed.map(StoredFileMetadataDto::getVersion).orElse(null))
+                    .build();
+            // Bound to this version of the file: a stream opened after a concurrent
+            // overwrite fails rather than disagree with the metadata above.
+            Resource content = mappings.open(filename, filePath, attrs)
+                    .orElseGet(() -> contentRepository.openResource(filePath, attrs));
+            return Optional.of(new StoredFileDownload(metadata, content));
+        } finally {
+            lock.unlock();
+        }
+    }
 
+    public Optional<StoredFileDto> getFileByFilename(String filename) {
+        if (isReserved(filename)) {
+            return Optional.empty();
+        }
+        Path filePath = resolve(filename);
+        ensureIndexed();
+        Lock lock = lockFor(filename).readLock();
+        lock.lock();
         try {
+            if (!Files.isRegularFile(filePath)) {
+                return Optional.empty();
+            }
+            Optional<StoredFileMetadataDto> indexed = index.find(filename);
+            byte[] content = readContent(filename, filePath);
             return Optional.of(StoredFileDto.builder()
                     .id(null)
                     .filename(filename)
-                    .contentType(Files.probeContentType(filePath))
-                    .content(Files.readAllBytes(filePath))
-                    .size(Files.size(filePath))
+                    .contentType(indexed.map(StoredFileMetadataDto::getContentType)
+                            .orElseGet(() -> detectContentType(filePath, filename)))
+                    .content(content)
+                    .size((long) content.length)
+                    .uploadDate(indexed.map(StoredFileMetadataDto::getUploadDate).orElse(null))
                     .build());
         } catch (IOException e) {
             throw new RuntimeException("Could not read file " + filename, e);
+        } finally {
+            lock.unlock();
         }
     }
 
+    /**
+     * Counters of the memory-mapped read cache, or empty when it is disabled.
+     */
+    public Optional<CacheStatsDto> getMappedCacheStats() {
+        return mappings.isEnabled() ? Optional.of(mappings.stats()) : Optional.empty();
+    }
+
     public boolean deleteByFilename(String filename) {
-        Path filePath = ROOT_DIR.resolve(filename).normalize();
+        if (isReserved(filename)) {
+            return false;
+        }
+        Path filePath = resolve(filename).normalize();
+        // A name with separators or ".." segments could otherwise reach outside the upload directory.
+        if (!filePath.startsWith(rootDir.normalize()) || !filePath.getFileName().toString().equals(filename)) {
+            return false;
+        }
+        Lock lock = lockFor(filename).writeLock();
+        boolean deleted;
+        lock.lock();
         try {
-            return Files.deleteIfExists(filePath);
+            deleted = Files.deleteIfExists(filePath);
+            mappings.invalidate(filename);
+            if (index.remove(filename) && Files.isDirectory(rootDir)) {
+                journal.appendRemove(rootDir, filename);
+                journalRecords.incrementAndGet();
+            }
         } catch (IOException e) {
             throw new RuntimeException("Failed to delete file " + filename, e);
+        } finally {
+            lock.unlock();
+        }
+        compactJournalIfNeeded();
+        return deleted;
+    }
+
+    /**
+     * Deletes every local file selected by {@code request}. Candidates come from
+     * the index, so filters are evaluated without touching the disk.
+     *
+     * @throws IllegalArgumentException if the request selects nothing explicitly
+     */
+    public long deleteMatching(BulkDeleteRequest request) {
+        boolean byName = request.getFilenames() != null && !request.getFilenames().isEmpty();
+        if (!byName && !request.hasFilter()) {
+            throw new IllegalArgumentException("Bulk delete needs filenames or a filter");
+        }
+        ensureIndexed();
+        FileListQuery filter = request.toFilter();
+        List<String> candidates = new ArrayList<>();
+        if (byName) {
+            for (String filename : request.getFilenames()) {
+                Optional<StoredFileMetadataDto> file = index.find(filename);
+                if (file.isPresent() && filter.matches(file.get())) {
+                    candidates.add(filename);
+                }
+            }
+        } else {
+            for (StoredFileMetadataDto file : index.findAll()) {
+                if (filter.matches(file)) {
+                    candidates.add(file.getFilename());
+                }
+            }
+        }
+        long deleted = 0;
+        for (String filename : candidates) {
+            if (deleteByFilename(filename)) {
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * Streams {@code content} to disk, hashing it and sniffing its content type
+     * on the way, and records the result in the index and its journal. The file
+     * appears at its final path complete or not at all; the rename and the index
+     * update happen together under the name's write lock.
+     */
+    private StoredFileMetadataDto write(String filename, String contentType, InputStream content) throws IOException {
+        if (isReserved(filename)) {
+            throw new IllegalArgumentException("Reserved filename: " + filename);
+        }
+        Path destination = resolve(filename);
+        if (layout != LocalFileLayout.FLAT) {
+            Files.createDirectories(destination.getParent());
+        }
+        // Sniff the first block on the way through instead of reading it back later.
+        BufferedInputStream buffered = new BufferedInputStream(content, ContentTypeDetectionService.SNIFF_LENGTH * 16);
+        byte[] head = new byte[ContentTypeDetectionService.SNIFF_LENGTH];
+        buffered.mark(head.length);
+        int headLength = buffered.readNBytes(head, 0, head.length);
+        buffered.reset();
+        String type = contentTypes.detect(filename, contentType, head, headLength);
+        MessageDigest digest = sha256();
+        Path temp = contentRepository.writeTemporary(destination, new DigestInputStream(buffered, digest));
+        try {
+            return publish(filename, type, temp, destination, HexFormat.of().formatHex(digest.digest()));
+        } finally {
+            contentRepository.discard(temp);
+        }
+    }
+
+    /**
+     * Renames a fully written temporary file over {@code destination} and
+     * records it, all under the name's write lock.
+     */
+    private StoredFileMetadataDto publish(String filename, String type, Path temp, Path destination, String checksum)
+            throws IOException {
+        long size = Files.size(temp);
+        Lock lock = lockFor(filename).writeLock();
+        StoredFileMetadataDto metadata;
+        lock.lock();
+        try {
+            contentRepository.commit(temp, destination);
+            mappings.invalidate(filename);
+            metadata = StoredFileMetadataDto.builder()
+                    .filename(filename)
+                    .contentType(type)
+                    .size(size)
+                    .uploadDate(LocalDateTime.now())
+                    .checksum(checksum)
+                    .version(generation.incrementAndGet())
+                    .build();
+            index.put(metadata);
+            journal.appendPut(rootDir, metadata);
+            journalRecords.incrementAndGet();
+        } finally {
+            lock.unlock();
+        }
+        compactJournalIfNeeded();
+        return metadata;
+    }
+
+    /**
+     * Compacts the journal once its dead records pass the threshold. Runs on
+     * the writer that crossed it, after its file lock is released; a writer
+     * finding a rebuild or another compaction in progress leaves it to that.
+     */
+    private void compactJournalIfNeeded() {
+        long live = index.size();
+        long dead = journalRecords.get() - live;
+        if (dead <= Math.max(compactMinDeadRecords, (long) (live * compactRatio)) || !indexLoadLock.tryLock()) {
+            return;
+        }
+        try {
+            live = index.size();
+            if (journalRecords.get() - live > Math.max(compactMinDeadRecords, (long) (live * compactRatio))
+                    && Files.isDirectory(rootDir)) {
+                journalRecords.set(journal.compact(rootDir, index::findAll, generation::get));
+            }
+        } finally {
+            indexLoadLock.unlock();
+        }
+    }
+
+    /**
+     * Builds the index the first time it is needed, and again only if the upload
+     * directory disappears or is replaced. The journal is replayed and then
+     * reconciled with one pass over the tree: journaled files whose size still
+     * matches are taken as recorded, unknown or changed files are stat'ed,
+     * vanished ones are dropped. Files outside their layout position are left
+     * for {@link #migrateLayout()}. The journal is then compacted.
+     */
+    private void ensureIndexed() {
+        Object root = rootIdentity();
+        if (root != null && root.equals(indexedRoot)) {
+            return;
+        }
+        indexLoadLock.lock();
+        try {
+            root = rootIdentity();
+            if (Objects.equals(root, indexedRoot)) {
+                return;
+            }
+            if (root == null) {
+                index.clear();
+            } else {
+                LocalFileJournalReplay replay = journal.replay(rootDir);
+                Map<String, StoredFileMetadataDto> journaled = replay.getFiles();
+                List<StoredFileMetadataDto> files = new ArrayList<>();
+                for (Path path : listTree(layout.getDepth() + 1)) {
+                    String name = path.getFileName().toString();
+                    if (!path.equals(resolve(name))) {
+                        continue;
+                    }
+                    StoredFileMetadataDto known = journaled.get(name);
+                    if (known != null && known.getSize() != null && known.getSize() == Files.size(path)) {
+                        files.add(known);
+                    } else {
+                        files.add(readMetadata(path));
+                    }
+                }
+                index.replaceAll(files);
+                // The journal remembers versions of deleted files too, so none is reissued.
+                long newest = files.stream()
+                        .map(StoredFileMetadataDto::getVersion)
+                        .filter(Objects::nonNull)
+                        .reduce(replay.getHighestVersion(), Math::max);
+                journal.rewrite(rootDir, files, generation.accumulateAndGet(newest, Math::max));
+                journalRecords.set(files.size());
+            }
+            indexedRoot = root;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to index " + rootDir, e);
+        } finally {
+            indexLoadLock.unlock();
         }
     }
+
+    private byte[] readContent(String filename, Path filePath) throws IOException {
+        if (mappings.isEnabled()) {
+            BasicFileAttributes attrs = Files.readAttributes(filePath, BasicFileAttributes.class);
+            Optional<Resource> mapped = mappings.open(filename, filePath, attrs);
+            if (mapped.isPresent()) {
+                return mapped.get().getContentAsByteArray();
+            }
+        }
+        return Files.readAllBytes(filePath);
+    }
+
+    /**
+     * The lock stripe for {@code filename}; names on different stripes never
+     * contend.
+     */
+    private ReentrantReadWriteLock lockFor(String filename) {
+        int h = filename.hashCode();
+        return fileLocks[(h ^ (h >>> 16)) & (LOCK_STRIPES - 1)];
+    }
+
+    private Path resolve(String filename) {
+        return layout.resolve(rootDir, filename);
+    }
+
+    /**
+     * Regular, non-reserved files up to {@code maxDepth} levels below the root.
+     */
+    private List<Path> listTree(int maxDepth) throws IOException {
+        try (Stream<Path> paths = Files.find(rootDir, maxDepth,
+                (path, attrs) -> attrs.isRegularFile() && !isReserved(path.getFileName().toString()))) {
+            return paths.toList();
+        }
+    }
+
+    /**
+     * Removes empty shard directories. Reserved (dot) directories are skipped:
+     * they belong to whoever put them there, e.g. a cold tier configured inside
+     * the upload directory, which may be empty between passes. Their files are
+     * reserved too, so {@link #listTree} never moves them either.
+     */
+    private void removeEmptyShardDirectories() throws IOException {
+        List<Path> dirs;
+        try (Stream<Path> paths = Files.find(rootDir, LocalFileLayout.SHARDED.getDepth(),
+                (path, attrs) -> attrs.isDirectory() && !path.equals(rootDir)
+                        && !isReserved(rootDir.relativize(path).getName(0).toString()))) {
+            dirs = new ArrayList<>(paths.toList());
+        }
+        // Deepest first, so a parent is empty by the time it is tried.
+        dirs.sort((a, b) -> Integer.compare(b.getNameCount(), a.getNameCount()));
+        for (Path dir : dirs) {
+            try {
+                Files.deleteIfExists(dir);
+            } catch (DirectoryNotEmptyException e) {
+                // Still holds files for the current layout.
+            }
+        }
+    }
+
+    private void createRootIfMissing() throws IOException {
+        if (Files.notExists(rootDir)) {
+            Files.createDirectories(rootDir);
+        }
+    }
+
+    private static boolean isReserved(String filename) {
+        return filename == null || filename.startsWith(".");
+    }
+
+    private Object rootIdentity() {
+        try {
+            BasicFileAttributes attrs = Files.readAttributes(rootDir, BasicFileAttributes.class);
+            return attrs.fileKey() != null ? attrs.fileKey() : attrs.creationTime();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private String detectContentType(Path path, String filename) {
+        try {
+            return contentTypes.detect(path, filename, null);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private StoredFileMetadataDto readMetadata(Path path) throws IOException {
+        BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class);
+        return StoredFileMetadataDto.builder()
+                .filename(path.getFileName().toString())
+                .contentType(contentTypes.detect(path, path.getFileName().toString(), null))
+                .size(attrs.size())
+                .uploadDate(LocalDateTime.ofInstant(attrs.creationTime().toInstant(), ZoneId.systemDefault()))
+                .build();
+    }
 }
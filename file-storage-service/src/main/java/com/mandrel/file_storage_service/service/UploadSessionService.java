@@ -0,0 +1,280 @@
+package com.mandrel.file_storage_service.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import com.mandrel.file_storage_service.model.StorageBackend;
+import com.mandrel.file_storage_service.model.StoredFileMetadataDto;
+import com.mandrel.file_storage_service.model.StoredFileUpload;
+import com.mandrel.file_storage_service.model.UploadLimitExceededException;
+import com.mandrel.file_storage_service.model.UploadPartDto;
+import com.mandrel.file_storage_service.model.UploadSessionDto;
+import com.mandrel.file_storage_service.repository.UploadSessionRepository;
+
+/**
+ * Resumable uploads for both backends. A session is created for one file;
+ * its parts, numbered from 1, can then be sent in any order and over any
+ * number of connections, each one staged on disk as it arrives. A failed part
+ * is simply sent again. Completing the session streams the parts back to
+ * back into the backend's normal write path, so the stored file gets the same
+ * checksum, content type detection and atomic publication as a single-request
+ * upload. The total size is declared when the session is created and the
+ * assembled parts must add up to it, so completing early cannot store a
+ * truncated file. Sessions with no activity for {@code ttl} are dropped.
+ */
+@Service
+public class UploadSessionService {
+
+    private static final String BACKEND = "backend";
+    private static final String FILENAME = "filename";
+    private static final String CONTENT_TYPE = "contentType";
+    private static final String SIZE = "size";
+    private static final String CREATED_AT = "createdAt";
+
+    private final UploadSessionRepository sessions;
+    private final FileStorageService fileStorageService;
+    private final FileUploadService fileUploadService;
+    private final long maxPartSize;
+    private final int maxParts;
+    private final long maxMemorySize;
+    private final Duration ttl;
+
+    @Autowired
+    public UploadSessionService(UploadSessionRepository sessions, FileStorageService fileStorageService,
+            FileUploadService fileUploadService,
+            @Value("${file-storage.upload-sessions.max-part-size:64MB}") DataSize maxPartSize,
+            @Value("${file-storage.upload-sessions.max-parts:10000}") int maxParts,
+            @Value("${file-storage.upload-sessions.memory.max-size:512MB}") DataSize maxMemorySize,
+            @Value("${file-storage.upload-sessions.ttl:24h}") Duration ttl) {
+        this.sessions = sessions;
+        this.fileStorageService = fileStorageService;
+        this.fileUploadService = fileUploadService;
+        this.maxPartSize = maxPartSize.toBytes();
+        this.maxParts = maxParts;
+        this.maxMemorySize = maxMemorySize.toBytes();
+        this.ttl = ttl;
+    }
+
+    /**
+     * Opens a session for a file of exactly {@code size} bytes.
+     *
+     * @throws IllegalArgumentException if {@code size} is negative
+     * @throws UploadLimitExceededException if a memory session is larger than
+     *         {@code memory.max-size}, which bounds the row written to the database
+     */
+    public UploadSessionDto create(StorageBackend backend, String filename, String contentType, long size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("Size must not be negative");
+        }
+        if (backend == StorageBackend.MEMORY && size > maxMemorySize) {
+            throw new UploadLimitExceededException("Upload exceeds " + maxMemorySize + " bytes");
+        }
+        String id = UUID.randomUUID().toString();
+        Properties manifest = new Properties();
+        manifest.setProperty(BACKEND, backend.name());
+        manifest.setProperty(FILENAME, filename);
+        if (contentType != null) {
+            manifest.setProperty(CONTENT_TYPE, contentType);
+        }
+        manifest.setProperty(SIZE, Long.toString(size));
+        manifest.setProperty(CREATED_AT, Instant.now().toString());
+        try {
+            sessions.create(id, manifest);
+            return toDto(id, manifest, List.of(), sessions.lastActivity(id));
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to create upload session for " + filename, e);
+        }
+    }
+
+    public Optional<UploadSessionDto> find(StorageBackend backend, String id) {
+        try {
+            Optional<Properties> manifest = manifest(backend, id);
+            if (manifest.isEmpty()) {
+                return Optional.empty();
+            }
+            return Optional.of(toDto(id, manifest.get(), sessions.findParts(id), sessions.lastActivity(id)));
+        } catch (IOException e) {
+            // Completed or aborted between the reads.
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Stages part {@code partNumber}, replacing any earlier copy of it.
+     *
+     * @return the staged part, or empty if there is no such session
+     * @throws IllegalArgumentException if the part number is out of range
+     * @throws com.mandrel.file_storage_service.model.UploadLimitExceededException
+     *         if the part is larger than {@code max-part-size}, or the parts
+     *         staged so far would add up to more than the declared size
+     */
+    public Optional<UploadPartDto> putPart(StorageBackend backend, String id, int partNumber, InputStream content) {
+        if (partNumber < 1 || partNumber > maxParts) {
+            throw new IllegalArgumentException("Part number must be between 1 and " + maxParts);
+        }
+        try {
+            Optional<Properties> manifest = manifest(backend, id);
+            if (manifest.isEmpty()) {
+                return Optional.empty();
+            }
+            long size = Long.parseLong(manifest.get().getProperty(SIZE));
+            return sessions.writePart(id, partNumber, content, Math.min(maxPartSize, size), size);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to store part " + partNumber + " of upload " + id, e);
+        }
+    }
+
+    /**
+     * Assembles the parts into the file and ends the session. If storing
+     * fails, the session is left as it was, so completing can be retried.
+     *
+     * @return the stored file, or empty if there is no such session
+     * @throws IllegalStateException if parts are missing, the message naming
+     *         them, or if the parts do not add up to the declared size
+     */
+    public Optional<StoredFileMetadataDto> complete(StorageBackend backend, String id) {
+        Optional<Properties> manifest;
+        Optional<Path> claimed;
+        try {
+            manifest = manifest(backend, id);
+            claimed = manifest.isPresent() ? sessions.claim(id) : Optional.empty();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to open upload session " + id, e);
+        }
+        if (claimed.isEmpty()) {
+            return Optional.empty();
+        }
+        boolean stored = false;
+        try {
+            List<UploadPartDto> parts = sessions.findParts(claimed.get());
+            List<Integer> missing = missingParts(parts);
+            if (!missing.isEmpty()) {
+                throw new IllegalStateException("Missing parts: " + missing);
+            }
+            // Trailing parts leave no gap, so only the declared size shows they are missing.
+            long expected = Long.parseLong(manifest.get().getProperty(SIZE));
+            long received = parts.stream().mapToLong(UploadPartDto::getSize).sum();
+            if (received != expected) {
+                throw new IllegalStateException("Expected " + expected + " bytes, received " + received);
+            }
+            String filename = manifest.get().getProperty(FILENAME);
+            String contentType = manifest.get().getProperty(CONTENT_TYPE);
+            StoredFileMetadataDto metadata;
+            if (backend == StorageBackend.MEMORY) {
+                try (InputStream in = sessions.openAssembled(claimed.get(), parts)) {
+                    metadata = fileStorageService.store(filename, contentType, in);
+                }
+            } else {
+                metadata = fileUploadService.store(new StoredFileUpload(filename, contentType,
+                        () -> sessions.openAssembled(claimed.get(), parts)));
+            }
+            stored = true;
+            return Optional.of(metadata);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to complete upload " + id, e);
+        } finally {
+            finish(id, claimed.get(), stored);
+        }
+    }
+
+    /**
+     * @return whether there was such a session
+     */
+    public boolean abort(StorageBackend backend, String id) {
+        try {
+            return manifest(backend, id).isPresent() && sessions.delete(id);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to abort upload " + id, e);
+        }
+    }
+
+    /**
+     * Drops sessions, including ones whose completion was interrupted, that
+     * have seen no activity for {@code ttl}.
+     *
+     * @return the number of sessions dropped
+     */
+    @Scheduled(fixedDelayString = "${file-storage.upload-sessions.sweep-interval:1h}")
+    public int deleteExpired() {
+        try {
+            int deleted = 0;
+            for (Path dir : sessions.findInactiveSince(Instant.now().minus(ttl))) {
+                if (sessions.delete(dir)) {
+                    deleted++;
+                }
+            }
+            return deleted;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to delete expired upload sessions", e);
+        }
+    }
+
+    private void finish(String id, Path claimed, boolean stored) {
+        try {
+            if (stored) {
+                sessions.delete(claimed);
+            } else {
+                sessions.release(id, claimed);
+            }
+        } catch (IOException e) {
+            // Left for the expiry sweep.
+        }
+    }
+
+    /**
+     * The manifest of session {@code id} if it exists and belongs to
+     * {@code backend}. Ids are generated UUIDs; anything else is never looked up.
+     */
+    private Optional<Properties> manifest(StorageBackend backend, String id) throws IOException {
+        try {
+            UUID.fromString(id);
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+        return sessions.findManifest(id).filter(m -> backend.name().equals(m.getProperty(BACKEND)));
+    }
+
+    private static List<Integer> missingParts(List<UploadPartDto> parts) {
+        List<Integer> missing = new ArrayList<>();
+        if (parts.isEmpty()) {
+            missing.add(1);
+            return missing;
+        }
+        int expected = 1;
+        for (UploadPartDto part : parts) {
+            while (expected < part.getPartNumber()) {
+                missing.add(expected++);
+            }
+            expected++;
+        }
+        return missing;
+    }
+
+    private UploadSessionDto toDto(String id, Properties manifest, List<UploadPartDto> parts, Instant lastActivity) {
+        ZoneId zone = ZoneId.systemDefault();
+        return new UploadSessionDto(id,
+                StorageBackend.valueOf(manifest.getProperty(BACKEND)),
+                manifest.getProperty(FILENAME),
+                manifest.getProperty(CONTENT_TYPE),
+                Long.parseLong(manifest.getProperty(SIZE)),
+                LocalDateTime.ofInstant(Instant.parse(manifest.getProperty(CREATED_AT)), zone),
+                LocalDateTime.ofInstant(lastActivity.plus(ttl), zone),
+                parts);
+    }
+}
@@ -0,0 +1,62 @@
+package com.mandrel.file_storage_service.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Reads several files back to back as one stream. Only one file is open at a
+ * time; the next is opened when the current one is exhausted.
+ */
+public class ConcatenatedFileInputStream extends InputStream {
+
+    private final Iterator<Path> remaining;
+    private InputStream current;
+    private boolean closed;
+
+    public ConcatenatedFileInputStream(List<Path> files) {
+        this.remaining = files.iterator();
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] one = new byte[1];
+        return read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        if (len == 0) {
+            return 0;
+        }
+        while (true) {
+            if (current == null) {
+                if (!remaining.hasNext()) {
+                    return -1;
+                }
+                current = Files.newInputStream(remaining.next());
+            }
+            int n = current.read(b, off, len);
+            if (n >= 0) {
+                return n;
+            }
+            current.close();
+            current = null;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        if (current != null) {
+            current.close();
+            current = null;
+        }
+    }
+}
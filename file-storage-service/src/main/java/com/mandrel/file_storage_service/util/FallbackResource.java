@@ -0,0 +1,57 @@
+package com.mandrel.file_storage_service.util;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.NoSuchFileException;
+
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.Resource;
+
+/**
+ * Content that lives in one of two places: each {@link #getInputStream()}
+ * tries {@code primary} and, if it is not there at that moment, opens
+ * {@code fallback}. Where the content is gets decided when it is read, not
+ * when the resource is created, so it may move in between.
+ */
+public class FallbackResource extends AbstractResource {
+
+    private final Resource primary;
+    private final Resource fallback;
+    private final long length;
+
+    public FallbackResource(Resource primary, Resource fallback, long length) {
+        this.primary = primary;
+        this.fallback = fallback;
+        this.length = length;
+    }
+
+    @Override
+    public String getDescription() {
+        return primary.getDescription() + " or " + fallback.getDescription();
+    }
+
+    @Override
+    public boolean exists() {
+        return true;
+    }
+
+    @Override
+    public long contentLength() {
+        return length;
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        try {
+            return primary.getInputStream();
+        } catch (FileNotFoundException | NoSuchFileException e) {
+            try {
+                return fallback.getInputStream();
+            } catch (FileNotFoundException | NoSuchFileException notFound) {
+                notFound.addSuppressed(e);
+                throw notFound;
+            }
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.mandrel.file_storage_service.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.springframework.core.io.FileSystemResource;
+
+/**
+ * A {@link FileSystemResource} whose stream reads with positional
+ * {@link FileChannel#read(ByteBuffer, long)} calls. {@code skip} only moves the
+ * position, so serving a byte range touches just the requested bytes.
+ * <p>
+ * When created with a {@link FileVersion}, every stream checks after opening
+ * that the path still holds that version, so a reader never mixes metadata taken from one
+ * version with bytes from a file renamed over it since.
+ */
+public class FileChannelResource extends FileSystemResource {
+
+    private final FileVersion version;
+
+    public FileChannelResource(Path path) {
+        this(path, null);
+    }
+
+    /**
+     * @param version the expected version of the file, or {@code null} to skip the check
+     */
+    public FileChannelResource(Path path, FileVersion version) {
+        super(path);
+        this.version = version;
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        Path path = getFile().toPath();
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        // Opened first, checked second: if the path changed in between, the check fails
+        // even though the channel may still hold the expected file, never the other way round.
+        if (version != null && !version.isCurrent(path)) {
+            channel.close();
+            throw new IOException("File was replaced while being opened: " + path);
+        }
+        return new FileChannelInputStream(channel);
+    }
+
+    private static class FileChannelInputStream extends InputStream {
+        private final FileChannel channel;
+        private long position;
+
+        FileChannelInputStream(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            int n = channel.read(ByteBuffer.wrap(b, off, len), position);
+            if (n > 0) {
+                position += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            if (n <= 0) {
+                return 0;
+            }
+            long skipped = Math.min(n, Math.max(0, channel.size() - position));
+            position += skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return (int) Math.min(Integer.MAX_VALUE, Math.max(0, channel.size() - position));
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.mandrel.file_storage_service.util;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+
+/**
+ * Identity of one version of a file: its file key (device and inode on POSIX)
+ * together with its size and modification time. The file key alone is not
+ * enough, since a file system reuses the inode of a deleted file for the next
+ * one it creates.
+ */
+public record FileVersion(Object fileKey, long size, FileTime lastModified) {
+
+    public static FileVersion of(BasicFileAttributes attrs) {
+        return new FileVersion(attrs.fileKey(), attrs.size(), attrs.lastModifiedTime());
+    }
+
+    public static FileVersion read(Path path) throws IOException {
+        return of(Files.readAttributes(path, BasicFileAttributes.class));
+    }
+
+    /**
+     * Whether {@code path} still holds this version.
+     */
+    public boolean isCurrent(Path path) throws IOException {
+        return equals(read(path));
+    }
+}
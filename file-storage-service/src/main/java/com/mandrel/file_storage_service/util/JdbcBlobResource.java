@@ -0,0 +1,205 @@
+package com.mandrel.file_storage_service.util;
+
+import java.io.FileNotFoundException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.sql.Blob;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import javax.sql.DataSource;
+
+import org.springframework.core.io.AbstractResource;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+
+/**
+ * A {@link org.springframework.core.io.Resource} over one BLOB cell. Nothing is
+ * read until {@link #getInputStream()} is called; the returned stream holds the
+ * connection, statement and result set open and releases them on close, so the
+ * payload can be written to a response without ever being materialized. The
+ * BLOB stream itself is opened on first use: a {@code skip} before any read
+ * becomes {@link Blob#getBinaryStream(long, long)}, so a byte range is served
+ * without reading the bytes in front of it.
+ */
+public class JdbcBlobResource extends AbstractResource {
+
+    private final DataSource dataSource;
+    private final String sql;
+    private final long key;
+    private final long length;
+    private final int bufferSize;
+
+    /**
+     * @param sql a query selecting a single BLOB column with one {@code long} parameter
+     */
+    public JdbcBlobResource(DataSource dataSource, String sql, long key, long length, int bufferSize) {
+        this.dataSource = dataSource;
+        this.sql = sql;
+        this.key = key;
+        this.length = length;
+        this.bufferSize = bufferSize;
+    }
+
+    @Override
+    public String getDescription() {
+        return "JDBC BLOB [" + sql + "] key " + key;
+    }
+
+    @Override
+    public boolean exists() {
+        return true;
+    }
+
+    @Override
+    public long contentLength() {
+        return length;
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        Connection con = DataSourceUtils.getConnection(dataSource);
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+        try {
+            ps = con.prepareStatement(sql);
+            ps.setLong(1, key);
+            rs = ps.executeQuery();
+            if (!rs.next()) {
+                throw new FileNotFoundException(getDescription() + " does not exist");
+            }
+            return new BlobInputStream(rs.getBlob(1), rs, ps, con);
+        } catch (SQLException e) {
+            release(null, rs, ps, con);
+            throw new IOException("Failed to open " + getDescription(), e);
+        } catch (IOException | RuntimeException e) {
+            release(null, rs, ps, con);
+            throw e;
+        }
+    }
+
+    private void release(Blob blob, ResultSet rs, PreparedStatement ps, Connection con) {
+        try {
+            if (blob != null) {
+                blob.free();
+            }
+        } catch (SQLException ignored) {
+        }
+        try {
+            if (rs != null) {
+                rs.close();
+            }
+        } catch (SQLException ignored) {
+        }
+        try {
+            if (ps != null) {
+                ps.close();
+            }
+        } catch (SQLException ignored) {
+        }
+        DataSourceUtils.releaseConnection(con, dataSource);
+    }
+
+    private class BlobInputStream extends FilterInputStream {
+        private final Blob blob;
+        private final ResultSet rs;
+        private final PreparedStatement ps;
+        private final Connection con;
+        private boolean closed;
+
+        BlobInputStream(Blob blob, ResultSet rs, PreparedStatement ps, Connection con) {
+            super(null);
+            this.blob = blob;
+            this.rs = rs;
+            this.ps = ps;
+            this.con = con;
+        }
+
+        private InputStream open(long position) throws IOException {
+            if (in == null) {
+                try {
+                    long blobLength = blob.length();
+                    if (position == 0) {
+                        in = blob.getBinaryStream();
+                    } else if (position >= blobLength) {
+                        in = InputStream.nullInputStream();
+                    } else {
+                        in = blob.getBinaryStream(position + 1, blobLength - position);
+                    }
+                } catch (SQLException e) {
+                    throw new IOException("Failed to read " + getDescription(), e);
+                }
+            }
+            return in;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return open(0).read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            return open(0).read(b, off, len);
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            if (in == null && n > 0) {
+                long blobLength;
+                try {
+                    blobLength = blob.length();
+                } catch (SQLException e) {
+                    throw new IOException("Failed to read " + getDescription(), e);
+                }
+                open(n);
+                return Math.min(n, blobLength);
+            }
+            return open(0).skip(n);
+        }
+
+        @Override
+        public int available() throws IOException {
+            return open(0).available();
+        }
+
+        /**
+         * Copies with one buffer of the configured size, reused for the whole transfer.
+         */
+        @Override
+        public long transferTo(OutputStream out) throws IOException {
+            InputStream source = open(0);
+            byte[] buffer = new byte[bufferSize];
+            long transferred = 0;
+            int n;
+            while ((n = source.read(buffer)) >= 0) {
+                out.write(buffer, 0, n);
+                transferred += n;
+            }
+            return transferred;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                if (in != null) {
+                    in.close();
+                }
+            } finally {
+                release(blob, rs, ps, con);
+            }
+        }
+    }
+}
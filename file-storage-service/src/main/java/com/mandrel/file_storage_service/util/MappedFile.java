@@ -0,0 +1,113 @@
+package com.mandrel.file_storage_service.util;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A read-only memory mapping of one file, reference counted so it can be
+ * unmapped as soon as it is dropped instead of whenever the collector gets to
+ * it. The owner (a cache) holds one reference from {@link #map}; every reader
+ * takes another with {@link #retain()} and gives it back with
+ * {@link #release()}. The mapping is unmapped when the count reaches zero, so
+ * a reader never touches unmapped memory.
+ */
+public class MappedFile {
+
+    private static final Method INVOKE_CLEANER;
+    private static final Object UNSAFE;
+
+    static {
+        Method invokeCleaner = null;
+        Object unsafe = null;
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            unsafe = theUnsafe.get(null);
+            invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // Not available on this runtime: mappings are released by the collector instead.
+        }
+        INVOKE_CLEANER = invokeCleaner;
+        UNSAFE = unsafe;
+    }
+
+    private final MappedByteBuffer buffer;
+    private final FileVersion version;
+    private final AtomicInteger references = new AtomicInteger(1);
+
+    private MappedFile(MappedByteBuffer buffer, FileVersion version) {
+        this.buffer = buffer;
+        this.version = version;
+    }
+
+    /**
+     * Maps {@code path}, which must still hold {@code version}.
+     *
+     * @throws IOException if the file cannot be mapped or has been replaced
+     */
+    public static MappedFile map(Path path, FileVersion version) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (!version.isCurrent(path)) {
+                throw new IOException("File was replaced while being mapped: " + path);
+            }
+            return new MappedFile(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), version);
+        }
+    }
+
+    public FileVersion getVersion() {
+        return version;
+    }
+
+    public int size() {
+        return buffer.capacity();
+    }
+
+    /**
+     * Takes a reader reference.
+     *
+     * @return {@code false} if the mapping is already released and must not be used
+     */
+    public boolean retain() {
+        int current;
+        do {
+            current = references.get();
+            if (current == 0) {
+                return false;
+            }
+        } while (!references.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    public void release() {
+        if (references.decrementAndGet() == 0) {
+            unmap();
+        }
+    }
+
+    /**
+     * A read-only view with its own position; valid until the matching
+     * {@link #release()}.
+     */
+    public ByteBuffer view() {
+        return buffer.asReadOnlyBuffer();
+    }
+
+    private void unmap() {
+        if (INVOKE_CLEANER == null) {
+            return;
+        }
+        try {
+            INVOKE_CLEANER.invoke(UNSAFE, buffer);
+        } catch (ReflectiveOperationException e) {
+            // Left to the collector.
+        }
+    }
+}
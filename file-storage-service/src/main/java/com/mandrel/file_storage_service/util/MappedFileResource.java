@@ -0,0 +1,141 @@
+package com.mandrel.file_storage_service.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
+import org.springframework.core.io.AbstractResource;
+
+/**
+ * A {@link org.springframework.core.io.Resource} served from a
+ * {@link MappedFile}. Streams read straight out of the mapping, with no read
+ * syscalls and without ever holding the whole file on the heap, and hold a
+ * reference on it until closed. If the mapping has been dropped by the time a
+ * stream is opened, the stream falls back to reading the same file version
+ * from disk.
+ */
+public class MappedFileResource extends AbstractResource {
+
+    private static final int TRANSFER_CHUNK = 64 * 1024;
+
+    private final MappedFile mapping;
+    private final Path path;
+
+    public MappedFileResource(MappedFile mapping, Path path) {
+        this.mapping = mapping;
+        this.path = path;
+    }
+
+    @Override
+    public String getDescription() {
+        return "mapped file [" + path + "]";
+    }
+
+    @Override
+    public String getFilename() {
+        return path.getFileName().toString();
+    }
+
+    @Override
+    public boolean exists() {
+        return true;
+    }
+
+    @Override
+    public long contentLength() {
+        return mapping.size();
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        if (!mapping.retain()) {
+            return new FileChannelResource(path, mapping.getVersion()).getInputStream();
+        }
+        return new MappedInputStream(mapping);
+    }
+
+    private static class MappedInputStream extends InputStream {
+        private final MappedFile mapping;
+        private final ByteBuffer view;
+        private boolean closed;
+
+        MappedInputStream(MappedFile mapping) {
+            this.mapping = mapping;
+            this.view = mapping.view();
+        }
+
+        @Override
+        public int read() throws IOException {
+            ensureOpen();
+            return view.hasRemaining() ? view.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            ensureOpen();
+            if (len == 0) {
+                return 0;
+            }
+            if (!view.hasRemaining()) {
+                return -1;
+            }
+            int n = Math.min(len, view.remaining());
+            view.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            ensureOpen();
+            if (n <= 0) {
+                return 0;
+            }
+            int skipped = (int) Math.min(n, view.remaining());
+            view.position(view.position() + skipped);
+            return skipped;
+        }
+
+        @Override
+        public int available() throws IOException {
+            ensureOpen();
+            return view.remaining();
+        }
+
+        /**
+         * Copies the mapping to the output through one reused 64 KB heap chunk,
+         * so each byte is copied once into the chunk and then again into
+         * whatever buffer the output keeps. That is fewer, larger writes than
+         * InputStream's default transfer, not a zero-copy path; callers that need
+         * one should use sendfile on the file itself.
+         */
+        @Override
+        public long transferTo(OutputStream out) throws IOException {
+            ensureOpen();
+            byte[] chunk = new byte[Math.min(TRANSFER_CHUNK, Math.max(1, view.remaining()))];
+            long transferred = 0;
+            while (view.hasRemaining()) {
+                int n = Math.min(chunk.length, view.remaining());
+                view.get(chunk, 0, n);
+                out.write(chunk, 0, n);
+                transferred += n;
+            }
+            return transferred;
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                mapping.release();
+            }
+        }
+
+        private void ensureOpen() throws IOException {
+            if (closed) {
+                throw new IOException("Stream closed");
+            }
+        }
+    }
+}
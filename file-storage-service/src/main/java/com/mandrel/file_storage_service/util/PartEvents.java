@@ -0,0 +1,94 @@
+package com.mandrel.file_storage_service.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.codec.multipart.FilePartEvent;
+import org.springframework.http.codec.multipart.PartEvent;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Helpers for multipart bodies read as a stream of {@link PartEvent}s. Parts
+ * are never buffered: the content of a file part reaches its handler chunk by
+ * chunk, as fast as the handler requests it, so a slow consumer slows the
+ * client down instead of filling memory or disk.
+ */
+public final class PartEvents {
+
+    private PartEvents() {
+    }
+
+    /**
+     * Passes the first non-empty file part named {@code name} to
+     * {@code handler}, together with its content, and completes with the
+     * handler's result. Other parts are drained and released; the rest of the
+     * body is not read once the handler has produced its result. Completes
+     * empty when there is no such part.
+     */
+    public static <T> Mono<T> firstFile(Flux<PartEvent> parts, String name,
+            BiFunction<FilePartEvent, Flux<DataBuffer>, Mono<T>> handler) {
+        return parts.windowUntil(PartEvent::isLast)
+                .concatMap(events -> events.switchOnFirst((signal, part) -> {
+                    if (signal.get() instanceof FilePartEvent file && name.equals(file.name())) {
+                        Flux<DataBuffer> content = part.map(PartEvent::content).filter(PartEvents::hasBytes);
+                        return content.switchOnFirst((first, bytes) -> first.hasValue()
+                                ? handler.apply(file, bytes)
+                                : bytes.then(Mono.<T>empty()));
+                    }
+                    return part.doOnNext(event -> DataBufferUtils.release(event.content())).then(Mono.<T>empty());
+                }))
+                .next();
+    }
+
+    /**
+     * Passes {@code content} through until more than {@code maxBytes} have
+     * gone by, then fails with a {@link DataBufferLimitException}. A negative
+     * {@code maxBytes} means no limit.
+     */
+    public static Flux<DataBuffer> limit(Flux<DataBuffer> content, long maxBytes) {
+        if (maxBytes < 0) {
+            return content;
+        }
+        AtomicLong received = new AtomicLong();
+        return content.handle((buffer, sink) -> {
+            if (received.addAndGet(buffer.readableByteCount()) > maxBytes) {
+                DataBufferUtils.release(buffer);
+                sink.error(new DataBufferLimitException("Part exceeds " + maxBytes + " bytes"));
+            } else {
+                sink.next(buffer);
+            }
+        });
+    }
+
+    /**
+     * Whether {@code error}, or anything it wraps, comes from {@link #limit}.
+     */
+    public static boolean isLimitExceeded(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof DataBufferLimitException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Releases {@code content} without reading it, then emits {@code value}.
+     */
+    public static <T> Mono<T> discard(Flux<DataBuffer> content, T value) {
+        return content.doOnNext(DataBufferUtils::release).then(Mono.just(value));
+    }
+
+    private static boolean hasBytes(DataBuffer buffer) {
+        if (buffer.readableByteCount() > 0) {
+            return true;
+        }
+        DataBufferUtils.release(buffer);
+        return false;
+    }
+}
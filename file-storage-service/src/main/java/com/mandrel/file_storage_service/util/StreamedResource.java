@@ -0,0 +1,52 @@
+package com.mandrel.file_storage_service.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.Resource;
+
+/**
+ * A view of {@code delegate} that can only be read through its stream. It does
+ * not report itself as a file, so writers that would otherwise reopen the file
+ * by path for a zero-copy transfer, after any lock and past any version check
+ * in the delegate's stream, read it through {@link #getInputStream()} instead.
+ */
+public class StreamedResource extends AbstractResource {
+
+    private final Resource delegate;
+
+    public StreamedResource(Resource delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public String getDescription() {
+        return delegate.getDescription();
+    }
+
+    @Override
+    public String getFilename() {
+        return delegate.getFilename();
+    }
+
+    @Override
+    public boolean exists() {
+        return delegate.exists();
+    }
+
+    @Override
+    public long contentLength() throws IOException {
+        return delegate.contentLength();
+    }
+
+    @Override
+    public long lastModified() throws IOException {
+        return delegate.lastModified();
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return delegate.getInputStream();
+    }
+}
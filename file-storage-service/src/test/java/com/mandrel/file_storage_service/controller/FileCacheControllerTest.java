@@ -0,0 +1,47 @@
+package com.mandrel.file_storage_service.controller;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.mandrel.file_storage_service.config.FileCacheConfig;
+import com.mandrel.file_storage_service.model.CachedStoredFile;
+import com.mandrel.file_storage_service.model.StoredFileMetadataDto;
+import com.mandrel.file_storage_service.service.FileStorageService;
+
+@WebMvcTest(FileCacheController.class)
+@Import(FileCacheConfig.class)
+@TestPropertySource(properties = "file-storage.memory.cache.max-bytes=10KB")
+class FileCacheControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Test
+    void stats_shouldReportHitsMissesAndByteBudget() throws Exception {
+        Cache cache = cacheManager.getCache(FileStorageService.CONTENT_CACHE);
+        cache.put(1L, new CachedStoredFile(StoredFileMetadataDto.builder().id(1L).build(), new byte[1000]));
+        cache.get(1L, CachedStoredFile.class);
+        cache.get(2L, CachedStoredFile.class);
+
+        mockMvc.perform(get("/files/memory/cache/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.hitCount").value(1))
+                .andExpect(jsonPath("$.missCount").value(1))
+                .andExpect(jsonPath("$.entryCount").value(1))
+                .andExpect(jsonPath("$.weightedSize").value(1256))
+                .andExpect(jsonPath("$.maximumWeight").value(10240));
+    }
+}
@@ -1,15 +1,18 @@
 package com.mandrel.file_storage_service.controller;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.List;
@@ -19,12 +22,16 @@ import org.hamcrest.Matchers;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.core.io.ByteArrayResource;
 import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 
-import com.mandrel.file_storage_service.model.StoredFileDto;
+import com.mandrel.file_storage_service.model.FileListQuery;
+import com.mandrel.file_storage_service.model.FilePage;
+import com.mandrel.file_storage_service.model.StoredFileDownload;
+import com.mandrel.file_storage_service.model.StoredFileMetadataDto;
 import com.mandrel.file_storage_service.service.FileStorageService;
 
 @WebMvcTest(FileStorageController.class)
@@ -38,36 +45,61 @@ class FileStorageControllerTest {
 
     @Test
     void listAllFilesFromMemory_shouldReturnOkWithJson() throws Exception {
-        StoredFileDto dto = StoredFileDto.builder()
+        StoredFileMetadataDto dto = StoredFileMetadataDto.builder()
                 .id(1L)
                 .filename("doc.txt")
                 .contentType("text/plain")
                 .size(4L)
                 .uploadDate(LocalDateTime.now())
-                .content("test".getBytes(StandardCharsets.UTF_8))
                 .build();
 
-        given(fileStorageService.listAll()).willReturn(List.of(dto));
+        given(fileStorageService.list(any(FileListQuery.class))).willReturn(new FilePage<>(List.of(dto), null));
 
         mockMvc.perform(get("/files/memory"))
                 .andExpect(status().isOk())
                 .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
                 .andExpect(jsonPath("$[0].id").value(1))
-                .andExpect(jsonPath("$[0].filename").value("doc.txt"));
+                .andExpect(jsonPath("$[0].filename").value("doc.txt"))
+                .andExpect(jsonPath("$[0].content").doesNotExist())
+                .andExpect(header().doesNotExist("Link"));
+    }
+
+    @Test
+    void listAllFilesFromMemory_withMorePages_shouldExposeNextLink() throws Exception {
+        StoredFileMetadataDto dto = StoredFileMetadataDto.builder().id(1L).filename("a.txt").size(1L).build();
+        given(fileStorageService.list(any(FileListQuery.class))).willReturn(new FilePage<>(List.of(dto), "MQox"));
+
+        mockMvc.perform(get("/files/memory?limit=1&sort=size"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", "MQox"))
+                .andExpect(header().string("Link", Matchers.allOf(
+                        Matchers.containsString("cursor=MQox"),
+                        Matchers.containsString("limit=1"),
+                        Matchers.containsString("rel=\"next\""))));
+    }
+
+    @Test
+    void listAllFilesFromMemory_withInvalidParams_shouldReturn400() throws Exception {
+        mockMvc.perform(get("/files/memory").param("sort", "colour"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/files/memory").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/files/memory").param("cursor", "%%%"))
+                .andExpect(status().isBadRequest());
     }
 
     @Test
     void downloadFileById_found_shouldReturnAttachment() throws Exception {
         byte[] bytes = "data".getBytes(StandardCharsets.UTF_8);
-        StoredFileDto dto = StoredFileDto.builder()
+        StoredFileMetadataDto metadata = StoredFileMetadataDto.builder()
                 .id(2L)
                 .filename("file.bin")
                 .contentType("application/octet-stream")
                 .size((long) bytes.length)
-                .content(bytes)
                 .build();
 
-        given(fileStorageService.getFileById(2L)).willReturn(Optional.of(dto));
+        given(fileStorageService.openDownload(2L))
+                .willReturn(Optional.of(new StoredFileDownload(metadata, new ByteArrayResource(bytes))));
 
         mockMvc.perform(get("/files/memory/2"))
                 .andExpect(status().isOk())
@@ -79,7 +111,7 @@ class FileStorageControllerTest {
 
     @Test
     void downloadFileById_notFound_shouldReturn404() throws Exception {
-        given(fileStorageService.getFileById(99L)).willReturn(Optional.empty());
+        given(fileStorageService.openDownload(99L)).willReturn(Optional.empty());
 
         mockMvc.perform(get("/files/memory/99"))
                 .andExpect(status().isNotFound());
@@ -90,21 +122,69 @@ class FileStorageControllerTest {
         MockMultipartFile multipartFile = new MockMultipartFile(
                 "file", "hello.txt", "text/plain", "hello".getBytes(StandardCharsets.UTF_8));
 
-        StoredFileDto saved = StoredFileDto.builder()
+        StoredFileMetadataDto saved = StoredFileMetadataDto.builder()
                 .id(10L)
                 .filename("hello.txt")
                 .contentType("text/plain")
                 .size(5L)
-                .content("hello".getBytes(StandardCharsets.UTF_8))
                 .build();
 
-        given(fileStorageService.store(any(StoredFileDto.class))).willReturn(saved);
+        given(fileStorageService.store(eq("hello.txt"), eq("text/plain"), any(InputStream.class))).willReturn(saved);
 
         mockMvc.perform(multipart("/files/memory/save").file(multipartFile))
                 .andExpect(status().isOk())
                 .andExpect(content().string(Matchers.containsString("Stored file with ID: 10")));
     }
 
+    @Test
+    void storeFilesInMemory_shouldReportPerFileResults() throws Exception {
+        MockMultipartFile good = new MockMultipartFile("files", "a.csv", "text/csv", "1,2".getBytes());
+        MockMultipartFile empty = new MockMultipartFile("files", "b.csv", "text/csv", new byte[0]);
+        MockMultipartFile other = new MockMultipartFile("files", "c.json", "application/json", "{}".getBytes());
+        given(fileStorageService.storeAll(any())).willReturn(List.of(
+                StoredFileMetadataDto.builder().id(10L).filename("a.csv").size(3L).build(),
+                StoredFileMetadataDto.builder().id(11L).filename("c.json").size(2L).build()));
+
+        mockMvc.perform(multipart("/files/memory/save/batch").file(good).file(empty).file(other))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].stored").value(true))
+                .andExpect(jsonPath("$[0].id").value(10))
+                .andExpect(jsonPath("$[1].stored").value(false))
+                .andExpect(jsonPath("$[1].filename").value("b.csv"))
+                .andExpect(jsonPath("$[1].error").value("File must be provided"))
+                .andExpect(jsonPath("$[2].id").value(11));
+    }
+
+    @Test
+    void storeFilesInMemory_whenBatchFails_shouldReportEveryFileAsRolledBack() throws Exception {
+        MockMultipartFile good = new MockMultipartFile("files", "a.csv", "text/csv", "1,2".getBytes());
+        given(fileStorageService.storeAll(any())).willThrow(new IllegalStateException("db down"));
+
+        mockMvc.perform(multipart("/files/memory/save/batch").file(good))
+                .andExpect(status().isInternalServerError())
+                .andExpect(jsonPath("$[0].stored").value(false))
+                .andExpect(jsonPath("$[0].error").value("Batch rolled back: db down"));
+    }
+
+    @Test
+    void deleteFiles_shouldReturnDeletedCount() throws Exception {
+        given(fileStorageService.deleteMatching(any())).willReturn(42L);
+
+        mockMvc.perform(post("/files/memory/delete")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"olderThan\":\"2024-01-01T00:00:00\",\"contentType\":\"text/*\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.deleted").value(42));
+    }
+
+    @Test
+    void deleteFiles_withoutCriteria_shouldReturn400() throws Exception {
+        given(fileStorageService.deleteMatching(any())).willThrow(new IllegalArgumentException("no criteria"));
+
+        mockMvc.perform(post("/files/memory/delete").contentType(MediaType.APPLICATION_JSON).content("{}"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void deleteFile_shouldReturnOkWhenRemoved() throws Exception {
         given(fileStorageService.deleteById(5L)).willReturn(true);
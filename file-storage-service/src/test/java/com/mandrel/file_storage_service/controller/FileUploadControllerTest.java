@@ -1,28 +1,41 @@
 package com.mandrel.file_storage_service.controller;
 
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.BDDMockito.given;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Optional;
 
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.FileSystemResource;
 import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 
-import com.mandrel.file_storage_service.model.StoredFileDto;
+import com.mandrel.file_storage_service.model.BatchUploadResult;
+import com.mandrel.file_storage_service.model.CacheStatsDto;
+import com.mandrel.file_storage_service.model.FileListQuery;
+import com.mandrel.file_storage_service.model.FilePage;
+import com.mandrel.file_storage_service.model.StoredFileDownload;
+import com.mandrel.file_storage_service.model.StoredFileMetadataDto;
 import com.mandrel.file_storage_service.service.FileUploadService;
 
 @WebMvcTest(FileUploadController.class)
@@ -36,12 +49,12 @@ class FileUploadControllerTest {
 
     @Test
     void listAllFilesFromLocal_shouldReturnOkWithJson() throws Exception {
-        StoredFileDto dto = StoredFileDto.builder()
+        StoredFileMetadataDto dto = StoredFileMetadataDto.builder()
                 .filename("img.png")
-                .content("x".getBytes(StandardCharsets.UTF_8))
+                .size(1L)
                 .build();
 
-        given(fileUploadService.listAll()).willReturn(List.of(dto));
+        given(fileUploadService.list(any(FileListQuery.class))).willReturn(new FilePage<>(List.of(dto), null));
 
         mockMvc.perform(get("/files/local"))
                 .andExpect(status().isOk())
@@ -49,17 +62,26 @@ class FileUploadControllerTest {
                 .andExpect(jsonPath("$[0].filename").value("img.png"));
     }
 
+    @Test
+    void listAllFilesFromLocal_unsupportedSort_shouldReturn400() throws Exception {
+        given(fileUploadService.list(any(FileListQuery.class)))
+                .willThrow(new IllegalArgumentException("Unsupported sort field for local files: id"));
+
+        mockMvc.perform(get("/files/local").param("sort", "id"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void downloadFileByFilename_found_shouldReturnAttachment() throws Exception {
         byte[] bytes = new byte[] {1, 2, 3};
-        StoredFileDto dto = StoredFileDto.builder()
+        StoredFileMetadataDto metadata = StoredFileMetadataDto.builder()
                 .filename("img.png")
                 .contentType("image/png")
                 .size((long) bytes.length)
-                .content(bytes)
                 .build();
 
-        given(fileUploadService.getFileByFilename("img.png")).willReturn(Optional.of(dto));
+        given(fileUploadService.openFile("img.png"))
+                .willReturn(Optional.of(new StoredFileDownload(metadata, new ByteArrayResource(bytes))));
 
         mockMvc.perform(get("/files/local/img.png"))
                 .andExpect(status().isOk())
@@ -69,9 +91,59 @@ class FileUploadControllerTest {
                 .andExpect(content().bytes(bytes));
     }
 
+    @Test
+    void uploadFilesInLocal_shouldReportPerFileResults() throws Exception {
+        MockMultipartFile good = new MockMultipartFile("files", "a.txt", "text/plain", "a".getBytes());
+        MockMultipartFile bad = new MockMultipartFile("files", "..evil.txt", "text/plain", "b".getBytes());
+        given(fileUploadService.storeAll(any())).willReturn(List.of(BatchUploadResult.stored(
+                StoredFileMetadataDto.builder().filename("a.txt").size(1L).build())));
+
+        mockMvc.perform(multipart("/files/local/save/batch").file(good).file(bad))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].filename").value("a.txt"))
+                .andExpect(jsonPath("$[0].stored").value(true))
+                .andExpect(jsonPath("$[1].stored").value(false))
+                .andExpect(jsonPath("$[1].error").value("Invalid filename"));
+    }
+
+    @Test
+    void deleteFiles_shouldReturnDeletedCountAndRejectTraversal() throws Exception {
+        given(fileUploadService.deleteMatching(any())).willReturn(2L);
+
+        mockMvc.perform(post("/files/local/delete")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"filenames\":[\"a.txt\",\"b.txt\"]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.deleted").value(2));
+        mockMvc.perform(post("/files/local/delete")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"filenames\":[\"../etc/passwd\"]}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void downloadFileByFilename_sendfileSupported_shouldStillStreamTheLockedResource(@TempDir Path dir)
+            throws Exception {
+        Path file = Files.write(dir.resolve("big.bin"), new byte[] {9, 8, 7, 6});
+        StoredFileMetadataDto metadata = StoredFileMetadataDto.builder()
+                .filename("big.bin")
+                .contentType("application/octet-stream")
+                .size(4L)
+                .build();
+        given(fileUploadService.openFile("big.bin"))
+                .willReturn(Optional.of(new StoredFileDownload(metadata, new FileSystemResource(file))));
+
+        // Off by default: Tomcat would reopen the path outside the name's read lock.
+        mockMvc.perform(get("/files/local/big.bin").requestAttr("org.apache.tomcat.sendfile.support", true))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Length", "4"))
+                .andExpect(request().attribute("org.apache.tomcat.sendfile.filename", Matchers.nullValue()))
+                .andExpect(content().bytes(new byte[] {9, 8, 7, 6}));
+    }
+
     @Test
     void downloadFileByFilename_notFound_shouldReturn404() throws Exception {
-        given(fileUploadService.getFileByFilename("missing.bin")).willReturn(Optional.empty());
+        given(fileUploadService.openFile("missing.bin")).willReturn(Optional.empty());
 
         mockMvc.perform(get("/files/local/missing.bin"))
                 .andExpect(status().isNotFound());
@@ -105,4 +177,19 @@ class FileUploadControllerTest {
         mockMvc.perform(delete("/files/local/bar.txt"))
                 .andExpect(status().isNotFound());
     }
+
+    @Test
+    void mappedCacheStats_shouldReturnCountersOrNotFoundWhenDisabled() throws Exception {
+        given(fileUploadService.getMappedCacheStats())
+                .willReturn(Optional.of(new CacheStatsDto(3, 1, 0.75, 0, 0, 2, 4096, 65536)));
+
+        mockMvc.perform(get("/files/local/cache/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.hitRate").value(0.75))
+                .andExpect(jsonPath("$.weightedSize").value(4096));
+
+        given(fileUploadService.getMappedCacheStats()).willReturn(Optional.empty());
+        mockMvc.perform(get("/files/local/cache/stats"))
+                .andExpect(status().isNotFound());
+    }
 }
@@ -0,0 +1,162 @@
+package com.mandrel.file_storage_service.integration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import com.mandrel.file_storage_service.model.StoredFileUpload;
+import com.mandrel.file_storage_service.service.FileStorageService;
+import com.mandrel.file_storage_service.service.FileUploadService;
+
+/**
+ * Archives over real connections, so the response is streamed by the
+ * container exactly as in production, then read back with {@link ZipFile}.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "file-storage.archive.max-entries=3")
+class ArchiveDownloadIntegrationTest {
+
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n'};
+
+    @TempDir
+    Path downloads;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    private FileUploadService fileUploadService;
+
+    @AfterEach
+    void cleanup() throws IOException {
+        Path root = Path.of("uploaded-files");
+        if (Files.exists(root)) {
+            try (Stream<Path> paths = Files.walk(root)) {
+                for (Path p : paths.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.deleteIfExists(p);
+                }
+            }
+        }
+    }
+
+    @Test
+    void memory_archive_holds_the_selected_files_and_stores_compressed_types_as_is() throws Exception {
+        String text = "compressible line\n".repeat(4096);
+        byte[] png = png(256 * 1024);
+        Long first = store("notes.txt", "text/plain", text.getBytes(StandardCharsets.UTF_8));
+        Long second = store("notes.txt", "text/plain", "second copy".getBytes(StandardCharsets.UTF_8));
+        Long image = store("image.png", "image/png", png);
+        store("unselected.txt", "text/plain", "left out".getBytes(StandardCharsets.UTF_8));
+
+        ResponseEntity<byte[]> response = restTemplate.postForEntity("/files/memory/archive",
+                Map.of("ids", List.of(first, second, image, -1L)), byte[].class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getContentType()).hasToString("application/zip");
+        assertThat(response.getHeaders().getContentDisposition().getFilename()).isEqualTo("memory-files.zip");
+        assertThat(response.getHeaders().getFirst("X-Archive-Entries")).isEqualTo("3");
+        try (ZipFile zip = save(response.getBody())) {
+            Map<String, byte[]> entries = read(zip);
+            assertThat(entries).containsOnlyKeys("notes.txt", "notes (2).txt", "image.png");
+            assertThat(new String(entries.get("notes.txt"), StandardCharsets.UTF_8)).isEqualTo(text);
+            assertThat(entries.get("notes (2).txt")).asString(StandardCharsets.UTF_8).isEqualTo("second copy");
+            assertThat(entries.get("image.png")).isEqualTo(png);
+
+            // Compressible on its own, but left as it is because PNG data is normally compressed already.
+            ZipEntry imageEntry = zip.getEntry("image.png");
+            assertThat(imageEntry.getCompressedSize()).isGreaterThanOrEqualTo(imageEntry.getSize());
+            ZipEntry textEntry = zip.getEntry("notes.txt");
+            assertThat(textEntry.getCompressedSize()).isLessThan(textEntry.getSize() / 10);
+        }
+    }
+
+    @Test
+    void local_archive_selects_by_filter() throws Exception {
+        storeLocal("a.txt", "alpha");
+        storeLocal("b.txt", "bravo");
+        storeLocal("c.csv", "x,y");
+
+        ResponseEntity<byte[]> response = restTemplate.postForEntity("/files/local/archive",
+                Map.of("contentType", "text/plain"), byte[].class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        try (ZipFile zip = save(response.getBody())) {
+            Map<String, byte[]> entries = read(zip);
+            assertThat(entries).containsOnlyKeys("a.txt", "b.txt");
+            assertThat(entries.get("b.txt")).asString(StandardCharsets.UTF_8).isEqualTo("bravo");
+        }
+    }
+
+    @Test
+    void empty_oversized_and_unsafe_selections_are_rejected_before_streaming() {
+        for (int i = 0; i < 4; i++) {
+            storeLocal("f" + i + ".txt", "file " + i);
+        }
+
+        assertThat(restTemplate.postForEntity("/files/local/archive", Map.of(), String.class).getStatusCode())
+                .isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(restTemplate.postForEntity("/files/local/archive", Map.of("contentType", "text/*"), String.class)
+                .getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(restTemplate.postForEntity("/files/local/archive",
+                Map.of("filenames", List.of("../secret.txt")), String.class).getStatusCode())
+                .isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(restTemplate.postForEntity("/files/tape/archive", Map.of("ids", List.of(1)), String.class)
+                .getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
+    private Long store(String filename, String contentType, byte[] content) {
+        return fileStorageService.store(filename, contentType, new ByteArrayInputStream(content)).getId();
+    }
+
+    private void storeLocal(String filename, String content) {
+        fileUploadService.store(new StoredFileUpload(filename, null,
+                new ByteArrayResource(content.getBytes(StandardCharsets.UTF_8))));
+    }
+
+    private ZipFile save(byte[] archive) throws IOException {
+        Path file = Files.write(downloads.resolve("archive.zip"), archive);
+        return new ZipFile(file.toFile());
+    }
+
+    private static Map<String, byte[]> read(ZipFile zip) throws IOException {
+        Map<String, byte[]> entries = new HashMap<>();
+        for (ZipEntry entry : zip.stream().toList()) {
+            try (InputStream in = zip.getInputStream(entry)) {
+                entries.put(entry.getName(), in.readAllBytes());
+            }
+        }
+        return entries;
+    }
+
+    /** A PNG signature followed by zeros: typed as PNG yet highly compressible. */
+    private static byte[] png(int size) {
+        byte[] png = new byte[size];
+        System.arraycopy(PNG_SIGNATURE, 0, png, 0, PNG_SIGNATURE.length);
+        return png;
+    }
+}
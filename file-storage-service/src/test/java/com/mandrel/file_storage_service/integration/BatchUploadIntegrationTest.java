@@ -0,0 +1,96 @@
+package com.mandrel.file_storage_service.integration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMultipartHttpServletRequestBuilder;
+
+import com.jayway.jsonpath.JsonPath;
+
+import jakarta.persistence.EntityManagerFactory;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureMockMvc
+class BatchUploadIntegrationTest {
+
+    private static final int FILES = 120;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @AfterEach
+    void cleanupLocal() throws IOException {
+        Path root = Path.of("uploaded-files");
+        if (Files.exists(root)) {
+            try (var s = Files.list(root)) {
+                s.forEach(p -> { try { Files.deleteIfExists(p); } catch (IOException ignored) {} });
+            }
+            Files.deleteIfExists(root);
+        }
+    }
+
+    @Test
+    void memory_batch_should_store_every_file_with_batched_metadata_inserts() throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        MvcResult result = mockMvc.perform(batch("/files/memory/save/batch"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(FILES))
+                .andReturn();
+
+        // One insert statement per batch of 50 plus a few sequence calls, not one per file.
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(FILES);
+        assertThat(statistics.getPrepareStatementCount()).isLessThan(20);
+        assertThat(statistics.getTransactionCount()).isEqualTo(1);
+
+        List<Integer> ids = JsonPath.read(result.getResponse().getContentAsString(), "$[*].id");
+        mockMvc.perform(get("/files/memory/" + ids.get(FILES - 1)))
+                .andExpect(status().isOk())
+                .andExpect(content().string("file-" + (FILES - 1)));
+    }
+
+    @Test
+    void local_batch_should_write_every_file() throws Exception {
+        mockMvc.perform(batch("/files/local/save/batch"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(FILES))
+                .andExpect(jsonPath("$[?(@.stored == false)]").isEmpty());
+
+        mockMvc.perform(get("/files/local/f7.txt"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("file-7"));
+    }
+
+    private static MockMultipartHttpServletRequestBuilder batch(String url) {
+        MockMultipartHttpServletRequestBuilder request = multipart(url);
+        for (int i = 0; i < FILES; i++) {
+            request.file(new MockMultipartFile("files", "f" + i + ".txt", "text/plain",
+                    ("file-" + i).getBytes(StandardCharsets.UTF_8)));
+        }
+        return request;
+    }
+}
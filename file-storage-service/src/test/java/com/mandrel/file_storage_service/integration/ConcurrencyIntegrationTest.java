@@ -27,6 +27,8 @@ import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 
+import com.mandrel.file_storage_service.repository.StoredFileBlobRepository;
+
 @SpringBootTest
 @AutoConfigureMockMvc
 class ConcurrencyIntegrationTest {
@@ -34,6 +36,9 @@ class ConcurrencyIntegrationTest {
     @Autowired
     private MockMvc mockMvc;
 
+    @Autowired
+    private StoredFileBlobRepository blobRepository;
+
     @AfterEach
     void cleanupLocal() throws Exception {
         Path root = Path.of("uploaded-files");
@@ -78,6 +83,35 @@ class ConcurrencyIntegrationTest {
         }
     }
 
+    @Test
+    void parallel_identical_uploads_to_memory_should_share_one_blob() throws Exception {
+        int tasks = 16;
+        byte[] bytes = "same-export-contents".getBytes(StandardCharsets.UTF_8);
+        long blobsBefore = blobRepository.count();
+        var pool = Executors.newFixedThreadPool(8);
+        List<Callable<Long>> callables = new ArrayList<>();
+        for (int i = 0; i < tasks; i++) {
+            final int idx = i;
+            callables.add(() -> {
+                MockMultipartFile mf = new MockMultipartFile("file", "dup" + idx + ".txt", MediaType.TEXT_PLAIN_VALUE, bytes);
+                MvcResult res = mockMvc.perform(multipart("/files/memory/save").file(mf))
+                        .andExpect(status().isOk())
+                        .andReturn();
+                return Long.parseLong(res.getResponse().getContentAsString().replaceAll("[^0-9]", ""));
+            });
+        }
+        List<Future<Long>> futures = pool.invokeAll(callables);
+        pool.shutdown();
+        pool.awaitTermination(30, TimeUnit.SECONDS);
+
+        for (Future<Long> f : futures) {
+            Long id = f.get(5, TimeUnit.SECONDS);
+            MvcResult res = mockMvc.perform(get("/files/memory/" + id)).andExpect(status().isOk()).andReturn();
+            assertThat(res.getResponse().getContentAsByteArray()).isEqualTo(bytes);
+        }
+        assertThat(blobRepository.count()).isEqualTo(blobsBefore + 1);
+    }
+
     @Test
     void parallel_downloads_from_memory_should_return_correct_content() throws Exception {
         int files = 10;
@@ -0,0 +1,71 @@
+package com.mandrel.file_storage_service.integration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+
+/**
+ * Runs against the embedded Tomcat so the sendfile path is exercised, which
+ * MockMvc cannot do.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.servlet.multipart.max-file-size=8MB",
+        "spring.servlet.multipart.max-request-size=8MB",
+        "file-storage.local.sendfile=true" })
+class LocalDownloadOverHttpIntegrationTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @AfterEach
+    void cleanupLocal() throws Exception {
+        Path root = Path.of("uploaded-files");
+        if (Files.exists(root)) {
+            try (var s = Files.list(root)) {
+                s.forEach(p -> { try { Files.deleteIfExists(p); } catch (Exception ignored) {} });
+            }
+            Files.deleteIfExists(root);
+        }
+    }
+
+    @Test
+    void large_local_download_over_real_connector_should_match_upload() {
+        byte[] payload = new byte[3 * 1024 * 1024];
+        for (int i = 0; i < payload.length; i++) {
+            payload[i] = (byte) (i % 253);
+        }
+        MultiValueMap<String, Object> form = new LinkedMultiValueMap<>();
+        form.add("file", new ByteArrayResource(payload) {
+            @Override
+            public String getFilename() {
+                return "over-http.bin";
+            }
+        });
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.MULTIPART_FORM_DATA);
+        ResponseEntity<String> upload = restTemplate.postForEntity("/files/local/save",
+                new HttpEntity<>(form, headers), String.class);
+        assertThat(upload.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+        ResponseEntity<byte[]> download = restTemplate.getForEntity("/files/local/over-http.bin", byte[].class);
+
+        assertThat(download.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(download.getHeaders().getContentLength()).isEqualTo(payload.length);
+        assertThat(download.getBody()).isEqualTo(payload);
+    }
+}
@@ -1,8 +1,10 @@
 package com.mandrel.file_storage_service.integration;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import java.nio.charset.StandardCharsets;
@@ -16,6 +18,8 @@ import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 
+import com.mandrel.file_storage_service.repository.StoredFileBlobRepository;
+
 @SpringBootTest
 @AutoConfigureMockMvc
 class MemoryStorageIntegrationTest {
@@ -23,6 +27,9 @@ class MemoryStorageIntegrationTest {
     @Autowired
     private MockMvc mockMvc;
 
+    @Autowired
+    private StoredFileBlobRepository blobRepository;
+
     @Test
     void upload_and_download_flow_in_memory_storage() throws Exception {
         MockMultipartFile file = new MockMultipartFile(
@@ -51,4 +58,30 @@ class MemoryStorageIntegrationTest {
         byte[] downloaded = download.getResponse().getContentAsByteArray();
         assertThat(new String(downloaded, StandardCharsets.UTF_8)).isEqualTo("hello world");
     }
+
+    @Test
+    void duplicate_uploads_should_share_payload_until_last_delete() throws Exception {
+        byte[] csv = "day,count\n2024-01-01,42\n".getBytes(StandardCharsets.UTF_8);
+        long blobsBefore = blobRepository.count();
+
+        Long first = upload(new MockMultipartFile("file", "export-1.csv", "text/csv", csv));
+        Long second = upload(new MockMultipartFile("file", "export-2.csv", "text/csv", csv));
+        assertThat(blobRepository.count()).isEqualTo(blobsBefore + 1);
+
+        mockMvc.perform(delete("/files/memory/" + first)).andExpect(status().isOk());
+        assertThat(blobRepository.count()).isEqualTo(blobsBefore + 1);
+        mockMvc.perform(get("/files/memory/" + second))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(csv));
+
+        mockMvc.perform(delete("/files/memory/" + second)).andExpect(status().isOk());
+        assertThat(blobRepository.count()).isEqualTo(blobsBefore);
+    }
+
+    private Long upload(MockMultipartFile file) throws Exception {
+        MvcResult upload = mockMvc.perform(multipart("/files/memory/save").file(file))
+                .andExpect(status().isOk())
+                .andReturn();
+        return Long.parseLong(upload.getResponse().getContentAsString().replaceAll("[^0-9]", ""));
+    }
 }
@@ -0,0 +1,92 @@
+package com.mandrel.file_storage_service.integration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+
+/**
+ * Uploads and downloads on both backends over real connections, then checks
+ * the Prometheus scrape for the meters they should have produced.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "management.endpoints.web.exposure.include=prometheus",
+        "management.metrics.distribution.percentiles-histogram.file_storage=true" })
+@AutoConfigureObservability
+class MetricsIntegrationTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @AfterEach
+    void cleanup() throws IOException {
+        Path root = Path.of("uploaded-files");
+        if (Files.exists(root)) {
+            try (Stream<Path> paths = Files.walk(root)) {
+                for (Path p : paths.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.deleteIfExists(p);
+                }
+            }
+        }
+    }
+
+    @Test
+    void transfers_on_both_backends_are_scraped_in_prometheus_format() {
+        ResponseEntity<String> stored = restTemplate.postForEntity("/files/memory/save", upload("metrics.txt", 2048),
+                String.class);
+        assertThat(stored.getStatusCode()).isEqualTo(HttpStatus.OK);
+        String id = stored.getBody().substring(stored.getBody().lastIndexOf(' ') + 1);
+        assertThat(restTemplate.getForEntity("/files/memory/" + id, byte[].class).getBody()).hasSize(2048);
+        assertThat(restTemplate.postForEntity("/files/local/save", upload("metrics.txt", 4096), String.class)
+                .getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(restTemplate.getForEntity("/files/local/metrics.txt", byte[].class).getBody()).hasSize(4096);
+
+        ResponseEntity<String> scrape = restTemplate.getForEntity("/actuator/prometheus", String.class);
+
+        assertThat(scrape.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(scrape.getBody())
+                .containsPattern("file_storage_upload_seconds_bucket\\{.*backend=\"memory\".*outcome=\"success\"")
+                .containsPattern("file_storage_upload_bytes_total\\{.*backend=\"memory\".*} 2048\\.0")
+                .containsPattern("file_storage_upload_bytes_total\\{.*backend=\"local\".*} 4096\\.0")
+                .containsPattern("file_storage_upload_size_bytes_count\\{.*backend=\"local\".*} 1")
+                .containsPattern("file_storage_upload_active\\{.*backend=\"local\".*} 0\\.0")
+                .containsPattern("file_storage_download_bytes_total\\{.*backend=\"memory\".*} 2048\\.0")
+                .containsPattern("file_storage_download_open_seconds_count\\{.*backend=\"local\".*outcome=\"success\".*} 1")
+                .containsPattern("file_storage_repository_seconds_count\\{.*repository=\"LocalFileContentRepository\".*store=\"filesystem\"")
+                .containsPattern("spring_data_repository_invocations_seconds_count\\{.*repository=\"StoredFileRepository\"")
+                .containsPattern("http_server_requests_seconds_count\\{.*uri=\"/files/memory/\\{id}\"");
+    }
+
+    private static HttpEntity<MultiValueMap<String, Object>> upload(String filename, int size) {
+        byte[] content = "x".repeat(size).getBytes(StandardCharsets.UTF_8);
+        MultiValueMap<String, Object> parts = new LinkedMultiValueMap<>();
+        parts.add("file", new ByteArrayResource(content) {
+            @Override
+            public String getFilename() {
+                return filename;
+            }
+        });
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.MULTIPART_FORM_DATA);
+        return new HttpEntity<>(parts, headers);
+    }
+}
@@ -0,0 +1,124 @@
+package com.mandrel.file_storage_service.integration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class RangeDownloadIntegrationTest {
+
+    private static final byte[] PAYLOAD = payload(100_000);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @AfterEach
+    void cleanupLocal() throws IOException {
+        Path root = Path.of("uploaded-files");
+        if (Files.exists(root)) {
+            try (var s = Files.list(root)) {
+                s.forEach(p -> { try { Files.deleteIfExists(p); } catch (IOException ignored) {} });
+            }
+            Files.deleteIfExists(root);
+        }
+    }
+
+    @Test
+    void memory_single_range_should_return_partial_content() throws Exception {
+        String url = "/files/memory/" + uploadToMemory();
+
+        mockMvc.perform(get(url).header(HttpHeaders.RANGE, "bytes=70000-70009"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 70000-70009/100000"))
+                .andExpect(header().string(HttpHeaders.CONTENT_LENGTH, "10"))
+                .andExpect(content().bytes(Arrays.copyOfRange(PAYLOAD, 70000, 70010)));
+
+        mockMvc.perform(get(url).header(HttpHeaders.RANGE, "bytes=-5"))
+                .andExpect(status().isPartialContent())
+                .andExpect(content().bytes(Arrays.copyOfRange(PAYLOAD, 99995, 100000)));
+    }
+
+    @Test
+    void memory_multi_range_should_return_multipart_byteranges() throws Exception {
+        String url = "/files/memory/" + uploadToMemory();
+
+        MvcResult result = mockMvc.perform(get(url).header(HttpHeaders.RANGE, "bytes=0-3,50000-50003"))
+                .andExpect(status().isPartialContent())
+                .andReturn();
+
+        assertThat(result.getResponse().getContentType()).startsWith("multipart/byteranges");
+        String body = result.getResponse().getContentAsString(StandardCharsets.ISO_8859_1);
+        assertThat(body).contains("Content-Range: bytes 0-3/100000", "Content-Range: bytes 50000-50003/100000");
+        assertThat(body).contains(new String(Arrays.copyOfRange(PAYLOAD, 50000, 50004), StandardCharsets.ISO_8859_1));
+    }
+
+    @Test
+    void memory_unsatisfiable_range_should_return_416() throws Exception {
+        String url = "/files/memory/" + uploadToMemory();
+
+        mockMvc.perform(get(url).header(HttpHeaders.RANGE, "bytes=200000-"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */100000"));
+    }
+
+    @Test
+    void local_ranges_should_return_partial_content() throws Exception {
+        mockMvc.perform(multipart("/files/local/save")
+                        .file(new MockMultipartFile("file", "range.bin", MediaType.APPLICATION_OCTET_STREAM_VALUE, PAYLOAD)))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/files/local/range.bin"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                .andExpect(content().bytes(PAYLOAD));
+
+        mockMvc.perform(get("/files/local/range.bin").header(HttpHeaders.RANGE, "bytes=99990-"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 99990-99999/100000"))
+                .andExpect(content().bytes(Arrays.copyOfRange(PAYLOAD, 99990, 100000)));
+
+        MvcResult multi = mockMvc.perform(get("/files/local/range.bin").header(HttpHeaders.RANGE, "bytes=1-2,10-11"))
+                .andExpect(status().isPartialContent())
+                .andReturn();
+        assertThat(multi.getResponse().getContentType()).startsWith("multipart/byteranges");
+        assertThat(multi.getResponse().getContentAsString(StandardCharsets.ISO_8859_1))
+                .contains("Content-Range: bytes 1-2/100000", "Content-Range: bytes 10-11/100000");
+    }
+
+    private Long uploadToMemory() throws Exception {
+        MvcResult upload = mockMvc.perform(multipart("/files/memory/save")
+                        .file(new MockMultipartFile("file", "range.bin", MediaType.APPLICATION_OCTET_STREAM_VALUE, PAYLOAD)))
+                .andExpect(status().isOk())
+                .andReturn();
+        return Long.parseLong(upload.getResponse().getContentAsString().replaceAll("[^0-9]", ""));
+    }
+
+    private static byte[] payload(int size) {
+        byte[] data = new byte[size];
+        for (int i = 0; i < size; i++) {
+            data[i] = (byte) (i * 7 + (i >> 8));
+        }
+        return data;
+    }
+}
@@ -0,0 +1,205 @@
+package com.mandrel.file_storage_service.integration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.MultipartBodyBuilder;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.reactive.function.BodyInserters;
+
+import com.mandrel.file_storage_service.controller.ReactiveFileUploadController;
+
+/**
+ * The reactive API on Netty, end to end: multipart bodies are consumed as part
+ * events and downloads are written by WebFlux.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.main.web-application-type=reactive",
+        "spring.servlet.multipart.max-file-size=4MB" })
+class ReactiveApiIntegrationTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+    @Autowired
+    private ReactiveFileUploadController localController;
+    private WebTestClient client;
+
+    @BeforeEach
+    void allowLargeBodies() {
+        client = webTestClient.mutate()
+                .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(16 * 1024 * 1024))
+                .build();
+    }
+
+    @AfterEach
+    void cleanupLocal() throws Exception {
+        Path root = Path.of("uploaded-files");
+        if (Files.exists(root)) {
+            try (Stream<Path> paths = Files.walk(root)) {
+                paths.sorted(Comparator.reverseOrder()).forEach(p -> {
+                    try {
+                        Files.deleteIfExists(p);
+                    } catch (Exception ignored) {
+                    }
+                });
+            }
+        }
+    }
+
+    @Test
+    void local_upload_streams_to_disk_and_downloads_whole_and_by_range() throws Exception {
+        byte[] payload = payload(3 * 1024 * 1024);
+
+        client.post().uri("/files/local/save")
+                .body(BodyInserters.fromMultipartData(form("reactive.bin", payload, MediaType.APPLICATION_OCTET_STREAM)))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class).isEqualTo("File uploaded successfully: reactive.bin");
+
+        byte[] downloaded = client.get().uri("/files/local/reactive.bin")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentLength(payload.length)
+                .expectBody(byte[].class).returnResult().getResponseBody();
+        assertThat(downloaded).isEqualTo(payload);
+
+        byte[] range = client.get().uri("/files/local/reactive.bin")
+                .header(HttpHeaders.RANGE, "bytes=1000-1999")
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.PARTIAL_CONTENT)
+                .expectBody(byte[].class).returnResult().getResponseBody();
+        assertThat(range).isEqualTo(Arrays.copyOfRange(payload, 1000, 2000));
+        // Not a file to the writer, so it is read through the version-checked stream, never reopened by name.
+        assertThat(localController.downloadFileByFilename("reactive.bin").block().getBody().isFile()).isFalse();
+
+        client.get().uri("/files/local")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$[0].filename").isEqualTo("reactive.bin")
+                .jsonPath("$[0].size").isEqualTo(payload.length)
+                .jsonPath("$[0].checksum").isEqualTo(sha256(payload));
+
+        try (Stream<Path> files = Files.list(Path.of("uploaded-files"))) {
+            assertThat(files.map(p -> p.getFileName().toString()).filter(n -> n.startsWith(".upload-"))).isEmpty();
+        }
+
+        // Netty passes an encoded separator through; the name must still be refused.
+        client.delete().uri("/files/local/{name}", "a/../../reactive.bin").exchange().expectStatus().isBadRequest();
+        client.delete().uri("/files/local/reactive.bin").exchange().expectStatus().isOk();
+        client.get().uri("/files/local/reactive.bin").exchange().expectStatus().isNotFound();
+    }
+
+    @Test
+    void local_upload_rejects_reserved_names_and_missing_files() {
+        client.post().uri("/files/local/save")
+                .body(BodyInserters.fromMultipartData(form(".index", new byte[] { 1 }, MediaType.TEXT_PLAIN)))
+                .exchange()
+                .expectStatus().isBadRequest();
+
+        MultipartBodyBuilder other = new MultipartBodyBuilder();
+        other.part("note", "not a file");
+        client.post().uri("/files/local/save")
+                .body(BodyInserters.fromMultipartData(other.build()))
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody(String.class).isEqualTo("File must be provided");
+    }
+
+    @Test
+    void memory_upload_streams_into_blob_and_downloads_whole_and_by_range() {
+        byte[] payload = payload(2 * 1024 * 1024);
+
+        String stored = client.post().uri("/files/memory/save")
+                .body(BodyInserters.fromMultipartData(form("reactive.dat", payload, MediaType.APPLICATION_OCTET_STREAM)))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class).returnResult().getResponseBody();
+        assertThat(stored).startsWith("Stored file with ID: ");
+        String id = stored.substring("Stored file with ID: ".length());
+
+        byte[] downloaded = client.get().uri("/files/memory/" + id)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .expectHeader().contentLength(payload.length)
+                .expectBody(byte[].class).returnResult().getResponseBody();
+        assertThat(downloaded).isEqualTo(payload);
+
+        byte[] range = client.get().uri("/files/memory/" + id)
+                .header(HttpHeaders.RANGE, "bytes=100000-199999")
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.PARTIAL_CONTENT)
+                .expectHeader().valueEquals(HttpHeaders.CONTENT_RANGE, "bytes 100000-199999/" + payload.length)
+                .expectHeader().contentLength(100000)
+                .expectBody(byte[].class).returnResult().getResponseBody();
+        assertThat(range).isEqualTo(Arrays.copyOfRange(payload, 100000, 200000));
+        byte[] tail = client.get().uri("/files/memory/" + id)
+                .header(HttpHeaders.RANGE, "bytes=-10")
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.PARTIAL_CONTENT)
+                .expectBody(byte[].class).returnResult().getResponseBody();
+        assertThat(tail).isEqualTo(Arrays.copyOfRange(payload, payload.length - 10, payload.length));
+        client.get().uri("/files/memory/" + id)
+                .header(HttpHeaders.RANGE, "bytes=" + payload.length + "-")
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                .expectHeader().valueEquals(HttpHeaders.CONTENT_RANGE, "bytes */" + payload.length);
+
+        client.delete().uri("/files/memory/" + id).exchange().expectStatus().isOk();
+        client.get().uri("/files/memory/" + id).exchange().expectStatus().isNotFound();
+    }
+
+    @Test
+    void uploads_over_the_size_limit_are_refused_on_both_backends() throws Exception {
+        byte[] payload = payload(5 * 1024 * 1024);
+
+        client.post().uri("/files/memory/save")
+                .body(BodyInserters.fromMultipartData(form("big.dat", payload, MediaType.APPLICATION_OCTET_STREAM)))
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.PAYLOAD_TOO_LARGE);
+        client.post().uri("/files/local/save")
+                .body(BodyInserters.fromMultipartData(form("big.bin", payload, MediaType.APPLICATION_OCTET_STREAM)))
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.PAYLOAD_TOO_LARGE);
+
+        client.get().uri("/files/memory").exchange().expectStatus().isOk().expectBody().json("[]");
+        client.get().uri("/files/local").exchange().expectStatus().isOk().expectBody().json("[]");
+    }
+
+    private static MultiValueMap<String, HttpEntity<?>> form(String filename, byte[] content, MediaType type) {
+        MultipartBodyBuilder builder = new MultipartBodyBuilder();
+        builder.part("file", new ByteArrayResource(content)).filename(filename).contentType(type);
+        return builder.build();
+    }
+
+    private static byte[] payload(int size) {
+        byte[] payload = new byte[size];
+        for (int i = 0; i < payload.length; i++) {
+            payload[i] = (byte) (i % 251);
+        }
+        return payload;
+    }
+
+    private static String sha256(byte[] content) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+    }
+}
@@ -0,0 +1,267 @@
+package com.mandrel.file_storage_service.integration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Slow-client benchmark for the request thread model. Many clients download a
+ * local file at a throttled rate; each one keeps a request thread blocked in a
+ * socket write for the whole transfer, which is the case that exhausts the
+ * platform-thread pool. The server's socket send buffer is kept small so the
+ * kernel cannot absorb the file and free the thread early. The clients run in
+ * a separate JVM, so the memory measured here is the server's alone: heap
+ * retained while every connection is open (after a GC), and growth of the
+ * process's resident set, which also counts the native stacks of platform
+ * threads. Reports how many connections
+ * were served concurrently and how many that makes per GB of server memory.
+ * <p>
+ * Run both models and compare:
+ * <pre>
+ * mvn test -Pbenchmark                                      # platform threads
+ * mvn test -Pbenchmark,java21 -Dbenchmark.virtual=true      # virtual threads
+ * </pre>
+ * {@code -Dbenchmark.clients} and {@code -Dbenchmark.file-kb} size the run;
+ * {@code -Dbenchmark.tick-ms} slows every client down, so the total transfer
+ * rate stays below what the host's CPUs can push and the thread pool is what
+ * limits the platform run. On Java 21 a virtual thread blocked in Tomcat's
+ * socket write still pins its carrier (the write waits on a monitor), so the
+ * virtual run is capped by the scheduler's 256 carriers rather than by memory.
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.threads.virtual.enabled=${benchmark.virtual:false}",
+        "server.tomcat.max-connections=10000",
+        "server.tomcat.accept-count=10000",
+        "spring.jpa.show-sql=false" })
+class ThreadModelBenchmarkTest {
+
+    @TestConfiguration
+    static class SmallSendBuffer {
+
+        @Bean
+        WebServerFactoryCustomizer<TomcatServletWebServerFactory> smallSendBuffer() {
+            return factory -> factory.addConnectorCustomizers(
+                    connector -> connector.setProperty("socket.txBufSize", Integer.toString(CHUNK)));
+        }
+    }
+
+    private static final int CLIENTS = Integer.getInteger("benchmark.clients", 1000);
+    private static final int FILE_BYTES = Integer.getInteger("benchmark.file-kb", 512) * 1024;
+    // Each client drains at most this much per tick, so a transfer takes FILE_BYTES / CHUNK ticks.
+    private static final int CHUNK = 16 * 1024;
+    private static final long TICK_MILLIS = Long.getLong("benchmark.tick-ms", 400);
+    private static final Path ROOT = Path.of("uploaded-files");
+
+    @LocalServerPort
+    private int port;
+
+    @AfterEach
+    void cleanUp() throws IOException {
+        if (Files.exists(ROOT)) {
+            try (var s = Files.walk(ROOT)) {
+                s.sorted(Comparator.reverseOrder()).forEach(p -> {
+                    try { Files.deleteIfExists(p); } catch (IOException ignored) {}
+                });
+            }
+        }
+    }
+
+    @Test
+    void slowDownloads_connectionsServedPerGbOfServerMemory() throws Exception {
+        byte[] payload = new byte[FILE_BYTES];
+        for (int i = 0; i < payload.length; i++) {
+            payload[i] = (byte) i;
+        }
+        Files.createDirectories(ROOT);
+        Files.write(ROOT.resolve("bench.bin"), payload);
+        // Load the download path's classes before the baseline, so they are not counted as per-connection cost.
+        for (int i = 0; i < 3; i++) {
+            assertThat(download(port, 0, null)).isEqualTo(FILE_BYTES);
+        }
+
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        System.gc();
+        long baselineHeap = memory.getHeapMemoryUsage().getUsed();
+        long baselineRss = residentBytes();
+        int baselineThreads = threads.getThreadCount();
+        threads.resetPeakThreadCount();
+        AtomicLong peakRss = new AtomicLong(baselineRss);
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+        sampler.scheduleAtFixedRate(() -> peakRss.accumulateAndGet(residentBytes(), Math::max),
+                0, 20, TimeUnit.MILLISECONDS);
+
+        double transferSeconds = (double) FILE_BYTES / CHUNK * TICK_MILLIS / 1000;
+        Process clients = new ProcessBuilder(Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp", System.getProperty("java.class.path"), ThreadModelBenchmarkTest.class.getName(),
+                Integer.toString(port), Integer.toString(CLIENTS), Integer.toString(FILE_BYTES),
+                Long.toString(TICK_MILLIS))
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+        long started;
+        long retainedHeap;
+        String completed;
+        try (BufferedReader out = new BufferedReader(
+                new InputStreamReader(clients.getInputStream(), StandardCharsets.US_ASCII))) {
+            assertThat(out.readLine()).isEqualTo("connected");
+            started = System.nanoTime();
+            // Halfway through the first transfers, every connection the server can take is being served.
+            Thread.sleep((long) (transferSeconds * 500));
+            System.gc();
+            retainedHeap = memory.getHeapMemoryUsage().getUsed() - baselineHeap;
+            completed = out.readLine();
+            assertThat(clients.waitFor(10, TimeUnit.MINUTES)).isTrue();
+        } finally {
+            clients.destroyForcibly();
+            sampler.shutdownNow();
+        }
+        double elapsedSeconds = (System.nanoTime() - started) / 1e9;
+        assertThat(completed).isEqualTo("completed " + CLIENTS);
+
+        double concurrentlyServed = Math.min(CLIENTS, CLIENTS * transferSeconds / elapsedSeconds);
+        long rssGrowth = baselineRss < 0 ? -1 : peakRss.get() - baselineRss;
+        System.out.printf("""
+                thread model:                %s
+                clients:                     %d x %d KB at %d KB/s each (separate JVM)
+                elapsed:                     %.1f s (ideal %.1f s)
+                connections in service:      %.0f
+                peak extra server threads:   %d
+                retained heap under load:    %.1f MB (%.1f KB per connection)
+                resident set growth:         %s
+                connections per GB (RSS):    %s
+                """,
+                Boolean.getBoolean("benchmark.virtual") ? "virtual" : "platform",
+                CLIENTS, FILE_BYTES / 1024, CHUNK * 1000 / TICK_MILLIS / 1024,
+                elapsedSeconds, transferSeconds,
+                concurrentlyServed,
+                threads.getPeakThreadCount() - baselineThreads,
+                retainedHeap / 1048576.0, retainedHeap / 1024.0 / concurrentlyServed,
+                rssGrowth > 0 ? String.format("%.1f MB", rssGrowth / 1048576.0) : "not measurable",
+                rssGrowth > 0 ? String.format("%.0f", concurrentlyServed / (rssGrowth / (double) (1L << 30))) : "n/a");
+    }
+
+    /**
+     * Entry point of the client JVM: {@code port clients fileBytes tickMillis}. Prints
+     * {@code connected} once every client has sent its request, then
+     * {@code completed <n>} with the number of full downloads.
+     */
+    public static void main(String[] args) throws Exception {
+        int port = Integer.parseInt(args[0]);
+        int clients = Integer.parseInt(args[1]);
+        long fileBytes = Long.parseLong(args[2]);
+        long tickMillis = Long.parseLong(args[3]);
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        CountDownLatch connected = new CountDownLatch(clients);
+        try {
+            List<Future<Long>> downloads = new ArrayList<>(clients);
+            for (int i = 0; i < clients; i++) {
+                downloads.add(pool.submit(() -> download(port, tickMillis, connected)));
+            }
+            connected.await();
+            System.out.println("connected");
+            int completed = 0;
+            for (Future<Long> download : downloads) {
+                if (download.get(10, TimeUnit.MINUTES) == fileBytes) {
+                    completed++;
+                }
+            }
+            System.out.println("completed " + completed);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * The server's resident set size in bytes, or -1 where {@code /proc} is not available.
+     */
+    private static long residentBytes() {
+        try {
+            for (String line : Files.readAllLines(Path.of("/proc/self/status"))) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.replaceAll("[^0-9]", "")) * 1024;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // Not Linux.
+        }
+        return -1;
+    }
+
+    /**
+     * Plain HTTP/1.1 over a socket with a small receive buffer, read in chunks
+     * {@code tickMillis} apart. A range request keeps the transfer on the servlet
+     * thread even where sendfile is enabled, which would not hold a thread at all.
+     * {@code connected}, if given, is counted down once the request is sent.
+     */
+    private static long download(int port, long tickMillis, CountDownLatch connected)
+            throws IOException, InterruptedException {
+        try (Socket socket = new Socket()) {
+            socket.setReceiveBufferSize(CHUNK);
+            socket.connect(new InetSocketAddress("localhost", port));
+            OutputStream out = socket.getOutputStream();
+            out.write(("GET /files/local/bench.bin HTTP/1.1\r\nHost: localhost\r\nRange: bytes=0-\r\n"
+                    + "Connection: close\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            if (connected != null) {
+                connected.countDown();
+            }
+            InputStream in = socket.getInputStream();
+            skipHeaders(in);
+            byte[] buffer = new byte[CHUNK];
+            long received = 0;
+            while (true) {
+                int n = in.readNBytes(buffer, 0, buffer.length);
+                if (n <= 0) {
+                    return received;
+                }
+                received += n;
+                Thread.sleep(tickMillis);
+            }
+        }
+    }
+
+    private static void skipHeaders(InputStream in) throws IOException {
+        int matched = 0;
+        byte[] end = {'\r', '\n', '\r', '\n'};
+        while (matched < end.length) {
+            int b = in.read();
+            if (b < 0) {
+                throw new IOException("Connection closed in headers");
+            }
+            matched = b == end[matched] ? matched + 1 : (b == end[0] ? 1 : 0);
+        }
+    }
+}
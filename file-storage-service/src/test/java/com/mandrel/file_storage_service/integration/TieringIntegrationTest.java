@@ -0,0 +1,162 @@
+package com.mandrel.file_storage_service.integration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+
+import com.mandrel.file_storage_service.model.TieringResult;
+import com.mandrel.file_storage_service.service.FileStorageService;
+import com.mandrel.file_storage_service.service.FileTieringService;
+
+/**
+ * Tiering over real connections: files are demoted and promoted by explicit
+ * passes (the scheduled one never fires during the test) and must download
+ * byte for byte, under the same id, from either tier. With {@code cold-after=0s}
+ * every blob not read since the last pass is cold; the read cache is off so
+ * every download reaches the blob.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "file-storage.tiering.enabled=true",
+        "file-storage.tiering.interval=1h",
+        "file-storage.tiering.cold-after=0s",
+        "file-storage.tiering.min-size=1KB",
+        "file-storage.tiering.promote-reads=2",
+        "file-storage.memory.cache.max-file-size=0B" })
+class TieringIntegrationTest {
+
+    private static final Path COLD_DIR = Path.of("cold-blobs");
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private FileTieringService fileTieringService;
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void cleanup() throws IOException {
+        jdbcTemplate.update("DELETE FROM stored_file");
+        jdbcTemplate.update("DELETE FROM stored_file_blob");
+        for (Path root : List.of(Path.of("uploaded-files"), COLD_DIR)) {
+            if (Files.exists(root)) {
+                try (Stream<Path> paths = Files.walk(root)) {
+                    for (Path p : paths.sorted(Comparator.reverseOrder()).toList()) {
+                        Files.deleteIfExists(p);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void cold_files_are_demoted_to_disk_and_still_download_under_the_same_id() {
+        byte[] large = random(300_000, 1);
+        byte[] small = random(100, 2);
+        String id = upload("large.bin", large);
+        String smallId = upload("small.bin", small);
+
+        TieringResult pass = fileTieringService.rebalance();
+
+        assertThat(pass.getDemoted()).isEqualTo(1);
+        assertThat(pass.getDemotedBytes()).isEqualTo(large.length);
+        assertThat(isCold(id)).isTrue();
+        assertThat(isCold(smallId)).isFalse();
+        assertThat(jdbcTemplate.queryForObject("SELECT SUM(OCTET_LENGTH(data)) FROM stored_file_blob", Long.class))
+                .isEqualTo(small.length);
+        assertThat(COLD_DIR).isDirectoryContaining(path -> path.getFileName().toString().startsWith(".blob-"));
+
+        assertThat(restTemplate.getForEntity("/files/memory/" + id, byte[].class).getBody()).isEqualTo(large);
+        assertThat(fileStorageService.getFileById(Long.valueOf(id))).get()
+                .extracting(file -> file.getContent()).isEqualTo(large);
+        // The cold copy is hidden from the local backend.
+        assertThat(restTemplate.getForEntity("/files/local", String.class).getBody()).doesNotContain(".blob-");
+    }
+
+    @Test
+    void files_read_often_enough_are_promoted_back_and_deleted_files_leave_nothing_behind() {
+        byte[] hot = random(50_000, 3);
+        byte[] doomed = random(60_000, 4);
+        String hotId = upload("hot.bin", hot);
+        String doomedId = upload("doomed.bin", doomed);
+        assertThat(fileTieringService.rebalance().getDemoted()).isEqualTo(2);
+
+        assertThat(restTemplate.getForEntity("/files/memory/" + hotId, byte[].class).getBody()).isEqualTo(hot);
+        assertThat(restTemplate.getForEntity("/files/memory/" + hotId, byte[].class).getBody()).isEqualTo(hot);
+        Path doomedCopy = COLD_DIR.resolve(".blob-" + blobId(doomedId));
+        assertThat(doomedCopy).exists();
+        restTemplate.delete("/files/memory/" + doomedId);
+        TieringResult pass = fileTieringService.rebalance();
+
+        assertThat(pass.getPromoted()).isEqualTo(1);
+        assertThat(pass.getPromotedBytes()).isEqualTo(hot.length);
+        assertThat(pass.getFailed()).isZero();
+        assertThat(isCold(hotId)).isFalse();
+        assertThat(restTemplate.getForEntity("/files/memory/" + hotId, byte[].class).getBody()).isEqualTo(hot);
+
+        // Promoted and deleted blobs leave their cold copy for the next pass to remove.
+        assertThat(COLD_DIR.resolve(".blob-" + blobId(hotId))).exists();
+        fileTieringService.rebalance();
+        assertThat(doomedCopy).doesNotExist();
+        assertThat(restTemplate.getForEntity("/files/memory/" + doomedId, byte[].class).getStatusCode())
+                .isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
+    private Long blobId(String fileId) {
+        return jdbcTemplate.queryForObject("SELECT blob_id FROM stored_file WHERE id = ?", Long.class,
+                Long.valueOf(fileId));
+    }
+
+    private boolean isCold(String fileId) {
+        return jdbcTemplate.queryForObject(
+                "SELECT b.cold FROM stored_file f JOIN stored_file_blob b ON b.id = f.blob_id WHERE f.id = ?",
+                Boolean.class, Long.valueOf(fileId));
+    }
+
+    private String upload(String filename, byte[] content) {
+        MultiValueMap<String, Object> parts = new LinkedMultiValueMap<>();
+        parts.add("file", new ByteArrayResource(content) {
+            @Override
+            public String getFilename() {
+                return filename;
+            }
+        });
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.MULTIPART_FORM_DATA);
+        ResponseEntity<String> stored = restTemplate.postForEntity("/files/memory/save",
+                new HttpEntity<>(parts, headers), String.class);
+        assertThat(stored.getStatusCode()).isEqualTo(HttpStatus.OK);
+        return stored.getBody().substring(stored.getBody().lastIndexOf(' ') + 1);
+    }
+
+    private static byte[] random(int size, long seed) {
+        byte[] bytes = new byte[size];
+        new Random(seed).nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,186 @@
+package com.mandrel.file_storage_service.integration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Resumable uploads over real connections: parts of one file are sent in
+ * parallel, and the assembled file is larger than the multipart limit.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.servlet.multipart.max-file-size=1MB",
+        "spring.servlet.multipart.max-request-size=1MB",
+        "file-storage.upload-sessions.directory=target/upload-sessions",
+        "file-storage.upload-sessions.max-part-size=1MB" })
+class UploadSessionIntegrationTest {
+
+    private static final int PART_SIZE = 512 * 1024;
+    private static final ParameterizedTypeReference<Map<String, Object>> JSON =
+            new ParameterizedTypeReference<>() {
+            };
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @AfterEach
+    void cleanup() throws Exception {
+        for (Path root : List.of(Path.of("uploaded-files"), Path.of("target/upload-sessions"))) {
+            if (Files.exists(root)) {
+                try (Stream<Path> paths = Files.walk(root)) {
+                    paths.sorted(Comparator.reverseOrder()).forEach(p -> {
+                        try {
+                            Files.deleteIfExists(p);
+                        } catch (Exception ignored) {
+                        }
+                    });
+                }
+            }
+        }
+    }
+
+    @Test
+    void local_file_is_assembled_from_parallel_parts() throws Exception {
+        byte[] payload = payload(5 * PART_SIZE + 1234);
+        String session = createSession("local", "parallel.bin", null, payload.length);
+
+        uploadInParallel("local", session, payload);
+
+        ResponseEntity<Map<String, Object>> completed = restTemplate.exchange(
+                "/files/local/uploads/" + session + "/complete", HttpMethod.POST, null, JSON);
+        assertThat(completed.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(((Number) completed.getBody().get("size")).longValue()).isEqualTo(payload.length);
+
+        ResponseEntity<byte[]> download = restTemplate.getForEntity("/files/local/parallel.bin", byte[].class);
+        assertThat(download.getBody()).isEqualTo(payload);
+        assertThat(restTemplate.getForEntity("/files/local/uploads/" + session, String.class).getStatusCode())
+                .isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
+    @Test
+    void memory_upload_resumes_after_a_missing_part() throws Exception {
+        byte[] payload = payload(3 * PART_SIZE);
+        String session = createSession("memory", "resumed.bin", MediaType.APPLICATION_OCTET_STREAM_VALUE,
+                payload.length);
+        putPart("memory", session, 1, Arrays.copyOfRange(payload, 0, PART_SIZE));
+
+        ResponseEntity<String> early = restTemplate.postForEntity("/files/memory/uploads/" + session + "/complete",
+                null, String.class);
+        assertThat(early.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+        assertThat(early.getBody()).isEqualTo("Expected " + payload.length + " bytes, received " + PART_SIZE);
+
+        putPart("memory", session, 3, Arrays.copyOfRange(payload, 2 * PART_SIZE, 3 * PART_SIZE));
+
+        ResponseEntity<String> gap = restTemplate.postForEntity("/files/memory/uploads/" + session + "/complete",
+                null, String.class);
+        assertThat(gap.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+        assertThat(gap.getBody()).isEqualTo("Missing parts: [2]");
+
+        ResponseEntity<Map<String, Object>> state = restTemplate.exchange("/files/memory/uploads/" + session,
+                HttpMethod.GET, null, JSON);
+        assertThat(((Number) state.getBody().get("receivedBytes")).longValue()).isEqualTo(2L * PART_SIZE);
+
+        putPart("memory", session, 2, Arrays.copyOfRange(payload, PART_SIZE, 2 * PART_SIZE));
+        ResponseEntity<Map<String, Object>> completed = restTemplate.exchange(
+                "/files/memory/uploads/" + session + "/complete", HttpMethod.POST, null, JSON);
+        assertThat(completed.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+        ResponseEntity<byte[]> download = restTemplate.getForEntity("/files/memory/" + completed.getBody().get("id"),
+                byte[].class);
+        assertThat(download.getBody()).isEqualTo(payload);
+    }
+
+    @Test
+    void oversized_parts_and_unknown_sessions_are_rejected() {
+        String session = createSession("local", "limits.bin", null, 4L * 1024 * 1024);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
+        ResponseEntity<String> tooLarge = restTemplate.exchange("/files/local/uploads/" + session + "/parts/1",
+                HttpMethod.PUT, new HttpEntity<>(new byte[1024 * 1024 + 1], headers), String.class);
+        assertThat(tooLarge.getStatusCode()).isEqualTo(HttpStatus.PAYLOAD_TOO_LARGE);
+
+        assertThat(restTemplate.exchange("/files/memory/uploads/" + session + "/parts/1", HttpMethod.PUT,
+                new HttpEntity<>(new byte[1], headers), String.class).getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        assertThat(restTemplate.postForEntity("/files/local/uploads?filename=.index&size=1", null, String.class)
+                .getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(restTemplate.postForEntity("/files/memory/uploads?filename=huge.bin&size=" + (1L << 40)
+                + "&contentType=application/octet-stream", null, String.class).getStatusCode())
+                .isEqualTo(HttpStatus.PAYLOAD_TOO_LARGE);
+
+        restTemplate.delete("/files/local/uploads/" + session);
+        assertThat(restTemplate.getForEntity("/files/local/uploads/" + session, String.class).getStatusCode())
+                .isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
+    private String createSession(String backend, String filename, String contentType, long size) {
+        String uri = "/files/" + backend + "/uploads?filename=" + filename + "&size=" + size
+                + (contentType == null ? "" : "&contentType=" + contentType);
+        ResponseEntity<Map<String, Object>> created = restTemplate.exchange(uri, HttpMethod.POST, null, JSON);
+        assertThat(created.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        String id = (String) created.getBody().get("id");
+        assertThat(created.getHeaders().getLocation()).hasPath("/files/" + backend + "/uploads/" + id);
+        return id;
+    }
+
+    private void uploadInParallel(String backend, String session, byte[] payload) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> sent = new ArrayList<>();
+            int parts = (payload.length + PART_SIZE - 1) / PART_SIZE;
+            // Last part first, to show order of arrival does not matter.
+            for (int n = parts; n >= 1; n--) {
+                int part = n;
+                byte[] chunk = Arrays.copyOfRange(payload, (part - 1) * PART_SIZE,
+                        Math.min(payload.length, part * PART_SIZE));
+                sent.add(pool.submit(() -> putPart(backend, session, part, chunk)));
+            }
+            for (Future<?> f : sent) {
+                f.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private void putPart(String backend, String session, int part, byte[] chunk) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
+        ResponseEntity<Map<String, Object>> response = restTemplate.exchange(
+                "/files/" + backend + "/uploads/" + session + "/parts/" + part, HttpMethod.PUT,
+                new HttpEntity<>(chunk, headers), JSON);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(((Number) response.getBody().get("size")).intValue()).isEqualTo(chunk.length);
+    }
+
+    private static byte[] payload(int size) {
+        byte[] payload = new byte[size];
+        for (int i = 0; i < payload.length; i++) {
+            payload[i] = (byte) (i * 31 % 253);
+        }
+        return payload;
+    }
+}
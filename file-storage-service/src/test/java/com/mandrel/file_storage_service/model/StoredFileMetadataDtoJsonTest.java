@@ -0,0 +1,40 @@
+package com.mandrel.file_storage_service.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.json.JsonTest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@JsonTest
+class StoredFileMetadataDtoJsonTest {
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void serialize_shouldExposeMetadataWithoutContent() throws Exception {
+        StoredFileMetadataDto dto = StoredFileMetadataDto.builder()
+                .id(42L)
+                .filename("report.pdf")
+                .contentType("application/pdf")
+                .size(3L)
+                .uploadDate(LocalDateTime.of(2023, 1, 2, 3, 4, 5))
+                .checksum("039058c6f2c0cb492c533b0a4d14ef77cc0f78abccced5287d84a1a2011cfb81")
+                .build();
+
+        JsonNode node = objectMapper.readTree(objectMapper.writeValueAsString(dto));
+
+        assertThat(node.get("id").asLong()).isEqualTo(42L);
+        assertThat(node.get("filename").asText()).isEqualTo("report.pdf");
+        assertThat(node.get("size").asLong()).isEqualTo(3L);
+        assertThat(node.get("uploadDate").asText()).isEqualTo("2023-01-02T03:04:05");
+        assertThat(node.get("checksum").asText()).hasSize(64);
+        assertThat(node.has("content")).isFalse();
+    }
+}
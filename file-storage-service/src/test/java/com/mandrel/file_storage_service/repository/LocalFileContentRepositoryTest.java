@@ -0,0 +1,149 @@
+package com.mandrel.file_storage_service.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.mandrel.file_storage_service.model.LocalFileDurability;
+
+class LocalFileContentRepositoryTest {
+
+    @TempDir
+    Path root;
+
+    @Test
+    void write_shouldReplaceDestinationAndLeaveNoTemporaryFile() throws IOException {
+        LocalFileContentRepository repository = new LocalFileContentRepository(LocalFileDurability.FSYNC, Duration.ZERO);
+        Path destination = root.resolve("f.bin");
+        Files.write(destination, "old content".getBytes());
+
+        long size = repository.write(destination, new ByteArrayInputStream("new".getBytes()));
+
+        assertThat(size).isEqualTo(3);
+        assertThat(Files.readAllBytes(destination)).isEqualTo("new".getBytes());
+        try (var entries = Files.list(root)) {
+            assertThat(entries).containsExactly(destination);
+        }
+    }
+
+    @Test
+    void write_failingMidStream_shouldKeepPreviousFileIntact() throws IOException {
+        LocalFileContentRepository repository = new LocalFileContentRepository(LocalFileDurability.NONE, Duration.ZERO);
+        Path destination = root.resolve("f.bin");
+        Files.write(destination, "intact".getBytes());
+        InputStream broken = new InputStream() {
+            private int served;
+
+            @Override
+            public int read() throws IOException {
+                if (served++ < 100) {
+                    return 'x';
+                }
+                throw new IOException("connection reset");
+            }
+        };
+
+        try {
+            repository.write(destination, broken);
+        } catch (IOException expected) {
+            // the client went away
+        }
+
+        assertThat(Files.readAllBytes(destination)).isEqualTo("intact".getBytes());
+        try (var entries = Files.list(root)) {
+            assertThat(entries).containsExactly(destination);
+        }
+    }
+
+    @Test
+    void groupMode_shouldReleaseConcurrentWritersAfterSharedFlush() throws Exception {
+        LocalFileContentRepository repository = new LocalFileContentRepository(LocalFileDurability.GROUP,
+                Duration.ofMillis(5));
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Long>> writes = new ArrayList<>();
+            for (int i = 0; i < 32; i++) {
+                Path destination = root.resolve("g" + i + ".bin");
+                byte[] data = new byte[i + 1];
+                writes.add(pool.submit(() -> repository.write(destination, new ByteArrayInputStream(data))));
+            }
+            for (int i = 0; i < writes.size(); i++) {
+                assertThat(writes.get(i).get()).isEqualTo(i + 1L);
+            }
+        } finally {
+            pool.shutdownNow();
+            repository.shutdown();
+        }
+        try (var entries = Files.list(root)) {
+            assertThat(entries).hasSize(32);
+        }
+    }
+
+    @Test
+    void groupMode_commitShouldWaitForTheDirectorySync() throws Exception {
+        LocalFileContentRepository repository = new LocalFileContentRepository(LocalFileDurability.GROUP,
+                Duration.ofHours(1));
+        Path destination = root.resolve("renamed.bin");
+        Path temp = repository.createTemporary(destination);
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> commit = pool.submit(() -> {
+                repository.commit(temp, destination);
+                return null;
+            });
+
+            // Renamed, but not durable until the next group flush.
+            Thread.sleep(100);
+            assertThat(destination).exists();
+            assertThat(commit).isNotDone();
+
+            repository.shutdown();
+            commit.get(5, TimeUnit.SECONDS);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void groupMode_afterShutdown_shouldSyncInlineInsteadOfParking() throws Exception {
+        LocalFileContentRepository repository = new LocalFileContentRepository(LocalFileDurability.GROUP,
+                Duration.ofHours(1));
+        repository.shutdown();
+        Path destination = root.resolve("late.bin");
+
+        // No flusher is left to release a parked writer, so these must not wait.
+        assertThat(repository.write(destination, new ByteArrayInputStream("late".getBytes()))).isEqualTo(4);
+        Path temp = repository.createTemporary(root.resolve("later.bin"));
+        repository.commit(temp, root.resolve("later.bin"));
+
+        assertThat(Files.readAllBytes(destination)).isEqualTo("late".getBytes());
+        assertThat(root.resolve("later.bin")).exists();
+    }
+
+    @Test
+    void deleteAbandonedWrites_shouldRemoveOnlyTemporaryFiles() throws IOException {
+        LocalFileContentRepository repository = new LocalFileContentRepository(LocalFileDurability.NONE, Duration.ZERO);
+        Files.createDirectories(root.resolve("ab/cd"));
+        Files.write(root.resolve("ab/cd/.upload-1.tmp"), new byte[] {1});
+        Files.write(root.resolve(".upload-2.tmp"), new byte[] {1});
+        Files.write(root.resolve("keep.txt"), new byte[] {1});
+
+        assertThat(repository.deleteAbandonedWrites(root, 3)).isEqualTo(2);
+        assertThat(root.resolve("keep.txt")).exists();
+        assertThat(root.resolve("ab/cd/.upload-1.tmp")).doesNotExist();
+    }
+}
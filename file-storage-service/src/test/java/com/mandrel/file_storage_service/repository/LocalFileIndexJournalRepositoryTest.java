@@ -0,0 +1,90 @@
+package com.mandrel.file_storage_service.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.mandrel.file_storage_service.model.StoredFileMetadataDto;
+
+class LocalFileIndexJournalRepositoryTest {
+
+    private final LocalFileIndexJournalRepository journal = new LocalFileIndexJournalRepository();
+
+    @TempDir
+    Path root;
+
+    private static StoredFileMetadataDto file(String name, long size) {
+        return StoredFileMetadataDto.builder()
+                .filename(name)
+                .size(size)
+                .contentType("text/plain")
+                .checksum("c-" + name)
+                .uploadDate(LocalDateTime.of(2024, 1, 2, 3, 4, 5))
+                .build();
+    }
+
+    @Test
+    void load_withoutJournal_shouldBeEmpty() {
+        assertThat(journal.load(root)).isEmpty();
+    }
+
+    @Test
+    void load_shouldReplayPutsAndRemovesInOrder() {
+        journal.appendPut(root, file("a b.txt", 1));
+        journal.appendPut(root, file("b.txt", 2));
+        journal.appendPut(root, file("a b.txt", 3));
+        journal.appendRemove(root, "b.txt");
+
+        Map<String, StoredFileMetadataDto> files = journal.load(root);
+
+        assertThat(files).containsOnlyKeys("a b.txt");
+        StoredFileMetadataDto a = files.get("a b.txt");
+        assertThat(a.getSize()).isEqualTo(3L);
+        assertThat(a.getContentType()).isEqualTo("text/plain");
+        assertThat(a.getChecksum()).isEqualTo("c-a b.txt");
+        assertThat(a.getUploadDate()).isEqualTo(LocalDateTime.of(2024, 1, 2, 3, 4, 5));
+    }
+
+    @Test
+    void replay_shouldRememberVersionsOfDeletedFiles() {
+        journal.appendPut(root, StoredFileMetadataDto.builder().filename("a.txt").size(1L).version(3L).build());
+        journal.appendPut(root, StoredFileMetadataDto.builder().filename("b.txt").size(1L).version(7L).build());
+        journal.appendRemove(root, "b.txt");
+
+        assertThat(journal.replay(root).getFiles()).containsOnlyKeys("a.txt");
+        assertThat(journal.replay(root).getHighestVersion()).isEqualTo(7);
+    }
+
+    @Test
+    void load_shouldSkipTornTrailingRecord() throws IOException {
+        journal.appendPut(root, file("ok.txt", 1));
+        Files.writeString(root.resolve(LocalFileIndexJournalRepository.INDEX_FILE_NAME), "P\tbroken\t12",
+                StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        assertThat(journal.load(root)).containsOnlyKeys("ok.txt");
+    }
+
+    @Test
+    void rewrite_shouldCompactToOneRecordPerFile() throws IOException {
+        for (int i = 0; i < 10; i++) {
+            journal.appendPut(root, file("x.txt", i));
+        }
+        journal.rewrite(root, List.of(file("x.txt", 9), file("y.txt", 1)), 42);
+
+        // One version record, then one record per file.
+        assertThat(Files.readAllLines(root.resolve(LocalFileIndexJournalRepository.INDEX_FILE_NAME))).hasSize(3);
+        assertThat(journal.load(root)).containsOnlyKeys("x.txt", "y.txt");
+        assertThat(journal.replay(root).getHighestVersion()).isEqualTo(42);
+        assertThat(root.resolve(LocalFileIndexJournalRepository.INDEX_FILE_NAME + ".tmp")).doesNotExist();
+    }
+}
@@ -0,0 +1,56 @@
+package com.mandrel.file_storage_service.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.mandrel.file_storage_service.model.FileCursor;
+import com.mandrel.file_storage_service.model.FileListQuery;
+import com.mandrel.file_storage_service.model.FilePage;
+import com.mandrel.file_storage_service.model.FileSortField;
+import com.mandrel.file_storage_service.model.StoredFileMetadataDto;
+
+class LocalFileIndexRepositoryTest {
+
+    private final LocalFileIndexRepository index = new LocalFileIndexRepository();
+    private final LocalDateTime base = LocalDateTime.of(2024, 5, 1, 12, 0);
+
+    private StoredFileMetadataDto file(String name, long size, int minute) {
+        return StoredFileMetadataDto.builder()
+                .filename(name)
+                .contentType("text/plain")
+                .size(size)
+                .uploadDate(base.plusMinutes(minute))
+                .build();
+    }
+
+    @Test
+    void findPage_bySizeDescending_shouldResumeAfterCursor() {
+        index.replaceAll(List.of(file("a", 5, 0), file("b", 7, 1), file("c", 5, 2), file("d", 9, 3)));
+
+        FilePage<StoredFileMetadataDto> first = index.findPage(FileListQuery.builder()
+                .sort(FileSortField.SIZE).descending(true).limit(2).build());
+        assertThat(first.getItems()).extracting(StoredFileMetadataDto::getFilename).containsExactly("d", "b");
+
+        FilePage<StoredFileMetadataDto> second = index.findPage(FileListQuery.builder()
+                .sort(FileSortField.SIZE).descending(true).limit(2)
+                .after(FileCursor.decode(first.getNextCursor())).build());
+        assertThat(second.getItems()).extracting(StoredFileMetadataDto::getFilename).containsExactly("c", "a");
+        assertThat(second.hasNext()).isFalse();
+    }
+
+    @Test
+    void put_existingFilename_shouldReplaceEntryInEverySortedView() {
+        index.put(file("a", 5, 0));
+        index.put(file("a", 50, 10));
+
+        FilePage<StoredFileMetadataDto> bySize = index.findPage(FileListQuery.builder()
+                .sort(FileSortField.SIZE).uploadedTo(base.plusMinutes(5)).build());
+        assertThat(bySize.getItems()).isEmpty();
+        assertThat(index.size()).isEqualTo(1);
+        assertThat(index.find("a")).get().extracting(StoredFileMetadataDto::getSize).isEqualTo(50L);
+    }
+}
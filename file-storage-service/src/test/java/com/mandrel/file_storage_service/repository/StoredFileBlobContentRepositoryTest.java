@@ -0,0 +1,175 @@
+package com.mandrel.file_storage_service.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureJdbc;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import com.mandrel.file_storage_service.model.BlobWriteResult;
+import com.mandrel.file_storage_service.model.StoredFileBlob;
+import org.springframework.core.io.Resource;
+
+@DataJpaTest
+@AutoConfigureJdbc
+@Import({StoredFileBlobContentRepository.class, ColdBlobRepository.class, LocalFileContentRepository.class})
+class StoredFileBlobContentRepositoryTest {
+
+    @Autowired
+    private StoredFileBlobContentRepository contentRepository;
+
+    @Autowired
+    private StoredFileBlobRepository blobRepository;
+
+    @Autowired
+    private ColdBlobRepository coldBlobRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @AfterEach
+    void cleanup() throws IOException {
+        Path root = Path.of("uploaded-files");
+        if (Files.exists(root)) {
+            try (Stream<Path> paths = Files.walk(root)) {
+                for (Path p : paths.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.deleteIfExists(p);
+                }
+            }
+        }
+    }
+
+    @Test
+    void insert_shouldStreamPayloadAndMeasureSizeAndChecksum() throws Exception {
+        byte[] payload = new byte[300_000];
+        for (int i = 0; i < payload.length; i++) {
+            payload[i] = (byte) (i % 251);
+        }
+
+        BlobWriteResult result = contentRepository.insert(new ByteArrayInputStream(payload));
+
+        assertThat(result.getSize()).isEqualTo(payload.length);
+        assertThat(result.getChecksum()).isEqualTo(
+                HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(payload)));
+        assertThat(blobRepository.findById(result.getId())).get()
+                .extracting(b -> b.getData()).isEqualTo(payload);
+    }
+
+    @Test
+    void openResource_shouldStreamPayloadBackWithDeclaredLength() throws Exception {
+        byte[] payload = new byte[200_000];
+        for (int i = 0; i < payload.length; i++) {
+            payload[i] = (byte) (i * 31);
+        }
+        BlobWriteResult written = contentRepository.insert(new ByteArrayInputStream(payload));
+
+        Resource resource = contentRepository.openResource(written.getId(), written.getSize());
+        assertThat(resource.contentLength()).isEqualTo(payload.length);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream in = resource.getInputStream()) {
+            assertThat(in.transferTo(out)).isEqualTo(payload.length);
+        }
+        assertThat(out.toByteArray()).isEqualTo(payload);
+    }
+
+    @Test
+    void openResource_skip_shouldReadOnlyTheRequestedTail() throws Exception {
+        byte[] payload = new byte[50_000];
+        for (int i = 0; i < payload.length; i++) {
+            payload[i] = (byte) (i % 97);
+        }
+        BlobWriteResult written = contentRepository.insert(new ByteArrayInputStream(payload));
+        Resource resource = contentRepository.openResource(written.getId(), written.getSize());
+
+        try (InputStream in = resource.getInputStream()) {
+            assertThat(in.skip(40_000)).isEqualTo(40_000);
+            assertThat(in.readNBytes(5)).isEqualTo(Arrays.copyOfRange(payload, 40_000, 40_005));
+        }
+        try (InputStream in = resource.getInputStream()) {
+            assertThat(in.skip(60_000)).isEqualTo(50_000);
+            assertThat(in.read()).isEqualTo(-1);
+        }
+    }
+
+    @Test
+    void insert_sameBytesTwice_shouldShareOneCountedRow() {
+        byte[] payload = "id,name\n1,alpha\n".getBytes();
+
+        BlobWriteResult first = contentRepository.insert(new ByteArrayInputStream(payload));
+        BlobWriteResult second = contentRepository.insert(new ByteArrayInputStream(payload));
+        BlobWriteResult other = contentRepository.insert(new ByteArrayInputStream(new byte[] {1, 2, 3}));
+
+        assertThat(first.isDeduplicated()).isFalse();
+        assertThat(second.isDeduplicated()).isTrue();
+        assertThat(second.getId()).isEqualTo(first.getId());
+        assertThat(second.getChecksum()).isEqualTo(first.getChecksum());
+        assertThat(other.getId()).isNotEqualTo(first.getId());
+        assertThat(blobRepository.count()).isEqualTo(2);
+        StoredFileBlob shared = blobRepository.findById(first.getId()).orElseThrow();
+        assertThat(shared.getRefCount()).isEqualTo(2);
+        assertThat(shared.getSize()).isEqualTo(payload.length);
+    }
+
+    @Test
+    void releaseReference_shouldDeleteOnlyAfterLastReference() {
+        BlobWriteResult written = contentRepository.insert(new ByteArrayInputStream(new byte[] {9, 9}));
+        contentRepository.insert(new ByteArrayInputStream(new byte[] {9, 9}));
+
+        blobRepository.releaseReference(written.getId());
+        assertThat(blobRepository.deleteIfUnreferenced(written.getId())).isZero();
+        blobRepository.releaseReference(written.getId());
+        assertThat(blobRepository.deleteIfUnreferenced(written.getId())).isEqualTo(1);
+    }
+
+    @Test
+    void markCold_and_restore_shouldMoveThePayloadBetweenTiersBehindOneResource() throws Exception {
+        byte[] payload = new byte[80_000];
+        for (int i = 0; i < payload.length; i++) {
+            payload[i] = (byte) (i % 89);
+        }
+        BlobWriteResult written = contentRepository.insert(new ByteArrayInputStream(payload));
+        Resource resource = contentRepository.openResource(written.getId(), written.getSize());
+        try (InputStream in = resource.getInputStream()) {
+            coldBlobRepository.write(written.getId(), in);
+        }
+
+        assertThat(contentRepository.markCold(written.getId())).isTrue();
+        assertThat(contentRepository.markCold(written.getId())).isFalse();
+        StoredFileBlob cold = blobRepository.findById(written.getId()).orElseThrow();
+        assertThat(cold.isCold()).isTrue();
+        assertThat(cold.getData()).isEmpty();
+        try (InputStream in = resource.getInputStream()) {
+            assertThat(in.skip(70_000)).isEqualTo(70_000);
+            assertThat(in.readAllBytes()).isEqualTo(Arrays.copyOfRange(payload, 70_000, payload.length));
+        }
+
+        try (InputStream in = coldBlobRepository.open(written.getId())) {
+            assertThat(contentRepository.restore(written.getId(), in, written.getSize())).isTrue();
+        }
+        coldBlobRepository.delete(written.getId());
+        entityManager.clear();
+        assertThat(blobRepository.findById(written.getId())).get()
+                .extracting(b -> b.isCold(), b -> b.getData())
+                .containsExactly(false, payload);
+        try (InputStream in = resource.getInputStream()) {
+            assertThat(in.readAllBytes()).isEqualTo(payload);
+        }
+    }
+}
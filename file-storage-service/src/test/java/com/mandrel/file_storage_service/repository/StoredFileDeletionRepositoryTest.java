@@ -0,0 +1,88 @@
+package com.mandrel.file_storage_service.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import com.mandrel.file_storage_service.model.FileListQuery;
+import com.mandrel.file_storage_service.model.StoredFile;
+import com.mandrel.file_storage_service.model.StoredFileBlob;
+
+import jakarta.persistence.EntityManager;
+
+@DataJpaTest
+@Import(StoredFileDeletionRepository.class)
+class StoredFileDeletionRepositoryTest {
+
+    @Autowired
+    private StoredFileRepository repository;
+
+    @Autowired
+    private StoredFileBlobRepository blobRepository;
+
+    @Autowired
+    private StoredFileDeletionRepository deletionRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private final LocalDateTime base = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    @Test
+    void deleteMatching_filter_shouldRemoveRowsAcrossChunksAndReleaseSharedBlobs() {
+        StoredFileBlob shared = blob(0);
+        StoredFileBlob kept = blob(1);
+        int files = StoredFileDeletionRepository.CHUNK_SIZE + 500;
+        List<StoredFile> batch = new ArrayList<>();
+        for (int i = 0; i < files; i++) {
+            batch.add(new StoredFile(null, "old" + i + ".csv", "text/csv", 1L, base.plusSeconds(i), shared));
+        }
+        batch.add(new StoredFile(null, "new.csv", "text/csv", 1L, base.plusDays(30), shared));
+        batch.add(new StoredFile(null, "old.png", "image/png", 1L, base, kept));
+        repository.saveAll(batch);
+        setRefCount(shared, files + 1);
+        repository.flush();
+        entityManager.clear();
+
+        List<Long> deleted = deletionRepository.deleteMatching(null, FileListQuery.builder()
+                .contentType("text/*").uploadedTo(base.plusDays(1)).build());
+        entityManager.clear();
+
+        assertThat(deleted).hasSize(files);
+        assertThat(repository.count()).isEqualTo(2);
+        assertThat(blobRepository.findById(shared.getId())).get()
+                .extracting(StoredFileBlob::getRefCount).isEqualTo(1);
+    }
+
+    @Test
+    void deleteMatching_ids_shouldDropBlobWithLastReference() {
+        StoredFileBlob blob = blob(2);
+        StoredFile a = repository.save(new StoredFile(null, "a", "text/plain", 1L, base, blob));
+        StoredFile b = repository.save(new StoredFile(null, "b", "text/plain", 1L, base, blob));
+        setRefCount(blob, 2);
+        repository.flush();
+        entityManager.clear();
+
+        assertThat(deletionRepository.deleteMatching(List.of(a.getId(), b.getId(), -1L), FileListQuery.builder().build()))
+                .containsExactlyInAnyOrder(a.getId(), b.getId());
+        entityManager.clear();
+
+        assertThat(blobRepository.findById(blob.getId())).isEmpty();
+    }
+
+    private StoredFileBlob blob(int seed) {
+        return blobRepository.save(new StoredFileBlob(new byte[] {(byte) seed}));
+    }
+
+    private void setRefCount(StoredFileBlob blob, int refCount) {
+        blob.setRefCount(refCount);
+        blobRepository.save(blob);
+    }
+}
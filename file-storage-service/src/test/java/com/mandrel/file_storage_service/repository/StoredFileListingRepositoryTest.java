@@ -0,0 +1,132 @@
+package com.mandrel.file_storage_service.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import com.mandrel.file_storage_service.model.FileCursor;
+import com.mandrel.file_storage_service.model.FileListQuery;
+import com.mandrel.file_storage_service.model.FilePage;
+import com.mandrel.file_storage_service.model.FileSortField;
+import com.mandrel.file_storage_service.model.StoredFile;
+import com.mandrel.file_storage_service.model.StoredFileBlob;
+import com.mandrel.file_storage_service.model.StoredFileMetadataDto;
+
+@DataJpaTest
+@Import(StoredFileListingRepository.class)
+class StoredFileListingRepositoryTest {
+
+    @Autowired
+    private StoredFileRepository repository;
+
+    @Autowired
+    private StoredFileBlobRepository blobRepository;
+
+    @Autowired
+    private StoredFileListingRepository listingRepository;
+
+    private final LocalDateTime base = LocalDateTime.of(2024, 5, 1, 12, 0);
+
+    @BeforeEach
+    void seed() {
+        // Sizes repeat so the id tie-breaker is exercised.
+        long[] sizes = {30, 10, 20, 10, 30, 20, 10};
+        StoredFileBlob blob = blobRepository.save(new StoredFileBlob(new byte[] {1}));
+        for (int i = 0; i < sizes.length; i++) {
+            String type = i % 2 == 0 ? "text/plain" : "image/png";
+            repository.save(new StoredFile(null, "f" + i + ".bin", type, sizes[i], base.plusMinutes(i), blob));
+        }
+    }
+
+    @Test
+    void findPage_bySize_shouldWalkAllRowsInOrderWithoutDuplicates() {
+        List<Long> sizes = new ArrayList<>();
+        List<Long> ids = new ArrayList<>();
+        FileCursor cursor = null;
+        do {
+            FilePage<StoredFileMetadataDto> page = listingRepository.findPage(FileListQuery.builder()
+                    .sort(FileSortField.SIZE).after(cursor).limit(3).build());
+            page.getItems().forEach(f -> {
+                sizes.add(f.getSize());
+                ids.add(f.getId());
+            });
+            cursor = page.hasNext() ? FileCursor.decode(page.getNextCursor()) : null;
+        } while (cursor != null);
+
+        assertThat(sizes).containsExactly(10L, 10L, 10L, 20L, 20L, 30L, 30L);
+        assertThat(ids).doesNotHaveDuplicates().hasSize(7);
+    }
+
+    @Test
+    void findPage_byUploadDateDescending_withFilters_shouldApplyBoth() {
+        FilePage<StoredFileMetadataDto> page = listingRepository.findPage(FileListQuery.builder()
+                .sort(FileSortField.UPLOAD_DATE)
+                .descending(true)
+                .contentType("text/*")
+                .minSize(20L)
+                .uploadedFrom(base.plusMinutes(1))
+                .limit(10)
+                .build());
+
+        assertThat(page.getItems()).extracting(StoredFileMetadataDto::getFilename)
+                .containsExactly("f4.bin", "f2.bin");
+        assertThat(page.hasNext()).isFalse();
+    }
+
+    @Test
+    void findPage_byContentTypePrefix_shouldMatchWildcardCharactersLiterally() {
+        StoredFileBlob blob = blobRepository.save(new StoredFileBlob(new byte[] {1}));
+        repository.save(new StoredFile(null, "x.bin", "x_y/a", 1L, base, blob));
+        repository.save(new StoredFile(null, "y.bin", "xzy/a", 1L, base, blob));
+        repository.save(new StoredFile(null, "z.bin", "z\\y/a", 1L, base, blob));
+
+        assertThat(listingRepository.findPage(FileListQuery.builder().contentType("x_y/*").limit(10).build())
+                .getItems()).extracting(StoredFileMetadataDto::getFilename).containsExactly("x.bin");
+        assertThat(listingRepository.findPage(FileListQuery.builder().contentType("%/*").limit(10).build())
+                .getItems()).isEmpty();
+        assertThat(listingRepository.findPage(FileListQuery.builder().contentType("z\\y/*").limit(10).build())
+                .getItems()).extracting(StoredFileMetadataDto::getFilename).containsExactly("z.bin");
+    }
+
+    @Test
+    void findPage_byContentType_shouldIgnoreCaseLikeTheInMemoryIndex() {
+        StoredFileBlob blob = blobRepository.save(new StoredFileBlob(new byte[] {1}));
+        repository.save(new StoredFile(null, "upper.txt", "TEXT/Plain", 1L, base, blob));
+        LocalFileIndexRepository index = new LocalFileIndexRepository();
+        index.replaceAll(repository.findAllMetadata());
+
+        for (String type : List.of("text/plain", "Text/PLAIN", "TEXT/*", "text/*", "Image/PNG", "IMAGE/*")) {
+            FileListQuery query = FileListQuery.builder()
+                    .sort(FileSortField.SIZE).contentType(type).limit(20).build();
+            List<String> jpa = listingRepository.findPage(query).getItems().stream()
+                    .map(StoredFileMetadataDto::getFilename).sorted().toList();
+            List<String> local = index.findPage(query).getItems().stream()
+                    .map(StoredFileMetadataDto::getFilename).sorted().toList();
+
+            assertThat(jpa).as(type).isEqualTo(local).hasSize(type.toLowerCase().startsWith("text") ? 5 : 3);
+        }
+    }
+
+    @Test
+    void findMatching_shouldIntersectIdsWithTheFilterInIdOrder() {
+        List<Long> all = repository.findAllMetadata().stream().map(StoredFileMetadataDto::getId).sorted().toList();
+        List<Long> requested = List.of(all.get(5), all.get(1), all.get(0), all.get(3), -1L);
+
+        List<StoredFileMetadataDto> matches = listingRepository.findMatching(requested,
+                FileListQuery.builder().contentType("image/png").build(), 10);
+
+        assertThat(matches).extracting(StoredFileMetadataDto::getFilename)
+                .containsExactly("f1.bin", "f3.bin", "f5.bin");
+        assertThat(listingRepository.findMatching(null, FileListQuery.builder().maxSize(10L).build(), 2))
+                .extracting(StoredFileMetadataDto::getFilename)
+                .containsExactly("f1.bin", "f3.bin");
+    }
+}
@@ -7,8 +7,10 @@ import java.time.LocalDateTime;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 
 import com.mandrel.file_storage_service.model.StoredFile;
+import com.mandrel.file_storage_service.model.StoredFileBlob;
 
 @DataJpaTest
 class StoredFileRepositoryTest {
@@ -16,15 +18,56 @@ class StoredFileRepositoryTest {
     @Autowired
     private StoredFileRepository repository;
 
+    @Autowired
+    private StoredFileBlobRepository blobRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
     @Test
     void save_and_findAllMetadata_shouldReturnDtoWithFields() {
         byte[] content = new byte[] {1,2,3};
-        StoredFile entity = new StoredFile(null, "a.txt", "text/plain", 3L, LocalDateTime.now(), content);
+        StoredFileBlob blob = blobRepository.save(new StoredFileBlob(content));
+        StoredFile entity = new StoredFile(null, "a.txt", "text/plain", 3L, LocalDateTime.now(), blob);
+        entity.setChecksum("abc123");
         repository.save(entity);
 
         var dtos = repository.findAllMetadata();
         assertThat(dtos).hasSize(1);
         assertThat(dtos.get(0).getFilename()).isEqualTo("a.txt");
-        assertThat(dtos.get(0).getContent()).isNotNull();
+        assertThat(dtos.get(0).getSize()).isEqualTo(3L);
+        assertThat(dtos.get(0).getChecksum()).isEqualTo("abc123");
+    }
+
+    @Test
+    void findById_shouldNotLoadBlobUntilAccessed() {
+        StoredFileBlob blob = blobRepository.save(new StoredFileBlob(new byte[] {4, 5, 6}));
+        Long id = repository.save(new StoredFile(null, "b.bin", "application/octet-stream", 3L,
+                LocalDateTime.now(), blob)).getId();
+        entityManager.flush();
+        entityManager.clear();
+
+        StoredFile loaded = repository.findById(id).orElseThrow();
+        var util = entityManager.getEntityManager().getEntityManagerFactory().getPersistenceUnitUtil();
+        assertThat(util.isLoaded(loaded, "blob")).isFalse();
+        assertThat(loaded.getBlob().getId()).isEqualTo(blob.getId());
+        assertThat(util.isLoaded(loaded.getBlob())).isFalse();
+
+        assertThat(loaded.getBlob().getData()).containsExactly(4, 5, 6);
+    }
+
+    @Test
+    void findMetadataById_and_deleteBlobById_shouldNotTouchPayload() {
+        StoredFileBlob blob = blobRepository.save(new StoredFileBlob(new byte[] {7}));
+        Long id = repository.save(new StoredFile(null, "c.bin", "application/octet-stream", 1L,
+                LocalDateTime.now(), blob)).getId();
+
+        assertThat(repository.findMetadataById(id)).get()
+                .extracting(m -> m.getFilename()).isEqualTo("c.bin");
+
+        repository.deleteById(id);
+        repository.flush();
+        assertThat(blobRepository.deleteBlobById(blob.getId())).isEqualTo(1);
+        assertThat(blobRepository.existsById(blob.getId())).isFalse();
     }
 }
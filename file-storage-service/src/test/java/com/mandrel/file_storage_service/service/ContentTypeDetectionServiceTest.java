@@ -0,0 +1,80 @@
+package com.mandrel.file_storage_service.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+class ContentTypeDetectionServiceTest {
+
+    private final ContentTypeDetectionService service = new ContentTypeDetectionService();
+
+    private String detect(String filename, String declared, byte[] head) {
+        return service.detect(filename, declared, head, head.length);
+    }
+
+    private static byte[] text(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void magicBytes_shouldWinOverNameAndDeclaredType() {
+        byte[] png = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n', 0, 0};
+        assertThat(detect("photo.jpg", "text/plain", png)).isEqualTo("image/png");
+        assertThat(detect("doc", null, text("%PDF-1.7\n"))).isEqualTo("application/pdf");
+        assertThat(detect("a.bin", null, new byte[] {'R', 'I', 'F', 'F', 1, 2, 3, 4, 'W', 'E', 'B', 'P'}))
+                .isEqualTo("image/webp");
+        assertThat(detect("a.bin", null, new byte[] {'R', 'I', 'F', 'F', 1, 2, 0, 0, 'W', 'A', 'V', 'E'}))
+                .isEqualTo("application/octet-stream");
+    }
+
+    @Test
+    void shortMagic_shouldNeedItsHeaderFields() {
+        assertThat(detect("data.csv", "text/csv", text("BMI,weight\n22.5,70\n"))).isEqualTo("text/csv");
+        assertThat(detect("tags.txt", null, text("ID3 tags and BZh notes"))).isEqualTo("text/plain");
+        byte[] bmp = new byte[32];
+        bmp[0] = 'B';
+        bmp[1] = 'M';
+        bmp[14] = 40;
+        assertThat(detect("upload", "text/csv", bmp)).isEqualTo("image/bmp");
+    }
+
+    @Test
+    void containerSignature_shouldKeepMoreSpecificDeclaredOrNamedType() {
+        byte[] zip = {'P', 'K', 3, 4, 20, 0, 0, 0};
+        String docx = "application/vnd.openxmlformats-officedocument.wordprocessingml.document";
+        assertThat(detect("report.docx", docx, zip)).isEqualTo(docx);
+        assertThat(detect("app.jar", null, zip)).isEqualTo("application/java-archive");
+        assertThat(detect("upload", "text/plain", zip)).isEqualTo("application/zip");
+        assertThat(detect("upload", null, zip)).isEqualTo("application/zip");
+
+        byte[] mov = {0, 0, 0, 20, 'f', 't', 'y', 'p', 'q', 't', ' ', ' ', 0, 0, 0, 0};
+        byte[] isom = {0, 0, 0, 20, 'f', 't', 'y', 'p', 'i', 's', 'o', 'm', 0, 0, 0, 0};
+        assertThat(detect("clip", null, mov)).isEqualTo("video/quicktime");
+        assertThat(detect("photo", "image/heif", isom)).isEqualTo("image/heif");
+        assertThat(detect("clip", null, isom)).isEqualTo("video/mp4");
+    }
+
+    @Test
+    void specificDeclaredType_shouldWinOverExtension() {
+        assertThat(detect("data.txt", "application/json", text("{\"a\":1}"))).isEqualTo("application/json");
+        assertThat(detect("data.csv", "application/octet-stream", text("a,b\n1,2\n"))).isEqualTo("text/csv");
+        assertThat(detect("data.csv", "*/*", text("a,b\n"))).isEqualTo("text/csv");
+    }
+
+    @Test
+    void text_withoutKnownExtension_shouldBePlainTextOrSvg() {
+        assertThat(detect("README", null, text("héllo wörld"))).isEqualTo("text/plain");
+        assertThat(detect("logo", null, text("<?xml version=\"1.0\"?><svg xmlns=\"...\"/>"))).isEqualTo("image/svg+xml");
+        assertThat(detect("notes.png", null, text("not really an image"))).isEqualTo("text/plain");
+    }
+
+    @Test
+    void binary_withoutSignature_shouldFallBackToExtensionThenOctetStream() {
+        byte[] binary = {0, 1, 2, 3, (byte) 0xFE};
+        assertThat(detect("archive.tar", null, binary)).isEqualTo("application/x-tar");
+        assertThat(detect("blob", null, binary)).isEqualTo("application/octet-stream");
+        assertThat(detect("empty", null, new byte[0])).isEqualTo("application/octet-stream");
+    }
+}
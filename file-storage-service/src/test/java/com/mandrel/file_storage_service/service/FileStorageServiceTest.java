@@ -1,21 +1,45 @@
 package com.mandrel.file_storage_service.service;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
+import java.io.InputStream;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.util.unit.DataSize;
 
+import com.mandrel.file_storage_service.model.BlobWriteResult;
+import com.mandrel.file_storage_service.model.BulkDeleteRequest;
 import com.mandrel.file_storage_service.model.StoredFile;
+import com.mandrel.file_storage_service.model.StoredFileBlob;
+import com.mandrel.file_storage_service.model.StoredFileDeletedEvent;
+import com.mandrel.file_storage_service.model.StoredFileDownload;
 import com.mandrel.file_storage_service.model.StoredFileDto;
+import com.mandrel.file_storage_service.model.StoredFileMetadataDto;
+import com.mandrel.file_storage_service.model.StoredFileUpload;
+import com.mandrel.file_storage_service.repository.FileAccessRepository;
+import com.mandrel.file_storage_service.repository.StoredFileBlobContentRepository;
+import com.mandrel.file_storage_service.repository.StoredFileBlobRepository;
+import com.mandrel.file_storage_service.repository.StoredFileDeletionRepository;
+import com.mandrel.file_storage_service.repository.StoredFileListingRepository;
 import com.mandrel.file_storage_service.repository.StoredFileRepository;
 
 class FileStorageServiceTest {
@@ -23,12 +47,33 @@ class FileStorageServiceTest {
     @Mock
     private StoredFileRepository storedFileRepository;
 
-    @InjectMocks
+    @Mock
+    private StoredFileBlobRepository storedFileBlobRepository;
+
+    @Mock
+    private StoredFileBlobContentRepository storedFileBlobContentRepository;
+
+    @Mock
+    private StoredFileListingRepository storedFileListingRepository;
+
+    @Mock
+    private StoredFileDeletionRepository storedFileDeletionRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private final FileAccessRepository fileAccessRepository = new FileAccessRepository(Duration.ofHours(1));
+
+    private final CacheManager cacheManager = new ConcurrentMapCacheManager(FileStorageService.CONTENT_CACHE);
+
     private FileStorageService fileStorageService;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        fileStorageService = new FileStorageService(storedFileRepository, storedFileBlobRepository,
+                storedFileBlobContentRepository, storedFileListingRepository, storedFileDeletionRepository,
+                fileAccessRepository, cacheManager, DataSize.ofBytes(4), eventPublisher);
     }
 
     @Test
@@ -40,7 +85,12 @@ class FileStorageServiceTest {
                 .content(content)
                 .build();
 
-        StoredFile saved = new StoredFile(1L, "a.bin", "application/octet-stream", 3L, LocalDateTime.now(), content);
+        StoredFileBlob blob = new StoredFileBlob();
+        blob.setId(11L);
+        StoredFile saved = new StoredFile(1L, "a.bin", "application/octet-stream", 3L, LocalDateTime.now(), blob);
+        given(storedFileBlobContentRepository.insert(any(InputStream.class)))
+                .willReturn(new BlobWriteResult(11L, 3L, "cafe"));
+        given(storedFileBlobRepository.getReferenceById(11L)).willReturn(blob);
         given(storedFileRepository.save(any(StoredFile.class))).willReturn(saved);
 
         StoredFileDto result = fileStorageService.store(input);
@@ -51,6 +101,27 @@ class FileStorageServiceTest {
         assertThat(result.getContent()).isEqualTo(content);
     }
 
+    @Test
+    void store_fromStream_shouldRecordMeasuredSizeAndChecksum() {
+        StoredFileBlob blob = new StoredFileBlob();
+        blob.setId(12L);
+        given(storedFileBlobContentRepository.insert(any(InputStream.class)))
+                .willReturn(new BlobWriteResult(12L, 9L, "beef"));
+        given(storedFileBlobRepository.getReferenceById(12L)).willReturn(blob);
+        given(storedFileRepository.save(any(StoredFile.class))).willAnswer(inv -> {
+            StoredFile entity = inv.getArgument(0);
+            entity.setId(5L);
+            return entity;
+        });
+
+        StoredFileMetadataDto result = fileStorageService.store("s.txt", "text/plain",
+                new java.io.ByteArrayInputStream("streaming".getBytes()));
+
+        assertThat(result.getId()).isEqualTo(5L);
+        assertThat(result.getSize()).isEqualTo(9L);
+        assertThat(result.getChecksum()).isEqualTo("beef");
+    }
+
     @Test
     void listAll_shouldDelegateToRepository() {
         given(storedFileRepository.findAllMetadata()).willReturn(List.of());
@@ -60,7 +131,7 @@ class FileStorageServiceTest {
     @Test
     void getFileById_shouldReturnDtoWhenPresent() {
         byte[] content = new byte[] {1};
-        StoredFile entity = new StoredFile(2L, "b.txt", "text/plain", 1L, LocalDateTime.now(), content);
+        StoredFile entity = new StoredFile(2L, "b.txt", "text/plain", 1L, LocalDateTime.now(), new StoredFileBlob(content));
         given(storedFileRepository.findById(2L)).willReturn(Optional.of(entity));
 
         Optional<StoredFileDto> result = fileStorageService.getFileById(2L);
@@ -69,19 +140,192 @@ class FileStorageServiceTest {
     }
 
     @Test
-    void deleteById_shouldDeleteAndReturnTrueWhenExists() {
-        StoredFile entity = new StoredFile();
-        entity.setId(3L);
-        given(storedFileRepository.findById(3L)).willReturn(Optional.of(entity));
+    void getFileById_coldBlob_shouldReadContentFromColdTier() {
+        StoredFileBlob blob = new StoredFileBlob(new byte[0]);
+        blob.setId(24L);
+        blob.setCold(true);
+        StoredFile entity = new StoredFile(4L, "c.txt", "text/plain", 3L, LocalDateTime.now(), blob);
+        given(storedFileRepository.findById(4L)).willReturn(Optional.of(entity));
+        given(storedFileBlobContentRepository.openResource(24L, 3L)).willReturn(new ByteArrayResource(new byte[] {7, 8, 9}));
+
+        Optional<StoredFileDto> result = fileStorageService.getFileById(4L);
+
+        assertThat(result).isPresent();
+        assertThat(result.get().getContent()).containsExactly(7, 8, 9);
+    }
+
+    @Test
+    void openDownload_shouldResolveBlobWithoutReadingIt() {
+        StoredFileBlob blob = new StoredFileBlob();
+        blob.setId(20L);
+        StoredFile entity = new StoredFile(2L, "b.txt", "text/plain", 7L, LocalDateTime.now(), blob);
+        Resource resource = new ByteArrayResource(new byte[7]);
+        given(storedFileRepository.findById(2L)).willReturn(Optional.of(entity));
+        given(storedFileBlobContentRepository.openResource(20L, 7L)).willReturn(resource);
+
+        Optional<StoredFileDownload> result = fileStorageService.openDownload(2L);
+
+        assertThat(result).isPresent();
+        assertThat(result.get().getMetadata().getFilename()).isEqualTo("b.txt");
+        assertThat(result.get().getContent()).isSameAs(resource);
+    }
+
+    @Test
+    void deleteById_shouldDeleteDirectlyAndReleaseBlobReference() {
+        given(storedFileRepository.findBlobIdById(3L)).willReturn(Optional.of(30L));
+        given(storedFileRepository.deleteFileById(3L)).willReturn(1);
 
         boolean removed = fileStorageService.deleteById(3L);
         assertThat(removed).isTrue();
+        verify(storedFileRepository, never()).findById(any());
+        verify(storedFileBlobRepository).releaseReference(30L);
+        verify(storedFileBlobRepository).deleteIfUnreferenced(30L);
     }
 
     @Test
     void deleteById_shouldReturnFalseWhenMissing() {
-        given(storedFileRepository.findById(4L)).willReturn(Optional.empty());
+        given(storedFileRepository.findBlobIdById(4L)).willReturn(Optional.empty());
         boolean removed = fileStorageService.deleteById(4L);
         assertThat(removed).isFalse();
     }
+
+    @Test
+    void deleteById_lostRace_shouldNotReleaseReference() {
+        given(storedFileRepository.findBlobIdById(8L)).willReturn(Optional.of(80L));
+        given(storedFileRepository.deleteFileById(8L)).willReturn(0);
+
+        assertThat(fileStorageService.deleteById(8L)).isFalse();
+        verify(storedFileBlobRepository, never()).releaseReference(any());
+    }
+
+    @Test
+    void deleteMatching_shouldRequireIdsOrFilter() {
+        assertThatThrownBy(() -> fileStorageService.deleteMatching(new BulkDeleteRequest()))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void deleteMatching_shouldDelegateAndEvictDeletedIds() {
+        BulkDeleteRequest request = new BulkDeleteRequest();
+        request.setContentType("text/*");
+        given(storedFileDeletionRepository.deleteMatching(isNull(), any())).willReturn(List.of(1L, 2L));
+
+        assertThat(fileStorageService.deleteMatching(request)).isEqualTo(2);
+        verify(eventPublisher).publishEvent(any(StoredFileDeletedEvent.class));
+    }
+
+    @Test
+    void openDownload_smallFile_shouldBeServedFromCacheOnRepeat() throws Exception {
+        StoredFileBlob blob = new StoredFileBlob();
+        blob.setId(21L);
+        StoredFile entity = new StoredFile(5L, "hot.txt", "text/plain", 3L, LocalDateTime.now(), blob);
+        given(storedFileRepository.findById(5L)).willReturn(Optional.of(entity));
+        given(storedFileBlobContentRepository.openResource(21L, 3L)).willReturn(new ByteArrayResource(new byte[] {1, 2, 3}));
+
+        fileStorageService.openDownload(5L);
+        Optional<StoredFileDownload> second = fileStorageService.openDownload(5L);
+
+        assertThat(second).isPresent();
+        assertThat(second.get().getContent().getContentAsByteArray()).containsExactly(1, 2, 3);
+        verify(storedFileRepository, times(1)).findById(5L);
+        assertThat(fileStorageService.getFileById(5L)).get()
+                .extracting(StoredFileDto::getContent).isEqualTo(new byte[] {1, 2, 3});
+    }
+
+    @Test
+    void openDownload_fileAboveCacheLimit_shouldStreamEveryTime() {
+        StoredFileBlob blob = new StoredFileBlob();
+        blob.setId(22L);
+        StoredFile entity = new StoredFile(6L, "big.bin", "application/octet-stream", 9L, LocalDateTime.now(), blob);
+        Resource resource = new ByteArrayResource(new byte[9]);
+        given(storedFileRepository.findById(6L)).willReturn(Optional.of(entity));
+        given(storedFileBlobContentRepository.openResource(22L, 9L)).willReturn(resource);
+
+        assertThat(fileStorageService.openDownload(6L)).get()
+                .extracting(StoredFileDownload::getContent).isSameAs(resource);
+        fileStorageService.openDownload(6L);
+
+        verify(storedFileRepository, times(2)).findById(6L);
+    }
+
+    @Test
+    void deleteById_shouldEvictCachedContent() {
+        StoredFileBlob blob = new StoredFileBlob();
+        blob.setId(23L);
+        StoredFile entity = new StoredFile(7L, "gone.txt", "text/plain", 1L, LocalDateTime.now(), blob);
+        given(storedFileRepository.findById(7L)).willReturn(Optional.of(entity));
+        given(storedFileBlobContentRepository.openResource(23L, 1L)).willReturn(new ByteArrayResource(new byte[] {4}));
+        given(storedFileRepository.findBlobIdById(7L)).willReturn(Optional.of(23L));
+        given(storedFileRepository.deleteFileById(7L)).willReturn(1);
+        fileStorageService.openDownload(7L);
+
+        fileStorageService.deleteById(7L);
+
+        assertThat(cacheManager.getCache(FileStorageService.CONTENT_CACHE).get(7L)).isNull();
+        verify(eventPublisher).publishEvent(any(StoredFileDeletedEvent.class));
+    }
+
+    @Test
+    void openDownload_deleteCommittingDuringMiss_shouldNotLeaveContentCached() {
+        StoredFileBlob blob = new StoredFileBlob();
+        blob.setId(25L);
+        StoredFile entity = new StoredFile(9L, "racy.txt", "text/plain", 1L, LocalDateTime.now(), blob);
+        given(storedFileRepository.findById(9L)).willReturn(Optional.of(entity));
+        // The delete commits after the row was read but before the content is cached.
+        given(storedFileBlobContentRepository.openResource(25L, 1L)).willAnswer(inv -> {
+            fileStorageService.onDeleted(new StoredFileDeletedEvent(9L));
+            return new ByteArrayResource(new byte[] {5});
+        });
+
+        assertThat(fileStorageService.openDownload(9L)).isPresent();
+
+        assertThat(cacheManager.getCache(FileStorageService.CONTENT_CACHE).get(9L)).isNull();
+    }
+
+    @Test
+    void openStream_shouldStreamTheBlobWithoutCachingOrCountingAnAccess() {
+        StoredFileBlob blob = new StoredFileBlob();
+        blob.setId(26L);
+        StoredFile entity = new StoredFile(11L, "packed.txt", "text/plain", 2L, LocalDateTime.now(), blob);
+        Resource resource = new ByteArrayResource(new byte[] {8, 9});
+        given(storedFileRepository.findById(11L)).willReturn(Optional.of(entity));
+        given(storedFileBlobContentRepository.openResource(26L, 2L)).willReturn(resource);
+
+        assertThat(fileStorageService.openStream(11L)).get()
+                .extracting(StoredFileDownload::getContent).isSameAs(resource);
+
+        assertThat(cacheManager.getCache(FileStorageService.CONTENT_CACHE).get(11L)).isNull();
+        assertThat(fileAccessRepository.lastAccessMillis(11L, -1)).isEqualTo(-1);
+    }
+
+    @Test
+    void getFileById_smallFile_shouldFillCache() {
+        StoredFile entity = new StoredFile(10L, "warm.txt", "text/plain", 2L, LocalDateTime.now(),
+                new StoredFileBlob(new byte[] {6, 7}));
+        given(storedFileRepository.findById(10L)).willReturn(Optional.of(entity));
+
+        fileStorageService.getFileById(10L);
+        Optional<StoredFileDownload> download = fileStorageService.openDownload(10L);
+
+        assertThat(download).isPresent();
+        assertThat(download.get().getContent()).isInstanceOf(ByteArrayResource.class);
+        verify(storedFileRepository, times(1)).findById(10L);
+    }
+
+    @Test
+    void storeAll_shouldStreamEachPayloadAndSaveMetadataTogether() {
+        given(storedFileBlobContentRepository.insert(any(InputStream.class)))
+                .willReturn(new BlobWriteResult(40L, 1L, "aa"), new BlobWriteResult(41L, 2L, "bb"));
+        given(storedFileBlobRepository.getReferenceById(any())).willReturn(new StoredFileBlob());
+        given(storedFileRepository.saveAll(any())).willAnswer(inv -> inv.getArgument(0));
+
+        List<StoredFileMetadataDto> saved = fileStorageService.storeAll(List.of(
+                new StoredFileUpload("x.csv", "text/csv", new ByteArrayResource(new byte[] {1})),
+                new StoredFileUpload("y.csv", "text/csv", new ByteArrayResource(new byte[] {1, 2}))));
+
+        assertThat(saved).extracting(StoredFileMetadataDto::getFilename).containsExactly("x.csv", "y.csv");
+        assertThat(saved).extracting(StoredFileMetadataDto::getChecksum).containsExactly("aa", "bb");
+        verify(storedFileRepository, times(1)).saveAll(any());
+        verify(storedFileRepository).flush();
+    }
 }
@@ -0,0 +1,212 @@
+package com.mandrel.file_storage_service.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.util.unit.DataSize;
+
+import com.mandrel.file_storage_service.model.LocalFileDurability;
+import com.mandrel.file_storage_service.model.LocalFileLayout;
+import com.mandrel.file_storage_service.model.StoredFileDownload;
+import com.mandrel.file_storage_service.model.StoredFileDto;
+import com.mandrel.file_storage_service.model.StoredFileMetadataDto;
+import com.mandrel.file_storage_service.model.StoredFileUpload;
+import com.mandrel.file_storage_service.repository.LocalFileContentRepository;
+import com.mandrel.file_storage_service.repository.LocalFileIndexJournalRepository;
+import com.mandrel.file_storage_service.repository.LocalFileIndexRepository;
+import com.mandrel.file_storage_service.repository.LocalFileMappingRepository;
+
+/**
+ * Hammers a handful of filenames with concurrent writes, deletes and reads and
+ * checks that every read sees one whole version of a file.
+ */
+class FileUploadServiceConcurrencyTest {
+
+    private static final List<String> HOT_NAMES = List.of("hot-0.bin", "hot-1.bin", "hot-2.bin");
+
+    private final FileUploadService service = new FileUploadService(new LocalFileIndexRepository(),
+            new LocalFileContentRepository(LocalFileDurability.NONE, Duration.ZERO),
+            new LocalFileIndexJournalRepository(),
+            // Small enough that mappings are evicted and unmapped while readers still use them
+            new LocalFileMappingRepository(true, DataSize.ofKilobytes(16), DataSize.ofKilobytes(8)),
+            new ContentTypeDetectionService(), LocalFileLayout.FLAT, false);
+
+    @AfterEach
+    void cleanUp() throws IOException {
+        Path root = Path.of("uploaded-files");
+        if (Files.exists(root)) {
+            try (var s = Files.walk(root)) {
+                s.sorted(Comparator.reverseOrder()).forEach(p -> {
+                    try { Files.deleteIfExists(p); } catch (IOException ignored) {}
+                });
+            }
+        }
+    }
+
+    /**
+     * Version {@code v} of a file is {@code 64 + v % 4096} bytes, all equal to {@code v % 251}.
+     */
+    private static byte[] payload(int v) {
+        byte[] data = new byte[64 + v % 4096];
+        Arrays.fill(data, (byte) (v % 251));
+        return data;
+    }
+
+    private static boolean isWholeVersion(byte[] data) {
+        if (data.length < 64) {
+            return false;
+        }
+        for (int v = data.length - 64; v < 1_000_000; v += 4096) {
+            if (v % 251 == (data[0] & 0xFF)) {
+                return Arrays.equals(data, payload(v));
+            }
+        }
+        return false;
+    }
+
+    @Test
+    void sameNameWritersDeletersAndReaders_shouldOnlyObserveWholeVersions() throws Exception {
+        int writers = 6;
+        int readers = 6;
+        int opsPerThread = 300;
+        ExecutorService pool = Executors.newFixedThreadPool(writers + readers);
+        ConcurrentLinkedQueue<String> violations = new ConcurrentLinkedQueue<>();
+        ConcurrentLinkedQueue<Long> versions = new ConcurrentLinkedQueue<>();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> tasks = new ArrayList<>();
+        try {
+            for (int w = 0; w < writers; w++) {
+                int writer = w;
+                tasks.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < opsPerThread; i++) {
+                        String name = HOT_NAMES.get(ThreadLocalRandom.current().nextInt(HOT_NAMES.size()));
+                        if (i % 10 == 9) {
+                            service.deleteByFilename(name);
+                        } else {
+                            byte[] data = payload(writer * opsPerThread + i);
+                            StoredFileMetadataDto stored = service.store(new StoredFileUpload(name, null,
+                                    new InputStreamResource(new ByteArrayInputStream(data))));
+                            versions.add(stored.getVersion());
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (int r = 0; r < readers; r++) {
+                tasks.add(pool.submit(() -> {
+                    start.await();
+                    MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+                    for (int i = 0; i < opsPerThread; i++) {
+                        String name = HOT_NAMES.get(ThreadLocalRandom.current().nextInt(HOT_NAMES.size()));
+                        Optional<StoredFileDto> file = service.getFileByFilename(name);
+                        if (file.isPresent() && !isWholeVersion(file.get().getContent())) {
+                            violations.add("torn read of " + name);
+                        }
+                        Optional<StoredFileDownload> download = service.openFile(name);
+                        if (download.isEmpty()) {
+                            continue;
+                        }
+                        StoredFileMetadataDto metadata = download.get().getMetadata();
+                        byte[] bytes;
+                        try (InputStream in = download.get().getContent().getInputStream()) {
+                            bytes = in.readAllBytes();
+                        } catch (IOException replacedOrDeleted) {
+                            continue;
+                        }
+                        if (bytes.length != metadata.getSize() || !isWholeVersion(bytes)) {
+                            violations.add("download of " + name + " disagrees with its size");
+                        } else if (metadata.getChecksum() != null
+                                && !metadata.getChecksum().equals(HexFormat.of().formatHex(sha256.digest(bytes)))) {
+                            violations.add("download of " + name + " disagrees with its checksum");
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> task : tasks) {
+                task.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertThat(violations).isEmpty();
+        assertThat(versions).doesNotHaveDuplicates();
+        for (String name : HOT_NAMES) {
+            Optional<StoredFileDto> file = service.getFileByFilename(name);
+            assertThat(service.openFile(name).isPresent()).isEqualTo(file.isPresent());
+            file.ifPresent(f -> assertThat(isWholeVersion(f.getContent())).isTrue());
+        }
+        try (var entries = Files.list(Path.of("uploaded-files"))) {
+            assertThat(entries.map(p -> p.getFileName().toString()).filter(n -> !n.startsWith(".")))
+                    .allMatch(HOT_NAMES::contains);
+        }
+    }
+
+    @Test
+    void slowUpload_shouldNotBlockReadersOfThatNameOrWritersOfOthers() throws Exception {
+        service.store(new StoredFileUpload("slow.bin", null, new InputStreamResource(
+                new ByteArrayInputStream(payload(1)))));
+        CountDownLatch uploadStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        InputStream stalled = new ByteArrayInputStream(payload(2)) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                uploadStarted.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.read(b, off, len);
+            }
+        };
+        CompletableFuture<StoredFileMetadataDto> slow = CompletableFuture.supplyAsync(
+                () -> service.store(new StoredFileUpload("slow.bin", null, new InputStreamResource(stalled))));
+        try {
+            assertThat(uploadStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+            CompletableFuture<Optional<StoredFileDto>> read = CompletableFuture.supplyAsync(
+                    () -> service.getFileByFilename("slow.bin"));
+            CompletableFuture<StoredFileMetadataDto> other = CompletableFuture.supplyAsync(
+                    () -> service.store(new StoredFileUpload("other.bin", null, new InputStreamResource(
+                            new ByteArrayInputStream(payload(3))))));
+
+            assertThat(read.get(5, TimeUnit.SECONDS)).get()
+                    .extracting(StoredFileDto::getContent).isEqualTo(payload(1));
+            assertThat(other.get(5, TimeUnit.SECONDS).getSize()).isEqualTo(payload(3).length);
+            assertThat(slow).isNotDone();
+        } finally {
+            release.countDown();
+        }
+        assertThat(slow.get(5, TimeUnit.SECONDS).getVersion()).isGreaterThan(1L);
+        assertThat(service.getFileByFilename("slow.bin")).get()
+                .extracting(StoredFileDto::getContent).isEqualTo(payload(2));
+    }
+}
@@ -3,31 +3,63 @@ package com.mandrel.file_storage_service.service;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.util.unit.DataSize;
 
+import com.mandrel.file_storage_service.model.BatchUploadResult;
+import com.mandrel.file_storage_service.model.BulkDeleteRequest;
+import com.mandrel.file_storage_service.model.FileListQuery;
+import com.mandrel.file_storage_service.model.FilePage;
+import com.mandrel.file_storage_service.model.FileSortField;
+import com.mandrel.file_storage_service.model.LocalFileDurability;
+import com.mandrel.file_storage_service.model.LocalFileLayout;
+import com.mandrel.file_storage_service.model.StoredFileDownload;
 import com.mandrel.file_storage_service.model.StoredFileDto;
+import com.mandrel.file_storage_service.model.StoredFileMetadataDto;
+import com.mandrel.file_storage_service.model.StoredFileUpload;
+import com.mandrel.file_storage_service.repository.LocalFileContentRepository;
+import com.mandrel.file_storage_service.repository.LocalFileIndexJournalRepository;
+import com.mandrel.file_storage_service.repository.LocalFileIndexRepository;
+import com.mandrel.file_storage_service.repository.LocalFileMappingRepository;
 
 class FileUploadServiceTest {
 
-    private final FileUploadService service = new FileUploadService();
+    private final FileUploadService service = newService(LocalFileLayout.FLAT);
+
+    private static FileUploadService newService(LocalFileLayout layout) {
+        return newService(layout, new LocalFileMappingRepository(false, DataSize.ofMegabytes(1), DataSize.ofMegabytes(1)));
+    }
+
+    private static FileUploadService newService(LocalFileLayout layout, LocalFileMappingRepository mappings) {
+        return new FileUploadService(new LocalFileIndexRepository(),
+                new LocalFileContentRepository(LocalFileDurability.NONE, Duration.ZERO),
+                new LocalFileIndexJournalRepository(), mappings, new ContentTypeDetectionService(),
+                layout, false);
+    }
 
     @AfterEach
     void cleanUp() throws IOException {
         // Clean the 'uploaded-files' directory created by FileUploadService if present
         Path root = Path.of("uploaded-files");
         if (Files.exists(root)) {
-            try (var s = Files.list(root)) {
-                s.forEach(p -> {
+            try (var s = Files.walk(root)) {
+                s.sorted(Comparator.reverseOrder()).forEach(p -> {
                     try { Files.deleteIfExists(p); } catch (IOException ignored) {}
                 });
             }
-            Files.deleteIfExists(root);
         }
     }
 
@@ -50,6 +82,54 @@ class FileUploadServiceTest {
         assertThat(removed).isTrue();
     }
 
+    @Test
+    void openFile_shouldStatWithoutReadingContent() throws IOException {
+        byte[] data = "abcdef".getBytes();
+        service.store(StoredFileDto.builder().filename("s.txt").content(data).build());
+
+        Optional<StoredFileDownload> download = service.openFile("s.txt");
+
+        assertThat(download).isPresent();
+        assertThat(download.get().getMetadata().getSize()).isEqualTo(6L);
+        assertThat(download.get().getContent().isFile()).isTrue();
+        assertThat(download.get().getContent().getContentAsByteArray()).isEqualTo(data);
+        try (InputStream in = download.get().getContent().getInputStream()) {
+            assertThat(in.skip(4)).isEqualTo(4);
+            assertThat(in.readAllBytes()).isEqualTo("ef".getBytes());
+        }
+        assertThat(service.openFile("nope.txt")).isEmpty();
+    }
+
+    @Test
+    void storeAll_shouldStreamEachFileAndIndexIt() {
+        List<BatchUploadResult> results = service.storeAll(List.of(
+                new StoredFileUpload("one.txt", "text/plain", new ByteArrayResource("1".getBytes())),
+                new StoredFileUpload("two.txt", "text/plain", new ByteArrayResource("22".getBytes()))));
+
+        assertThat(results).extracting(BatchUploadResult::isStored).containsExactly(true, true);
+        assertThat(results).extracting(BatchUploadResult::getSize).containsExactly(1L, 2L);
+        assertThat(service.list(FileListQuery.builder().sort(FileSortField.FILENAME).build()).getItems())
+                .extracting(StoredFileMetadataDto::getFilename).contains("one.txt", "two.txt");
+    }
+
+    @Test
+    void deleteMatching_shouldDeleteByNameAndByFilter() {
+        service.storeAll(List.of(
+                new StoredFileUpload("keep.png", null, new ByteArrayResource(new byte[] {1})),
+                new StoredFileUpload("a.txt", null, new ByteArrayResource(new byte[] {1})),
+                new StoredFileUpload("b.txt", null, new ByteArrayResource(new byte[] {1}))));
+        BulkDeleteRequest byName = new BulkDeleteRequest();
+        byName.setFilenames(List.of("a.txt", "missing.txt"));
+        assertThat(service.deleteMatching(byName)).isEqualTo(1);
+
+        BulkDeleteRequest byFilter = new BulkDeleteRequest();
+        byFilter.setOlderThan(LocalDateTime.now().plusDays(1));
+        byFilter.setContentType("text/plain");
+        assertThat(service.deleteMatching(byFilter)).isEqualTo(1);
+        assertThat(service.openFile("b.txt")).isEmpty();
+        assertThat(service.openFile("keep.png")).isPresent();
+    }
+
     @Test
     void getFileByFilename_missing_shouldReturnEmpty() {
         assertThat(service.getFileByFilename("missing")).isEmpty();
@@ -67,4 +147,220 @@ class FileUploadServiceTest {
         }
         assertThat(service.listAll()).isEmpty();
     }
+
+    @Test
+    void list_shouldPageThroughIndexAndForgetDeletedFiles() {
+        for (String name : List.of("c.txt", "a.txt", "b.txt")) {
+            service.store(StoredFileDto.builder().filename(name).content(new byte[] {1}).build());
+        }
+
+        FilePage<StoredFileMetadataDto> first = service.list(FileListQuery.builder()
+                .sort(FileSortField.FILENAME).limit(2).build());
+        assertThat(first.getItems()).extracting(StoredFileMetadataDto::getFilename).containsExactly("a.txt", "b.txt");
+        assertThat(first.hasNext()).isTrue();
+
+        service.deleteByFilename("c.txt");
+        FilePage<StoredFileMetadataDto> second = service.list(FileListQuery.fromParams(
+                "filename", "asc", first.getNextCursor(), 2, null, null, null, null, null, FileSortField.FILENAME));
+        assertThat(second.getItems()).isEmpty();
+        assertThat(second.hasNext()).isFalse();
+    }
+
+    @Test
+    void store_shouldRecordChecksumAndSurviveRestartFromJournal() {
+        service.store(StoredFileDto.builder().filename("j.txt").contentType("text/x-custom")
+                .content("abc".getBytes()).build());
+
+        FileUploadService restarted = newService(LocalFileLayout.FLAT);
+        StoredFileMetadataDto indexed = restarted.list(FileListQuery.builder().sort(FileSortField.FILENAME).build())
+                .getItems().get(0);
+        assertThat(indexed.getFilename()).isEqualTo("j.txt");
+        assertThat(indexed.getContentType()).isEqualTo("text/x-custom");
+        assertThat(indexed.getChecksum())
+                .isEqualTo("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad");
+    }
+
+    @Test
+    void versions_shouldNotRepeatAfterDeletingTheNewestFileAndRestarting() {
+        service.store(StoredFileDto.builder().filename("old.txt").content(new byte[] {1}).build());
+        long newest = service.store(new StoredFileUpload("new.txt", null, new ByteArrayResource(new byte[] {2})))
+                .getVersion();
+        service.deleteByFilename("new.txt");
+
+        // The first restart compacts the journal, dropping new.txt's record; the second replays the compacted one.
+        newService(LocalFileLayout.FLAT).listAll();
+        FileUploadService restarted = newService(LocalFileLayout.FLAT);
+        StoredFileMetadataDto next = restarted.store(new StoredFileUpload("next.txt", null,
+                new ByteArrayResource(new byte[] {3})));
+
+        assertThat(next.getVersion()).isGreaterThan(newest);
+    }
+
+    @Test
+    void store_shouldWriteUnderTheConfiguredDirectory(@TempDir Path dir) {
+        FileUploadService elsewhere = new FileUploadService(dir.resolve("files"), new LocalFileIndexRepository(),
+                new LocalFileContentRepository(LocalFileDurability.NONE, Duration.ZERO),
+                new LocalFileIndexJournalRepository(),
+                new LocalFileMappingRepository(false, DataSize.ofMegabytes(1), DataSize.ofMegabytes(1)),
+                new ContentTypeDetectionService(), LocalFileLayout.FLAT, false, 1000, 0.5);
+
+        elsewhere.store(StoredFileDto.builder().filename("here.txt").content(new byte[] {1}).build());
+
+        assertThat(dir.resolve("files").resolve("here.txt")).exists();
+        assertThat(Path.of("uploaded-files", "here.txt")).doesNotExist();
+        assertThat(elsewhere.getFileByFilename("here.txt")).isPresent();
+    }
+
+    @Test
+    void overwrites_shouldCompactTheJournalOnceDeadRecordsPassTheThreshold(@TempDir Path dir) throws IOException {
+        FileUploadService compacting = newService(dir, 10, 0.5);
+        compacting.store(StoredFileDto.builder().filename("keep.txt").content(new byte[] {1}).build());
+        StoredFileMetadataDto last = null;
+        for (int i = 0; i < 50; i++) {
+            last = compacting.store(new StoredFileUpload("hot.txt", null, new ByteArrayResource(new byte[] {(byte) i})));
+        }
+        compacting.deleteByFilename("keep.txt");
+
+        // 52 records appended; compaction keeps the count within the threshold of the one live file.
+        List<String> records = Files.readAllLines(dir.resolve(LocalFileIndexJournalRepository.INDEX_FILE_NAME));
+        assertThat(records).hasSizeLessThanOrEqualTo(1 + 1 + 10 + 1);
+        FileUploadService restarted = newService(dir, 10, 0.5);
+        assertThat(restarted.listAll()).extracting(StoredFileDto::getFilename).containsExactly("hot.txt");
+        assertThat(restarted.getFileByFilename("hot.txt").orElseThrow().getContent()).containsExactly(49);
+        StoredFileMetadataDto next = restarted.store(
+                new StoredFileUpload("other.txt", null, new ByteArrayResource(new byte[] {2})));
+        assertThat(next.getVersion()).isGreaterThan(last.getVersion());
+    }
+
+    private static FileUploadService newService(Path dir, long compactMinDeadRecords, double compactRatio) {
+        return new FileUploadService(dir, new LocalFileIndexRepository(),
+                new LocalFileContentRepository(LocalFileDurability.NONE, Duration.ZERO),
+                new LocalFileIndexJournalRepository(),
+                new LocalFileMappingRepository(false, DataSize.ofMegabytes(1), DataSize.ofMegabytes(1)),
+                new ContentTypeDetectionService(), LocalFileLayout.FLAT, false, compactMinDeadRecords, compactRatio);
+    }
+
+    @Test
+    void reservedDotFiles_shouldBeHidden() {
+        service.store(StoredFileDto.builder().filename("v.txt").content(new byte[] {1}).build());
+
+        assertThat(Files.exists(Path.of("uploaded-files", LocalFileIndexJournalRepository.INDEX_FILE_NAME))).isTrue();
+        assertThat(service.listAll()).extracting(StoredFileDto::getFilename).containsExactly("v.txt");
+        assertThat(service.openFile(LocalFileIndexJournalRepository.INDEX_FILE_NAME)).isEmpty();
+        assertThat(service.deleteByFilename(LocalFileIndexJournalRepository.INDEX_FILE_NAME)).isFalse();
+    }
+
+    @Test
+    void deleteByFilename_shouldRefuseNamesResolvingOutsideTheUploadDirectory() throws IOException {
+        service.store(StoredFileDto.builder().filename("keep.txt").content(new byte[] {1}).build());
+        Path outside = Files.writeString(Path.of("outside-uploads.txt"), "keep");
+        try {
+            assertThat(service.deleteByFilename("../outside-uploads.txt")).isFalse();
+            assertThat(service.deleteByFilename("a/../../outside-uploads.txt")).isFalse();
+            assertThat(service.deleteByFilename("x/../keep.txt")).isFalse();
+            assertThat(outside).exists();
+            assertThat(Path.of("uploaded-files", "keep.txt")).exists();
+        } finally {
+            Files.deleteIfExists(outside);
+        }
+    }
+
+    @Test
+    void shardedLayout_shouldNestFilesUnderHashPrefixes() throws IOException {
+        FileUploadService sharded = newService(LocalFileLayout.SHARDED);
+        sharded.store(StoredFileDto.builder().filename("deep.txt").content("xyz".getBytes()).build());
+
+        Path expected = LocalFileLayout.SHARDED.resolve(Path.of("uploaded-files"), "deep.txt");
+        assertThat(expected.getNameCount()).isEqualTo(4);
+        assertThat(Files.readAllBytes(expected)).isEqualTo("xyz".getBytes());
+        assertThat(sharded.openFile("deep.txt")).isPresent();
+        assertThat(newService(LocalFileLayout.SHARDED).listAll()).extracting(StoredFileDto::getFilename)
+                .containsExactly("deep.txt");
+
+        assertThat(sharded.deleteByFilename("deep.txt")).isTrue();
+        assertThat(expected).doesNotExist();
+    }
+
+    @Test
+    void migrateLayout_shouldMoveFlatFilesIntoShardsAndBack() throws IOException {
+        for (String name : List.of("m1.txt", "m2.txt", "m3.txt")) {
+            service.store(StoredFileDto.builder().filename(name).content(name.getBytes()).build());
+        }
+
+        FileUploadService sharded = newService(LocalFileLayout.SHARDED);
+        assertThat(sharded.migrateLayout()).isEqualTo(3);
+        assertThat(sharded.migrateLayout()).isZero();
+        assertThat(Path.of("uploaded-files", "m1.txt")).doesNotExist();
+        assertThat(LocalFileLayout.SHARDED.resolve(Path.of("uploaded-files"), "m1.txt")).exists();
+        assertThat(sharded.getFileByFilename("m2.txt")).get()
+                .extracting(StoredFileDto::getContent).isEqualTo("m2.txt".getBytes());
+        assertThat(sharded.listAll()).hasSize(3);
+
+        FileUploadService flat = newService(LocalFileLayout.FLAT);
+        assertThat(flat.migrateLayout()).isEqualTo(3);
+        assertThat(Path.of("uploaded-files", "m3.txt")).exists();
+        assertThat(flat.listAll()).extracting(StoredFileDto::getFilename)
+                .containsExactlyInAnyOrder("m1.txt", "m2.txt", "m3.txt");
+        try (var entries = Files.list(Path.of("uploaded-files"))) {
+            assertThat(entries.filter(Files::isDirectory)).isEmpty();
+        }
+    }
+
+    @Test
+    void migrateLayout_shouldLeaveReservedDirectoriesAlone() throws IOException {
+        service.store(StoredFileDto.builder().filename("m1.txt").content(new byte[] {1}).build());
+        Path emptyCold = Files.createDirectories(Path.of("uploaded-files", ".cold"));
+        Path coldBlob = Files.write(Files.createDirectories(Path.of("uploaded-files", ".tier", "ab"))
+                .resolve(".blob-1"), new byte[] {2});
+
+        newService(LocalFileLayout.SHARDED).migrateLayout();
+        newService(LocalFileLayout.FLAT).migrateLayout();
+
+        assertThat(emptyCold).isDirectory();
+        assertThat(coldBlob).exists();
+        assertThat(Path.of("uploaded-files", "m1.txt")).exists();
+    }
+
+    @Test
+    void mmapCache_shouldServeHotFilesFromMappingAndDropThemOnWrite() throws IOException {
+        FileUploadService mapped = newService(LocalFileLayout.FLAT,
+                new LocalFileMappingRepository(true, DataSize.ofKilobytes(64), DataSize.ofKilobytes(4)));
+        mapped.store(StoredFileDto.builder().filename("icon.png").content("v1-bytes".getBytes()).build());
+        mapped.store(StoredFileDto.builder().filename("big.bin").content(new byte[8192]).build());
+
+        assertThat(mapped.openFile("icon.png").get().getContent().isFile()).isFalse();
+        Resource hot = mapped.openFile("icon.png").get().getContent();
+        try (InputStream in = hot.getInputStream()) {
+            assertThat(in.skip(3)).isEqualTo(3);
+            assertThat(in.readAllBytes()).isEqualTo("bytes".getBytes());
+        }
+        assertThat(mapped.openFile("big.bin").get().getContent().isFile()).isTrue();
+        assertThat(mapped.getMappedCacheStats()).get().satisfies(stats -> {
+            assertThat(stats.getHitCount()).isEqualTo(1);
+            assertThat(stats.getMissCount()).isEqualTo(1);
+            assertThat(stats.getWeightedSize()).isEqualTo(8);
+        });
+
+        mapped.store(StoredFileDto.builder().filename("icon.png").content("v2".getBytes()).build());
+        assertThat(mapped.getMappedCacheStats().get().getEntryCount()).isZero();
+        assertThat(mapped.getFileByFilename("icon.png").get().getContent()).isEqualTo("v2".getBytes());
+        assertThat(mapped.deleteByFilename("icon.png")).isTrue();
+        assertThat(mapped.getMappedCacheStats().get().getWeightedSize()).isZero();
+        assertThat(service.getMappedCacheStats()).isEmpty();
+    }
+
+    @Test
+    void store_shouldSniffContentTypeOnceAndServeItFromTheIndex() throws IOException {
+        byte[] png = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n', 0, 0, 0, 13};
+        service.store(StoredFileDto.builder().filename("picture").content(png).build());
+        service.storeAll(List.of(new StoredFileUpload("rows.csv", "application/octet-stream",
+                new ByteArrayResource("id,name\n1,a\n".getBytes()))));
+
+        assertThat(service.openFile("picture").get().getMetadata().getContentType()).isEqualTo("image/png");
+        assertThat(service.getFileByFilename("rows.csv").get().getContentType()).isEqualTo("text/csv");
+
+        // Read paths take the stored type even if the bytes change behind the service's back
+        Files.write(Path.of("uploaded-files", "rows.csv"), png);
+        assertThat(service.openFile("rows.csv").get().getMetadata().getContentType()).isEqualTo("text/csv");
+    }
 }
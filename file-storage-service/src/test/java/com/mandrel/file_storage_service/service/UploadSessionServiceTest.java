@@ -0,0 +1,203 @@
+package com.mandrel.file_storage_service.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.util.unit.DataSize;
+
+import com.mandrel.file_storage_service.model.StorageBackend;
+import com.mandrel.file_storage_service.model.StoredFileMetadataDto;
+import com.mandrel.file_storage_service.model.StoredFileUpload;
+import com.mandrel.file_storage_service.model.UploadLimitExceededException;
+import com.mandrel.file_storage_service.model.UploadPartDto;
+import com.mandrel.file_storage_service.model.UploadSessionDto;
+import com.mandrel.file_storage_service.repository.UploadSessionRepository;
+
+class UploadSessionServiceTest {
+
+    @TempDir
+    Path staging;
+
+    @Mock
+    private FileStorageService fileStorageService;
+
+    @Mock
+    private FileUploadService fileUploadService;
+
+    private UploadSessionService service;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        service = new UploadSessionService(new UploadSessionRepository(staging), fileStorageService, fileUploadService,
+                DataSize.ofBytes(16), 100, DataSize.ofBytes(64), Duration.ofHours(1));
+    }
+
+    @Test
+    void parts_sent_out_of_order_are_assembled_in_part_number_order() throws Exception {
+        UploadSessionDto session = service.create(StorageBackend.MEMORY, "report.txt", "text/plain", 9);
+        AtomicReference<String> received = new AtomicReference<>();
+        given(fileStorageService.store(eq("report.txt"), eq("text/plain"), any(InputStream.class))).willAnswer(inv -> {
+            received.set(new String(inv.<InputStream>getArgument(2).readAllBytes(), StandardCharsets.UTF_8));
+            return StoredFileMetadataDto.builder().id(7L).filename("report.txt").build();
+        });
+
+        service.putPart(StorageBackend.MEMORY, session.getId(), 3, stream("ghi"));
+        service.putPart(StorageBackend.MEMORY, session.getId(), 1, stream("abc"));
+        service.putPart(StorageBackend.MEMORY, session.getId(), 2, stream("def"));
+        // A re-sent part replaces the first copy.
+        service.putPart(StorageBackend.MEMORY, session.getId(), 1, stream("ABC"));
+
+        assertThat(service.find(StorageBackend.MEMORY, session.getId()).orElseThrow().getParts())
+                .extracting(UploadPartDto::getPartNumber).containsExactly(1, 2, 3);
+        assertThat(service.complete(StorageBackend.MEMORY, session.getId()).orElseThrow().getId()).isEqualTo(7L);
+        assertThat(received.get()).isEqualTo("ABCdefghi");
+        assertThat(service.find(StorageBackend.MEMORY, session.getId())).isEmpty();
+        try (var left = Files.list(staging)) {
+            assertThat(left).isEmpty();
+        }
+    }
+
+    @Test
+    void local_sessions_complete_through_the_streaming_store() throws Exception {
+        UploadSessionDto session = service.create(StorageBackend.LOCAL, "notes.md", null, 7);
+        service.putPart(StorageBackend.LOCAL, session.getId(), 1, stream("# notes"));
+        AtomicReference<String> received = new AtomicReference<>();
+        given(fileUploadService.store(any(StoredFileUpload.class))).willAnswer(inv -> {
+            StoredFileUpload upload = inv.getArgument(0);
+            try (InputStream in = upload.getContent().getInputStream()) {
+                received.set(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+            }
+            return StoredFileMetadataDto.builder().filename(upload.getFilename()).build();
+        });
+
+        assertThat(service.complete(StorageBackend.LOCAL, session.getId())).isPresent();
+        assertThat(received.get()).isEqualTo("# notes");
+    }
+
+    @Test
+    void completing_with_a_gap_reports_the_missing_parts_and_keeps_the_session() {
+        UploadSessionDto session = service.create(StorageBackend.MEMORY, "gap.bin", "application/octet-stream", 4);
+        service.putPart(StorageBackend.MEMORY, session.getId(), 1, stream("a"));
+        service.putPart(StorageBackend.MEMORY, session.getId(), 4, stream("d"));
+
+        assertThatThrownBy(() -> service.complete(StorageBackend.MEMORY, session.getId()))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Missing parts: [2, 3]");
+
+        verify(fileStorageService, never()).store(any(), any(), any(InputStream.class));
+        service.putPart(StorageBackend.MEMORY, session.getId(), 2, stream("b"));
+        assertThat(service.find(StorageBackend.MEMORY, session.getId()).orElseThrow().getReceivedBytes()).isEqualTo(3);
+    }
+
+    @Test
+    void completing_before_the_trailing_parts_arrive_is_refused() {
+        UploadSessionDto session = service.create(StorageBackend.MEMORY, "early.bin", "application/octet-stream", 6);
+        service.putPart(StorageBackend.MEMORY, session.getId(), 1, stream("abc"));
+
+        assertThatThrownBy(() -> service.complete(StorageBackend.MEMORY, session.getId()))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Expected 6 bytes, received 3");
+
+        verify(fileStorageService, never()).store(any(), any(), any(InputStream.class));
+        assertThat(service.find(StorageBackend.MEMORY, session.getId()).orElseThrow().getSize()).isEqualTo(6);
+    }
+
+    @Test
+    void memory_sessions_and_parts_are_bounded_by_the_declared_size() {
+        assertThatThrownBy(() -> service.create(StorageBackend.MEMORY, "huge.bin", "application/octet-stream", 65))
+                .isInstanceOf(UploadLimitExceededException.class);
+        assertThatThrownBy(() -> service.create(StorageBackend.LOCAL, "negative.bin", null, -1))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        UploadSessionDto session = service.create(StorageBackend.LOCAL, "small.bin", null, 2);
+        assertThatThrownBy(() -> service.putPart(StorageBackend.LOCAL, session.getId(), 1, stream("abc")))
+                .isInstanceOf(UploadLimitExceededException.class);
+    }
+
+    @Test
+    void parts_beyond_the_declared_size_are_rejected_as_they_arrive() {
+        UploadSessionDto session = service.create(StorageBackend.LOCAL, "total.bin", null, 10);
+        service.putPart(StorageBackend.LOCAL, session.getId(), 1, stream("aaaa"));
+        service.putPart(StorageBackend.LOCAL, session.getId(), 2, stream("bbbb"));
+
+        // Each part is within max-part-size, but together they would pass the declared 10 bytes.
+        assertThatThrownBy(() -> service.putPart(StorageBackend.LOCAL, session.getId(), 3, stream("cccc")))
+                .isInstanceOf(UploadLimitExceededException.class);
+        assertThatThrownBy(() -> service.putPart(StorageBackend.LOCAL, session.getId(), 4, stream("ddd")))
+                .isInstanceOf(UploadLimitExceededException.class);
+
+        // A re-sent part counts once, and rejected parts are not counted at all.
+        service.putPart(StorageBackend.LOCAL, session.getId(), 2, stream("BBBB"));
+        service.putPart(StorageBackend.LOCAL, session.getId(), 3, stream("cc"));
+        UploadSessionDto staged = service.find(StorageBackend.LOCAL, session.getId()).orElseThrow();
+        assertThat(staged.getParts()).extracting(UploadPartDto::getPartNumber).containsExactly(1, 2, 3);
+        assertThat(staged.getReceivedBytes()).isEqualTo(10);
+    }
+
+    @Test
+    void failed_store_leaves_the_session_for_a_retry() {
+        UploadSessionDto session = service.create(StorageBackend.MEMORY, "retry.bin", "application/octet-stream", 7);
+        service.putPart(StorageBackend.MEMORY, session.getId(), 1, stream("payload"));
+        given(fileStorageService.store(any(), any(), any(InputStream.class)))
+                .willThrow(new IllegalArgumentException("database unavailable"));
+
+        assertThatThrownBy(() -> service.complete(StorageBackend.MEMORY, session.getId()))
+                .hasMessage("database unavailable");
+
+        assertThat(service.find(StorageBackend.MEMORY, session.getId()).orElseThrow().getParts()).hasSize(1);
+    }
+
+    @Test
+    void parts_are_bounded_and_sessions_are_scoped_to_their_backend() {
+        UploadSessionDto session = service.create(StorageBackend.LOCAL, "big.bin", null, 100);
+
+        assertThatThrownBy(() -> service.putPart(StorageBackend.LOCAL, session.getId(), 1, stream("x".repeat(17))))
+                .isInstanceOf(UploadLimitExceededException.class);
+        assertThatThrownBy(() -> service.putPart(StorageBackend.LOCAL, session.getId(), 0, stream("x")))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(service.find(StorageBackend.LOCAL, session.getId()).orElseThrow().getParts()).isEmpty();
+
+        assertThat(service.putPart(StorageBackend.MEMORY, session.getId(), 1, stream("x"))).isEmpty();
+        assertThat(service.find(StorageBackend.LOCAL, "../etc")).isEmpty();
+        assertThat(service.abort(StorageBackend.MEMORY, session.getId())).isFalse();
+        assertThat(service.abort(StorageBackend.LOCAL, session.getId())).isTrue();
+        assertThat(service.complete(StorageBackend.LOCAL, session.getId())).isEmpty();
+    }
+
+    @Test
+    void inactive_sessions_expire() throws Exception {
+        UploadSessionDto stale = service.create(StorageBackend.MEMORY, "stale.bin", "application/octet-stream", 1);
+        UploadSessionDto fresh = service.create(StorageBackend.MEMORY, "fresh.bin", "application/octet-stream", 1);
+        Files.setLastModifiedTime(staging.resolve(stale.getId()), FileTime.from(Instant.now().minus(Duration.ofHours(2))));
+
+        assertThat(service.deleteExpired()).isEqualTo(1);
+
+        assertThat(service.find(StorageBackend.MEMORY, stale.getId())).isEmpty();
+        assertThat(service.find(StorageBackend.MEMORY, fresh.getId())).isPresent();
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}